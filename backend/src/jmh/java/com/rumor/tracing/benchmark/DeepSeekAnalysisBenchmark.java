@@ -0,0 +1,173 @@
+package com.rumor.tracing.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rumor.tracing.ai.DeepSeekChatClient;
+import com.rumor.tracing.ai.DeepSeekDispatcher;
+import com.rumor.tracing.ai.DeepSeekResilience;
+import com.rumor.tracing.ai.TokenBucket;
+import com.rumor.tracing.config.DeepSeekClientConfig;
+import com.rumor.tracing.dto.request.DeepSeekAnalysisRequest;
+import com.rumor.tracing.dto.response.DeepSeekAnalysisResponse;
+import com.rumor.tracing.repository.DeepSeekResultCache;
+import com.rumor.tracing.service.impl.DeepSeekAIServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DeepSeek 分析链路基准
+ * 不启动 Spring 容器，按生产配置手工组装 客户端 → 容错 → 调度 → 服务，经本地替身（load-testing/slow-upstream.py）
+ * 调用 {@link DeepSeekAIServiceImpl#analyzeRumor}。结果缓存关闭，每次调用内容不同，测的是未命中时的完整链路。
+ * - throughput：每秒完成的分析数；latency：延迟分布（p99 等）；
+ * - 加 -prof gc 可得每次分析的分配字节数（gc.alloc.rate.norm）；
+ * - 每轮结束打印 JVM 线程数与按线程名前缀的分布，用于比较线程占用；
+ * - succeeded / fallback 为正常结果与降级为默认结果的次数。
+ * 用法见 MONITORING_LOAD_TESTING.md。
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Threads(64)
+public class DeepSeekAnalysisBenchmark {
+
+    /** 降级默认结果的验证建议，见 DeepSeekAIServiceImpl#createDefaultResponse */
+    private static final String FALLBACK_RECOMMENDATION = "由于技术原因，无法提供分析结果";
+
+    @Param("http://localhost:18080")
+    public String url;
+
+    @Param("200")
+    public int maxConnections;
+
+    @Param("64")
+    public int maxInFlight;
+
+    /** 调度限流，默认足够大，只测客户端与解析 */
+    @Param("100000")
+    public double requestsPerSecond;
+
+    /** 1 为不打包，与 8 对比批量发送的效果 */
+    @Param("1")
+    public int maxBatchSize;
+
+    @Param("false")
+    public boolean hedge;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private ConnectionProvider connectionProvider;
+    private DeepSeekDispatcher dispatcher;
+    private DeepSeekAIServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DeepSeekClientConfig clientConfig = new DeepSeekClientConfig();
+        connectionProvider = clientConfig.deepSeekConnectionProvider(
+            maxConnections, 10000, 10000, 30000, 300000);
+        WebClient webClient = clientConfig.deepSeekWebClient(
+            WebClient.builder(), connectionProvider, url, "benchmark", 5000);
+        DeepSeekChatClient chatClient = new DeepSeekChatClient(
+            webClient, "deepseek-chat", 0.7, 2000, 8000, 60000, 0, 0, 1);
+        TokenBucket rateLimiter = new TokenBucket(requestsPerSecond, Math.max(1, (int) requestsPerSecond));
+        DeepSeekResilience resilience = new DeepSeekResilience(
+            meterRegistry, new StandardEnvironment(), rateLimiter, 3, 100, 30000,
+            hedge, 0.1, 20, 60000, 50, 10, 0.5, 30000, 100000);
+        dispatcher = new DeepSeekDispatcher(chatClient, resilience, meterRegistry, rateLimiter, 60000,
+            maxInFlight, 100000, maxBatchSize, 400, 3000, 30000, 60000, 120000);
+        dispatcher.start();
+        DeepSeekResultCache cache = new DeepSeekResultCache(
+            null, null, null, objectMapper, false, 1, 1, 1, 1, 1);
+        service = new DeepSeekAIServiceImpl(chatClient, dispatcher, resilience, null, cache, objectMapper);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.shutdown();
+        connectionProvider.dispose();
+    }
+
+    /**
+     * 打印本轮的线程占用并重置峰值
+     */
+    @TearDown(Level.Iteration)
+    public void reportThreads() {
+        Map<String, Integer> byPrefix = new TreeMap<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            byPrefix.merge(thread.getName().replaceAll("[-_#]?\\d+$", ""), 1, Integer::sum);
+        }
+        System.out.printf("%nthreads: live=%d peak=%d %s%n",
+            threads.getThreadCount(), threads.getPeakThreadCount(), byPrefix);
+        threads.resetPeakThreadCount();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public DeepSeekAnalysisResponse throughput(Outcomes outcomes) {
+        return analyze(outcomes);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DeepSeekAnalysisResponse latency(Outcomes outcomes) {
+        return analyze(outcomes);
+    }
+
+    private DeepSeekAnalysisResponse analyze(Outcomes outcomes) {
+        DeepSeekAnalysisRequest request = new DeepSeekAnalysisRequest();
+        request.setContent("网传某地自来水检出超标重金属，已有多人中毒住院（样本 " + sequence.incrementAndGet() + "）");
+        request.setType("TEXT");
+        DeepSeekAnalysisResponse response = service.analyzeRumor(request);
+        if (FALLBACK_RECOMMENDATION.equals(response.getVerificationRecommendation())) {
+            outcomes.fallback++;
+        } else {
+            outcomes.succeeded++;
+        }
+        return response;
+    }
+
+    /**
+     * 每个测量线程的结果计数，JMH 汇总为每轮的事件数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+
+        public long succeeded;
+
+        public long fallback;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            succeeded = 0;
+            fallback = 0;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.rumor.tracing.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rumor.tracing.ai.DeepSeekResponseParser;
+import com.rumor.tracing.dto.DeepSeekSourceAnalysis;
+import com.rumor.tracing.dto.response.DeepSeekAnalysisResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DeepSeek 响应解析基准
+ * 比较三种解析 chat-completions 响应的方式（加 -prof gc 查看每次解析的分配字节数）：
+ * - treePerCallMapper：每次新建 ObjectMapper，外层与内容各解析为 JsonNode 树后 convertValue（最初的实现）；
+ * - treeSharedMapper：同上但共享 ObjectMapper；
+ * - streaming：{@link DeepSeekResponseParser}，流式定位内容、共享 ObjectReader 直接绑定 DTO（当前实现）。
+ * 用法: mvn -Pbenchmark test-compile exec:exec -Djmh.args="DeepSeekResponseParsingBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DeepSeekResponseParsingBenchmark {
+
+    private static final ObjectMapper SHARED_MAPPER = new ObjectMapper();
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, Object> analysis = Map.of(
+            "credibilityScore", 0.35,
+            "factCheckingPoints", List.of("未找到官方来源", "相关部门未发布通报", "图片经反向搜索为旧闻"),
+            "misinformationIndicators", List.of("缺乏可靠来源", "情绪化表述", "数据不一致"),
+            "verificationRecommendation", "建议通过官方渠道核实，关注当地政府与卫健部门的公告",
+            "sourceAnalysis", Map.of(
+                "reliability", 0.2,
+                "reputation", "自媒体",
+                "concerns", List.of("数据来源不明", "缺乏官方认证")));
+        Map<String, Object> completion = Map.of(
+            "id", "bench",
+            "object", "chat.completion",
+            "model", "deepseek-chat",
+            "choices", List.of(Map.of(
+                "index", 0,
+                "message", Map.of("role", "assistant", "content", SHARED_MAPPER.writeValueAsString(analysis)),
+                "finish_reason", "stop")),
+            "usage", Map.of("prompt_tokens", 420, "completion_tokens", 180, "total_tokens", 600));
+        body = SHARED_MAPPER.writeValueAsBytes(completion);
+    }
+
+    @Benchmark
+    public DeepSeekAnalysisResponse treePerCallMapper() throws IOException {
+        return parseTree(new ObjectMapper(), new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public DeepSeekAnalysisResponse treeSharedMapper() throws IOException {
+        return parseTree(SHARED_MAPPER, new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public DeepSeekAnalysisResponse streaming() throws IOException {
+        return DeepSeekResponseParser.analysis(DeepSeekResponseParser.messageContent(body));
+    }
+
+    /**
+     * 改动前的解析方式：响应体先解码为字符串，外层与内容各解析一次为树，再逐字段转换
+     */
+    private static DeepSeekAnalysisResponse parseTree(ObjectMapper mapper, String responseBody) throws IOException {
+        JsonNode root = mapper.readTree(responseBody);
+        String content = root.path("choices").path(0).path("message").path("content").asText();
+        JsonNode result = mapper.readTree(content);
+        return DeepSeekAnalysisResponse.builder()
+            .credibilityScore(result.has("credibilityScore") ? result.get("credibilityScore").asDouble() : 0.0)
+            .factCheckingPoints(result.has("factCheckingPoints") ?
+                mapper.convertValue(result.get("factCheckingPoints"), new TypeReference<List<String>>() {}) :
+                Collections.emptyList())
+            .misinformationIndicators(result.has("misinformationIndicators") ?
+                mapper.convertValue(result.get("misinformationIndicators"), new TypeReference<List<String>>() {}) :
+                Collections.emptyList())
+            .verificationRecommendation(result.has("verificationRecommendation") ?
+                result.get("verificationRecommendation").asText() : "暂无验证建议")
+            .sourceAnalysis(result.has("sourceAnalysis") ?
+                mapper.convertValue(result.get("sourceAnalysis"), DeepSeekSourceAnalysis.class) :
+                DeepSeekSourceAnalysis.builder()
+                    .reliability(0.0)
+                    .reputation("未知")
+                    .concerns(Collections.emptyList())
+                    .build())
+            .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.rumor.tracing.benchmark;
+
+import com.rumor.tracing.graph.PageRank;
+import com.rumor.tracing.graph.PropagationEdgeLog;
+import com.rumor.tracing.graph.PropagationGraph;
+import com.rumor.tracing.model.PropagationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PageRank 基准
+ * 合成级联：除第一个节点外，每个节点由一个更早的节点传播而来，其余边在随机的先后两个节点之间，
+ * 默认 100 万节点、400 万条边，参数与生产配置一致（阻尼 0.85，收敛阈值 1e-6）。
+ * - parallelism：计算线程池并行度，1 为单核，与核数对比分块并行的扩展性；
+ * - 每轮结束打印收敛所用的迭代次数与残差。
+ * 用法: mvn -Pbenchmark test-compile exec:exec -Djmh.args="PageRankBenchmark -p parallelism=1,4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class PageRankBenchmark {
+
+    @Param("1000000")
+    public int nodes;
+
+    @Param("4000000")
+    public int edges;
+
+    @Param("1")
+    public int parallelism;
+
+    private PropagationGraph graph;
+    private ForkJoinPool pool;
+    private PageRank.Result last;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        PropagationEdgeLog edgeLog = new PropagationEdgeLog(edges);
+        long start = 1_700_000_000_000L;
+        for (int node = 1; node < nodes; node++) {
+            edgeLog.append("u" + random.nextInt(node), "u" + node, start + node, PropagationType.SHARE);
+        }
+        for (int i = nodes - 1; i < edges; i++) {
+            int target = 1 + random.nextInt(nodes - 1);
+            edgeLog.append("u" + random.nextInt(target), "u" + target, start + target, PropagationType.FORWARD);
+        }
+        graph = edgeLog.toGraph();
+        // 反向邻接表随快照缓存，生产中同一快照重复计算时只构建一次
+        graph.reverse();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportConvergence() {
+        System.out.printf("%npagerank: iterations=%d residual=%.3g converged=%s%n",
+            last.iterations(), last.residual(), last.converged());
+    }
+
+    @Benchmark
+    public PageRank.Result pageRank() {
+        last = PageRank.compute(graph, null, 0.85, 1e-6, 100, pool);
+        return last;
+    }
+}
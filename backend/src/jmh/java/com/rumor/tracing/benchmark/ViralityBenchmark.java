@@ -0,0 +1,86 @@
+package com.rumor.tracing.benchmark;
+
+import com.rumor.tracing.graph.PropagationGraph;
+import com.rumor.tracing.graph.ViralityFeatures;
+import com.rumor.tracing.graph.ViralityModel;
+import com.rumor.tracing.model.PropagationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 病毒式传播滚动特征基准
+ * - addEdge：每条新边更新环形计数的代价，边在 nodes 个节点间随机生成，每秒 rate 条；
+ * - score：读取时按当前时间计算特征并打分的代价（窗口终点随调用推进）。
+ * 用法: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ViralityBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ViralityBenchmark {
+
+    private static final int EDGES = 1 << 20;
+    private static final long START = 1_700_000_000_000L;
+
+    @Param("100000")
+    public int nodes;
+
+    @Param("1000")
+    public int rate;
+
+    private final int[] sources = new int[EDGES];
+    private final int[] targets = new int[EDGES];
+    private final byte[] types = new byte[EDGES];
+    private ViralityFeatures features;
+    private long time;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        PropagationType[] values = PropagationType.values();
+        for (int i = 0; i < EDGES; i++) {
+            sources[i] = random.nextInt(nodes);
+            targets[i] = random.nextInt(nodes);
+            types[i] = PropagationGraph.typeCode(values[random.nextInt(values.length)]);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetFeatures() {
+        features = new ViralityFeatures(ViralityModel.defaults(), 60 * 1000L, 10);
+        time = START;
+        next = 0;
+        for (int i = 0; i < EDGES; i++) {
+            addEdge();
+        }
+    }
+
+    @Benchmark
+    public void addEdge() {
+        int i = next++ & (EDGES - 1);
+        time += 1000L / rate;
+        features.add(sources[i], targets[i], time, types[i]);
+    }
+
+    @Benchmark
+    public double score() {
+        time += 1000L / rate;
+        return features.score(time);
+    }
+}
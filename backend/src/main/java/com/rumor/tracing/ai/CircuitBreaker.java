@@ -0,0 +1,124 @@
+package com.rumor.tracing.ai;
+
+/**
+ * 熔断器
+ * 按最近若干次调用的失败率判断：调用数达到下限且失败率超过阈值时打开，打开期间直接拒绝调用；
+ * 打开一段时间后进入半开状态，只放行一次探测调用，探测成功则关闭，失败则重新打开。
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,     // 正常调用
+        OPEN,       // 熔断中，拒绝调用
+        HALF_OPEN   // 探测中
+    }
+
+    private final boolean[] outcomes;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private State state = State.CLOSED;
+    private int recorded;
+    private int failures;
+    private int next;
+    private long openedAt;
+    private boolean probing;
+
+    /**
+     * @param windowSize 统计的最近调用数
+     * @param minimumCalls 计算失败率所需的最少调用数
+     * @param failureRateThreshold 打开熔断的失败率（0-1）
+     * @param openMillis 打开后进入半开状态前的等待时间
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis) {
+        this.outcomes = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, outcomes.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 申请调用
+     * @return 是否允许调用；允许时调用方必须随后调用 onSuccess、onFailure 或 onIgnored 之一
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = true;
+                return true;
+            default:
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * 调用结果与上游健康无关（如取消或响应格式错误），不计入统计
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            probing = false;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        probing = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probing = false;
+        recorded = 0;
+        failures = 0;
+        next = 0;
+    }
+}
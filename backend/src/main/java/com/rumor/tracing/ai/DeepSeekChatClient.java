@@ -0,0 +1,203 @@
+package com.rumor.tracing.ai;
+
+import com.rumor.tracing.dto.response.DeepSeekAnalysisResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DeepSeek chat-completions 调用
+ * 负责构建请求、发送（非阻塞）与解析分析结果（见 {@link DeepSeekResponseParser}）；失败、超时或响应无法解析时以错误结束，由调用方决定降级方式。
+ * 支持单条分析、多条短内容打包为一次请求的批量分析，以及逐 token 返回的流式分析。
+ */
+@Component
+public class DeepSeekChatClient {
+
+    /** 提示词版本，修改提示词或输出格式时递增，使旧的缓存结果失效 */
+    public static final String PROMPT_VERSION = "1";
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+        new ParameterizedTypeReference<ServerSentEvent<String>>() {};
+
+    /** 流式响应的结束标记 */
+    private static final String STREAM_DONE = "[DONE]";
+
+    /** 分析结果的 JSON 格式说明，单条与批量提示词共用 */
+    private static final String RESULT_FORMAT = "{\n" +
+        "  \"credibilityScore\": 0.8,  // 可信度评分(0-1)\n" +
+        "  \"factCheckingPoints\": [  // 事实核查要点\n" +
+        "    \"根据官方数据...\",\n" +
+        "    \"经查证...\"\n" +
+        "  ],\n" +
+        "  \"misinformationIndicators\": [  // 虚假信息指标\n" +
+        "    \"缺乏可靠来源\",\n" +
+        "    \"数据不一致\"\n" +
+        "  ],\n" +
+        "  \"verificationRecommendation\": \"建议通过官方渠道核实\",  // 验证建议\n" +
+        "  \"sourceAnalysis\": {\n" +
+        "    \"reliability\": 0.9,  // 来源可靠性(0-1)\n" +
+        "    \"reputation\": \"官方来源\",  // 来源类型\n" +
+        "    \"concerns\": [  // 可疑点\n" +
+        "      \"数据来源不明\",\n" +
+        "      \"缺乏官方认证\"\n" +
+        "    ]\n" +
+        "  }\n" +
+        "}";
+
+    /** 系统提示词 */
+    private static final String SYSTEM_PROMPT = "你是一个专业的谣言分析助手。请分析用户提供的信息，判断其真实性并给出分析依据。\n\n" +
+        "你必须以 JSON 格式输出分析结果，格式如下：\n" + RESULT_FORMAT;
+
+    /** 批量分析的系统提示词：用户消息中每条信息以 [编号] 开头，逐条独立分析 */
+    private static final String BATCH_SYSTEM_PROMPT = "你是一个专业的谣言分析助手。用户会提供多条互不相关的信息，" +
+        "每条以 [编号] 开头。请逐条独立判断其真实性并给出分析依据，不要让一条信息的内容影响对另一条的判断。\n\n" +
+        "你必须以 JSON 格式输出，格式为 {\"results\": [...]}，数组中每个元素对应一条信息，" +
+        "包含 \"index\" 字段（信息编号）以及如下分析结果字段：\n" + RESULT_FORMAT;
+
+    private final WebClient deepSeekWebClient;
+    private final String model;
+    private final double temperature;
+    private final int maxTokens;
+    private final int batchMaxTokens;
+    private final long timeoutMillis;
+    private final double frequencyPenalty;
+    private final double presencePenalty;
+    private final double topP;
+
+    public DeepSeekChatClient(
+            WebClient deepSeekWebClient,
+            @Value("${ai.service.model}") String model,
+            @Value("${ai.service.temperature}") double temperature,
+            @Value("${ai.service.max-tokens}") int maxTokens,
+            @Value("${ai.dispatch.batch-max-tokens:8000}") int batchMaxTokens,
+            @Value("${ai.service.timeout}") long timeoutMillis,
+            @Value("${ai.service.frequency-penalty}") double frequencyPenalty,
+            @Value("${ai.service.presence-penalty}") double presencePenalty,
+            @Value("${ai.service.top-p}") double topP) {
+        this.deepSeekWebClient = deepSeekWebClient;
+        this.model = model;
+        this.temperature = temperature;
+        this.maxTokens = maxTokens;
+        this.batchMaxTokens = batchMaxTokens;
+        this.timeoutMillis = timeoutMillis;
+        this.frequencyPenalty = frequencyPenalty;
+        this.presencePenalty = presencePenalty;
+        this.topP = topP;
+    }
+
+    public String model() {
+        return model;
+    }
+
+    /**
+     * 分析单条内容
+     * @param content 分析内容
+     * @return 分析结果
+     */
+    public Mono<DeepSeekAnalysisResponse> analyze(String content) {
+        return complete(SYSTEM_PROMPT, content, maxTokens)
+            .flatMap(result -> Mono.fromCallable(() -> DeepSeekResponseParser.analysis(result)));
+    }
+
+    /**
+     * 将多条内容打包为一次请求分析，按编号拆分结果
+     * @param contents 分析内容，编号为列表下标
+     * @return 编号到分析结果的映射，模型遗漏的编号不在映射中
+     */
+    public Mono<Map<Integer, DeepSeekAnalysisResponse>> analyzeBatch(List<String> contents) {
+        StringBuilder userContent = new StringBuilder();
+        for (int i = 0; i < contents.size(); i++) {
+            userContent.append('[').append(i).append("]\n").append(contents.get(i)).append("\n\n");
+        }
+        int tokens = Math.min(batchMaxTokens, maxTokens * contents.size());
+        return complete(BATCH_SYSTEM_PROMPT, userContent.toString(), tokens)
+            .flatMap(result -> Mono.fromCallable(() -> DeepSeekResponseParser.batch(result, contents.size())));
+    }
+
+    /**
+     * 流式分析单条内容（stream: true）
+     * 超时按相邻两段增量之间的间隔计算，生成时间长的结果不会因总时长超时。
+     * @param content 分析内容
+     * @return 模型输出的增量文本，拼接后为分析结果 JSON
+     */
+    public Flux<String> analyzeStream(String content) {
+        Duration requestTimeout = Duration.ofMillis(timeoutMillis);
+        Map<String, Object> requestBody = buildRequestBody(SYSTEM_PROMPT, content, maxTokens);
+        requestBody.put("stream", true);
+        return deepSeekWebClient.post()
+            .uri("/chat/completions")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .httpRequest(httpRequest -> setResponseTimeout(httpRequest, requestTimeout))
+            .bodyValue(requestBody)
+            .retrieve()
+            .bodyToFlux(SSE_TYPE)
+            .timeout(requestTimeout)
+            // 排队期间服务端发送的 keep-alive 注释没有数据
+            .filter(event -> event.data() != null)
+            .takeWhile(event -> !STREAM_DONE.equals(event.data().trim()))
+            .concatMap(event -> Mono.fromCallable(() -> DeepSeekResponseParser.deltaContent(event.data())))
+            .filter(delta -> !delta.isEmpty());
+    }
+
+    /**
+     * 解析模型输出的分析结果 JSON（流式增量拼接后的完整内容）
+     * @param json 分析结果 JSON
+     * @return 分析结果
+     */
+    public DeepSeekAnalysisResponse parseAnalysis(String json) throws IOException {
+        return DeepSeekResponseParser.analysis(json);
+    }
+
+    /**
+     * 发送请求并取出模型输出的内容（分析结果 JSON 文本）
+     */
+    private Mono<String> complete(String systemPrompt, String userContent, int tokens) {
+        Duration requestTimeout = Duration.ofMillis(timeoutMillis);
+        return deepSeekWebClient.post()
+            .uri("/chat/completions")
+            .httpRequest(httpRequest -> setResponseTimeout(httpRequest, requestTimeout))
+            .bodyValue(buildRequestBody(systemPrompt, userContent, tokens))
+            .retrieve()
+            // 按字节读取，由解析器直接解码 UTF-8，不先转为字符串
+            .bodyToMono(byte[].class)
+            // 整体期限覆盖等待连接、建连与读取响应
+            .timeout(requestTimeout)
+            .flatMap(body -> Mono.fromCallable(() -> DeepSeekResponseParser.messageContent(body)));
+    }
+
+    private Map<String, Object> buildRequestBody(String systemPrompt, String userContent, int tokens) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        requestBody.put("messages", Arrays.asList(
+            Map.of("role", "system", "content", systemPrompt),
+            Map.of("role", "user", "content", userContent)
+        ));
+        requestBody.put("stream", false);
+        requestBody.put("response_format", Map.of("type", "json_object"));
+        requestBody.put("temperature", temperature);
+        requestBody.put("max_tokens", tokens);
+        requestBody.put("frequency_penalty", frequencyPenalty);
+        requestBody.put("presence_penalty", presencePenalty);
+        requestBody.put("top_p", topP);
+        return requestBody;
+    }
+
+    private static void setResponseTimeout(ClientHttpRequest httpRequest, Duration responseTimeout) {
+        HttpClientRequest nettyRequest = httpRequest.getNativeRequest();
+        nettyRequest.responseTimeout(responseTimeout);
+    }
+}
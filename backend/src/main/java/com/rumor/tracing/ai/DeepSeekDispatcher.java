@@ -0,0 +1,392 @@
+package com.rumor.tracing.ai;
+
+import com.rumor.tracing.dto.response.DeepSeekAnalysisResponse;
+import com.rumor.tracing.exception.BusinessException;
+import com.rumor.tracing.model.AnalysisPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * DeepSeek 请求调度
+ * 分析请求先进入按优先级划分的队列，由单个调度线程按令牌桶速率发出，同时在途的请求数受信号量限制，
+ * 突发流量在队列中排队而不是同时打到 DeepSeek 触发限流。
+ * 交互请求优先调度；批量回填请求等待超过上限后插队，避免被持续的交互请求饿死。
+ * 每个队列有最长排队时间，超过后请求直接失败（调用方返回默认分析结果），不再占用后续配额；
+ * 单独发送的分析请求的调用超时（ai.service.timeout）从入队时起算，排队时间计入超时。
+ * 发送时同一队列中排队的多条短内容打包为一次请求（条数与总字数受限），按编号拆分结果；
+ * 模型遗漏的条目回到队首单独重发。负载低时队列中只有一条，直接单独发送，不额外等待凑批。
+ * 流式请求同样排队并占用一个在途许可，直到流结束才释放，不参与打包。
+ * 发出的调用经 {@link DeepSeekResilience} 重试与熔断，重试期间继续占用在途许可；重试与对冲同样从共用的令牌桶取令牌。
+ */
+@Slf4j
+@Component
+public class DeepSeekDispatcher {
+
+    private final DeepSeekChatClient chatClient;
+    private final DeepSeekResilience resilience;
+    private final TokenBucket rateLimiter;
+    private final Semaphore inFlight;
+    /** 各队列中待调度的请求总数 */
+    private final Semaphore queued = new Semaphore(0);
+    private final Map<AnalysisPriority, LinkedBlockingDeque<Pending>> lanes = new EnumMap<>(AnalysisPriority.class);
+    private final Map<AnalysisPriority, Long> maxQueueWaitMillis = new EnumMap<>(AnalysisPriority.class);
+    private final Map<AnalysisPriority, Counter> queueExpired = new EnumMap<>(AnalysisPriority.class);
+    private final long timeoutMillis;
+    private final int maxBatchSize;
+    private final int batchMaxChars;
+    private final int batchCharBudget;
+    private final long backfillMaxWaitMillis;
+    private Thread dispatcher;
+
+    public DeepSeekDispatcher(
+            DeepSeekChatClient chatClient,
+            DeepSeekResilience resilience,
+            MeterRegistry meterRegistry,
+            TokenBucket deepSeekRateLimiter,
+            @Value("${ai.service.timeout}") long timeoutMillis,
+            @Value("${ai.dispatch.max-in-flight:32}") int maxInFlight,
+            @Value("${ai.dispatch.queue-capacity:2000}") int queueCapacity,
+            @Value("${ai.dispatch.max-batch-size:8}") int maxBatchSize,
+            @Value("${ai.dispatch.batch-max-chars:400}") int batchMaxChars,
+            @Value("${ai.dispatch.batch-char-budget:3000}") int batchCharBudget,
+            @Value("${ai.dispatch.backfill-max-wait-ms:30000}") long backfillMaxWaitMillis,
+            @Value("${ai.dispatch.interactive-max-queue-wait-ms:10000}") long interactiveMaxQueueWaitMillis,
+            @Value("${ai.dispatch.backfill-max-queue-wait-ms:120000}") long backfillMaxQueueWaitMillis) {
+        this.chatClient = chatClient;
+        this.timeoutMillis = timeoutMillis;
+        this.resilience = resilience;
+        this.rateLimiter = deepSeekRateLimiter;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxBatchSize = maxBatchSize;
+        this.batchMaxChars = batchMaxChars;
+        this.batchCharBudget = batchCharBudget;
+        this.backfillMaxWaitMillis = backfillMaxWaitMillis;
+        maxQueueWaitMillis.put(AnalysisPriority.INTERACTIVE, interactiveMaxQueueWaitMillis);
+        maxQueueWaitMillis.put(AnalysisPriority.BACKFILL, backfillMaxQueueWaitMillis);
+        for (AnalysisPriority priority : AnalysisPriority.values()) {
+            LinkedBlockingDeque<Pending> lane = new LinkedBlockingDeque<>(queueCapacity);
+            lanes.put(priority, lane);
+            Gauge.builder("deepseek.queue.size", lane, LinkedBlockingDeque::size)
+                .tag("priority", priority.name())
+                .register(meterRegistry);
+            queueExpired.put(priority, meterRegistry.counter("deepseek.queue.expired", "priority", priority.name()));
+        }
+        Gauge.builder("deepseek.in-flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher = new Thread(this::dispatchLoop, "deepseek-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.interrupt();
+        for (LinkedBlockingDeque<Pending> lane : lanes.values()) {
+            Pending pending;
+            while ((pending = lane.poll()) != null) {
+                pending.fail(new BusinessException("服务正在关闭"));
+            }
+        }
+    }
+
+    /**
+     * 提交分析请求
+     * @param content 分析内容
+     * @param priority 优先级，为空时按交互请求处理
+     * @return 分析结果；队列已满、排队超时、调用失败、超时或响应无法解析时以错误结束
+     */
+    public Mono<DeepSeekAnalysisResponse> submit(String content, AnalysisPriority priority) {
+        AnalysisPriority lane = priority != null ? priority : AnalysisPriority.INTERACTIVE;
+        return Mono.defer(() -> {
+            Pending pending = new Pending(content, lane, timeoutMillis);
+            if (!lanes.get(lane).offer(pending)) {
+                return Mono.error(new BusinessException("DeepSeek 分析队列已满"));
+            }
+            scheduleExpiry(pending);
+            queued.release();
+            return pending.sink.asMono().doOnCancel(() -> pending.cancelled = true);
+        });
+    }
+
+    /**
+     * 提交流式请求：取得调度许可后才发起调用，流结束、出错或取消订阅时释放在途许可
+     * @param call 发起流式调用
+     * @param priority 优先级，为空时按交互请求处理
+     * @return 流式调用的输出；队列已满或排队超时时以错误结束
+     */
+    public <T> Flux<T> submitStream(Supplier<Flux<T>> call, AnalysisPriority priority) {
+        AnalysisPriority lane = priority != null ? priority : AnalysisPriority.INTERACTIVE;
+        return Flux.defer(() -> {
+            Pending pending = Pending.stream(lane);
+            if (!lanes.get(lane).offer(pending)) {
+                return Flux.error(new BusinessException("DeepSeek 分析队列已满"));
+            }
+            scheduleExpiry(pending);
+            queued.release();
+            return pending.start.asMono()
+                .flatMapMany(started -> resilience.stream(call))
+                .doFinally(signal -> {
+                    pending.cancelled = true;
+                    if (pending.started) {
+                        releaseStream(pending);
+                    }
+                });
+        });
+    }
+
+    /**
+     * 当前排队的请求数
+     * @param priority 优先级
+     */
+    public int queueSize(AnalysisPriority priority) {
+        return lanes.get(priority).size();
+    }
+
+    /**
+     * 排队超过所在队列的最长等待时间仍未被调度时直接失败；调度线程随后跳过该请求
+     */
+    private void scheduleExpiry(Pending pending) {
+        pending.expiry = Schedulers.parallel().schedule(() -> {
+            if (!pending.cancelled && pending.dispatched.compareAndSet(false, true)) {
+                queueExpired.get(pending.lane).increment();
+                pending.fail(new BusinessException("DeepSeek 分析排队超时"));
+            }
+        }, maxQueueWaitMillis.get(pending.lane), TimeUnit.MILLISECONDS);
+    }
+
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // 先取得发送许可再取队列，批次在发送前一刻组装，等待期间到达的请求可并入
+                queued.acquire();
+                inFlight.acquire();
+                try {
+                    rateLimiter.acquire();
+                } catch (InterruptedException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                List<Pending> batch;
+                try {
+                    batch = nextBatch();
+                } catch (InterruptedException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("DeepSeek 请求调度异常", e);
+            }
+        }
+    }
+
+    /**
+     * 取出下一批请求；调用前已为第一条取得 queued 许可
+     */
+    private List<Pending> nextBatch() throws InterruptedException {
+        Pending head = pollNext();
+        while (!head.claim()) {
+            queued.acquire();
+            head = pollNext();
+        }
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        batch.add(head);
+        if (head.single || head.content.length() > batchMaxChars) {
+            return batch;
+        }
+        LinkedBlockingDeque<Pending> lane = lanes.get(head.lane);
+        int chars = head.content.length();
+        while (batch.size() < maxBatchSize) {
+            Pending next = lane.peek();
+            if (next == null) {
+                break;
+            }
+            // 重发条目可能同时插入队首，按对象移除
+            if (next.cancelled || next.dispatched.get()) {
+                lane.remove(next);
+                queued.acquireUninterruptibly();
+                continue;
+            }
+            if (next.single || next.content.length() > batchMaxChars
+                    || chars + next.content.length() > batchCharBudget) {
+                break;
+            }
+            lane.remove(next);
+            queued.acquireUninterruptibly();
+            if (next.claim()) {
+                chars += next.content.length();
+                batch.add(next);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * 交互请求优先；回填队首等待超过上限时先调度回填
+     */
+    private Pending pollNext() {
+        LinkedBlockingDeque<Pending> backfill = lanes.get(AnalysisPriority.BACKFILL);
+        Pending oldestBackfill = backfill.peek();
+        if (oldestBackfill != null
+                && System.currentTimeMillis() - oldestBackfill.enqueuedAt > backfillMaxWaitMillis) {
+            return backfill.poll();
+        }
+        Pending pending = lanes.get(AnalysisPriority.INTERACTIVE).poll();
+        return pending != null ? pending : backfill.poll();
+    }
+
+    private void send(List<Pending> batch) {
+        if (batch.size() == 1) {
+            Pending pending = batch.get(0);
+            if (pending.start != null) {
+                // 先标记再检查取消，与 submitStream 的 doFinally 交错时许可只释放一次
+                pending.started = true;
+                if (pending.cancelled) {
+                    releaseStream(pending);
+                } else {
+                    pending.start.tryEmitValue(Boolean.TRUE);
+                }
+                return;
+            }
+            long remaining = pending.deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                inFlight.release();
+                pending.fail(new BusinessException("DeepSeek 分析超时"));
+                return;
+            }
+            resilience.call("single", () -> chatClient.analyze(pending.content), true)
+                .timeout(Duration.ofMillis(remaining))
+                .doFinally(signal -> inFlight.release())
+                .subscribe(pending::complete, pending::fail);
+            return;
+        }
+        List<String> contents = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            contents.add(pending.content);
+        }
+        log.debug("DeepSeek 批量请求：{} 条，{} 字", batch.size(), contents.stream().mapToInt(String::length).sum());
+        resilience.call("batch", () -> chatClient.analyzeBatch(contents), false)
+            .doFinally(signal -> inFlight.release())
+            .subscribe(results -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    DeepSeekAnalysisResponse result = results.get(i);
+                    if (result != null) {
+                        batch.get(i).complete(result);
+                    } else {
+                        requeueSingle(batch.get(i));
+                    }
+                }
+            }, error -> batch.forEach(pending -> pending.fail(error)));
+    }
+
+    /**
+     * 批量结果中缺失的条目回到原队列队首，单独重发
+     */
+    private void requeueSingle(Pending pending) {
+        pending.single = true;
+        pending.dispatched.set(false);
+        if (lanes.get(pending.lane).offerFirst(pending)) {
+            queued.release();
+        } else {
+            pending.fail(new BusinessException("DeepSeek 分析队列已满"));
+        }
+    }
+
+    private void releaseStream(Pending pending) {
+        if (pending.released.compareAndSet(false, true)) {
+            inFlight.release();
+        }
+    }
+
+    private static final class Pending {
+        private final String content;
+        private final AnalysisPriority lane;
+        private final long enqueuedAt = System.currentTimeMillis();
+        /** 单独发送时的调用截止时间，从入队时起算；流式请求不使用 */
+        private final long deadline;
+        private final Sinks.One<DeepSeekAnalysisResponse> sink = Sinks.one();
+        /** 流式请求的启动信号，普通分析请求为空 */
+        private final Sinks.One<Boolean> start;
+        private final AtomicBoolean released = new AtomicBoolean();
+        /** 已被调度线程取走或已排队超时，两者只有一方生效 */
+        private final AtomicBoolean dispatched = new AtomicBoolean();
+        private volatile Disposable expiry;
+        /** 只能单独发送（批量结果中缺失后重发，或流式请求） */
+        private volatile boolean single;
+        /** 调用方已取消订阅，调度时跳过 */
+        private volatile boolean cancelled;
+        /** 流式请求已取得在途许可 */
+        private volatile boolean started;
+
+        Pending(String content, AnalysisPriority lane, long timeoutMillis) {
+            this(content, lane, timeoutMillis, null);
+        }
+
+        private Pending(String content, AnalysisPriority lane, long timeoutMillis, Sinks.One<Boolean> start) {
+            this.content = content;
+            this.lane = lane;
+            this.deadline = enqueuedAt + timeoutMillis;
+            this.start = start;
+            this.single = start != null;
+        }
+
+        static Pending stream(AnalysisPriority lane) {
+            // 流式请求不单独计算调用截止时间，由流本身的超时控制
+            return new Pending("", lane, 0L, Sinks.one());
+        }
+
+        /**
+         * 调度线程取走请求；已取消或已排队超时时返回 false
+         */
+        boolean claim() {
+            if (cancelled || !dispatched.compareAndSet(false, true)) {
+                return false;
+            }
+            Disposable scheduled = expiry;
+            if (scheduled != null) {
+                scheduled.dispose();
+            }
+            return true;
+        }
+
+        void complete(DeepSeekAnalysisResponse result) {
+            sink.tryEmitValue(result);
+        }
+
+        void fail(Throwable error) {
+            if (start != null) {
+                start.tryEmitError(error);
+            } else {
+                sink.tryEmitError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.rumor.tracing.ai;
+
+import com.rumor.tracing.exception.BusinessException;
+import com.rumor.tracing.model.AnalysisType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * DeepSeek 调用容错
+ * - 重试：429、5xx、超时与连接错误按指数退避加随机抖动重试，响应带 Retry-After 时按其等待，超过退避上限则不再重试；
+ * - 对冲：单条分析超过近期 p95 延迟仍未返回时再发一次相同请求，取先成功的结果，对冲请求数不超过总请求数的固定比例；
+ *   最近一段时间内出现过 429 时不对冲，避免在上游限流时放大请求量；
+ * - 重试与对冲发出的请求与调度器共用令牌桶，总请求速率不超过 ai.dispatch.requests-per-second；
+ * - 熔断：上游失败率过高时打开熔断，期间直接失败，不再占用连接与调度许可；
+ * - 隔离：按分析类型（{@link AnalysisType}）限制同时处理的请求数，某一类型积压时不挤占其他类型，未知类型直接拒绝。
+ * 状态通过 Micrometer 暴露（deepseek.*）。
+ */
+@Slf4j
+@Component
+public class DeepSeekResilience {
+
+    /** 对冲延迟的统计样本数 */
+    private static final int LATENCY_SAMPLES = 256;
+
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker circuitBreaker;
+    private final TokenBucket rateLimiter;
+    private final int maxRetries;
+    private final long retryDelayMillis;
+    private final long maxBackoffMillis;
+    private final boolean hedgeEnabled;
+    private final double hedgeMaxRatio;
+    private final int hedgeMinSamples;
+    private final long hedgeRateLimitWindowMillis;
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyNext;
+    private final AtomicLong hedgeableCalls = new AtomicLong();
+    private final AtomicLong hedgedCalls = new AtomicLong();
+    private final Map<AnalysisType, Semaphore> bulkheads = new EnumMap<>(AnalysisType.class);
+    private final Counter circuitRejected;
+    private final Counter hedges;
+    /** 最近一次收到 429 的时间 */
+    private volatile long lastRateLimitedAt;
+
+    public DeepSeekResilience(
+            MeterRegistry meterRegistry,
+            Environment environment,
+            TokenBucket deepSeekRateLimiter,
+            @Value("${ai.service.max-retries}") int maxRetries,
+            @Value("${ai.service.retry-delay}") long retryDelayMillis,
+            @Value("${ai.resilience.max-backoff-ms:30000}") long maxBackoffMillis,
+            @Value("${ai.resilience.hedge.enabled:true}") boolean hedgeEnabled,
+            @Value("${ai.resilience.hedge.max-ratio:0.1}") double hedgeMaxRatio,
+            @Value("${ai.resilience.hedge.min-samples:20}") int hedgeMinSamples,
+            @Value("${ai.resilience.hedge.rate-limit-window-ms:60000}") long hedgeRateLimitWindowMillis,
+            @Value("${ai.resilience.circuit.window-size:50}") int circuitWindowSize,
+            @Value("${ai.resilience.circuit.minimum-calls:10}") int circuitMinimumCalls,
+            @Value("${ai.resilience.circuit.failure-rate:0.5}") double circuitFailureRate,
+            @Value("${ai.resilience.circuit.open-ms:30000}") long circuitOpenMillis,
+            @Value("${ai.resilience.bulkhead.default-limit:64}") int bulkheadDefaultLimit) {
+        this.meterRegistry = meterRegistry;
+        this.rateLimiter = deepSeekRateLimiter;
+        this.circuitBreaker = new CircuitBreaker(circuitWindowSize, circuitMinimumCalls,
+            circuitFailureRate, circuitOpenMillis);
+        this.maxRetries = maxRetries;
+        this.retryDelayMillis = retryDelayMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeMaxRatio = hedgeMaxRatio;
+        this.hedgeMinSamples = hedgeMinSamples;
+        this.hedgeRateLimitWindowMillis = hedgeRateLimitWindowMillis;
+        // 每种分析类型一个信号量，类型集合固定，指标数量有界
+        for (AnalysisType type : AnalysisType.values()) {
+            int limit = environment.getProperty("ai.resilience.bulkhead.limits." + type.name(),
+                Integer.class, bulkheadDefaultLimit);
+            Semaphore semaphore = new Semaphore(limit);
+            bulkheads.put(type, semaphore);
+            Gauge.builder("deepseek.bulkhead.available", semaphore, Semaphore::availablePermits)
+                .tag("type", type.name())
+                .register(meterRegistry);
+        }
+        this.circuitRejected = meterRegistry.counter("deepseek.circuit.rejected");
+        this.hedges = meterRegistry.counter("deepseek.hedges");
+        Gauge.builder("deepseek.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+            .description("0 关闭，1 打开，2 半开")
+            .register(meterRegistry);
+        Gauge.builder("deepseek.latency.p95", this, resilience -> resilience.p95Millis())
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 带重试、熔断（及可选对冲）的调用
+     * @param kind 调用类型（single/batch），用作指标标签
+     * @param call 发起一次调用
+     * @param hedge 是否允许对冲
+     * @return 调用结果；熔断打开或重试用尽时以错误结束
+     */
+    public <T> Mono<T> call(String kind, Supplier<Mono<T>> call, boolean hedge) {
+        Mono<T> attempt = hedge && hedgeEnabled
+            ? Mono.defer(() -> hedged(kind, call))
+            : guarded(kind, call);
+        return attempt.retryWhen(retry(kind, () -> true));
+    }
+
+    /**
+     * 带熔断的流式调用；只在尚未输出任何内容时重试，避免重复推送
+     * @param call 发起一次流式调用
+     * @return 流式输出
+     */
+    public <T> Flux<T> stream(Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            return Flux.defer(() -> {
+                if (!circuitBreaker.tryAcquire()) {
+                    circuitRejected.increment();
+                    return Flux.<T>error(circuitOpen());
+                }
+                Timer.Sample sample = Timer.start(meterRegistry);
+                AtomicBoolean done = new AtomicBoolean();
+                return call.get()
+                    .doOnNext(item -> emitted.set(true))
+                    .doOnComplete(() -> {
+                        done.set(true);
+                        circuitBreaker.onSuccess();
+                        sample.stop(timer("stream", "success"));
+                    })
+                    .doOnError(error -> {
+                        done.set(true);
+                        recordFailure(error);
+                        sample.stop(timer("stream", "failure"));
+                    })
+                    .doOnCancel(() -> {
+                        if (done.compareAndSet(false, true)) {
+                            circuitBreaker.onIgnored();
+                        }
+                    });
+            }).retryWhen(retry("stream", () -> !emitted.get()));
+        });
+    }
+
+    /**
+     * 按分析类型隔离：同一类型同时处理的请求数超过上限时直接失败
+     * @param analysisType 分析类型，无法识别时直接失败
+     * @param call 处理请求（含排队与调用）
+     * @return 处理结果
+     */
+    public <T> Mono<T> isolate(String analysisType, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            AnalysisType type = AnalysisType.fromName(analysisType);
+            if (type == null) {
+                return Mono.error(unsupportedType(analysisType));
+            }
+            Semaphore bulkhead = bulkheads.get(type);
+            if (!bulkhead.tryAcquire()) {
+                meterRegistry.counter("deepseek.bulkhead.rejected", "type", type.name()).increment();
+                return Mono.error(new BusinessException("DeepSeek " + type + " 分析请求过多，请稍后重试"));
+            }
+            return call.get().doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    /**
+     * 流式请求的类型隔离，流结束或取消时释放
+     */
+    public <T> Flux<T> isolateStream(String analysisType, Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            AnalysisType type = AnalysisType.fromName(analysisType);
+            if (type == null) {
+                return Flux.error(unsupportedType(analysisType));
+            }
+            Semaphore bulkhead = bulkheads.get(type);
+            if (!bulkhead.tryAcquire()) {
+                meterRegistry.counter("deepseek.bulkhead.rejected", "type", type.name()).increment();
+                return Flux.error(new BusinessException("DeepSeek " + type + " 分析请求过多，请稍后重试"));
+            }
+            return call.get().doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
+    }
+
+    /**
+     * 单次调用：熔断检查、计时并记录结果
+     */
+    private <T> Mono<T> guarded(String kind, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                circuitRejected.increment();
+                return Mono.error(circuitOpen());
+            }
+            long start = System.nanoTime();
+            AtomicBoolean done = new AtomicBoolean();
+            return call.get()
+                .doOnSuccess(result -> {
+                    done.set(true);
+                    long elapsed = System.nanoTime() - start;
+                    circuitBreaker.onSuccess();
+                    recordLatency(kind, elapsed);
+                    timer(kind, "success").record(elapsed, TimeUnit.NANOSECONDS);
+                })
+                .doOnError(error -> {
+                    done.set(true);
+                    recordFailure(error);
+                    timer(kind, "failure").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                })
+                .doOnCancel(() -> {
+                    // 对冲中落后的一方被取消
+                    if (done.compareAndSet(false, true)) {
+                        circuitBreaker.onIgnored();
+                    }
+                });
+        });
+    }
+
+    /**
+     * 对冲：主请求超过近期 p95 延迟仍未返回时再发一次，取先成功的结果，另一方随之取消；
+     * 对冲请求先从令牌桶取得令牌，最近出现过 429 时不对冲
+     */
+    private <T> Mono<T> hedged(String kind, Supplier<Mono<T>> call) {
+        long calls = hedgeableCalls.incrementAndGet();
+        long p95 = p95Millis();
+        if (p95 <= 0 || rateLimitedRecently() || hedgedCalls.get() >= hedgeMaxRatio * calls) {
+            return guarded(kind, call);
+        }
+        // 主请求在对冲前失败时不再对冲，直接交给重试
+        Sinks.Empty<Void> primaryFailed = Sinks.empty();
+        Mono<T> primary = guarded(kind, call).doOnError(error -> primaryFailed.tryEmitEmpty());
+        Mono<T> backup = Mono.delay(Duration.ofMillis(p95))
+            .takeUntilOther(primaryFailed.asMono())
+            .flatMap(tick -> {
+                if (rateLimitedRecently()) {
+                    return Mono.<T>empty();
+                }
+                if (hedgedCalls.incrementAndGet() > hedgeMaxRatio * hedgeableCalls.get()) {
+                    hedgedCalls.decrementAndGet();
+                    return Mono.<T>empty();
+                }
+                hedges.increment();
+                return acquirePermit().then(guarded(kind, call));
+            });
+        return Mono.firstWithValue(primary, backup)
+            // 两者都失败时取主请求的错误，便于重试判断
+            .onErrorMap(NoSuchElementException.class, DeepSeekResilience::firstSuppressed);
+    }
+
+    private Retry retry(String kind, Supplier<Boolean> retryAllowed) {
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            Throwable error = signal.failure();
+            if (signal.totalRetries() >= maxRetries || !retryAllowed.get() || !isUpstreamFailure(error)) {
+                return Mono.error(error);
+            }
+            long delay = backoffMillis(error, signal.totalRetries());
+            if (delay < 0) {
+                return Mono.error(error);
+            }
+            meterRegistry.counter("deepseek.retries", "kind", kind, "reason", reason(error)).increment();
+            log.debug("DeepSeek 调用失败（{}），{} ms 后第 {} 次重试", reason(error), delay, signal.totalRetries() + 1);
+            return Mono.delay(Duration.ofMillis(delay)).then(acquirePermit()).thenReturn(signal.totalRetries());
+        }));
+    }
+
+    /**
+     * 从共用的令牌桶取得一个令牌，取不到时按令牌桶给出的时长延迟后再取，不阻塞线程
+     */
+    private Mono<Void> acquirePermit() {
+        return Mono.defer(() -> {
+            long waitNanos = rateLimiter.tryAcquire();
+            return waitNanos == 0
+                ? Mono.<Void>empty()
+                : Mono.delay(Duration.ofNanos(waitNanos)).then(acquirePermit());
+        });
+    }
+
+    private boolean rateLimitedRecently() {
+        return System.currentTimeMillis() - lastRateLimitedAt < hedgeRateLimitWindowMillis;
+    }
+
+    /**
+     * 重试等待：优先使用 Retry-After（超过退避上限时返回 -1，不再重试），否则为带抖动的指数退避
+     */
+    private long backoffMillis(Throwable error, long attempt) {
+        if (error instanceof WebClientResponseException) {
+            String retryAfter = ((WebClientResponseException) error).getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null && retryAfter.trim().matches("\\d+")) {
+                long millis = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+                return millis > maxBackoffMillis ? -1 : millis;
+            }
+        }
+        long exponential = Math.min(maxBackoffMillis, retryDelayMillis << Math.min(attempt, 20));
+        // 一半固定、一半随机，避免大量请求同时重试
+        return exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+    }
+
+    private void recordFailure(Throwable error) {
+        if (error instanceof WebClientResponseException
+                && ((WebClientResponseException) error).getRawStatusCode() == 429) {
+            lastRateLimitedAt = System.currentTimeMillis();
+        }
+        if (isUpstreamFailure(error)) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onIgnored();
+        }
+    }
+
+    /**
+     * 上游故障：限流、服务端错误、超时与连接错误；响应格式错误等不计入
+     */
+    private static boolean isUpstreamFailure(Throwable error) {
+        if (error instanceof WebClientResponseException) {
+            int status = ((WebClientResponseException) error).getRawStatusCode();
+            return status == 429 || status >= 500;
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+
+    private static String reason(Throwable error) {
+        if (error instanceof WebClientResponseException) {
+            return String.valueOf(((WebClientResponseException) error).getRawStatusCode());
+        }
+        return error instanceof TimeoutException ? "timeout" : "connection";
+    }
+
+    /**
+     * 各来源的错误合并在 cause（CompositeException）中，按来源顺序取第一个非空完成的错误
+     */
+    private static Throwable firstSuppressed(NoSuchElementException error) {
+        Throwable cause = error.getCause();
+        if (cause == null) {
+            return Arrays.stream(error.getSuppressed()).findFirst().orElse(error);
+        }
+        return Exceptions.unwrapMultiple(cause).stream()
+            .filter(source -> !(source instanceof NoSuchElementException))
+            .findFirst()
+            .orElse(error);
+    }
+
+    private static BusinessException unsupportedType(String analysisType) {
+        return new BusinessException("不支持的分析类型：" + analysisType);
+    }
+
+    private static BusinessException circuitOpen() {
+        return new BusinessException("DeepSeek 服务暂时不可用（熔断中）");
+    }
+
+    private Timer timer(String kind, String outcome) {
+        return meterRegistry.timer("deepseek.requests", "kind", kind, "outcome", outcome);
+    }
+
+    private void recordLatency(String kind, long nanos) {
+        if (!"single".equals(kind)) {
+            return;
+        }
+        synchronized (latencies) {
+            latencies[latencyNext] = TimeUnit.NANOSECONDS.toMillis(nanos);
+            latencyNext = (latencyNext + 1) % LATENCY_SAMPLES;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+        }
+    }
+
+    /**
+     * 近期单条分析延迟的 p95（毫秒），样本不足时为 0
+     */
+    long p95Millis() {
+        long[] samples;
+        synchronized (latencies) {
+            if (latencyCount < hedgeMinSamples) {
+                return 0;
+            }
+            samples = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(samples);
+        return samples[(int) Math.ceil(samples.length * 0.95) - 1];
+    }
+}
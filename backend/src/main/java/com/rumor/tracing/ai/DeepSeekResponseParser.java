@@ -0,0 +1,193 @@
+package com.rumor.tracing.ai;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rumor.tracing.dto.DeepSeekSourceAnalysis;
+import com.rumor.tracing.dto.response.DeepSeekAnalysisResponse;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DeepSeek 响应解析
+ * 外层 chat-completions 响应只用流式解析器定位 choices[0].message.content（或流式增量的 delta.content），
+ * 不构建 JsonNode 树，找到后即停止读取；模型输出的分析结果 JSON 由共享的 ObjectReader 直接绑定为 DTO。
+ * 绑定时忽略未知字段，列表字段接受单个值，空字符串视为缺失；缺失或为 null 的字段填入默认值。
+ * ObjectReader 不可变，可在线程间共享。
+ */
+public final class DeepSeekResponseParser {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private static final ObjectReader ANALYSIS_READER = tolerant(MAPPER.readerFor(DeepSeekAnalysisResponse.class));
+    private static final ObjectReader BATCH_READER = tolerant(MAPPER.readerFor(BatchResult.class));
+
+    private DeepSeekResponseParser() {
+    }
+
+    /**
+     * 取出 chat-completions 响应中模型输出的内容
+     * @param body 响应体（UTF-8）
+     * @return choices[0].message.content
+     * @throws IOException 响应不是合法 JSON 或缺少该字段
+     */
+    public static String messageContent(byte[] body) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(body)) {
+            String content = firstChoiceText(parser, "message");
+            if (content == null) {
+                throw new IOException("DeepSeek 响应缺少 choices[0].message.content");
+            }
+            return content;
+        }
+    }
+
+    /**
+     * 取出流式响应一段增量中的内容
+     * @param chunk SSE 事件数据
+     * @return choices[0].delta.content，没有内容时为空字符串
+     */
+    public static String deltaContent(String chunk) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(chunk)) {
+            String content = firstChoiceText(parser, "delta");
+            return content != null ? content : "";
+        }
+    }
+
+    /**
+     * 解析模型输出的分析结果 JSON
+     * @param json 分析结果 JSON
+     * @return 分析结果，缺失的字段为默认值
+     */
+    public static DeepSeekAnalysisResponse analysis(String json) throws IOException {
+        return withDefaults(ANALYSIS_READER.readValue(json));
+    }
+
+    /**
+     * 解析批量分析的输出 {"results": [{"index": 0, ...}, ...]}
+     * @param json 模型输出
+     * @param size 请求中的条数，超出范围的编号忽略
+     * @return 编号到分析结果的映射，重复的编号取第一个
+     */
+    public static Map<Integer, DeepSeekAnalysisResponse> batch(String json, int size) throws IOException {
+        BatchResult result = BATCH_READER.readValue(json);
+        Map<Integer, DeepSeekAnalysisResponse> responses = new HashMap<>();
+        if (result == null || result.results == null) {
+            return responses;
+        }
+        for (BatchItem item : result.results) {
+            if (item != null && item.index != null && item.index >= 0 && item.index < size) {
+                responses.putIfAbsent(item.index, withDefaults(item.toResponse()));
+            }
+        }
+        return responses;
+    }
+
+    private static ObjectReader tolerant(ObjectReader reader) {
+        return reader
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .with(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+            .with(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT);
+    }
+
+    /**
+     * 读取 choices[0].{container}.content，其余字段跳过不解析
+     */
+    private static String firstChoiceText(JsonParser parser, String container) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("choices".equals(name) && value == JsonToken.START_ARRAY) {
+                return parser.nextToken() == JsonToken.START_OBJECT ? nestedText(parser, container) : null;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    /**
+     * 在当前对象中读取 {container}.content
+     */
+    private static String nestedText(JsonParser parser, String container) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (container.equals(name) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken fieldValue = parser.nextToken();
+                    if ("content".equals(field)) {
+                        return fieldValue == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    }
+                    parser.skipChildren();
+                }
+                return null;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    private static DeepSeekAnalysisResponse withDefaults(DeepSeekAnalysisResponse response) {
+        if (response == null) {
+            response = new DeepSeekAnalysisResponse();
+        }
+        if (response.getCredibilityScore() == null) {
+            response.setCredibilityScore(0.0);
+        }
+        if (response.getFactCheckingPoints() == null) {
+            response.setFactCheckingPoints(Collections.emptyList());
+        }
+        if (response.getMisinformationIndicators() == null) {
+            response.setMisinformationIndicators(Collections.emptyList());
+        }
+        if (response.getVerificationRecommendation() == null) {
+            response.setVerificationRecommendation("暂无验证建议");
+        }
+        DeepSeekSourceAnalysis source = response.getSourceAnalysis();
+        if (source == null) {
+            response.setSourceAnalysis(DeepSeekSourceAnalysis.builder()
+                .reliability(0.0)
+                .reputation("未知")
+                .concerns(Collections.emptyList())
+                .build());
+        } else {
+            if (source.getReliability() == null) {
+                source.setReliability(0.0);
+            }
+            if (source.getReputation() == null) {
+                source.setReputation("未知");
+            }
+            if (source.getConcerns() == null) {
+                source.setConcerns(Collections.emptyList());
+            }
+        }
+        return response;
+    }
+
+    private static final class BatchResult {
+        public List<BatchItem> results;
+    }
+
+    /**
+     * 批量输出中的一条：分析结果字段加编号
+     */
+    private static final class BatchItem extends DeepSeekAnalysisResponse {
+        public Integer index;
+
+        DeepSeekAnalysisResponse toResponse() {
+            return new DeepSeekAnalysisResponse(getCredibilityScore(), getFactCheckingPoints(),
+                getMisinformationIndicators(), getVerificationRecommendation(), getSourceAnalysis());
+        }
+    }
+}
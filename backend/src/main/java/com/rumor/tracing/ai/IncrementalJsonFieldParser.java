@@ -0,0 +1,153 @@
+package com.rumor.tracing.ai;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量 JSON 字段解析
+ * 逐段接收模型流式输出的 JSON 对象文本（基于 Jackson 非阻塞解析器），顶层字段的值一旦完整即返回，
+ * 不必等待整个对象结束；顶层数组中的标量元素（如事实核查要点）逐个返回。
+ * 非线程安全，每次流式分析使用一个实例。
+ */
+public final class IncrementalJsonFieldParser {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private int depth;
+    private String field;
+    /** 当前顶层字段的结构化值（数组或对象），值结束后转为 JsonNode */
+    private TokenBuffer capture;
+    private boolean inArray;
+    private int index;
+
+    public IncrementalJsonFieldParser() throws IOException {
+        this.parser = FACTORY.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * 输入下一段文本
+     * @param chunk 模型输出的增量文本
+     * @return 本段输入后完整的字段与数组元素，按出现顺序
+     */
+    public List<JsonField> feed(String chunk) throws IOException {
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        List<JsonField> fields = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handle(token, fields);
+        }
+        return fields;
+    }
+
+    private void handle(JsonToken token, List<JsonField> fields) throws IOException {
+        if (capture != null) {
+            capture.copyCurrentEvent(parser);
+        }
+        switch (token) {
+            case START_OBJECT:
+            case START_ARRAY:
+                depth++;
+                if (depth == 2) {
+                    capture = new TokenBuffer(MAPPER, false);
+                    capture.copyCurrentEvent(parser);
+                    inArray = token == JsonToken.START_ARRAY;
+                    index = 0;
+                }
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                depth--;
+                if (depth == 1 && capture != null) {
+                    JsonParser captured = capture.asParser(MAPPER);
+                    captured.nextToken();
+                    fields.add(new JsonField(field, null, MAPPER.readTree(captured)));
+                    capture = null;
+                } else if (depth == 2 && inArray) {
+                    // 数组中的对象或嵌套数组元素只计数，随整个字段返回
+                    index++;
+                }
+                break;
+            case FIELD_NAME:
+                if (depth == 1) {
+                    field = parser.getCurrentName();
+                }
+                break;
+            default:
+                if (depth == 1) {
+                    fields.add(new JsonField(field, null, scalar(token)));
+                } else if (depth == 2 && inArray) {
+                    fields.add(new JsonField(field, index++, scalar(token)));
+                }
+                break;
+        }
+    }
+
+    private JsonNode scalar(JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return NODES.textNode(parser.getText());
+            case VALUE_NUMBER_INT:
+                return NODES.numberNode(parser.getLongValue());
+            case VALUE_NUMBER_FLOAT:
+                return NODES.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return NODES.booleanNode(true);
+            case VALUE_FALSE:
+                return NODES.booleanNode(false);
+            default:
+                return NODES.nullNode();
+        }
+    }
+
+    /**
+     * 完整的顶层字段或顶层数组元素
+     */
+    public static final class JsonField {
+
+        private final String name;
+        private final Integer index;
+        private final JsonNode value;
+
+        JsonField(String name, Integer index, JsonNode value) {
+            this.name = name;
+            this.index = index;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 数组元素下标，整个字段时为空
+         */
+        public Integer getIndex() {
+            return index;
+        }
+
+        public JsonNode getValue() {
+            return value;
+        }
+
+        public boolean isElement() {
+            return index != null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.rumor.tracing.config;
+
+import com.rumor.tracing.ai.TokenBucket;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * DeepSeek 非阻塞客户端配置
+ * 基于 Reactor Netty 的独立连接池：等待响应期间不占用线程，少量事件循环线程即可承载大量并发分析请求。
+ * 连接保持长连接复用，空闲连接在服务端关闭前主动回收，避免复用到已失效的连接。
+ * 响应超时由调用方按请求设置。
+ */
+@Configuration
+public class DeepSeekClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider deepSeekConnectionProvider(
+            @Value("${ai.service.pool.max-connections:200}") int maxConnections,
+            @Value("${ai.service.pool.pending-acquire-max-count:2000}") int pendingAcquireMaxCount,
+            @Value("${ai.service.pool.pending-acquire-timeout-ms:10000}") long pendingAcquireTimeoutMillis,
+            @Value("${ai.service.pool.max-idle-time-ms:30000}") long maxIdleTimeMillis,
+            @Value("${ai.service.pool.max-life-time-ms:300000}") long maxLifeTimeMillis) {
+        return ConnectionProvider.builder("deepseek")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pendingAcquireMaxCount)
+            .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+            .maxIdleTime(Duration.ofMillis(maxIdleTimeMillis))
+            .maxLifeTime(Duration.ofMillis(maxLifeTimeMillis))
+            .evictInBackground(Duration.ofSeconds(30))
+            .metrics(true)
+            .build();
+    }
+
+    @Bean
+    public WebClient deepSeekWebClient(
+            WebClient.Builder builder,
+            ConnectionProvider deepSeekConnectionProvider,
+            @Value("${ai.service.url}") String aiServiceUrl,
+            @Value("${ai.service.api-key}") String apiKey,
+            @Value("${ai.service.pool.connect-timeout-ms:5000}") int connectTimeoutMillis) {
+        HttpClient httpClient = HttpClient.create(deepSeekConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .keepAlive(true)
+            .compress(true);
+
+        // builder 为原型作用域，此处的修改不影响其他 WebClient
+        return builder
+            .baseUrl(aiServiceUrl)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .build();
+    }
+
+    /**
+     * DeepSeek 调用令牌桶，调度器发出的请求与容错层的重试、对冲共用，总请求速率不超过配置
+     */
+    @Bean
+    public TokenBucket deepSeekRateLimiter(
+            @Value("${ai.dispatch.requests-per-second:5}") double requestsPerSecond,
+            @Value("${ai.dispatch.burst:10}") int burst) {
+        return new TokenBucket(requestsPerSecond, burst);
+    }
+}
@@ -0,0 +1,45 @@
+package com.rumor.tracing.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程运行配置（virtual-threads profile）
+ * Tomcat 为每个请求创建一个虚拟线程，请求内阻塞在 Elasticsearch、Redis 与 DeepSeek 调用上时只挂起虚拟线程，
+ * 不再占用固定大小的工作线程池；这些客户端都在调用方线程上执行，无需单独配置。
+ * MySQL 例外：mysql-connector-java 8.0.28 在 synchronized 块内执行网络读写，JDK 21 下阻塞在数据库上的虚拟线程
+ * 会固定（pin）其载体线程，同时阻塞的数据库调用数受载体线程数（默认等于 CPU 核数）限制，
+ * 并发的数据库访问仍由连接池大小约束；本项目在阻塞调用外围持有的锁使用 ReentrantLock，不额外引入固定。
+ * MVC 异步请求（SSE、流式响应）与 @Async 同样使用虚拟线程。
+ * 图计算线程池、批量导入写入线程与异步分析任务线程仍为平台线程，其并发度由各自的配置限制。
+ */
+@Slf4j
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfig {
+    
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        log.info("请求处理使用虚拟线程");
+        return protocolHandler -> protocolHandler.setExecutor(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+    }
+    
+    @Bean(name = {
+        TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+        AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME
+    })
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-vt-", 0).factory()));
+    }
+}
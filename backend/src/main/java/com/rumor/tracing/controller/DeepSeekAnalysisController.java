@@ -9,10 +9,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
 
+/**
+ * DeepSeek 分析接口
+ * 接口返回 Mono，等待 DeepSeek 响应期间释放请求线程，响应到达后异步写回；流式接口边生成边推送
+ */
 @RestController
 @RequestMapping("/api/deepseek")
 @RequiredArgsConstructor
@@ -23,37 +30,41 @@ public class DeepSeekAnalysisController {
     
     @PostMapping(value = "/analyze/text", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "分析文本内容")
-    public ResponseEntity<ApiResponse<DeepSeekAnalysisResponse>> analyzeText(@RequestBody DeepSeekAnalysisRequest request) {
-        return ResponseEntity.ok()
-            .contentType(new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8))
-            .body(ApiResponse.success(deepSeekAIService.analyzeRumor(request)));
+    public Mono<ResponseEntity<ApiResponse<DeepSeekAnalysisResponse>>> analyzeText(@RequestBody DeepSeekAnalysisRequest request) {
+        return deepSeekAIService.analyzeRumorAsync(request).map(this::ok);
+    }
+    
+    @PostMapping(value = "/analyze/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "流式分析文本内容（SSE）")
+    public Flux<ServerSentEvent<Object>> analyzeStream(@RequestBody DeepSeekAnalysisRequest request) {
+        return deepSeekAIService.analyzeRumorStream(request);
     }
     
     @PostMapping(value = "/analyze/image", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "分析图片内容")
-    public ResponseEntity<ApiResponse<DeepSeekAnalysisResponse>> analyzeImage(@RequestBody DeepSeekAnalysisRequest request) {
+    public Mono<ResponseEntity<ApiResponse<DeepSeekAnalysisResponse>>> analyzeImage(@RequestBody DeepSeekAnalysisRequest request) {
         request.setType("IMAGE");
-        return ResponseEntity.ok()
-            .contentType(new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8))
-            .body(ApiResponse.success(deepSeekAIService.analyzeRumor(request)));
+        return deepSeekAIService.analyzeRumorAsync(request).map(this::ok);
     }
     
     @PostMapping(value = "/analyze/video", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "分析视频内容")
-    public ResponseEntity<ApiResponse<DeepSeekAnalysisResponse>> analyzeVideo(@RequestBody DeepSeekAnalysisRequest request) {
+    public Mono<ResponseEntity<ApiResponse<DeepSeekAnalysisResponse>>> analyzeVideo(@RequestBody DeepSeekAnalysisRequest request) {
         request.setType("VIDEO");
-        return ResponseEntity.ok()
-            .contentType(new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8))
-            .body(ApiResponse.success(deepSeekAIService.analyzeRumor(request)));
+        return deepSeekAIService.analyzeRumorAsync(request).map(this::ok);
     }
     
     @PostMapping(value = "/analyze/multimodal", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "多模态分析")
-    public ResponseEntity<ApiResponse<DeepSeekAnalysisResponse>> analyzeMultiModal(
+    public Mono<ResponseEntity<ApiResponse<DeepSeekAnalysisResponse>>> analyzeMultiModal(
             @RequestBody DeepSeekAnalysisRequest request) {
         request.setType("MULTIMODAL");
+        return deepSeekAIService.analyzeRumorAsync(request).map(this::ok);
+    }
+    
+    private ResponseEntity<ApiResponse<DeepSeekAnalysisResponse>> ok(DeepSeekAnalysisResponse response) {
         return ResponseEntity.ok()
             .contentType(new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8))
-            .body(ApiResponse.success(deepSeekAIService.analyzeRumor(request)));
+            .body(ApiResponse.success(response));
     }
-} 
\ No newline at end of file
+}
@@ -1,19 +1,40 @@
 package com.rumor.tracing.controller;
 
+import com.rumor.tracing.dto.AnalysisJobDTO;
+import com.rumor.tracing.dto.request.AnalysisJobRequest;
+import com.rumor.tracing.entity.InfluenceAnalysis;
 import com.rumor.tracing.entity.PropagationPath;
+import com.rumor.tracing.model.CommunityAlgorithm;
+import com.rumor.tracing.model.InfluenceScoringMode;
+import com.rumor.tracing.model.IngestFormat;
+import com.rumor.tracing.model.NetworkDetailMode;
+import com.rumor.tracing.model.PropagationType;
+import com.rumor.tracing.service.AnalysisJobService;
 import com.rumor.tracing.service.PropagationAnalysisService;
+import com.rumor.tracing.service.PropagationIngestService;
 
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.text.SimpleDateFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 
@@ -24,6 +45,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class PropagationController {
 
     private final PropagationAnalysisService propagationAnalysisService;
+    private final PropagationIngestService propagationIngestService;
+    private final AnalysisJobService analysisJobService;
 
     @GetMapping("/paths/{rumorId}")
     public ResponseEntity<Map<String, Object>> getPropagationPaths(
@@ -61,19 +84,68 @@ public class PropagationController {
         }
     }
 
+    @PostMapping("/paths/{rumorId}")
+    public ResponseEntity<Map<String, Object>> appendPropagationPaths(
+            @PathVariable Long rumorId,
+            @RequestBody List<PropagationPath> paths) {
+        try {
+            List<PropagationPath> saved = propagationAnalysisService.appendPropagationPaths(rumorId, paths);
+            return ResponseEntity.ok(Map.of(
+                "code", 200,
+                "data", Map.of("appended", saved.size())
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.ok(Map.of(
+                "code", 500,
+                "message", "追加传播路径失败：" + e.getMessage()
+            ));
+        }
+    }
+
+    @PostMapping(value = "/paths/{rumorId}/bulk",
+            consumes = {"application/x-ndjson", "application/json", "text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<Map<String, Object>> bulkIngestPropagationPaths(
+            @PathVariable Long rumorId,
+            @RequestParam(required = false) IngestFormat format,
+            HttpServletRequest request) throws IOException {
+        // 未指定格式时按 Content-Type 判断，请求体可用 gzip 压缩
+        IngestFormat resolved = format != null ? format
+                : request.getContentType() != null && request.getContentType().contains("csv")
+                        ? IngestFormat.CSV : IngestFormat.NDJSON;
+        InputStream input = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            input = new GZIPInputStream(input, 64 * 1024);
+        }
+        return ResponseEntity.ok(Map.of(
+            "code", 200,
+            "data", propagationIngestService.ingest(rumorId, input, resolved)
+        ));
+    }
+
     @GetMapping("/influence/{rumorId}")
-    public ResponseEntity<Map<String, Object>> getInfluenceAnalysis(@PathVariable Long rumorId) {
+    public ResponseEntity<Map<String, Object>> getInfluenceAnalysis(
+            @PathVariable Long rumorId,
+            @RequestParam(defaultValue = "CLASSIC") InfluenceScoringMode mode,
+            @RequestParam(required = false) String seed,
+            @RequestParam(required = false) Long asOf,
+            @RequestParam(required = false) Long window,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
         return ResponseEntity.ok(Map.of(
-            "analysis", propagationAnalysisService.calculateInfluence(rumorId)
+            "analysis", propagationAnalysisService.calculateInfluence(rumorId, mode, seed, asOf, window, page, size)
         ));
     }
 
     @GetMapping("/trends/{rumorId}")
     public ResponseEntity<Map<String, Object>> getPropagationTrends(
             @PathVariable Long rumorId,
-            @RequestParam(defaultValue = "hour") String type) {
+            @RequestParam(defaultValue = "hour") String type,
+            @RequestParam(required = false) PropagationType propagationType,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime) {
         try {
-            List<Map<String, Object>> trends = propagationAnalysisService.analyzePropagationTrends(rumorId, type);
+            List<Map<String, Object>> trends = propagationAnalysisService.analyzePropagationTrends(
+                rumorId, type, propagationType, startTime, endTime);
             return ResponseEntity.ok(Map.of(
                 "code", 200,
                 "data", trends
@@ -87,40 +159,152 @@ public class PropagationController {
     }
 
     @GetMapping("/key-nodes/{rumorId}")
-    public ResponseEntity<Map<String, Object>> getKeyNodes(@PathVariable Long rumorId) {
-        List<String> keyNodes = propagationAnalysisService.identifyKeyNodes(rumorId);
+    public ResponseEntity<Map<String, Object>> getKeyNodes(
+            @PathVariable Long rumorId,
+            @RequestParam(required = false) Double epsilon) {
+        List<InfluenceAnalysis> keyNodes = propagationAnalysisService.detectKeyNodes(rumorId, epsilon);
+        // 旧快照行的介数与误差上界可能为空，Map.of 不接受 null
+        Double errorBound = keyNodes.isEmpty() ? null : keyNodes.get(0).getBetweennessErrorBound();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("keyNodes", keyNodes.stream().map(analysis -> {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("nodeId", analysis.getNodeId());
+            node.put("influence", analysis.getInfluenceScore());
+            node.put("betweenness", analysis.getBetweennessScore());
+            node.put("pathCount", analysis.getPathCount());
+            return node;
+        }).toList());
+        response.put("epsilon", epsilon);
+        response.put("errorBound", errorBound);
+        // 采样数达到 max-samples 上限时实际误差上界大于请求值
+        response.put("capped", epsilon != null && errorBound != null && errorBound > epsilon);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/statistics/{rumorId}")
+    public ResponseEntity<Map<String, Object>> getPropagationStatistics(
+            @PathVariable Long rumorId,
+            @RequestParam(required = false) Long asOf,
+            @RequestParam(required = false) Long window) {
+        return ResponseEntity.ok(propagationAnalysisService.getPropagationStatistics(rumorId, asOf, window));
+    }
+
+    @GetMapping("/network/{rumorId}")
+    public ResponseEntity<Map<String, Object>> getPropagationNetwork(
+            @PathVariable Long rumorId,
+            @RequestParam(required = false) Long asOf,
+            @RequestParam(required = false) Long window) {
+        return ResponseEntity.ok(propagationAnalysisService.getPropagationNetwork(rumorId, asOf, window));
+    }
+
+    @GetMapping("/network/{rumorId}/lod")
+    public ResponseEntity<Map<String, Object>> getPropagationNetworkDetail(
+            @PathVariable Long rumorId,
+            @RequestParam(defaultValue = "TOP_K") NetworkDetailMode mode,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(required = false) Long asOf,
+            @RequestParam(required = false) Long window) {
+        return ResponseEntity.ok(propagationAnalysisService.getPropagationNetwork(
+            rumorId, mode, limit, k, startTime, endTime, asOf, window));
+    }
+
+    @GetMapping("/virality/{rumorId}")
+    public ResponseEntity<Map<String, Object>> getVirality(@PathVariable Long rumorId) {
         return ResponseEntity.ok(Map.of(
-            "keyNodes", keyNodes.stream().map(nodeId -> Map.of(
-                "nodeId", nodeId,
-                "influence", 0, // 这里需要计算实际影响力
-                "pathCount", 0  // 这里需要计算实际路径数
-            )).toList()
+            "code", 200,
+            "data", propagationAnalysisService.getVirality(rumorId)
         ));
     }
 
-    @GetMapping("/statistics/{rumorId}")
-    public ResponseEntity<Map<String, Object>> getPropagationStatistics(@PathVariable Long rumorId) {
-        List<PropagationPath> paths = propagationAnalysisService.analyzePropagationPaths(rumorId);
-        
-        int totalPaths = paths.size();
-        double averagePathLength = paths.stream()
-            .mapToInt(PropagationPath::getPathLength)
-            .average()
-            .orElse(0.0);
-        int maxPathLength = paths.stream()
-            .mapToInt(PropagationPath::getPathLength)
-            .max()
-            .orElse(0);
-            
+    @GetMapping("/replay/{rumorId}")
+    public ResponseEntity<Map<String, Object>> getPropagationReplay(
+            @PathVariable Long rumorId,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(required = false) Integer frames,
+            @RequestParam(required = false) Long step) {
         return ResponseEntity.ok(Map.of(
-            "totalPaths", totalPaths,
-            "averagePathLength", averagePathLength,
-            "maxPathLength", maxPathLength
+            "code", 200,
+            "data", propagationAnalysisService.getPropagationReplay(rumorId, startTime, endTime, frames, step)
         ));
     }
 
-    @GetMapping("/network/{rumorId}")
-    public ResponseEntity<Map<String, Object>> getPropagationNetwork(@PathVariable Long rumorId) {
-        return ResponseEntity.ok(propagationAnalysisService.getPropagationNetwork(rumorId));
+    @GetMapping("/communities/{rumorId}")
+    public ResponseEntity<Map<String, Object>> getCommunities(
+            @PathVariable Long rumorId,
+            @RequestParam(defaultValue = "LOUVAIN") CommunityAlgorithm algorithm,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(Map.of(
+            "code", 200,
+            "data", propagationAnalysisService.detectCommunities(rumorId, algorithm, limit)
+        ));
+    }
+
+    @GetMapping("/nodes/{nodeId}/rumors")
+    public ResponseEntity<Map<String, Object>> getNodeRumors(
+            @PathVariable String nodeId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(Map.of(
+            "code", 200,
+            "data", propagationAnalysisService.getNodeRumors(nodeId, after, size)
+        ));
+    }
+
+    @PostMapping("/nodes/index/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildNodeIndex(@RequestParam(required = false) Long rumorId) {
+        return ResponseEntity.ok(Map.of(
+            "code", 200,
+            "data", Map.of("rows", propagationAnalysisService.rebuildNodeIndex(rumorId))
+        ));
+    }
+
+    @GetMapping("/network/{rumorId}/stream")
+    public ResponseEntity<StreamingResponseBody> streamPropagationNetwork(
+            @PathVariable Long rumorId,
+            @RequestParam(defaultValue = "false") boolean compact,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = outputStream -> propagationAnalysisService.writePropagationNetwork(
+            rumorId, compact, gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> submitAnalysisJob(@RequestBody AnalysisJobRequest request) {
+        AnalysisJobDTO job = analysisJobService.submit(request);
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/propagation/jobs/" + job.getId()))
+            .body(Map.of(
+                "code", 202,
+                "data", job
+            ));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getAnalysisJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(Map.of(
+            "code", 200,
+            "data", analysisJobService.getJob(jobId)
+        ));
+    }
+
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelAnalysisJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(Map.of(
+            "code", 200,
+            "data", analysisJobService.cancel(jobId)
+        ));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeAnalysisJob(@PathVariable String jobId) {
+        return analysisJobService.subscribe(jobId);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.rumor.tracing.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.rumor.tracing.model.AnalysisJobStatus;
+import com.rumor.tracing.model.AnalysisJobType;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnalysisJobDTO {
+    private String id;
+    private Long rumorId;
+    private AnalysisJobType type;
+    private Map<String, Object> params;
+    private AnalysisJobStatus status;
+    private Double progress;  // 进度（0-1）
+    private String stage;  // 当前阶段
+    private String error;  // 失败原因
+    private Long submittedAt;
+    private Long startedAt;
+    private Long finishedAt;
+    private Object result;  // 分析结果，仅在任务完成后返回
+}
@@ -17,5 +17,6 @@ public class RumorDTO {
     private String creator;  // 创建人
     private String category;  // 谣言类别
     private Integer influenceScore;  // 影响力分数
+    private Double viralityScore;  // 病毒式传播预测得分（0-1），传播图尚未加载时为空
     private String evidenceId;  // 关联的区块链存证ID
 } 
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.rumor.tracing.dto.request;
+
+import com.rumor.tracing.model.AnalysisJobType;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class AnalysisJobRequest {
+    private Long rumorId;
+    private AnalysisJobType type;
+    private Map<String, Object> params;  // 与对应同步接口的查询参数同名
+}
@@ -1,5 +1,6 @@
 package com.rumor.tracing.dto.request;
 
+import com.rumor.tracing.model.AnalysisPriority;
 import lombok.Data;
 
 @Data
@@ -10,4 +11,6 @@ public class DeepSeekAnalysisRequest {
     private String title;
     private String imageUrl;
     private String videoUrl;
+    /** 调度优先级，为空时按交互请求处理 */
+    private AnalysisPriority priority;
 }
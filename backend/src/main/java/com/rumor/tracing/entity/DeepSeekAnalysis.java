@@ -5,7 +5,9 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "deepseek_analysis")
+@Table(name = "deepseek_analysis", indexes = {
+        @Index(name = "idx_content_hash", columnList = "content_hash")
+})
 @Data
 public class DeepSeekAnalysis {
     @Id
@@ -24,6 +26,14 @@ public class DeepSeekAnalysis {
     
     private Double confidence;
     
+    /** 模型 + 提示词版本 + 规范化内容的 SHA-256，用于结果缓存 */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    /** 完整分析结果（JSON） */
+    @Column(columnDefinition = "TEXT")
+    private String response;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
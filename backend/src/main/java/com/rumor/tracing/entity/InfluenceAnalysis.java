@@ -8,7 +8,9 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "influence_analysis")
+@Table(name = "influence_analysis", indexes = {
+        @Index(name = "idx_rumor_id_snapshot_epoch_node_id", columnList = "rumor_id, snapshot_epoch, node_id")
+})
 public class InfluenceAnalysis {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -38,6 +40,16 @@ public class InfluenceAnalysis {
     @Column(nullable = false)
     private Integer contentCount;
 
+    @Column(name = "betweenness_score")
+    private Double betweennessScore;
+
+    /** 介数实际达到的归一化误差上界，采样数受上限约束时可能大于请求的 epsilon */
+    @Column(name = "betweenness_error_bound")
+    private Double betweennessErrorBound;
+
+    @Column(name = "snapshot_epoch")
+    private Long snapshotEpoch;
+
     @ElementCollection
     @CollectionTable(name = "influence_analysis_user_influence", joinColumns = @JoinColumn(name = "analysis_id"))
     @Column(name = "user_influence")
@@ -0,0 +1,21 @@
+package com.rumor.tracing.entity;
+
+import javax.persistence.*;
+import lombok.Data;
+
+/**
+ * 影响力快照版本序列
+ * 每个谣言一行，写快照时在事务内递增并持有行锁，多个实例并发写同一谣言的快照时按行锁串行分配 snapshot_epoch。
+ */
+@Data
+@Entity
+@Table(name = "influence_snapshot_epoch")
+public class InfluenceSnapshotEpoch {
+    @Id
+    @Column(name = "rumor_id", nullable = false)
+    private Long rumorId;
+
+    // 最近一次分配的快照版本
+    @Column(name = "epoch", nullable = false)
+    private Long epoch;
+}
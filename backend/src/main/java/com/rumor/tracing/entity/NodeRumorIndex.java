@@ -0,0 +1,50 @@
+package com.rumor.tracing.entity;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+
+/**
+ * 节点-谣言倒排索引
+ * 每个 (节点, 谣言) 一行，以 (node_id, rumor_id) 为主键，同一节点的倒排列表在主键上连续存放，
+ * 按节点查询参与过的谣言只需读取该节点自己的行。
+ */
+@Data
+@Entity
+@IdClass(NodeRumorIndex.Key.class)
+@Table(name = "node_rumor_index", indexes = {
+        @Index(name = "idx_rumor_id", columnList = "rumor_id")
+})
+public class NodeRumorIndex {
+    @Id
+    @Column(name = "node_id", nullable = false)
+    private String nodeId;
+
+    @Id
+    @Column(name = "rumor_id", nullable = false)
+    private Long rumorId;
+
+    // 该节点在谣言中作为传播源的边数
+    @Column(name = "out_count", nullable = false)
+    private Integer outCount;
+
+    // 该节点在谣言中作为传播目标的边数
+    @Column(name = "in_count", nullable = false)
+    private Integer inCount;
+
+    @Column(name = "first_time", nullable = false)
+    private Long firstTime;
+
+    @Column(name = "last_time", nullable = false)
+    private Long lastTime;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String nodeId;
+        private Long rumorId;
+    }
+}
@@ -7,7 +7,11 @@ import com.rumor.tracing.model.PropagationType;
 
 @Data
 @Entity
-@Table(name = "propagation_paths")
+@Table(name = "propagation_paths", indexes = {
+        @Index(name = "idx_rumor_id_id", columnList = "rumor_id, id"),
+        @Index(name = "idx_source_node", columnList = "source_node"),
+        @Index(name = "idx_target_node", columnList = "target_node")
+})
 @EqualsAndHashCode(callSuper = true)
 public class PropagationPath extends BaseEntity {
     @Id
@@ -0,0 +1,22 @@
+package com.rumor.tracing.entity;
+
+import javax.persistence.*;
+import lombok.Data;
+
+/**
+ * 传播路径版本
+ * 每个谣言一行，写入传播路径的事务在提交前递增并持有行锁，同一谣言的写事务按版本顺序提交。
+ * 传播图缓存与分析结果缓存以该版本判断数据是否变化，不再统计传播路径行数。
+ */
+@Data
+@Entity
+@Table(name = "propagation_path_version")
+public class PropagationPathVersion {
+    @Id
+    @Column(name = "rumor_id", nullable = false)
+    private Long rumorId;
+
+    // 最近一次提交的写事务分配的版本，没有该行时视为 0
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
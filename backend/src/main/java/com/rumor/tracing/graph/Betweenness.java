@@ -0,0 +1,235 @@
+package com.rumor.tracing.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 基于采样的近似介数中心性（Brandes 算法）
+ * 从无放回抽取的 k 个源节点出发做 BFS 与依赖回传，按 n/k 放大得到估计值。
+ * 依据 Hoeffding 不等式与并集界，k ≥ ln(2n/δ) / (2ε²) 时，
+ * 所有节点归一化介数（除以 n(n-1) 后）的误差以 1-δ 的概率不超过 ε；k ≥ n 时退化为精确计算。
+ * 源节点按工作线程分块，每个线程复用自己的临时数组并累加局部结果。
+ */
+public final class Betweenness {
+
+    private Betweenness() {
+    }
+
+    /**
+     * 计算近似介数中心性
+     * @param graph 传播图
+     * @param epsilon 归一化误差上界
+     * @param delta 失败概率
+     * @param maxSamples 采样数上限，用于限制大图的计算时间
+     * @param seed 随机种子
+     * @param pool 计算线程池
+     * @return 计算结果
+     */
+    public static Result compute(PropagationGraph graph, double epsilon, double delta, int maxSamples,
+                                 long seed, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        if (n == 0) {
+            return new Result(new double[0], 0, true, 0.0);
+        }
+
+        int required = requiredSamples(n, epsilon, delta);
+        int samples = Math.min(n, Math.min(required, Math.max(1, maxSamples)));
+        boolean exact = samples == n;
+
+        int[] sources = sampleSources(n, samples, seed);
+        int chunks = Math.max(1, Math.min(pool.getParallelism(), samples));
+        double[][] partials = new double[chunks][];
+
+        // 每块包含多个源节点，逐个源节点检查发起线程是否被中断
+        Thread caller = Thread.currentThread();
+        ParallelRange.forEachChunk(pool, samples, chunks, (chunk, from, to) -> {
+            Workspace workspace = new Workspace(n);
+            for (int i = from; i < to; i++) {
+                ParallelRange.checkInterrupted(caller);
+                workspace.accumulate(graph, sources[i]);
+            }
+            partials[chunk] = workspace.betweenness;
+        });
+
+        double[] scores = new double[n];
+        double scale = exact ? 1.0 : (double) n / samples;
+        for (double[] partial : partials) {
+            if (partial == null) {
+                continue;
+            }
+            for (int v = 0; v < n; v++) {
+                scores[v] += partial[v] * scale;
+            }
+        }
+        double errorBound = exact ? 0.0 : Math.sqrt(Math.log(2.0 * n / delta) / (2.0 * samples));
+        return new Result(scores, samples, exact, errorBound);
+    }
+
+    /**
+     * 选出介数超过平均值 3 倍的桥接型关键节点
+     * @param scores 介数
+     * @param limit 最多返回的节点数
+     * @return 按介数降序排列的节点编号
+     */
+    public static int[] keyNodes(double[] scores, int limit) {
+        double total = 0.0;
+        for (double score : scores) {
+            total += score;
+        }
+        double threshold = 3.0 * total / Math.max(1, scores.length);
+        List<Integer> candidates = new ArrayList<>();
+        for (int node = 0; node < scores.length; node++) {
+            if (scores[node] > threshold) {
+                candidates.add(node);
+            }
+        }
+        candidates.sort((a, b) -> Double.compare(scores[b], scores[a]));
+        return candidates.stream()
+                .limit(Math.max(0, limit))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * 达到误差上界所需的采样数
+     */
+    static int requiredSamples(int n, double epsilon, double delta) {
+        double samples = Math.ceil(Math.log(2.0 * n / delta) / (2.0 * epsilon * epsilon));
+        return samples >= n ? n : (int) samples;
+    }
+
+    private static int[] sampleSources(int n, int samples, long seed) {
+        if (samples == n) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        // 部分 Fisher-Yates 洗牌，稀疏记录被交换的位置
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<Integer, Integer> swapped = new HashMap<>(samples * 2);
+        int[] result = new int[samples];
+        for (int i = 0; i < samples; i++) {
+            int j = i + random.nextInt(n - i);
+            int valueAtJ = swapped.getOrDefault(j, j);
+            int valueAtI = swapped.getOrDefault(i, i);
+            swapped.put(j, valueAtI);
+            result[i] = valueAtJ;
+        }
+        return result;
+    }
+
+    /**
+     * 单个工作线程的临时数组，按访问过的节点增量清理
+     */
+    private static final class Workspace {
+
+        private final int[] distance;
+        private final double[] pathCounts;
+        private final double[] dependencies;
+        private final int[] order;
+        private final double[] betweenness;
+
+        Workspace(int n) {
+            this.distance = new int[n];
+            this.pathCounts = new double[n];
+            this.dependencies = new double[n];
+            this.order = new int[n];
+            this.betweenness = new double[n];
+            Arrays.fill(distance, -1);
+        }
+
+        void accumulate(PropagationGraph graph, int source) {
+            int[] offsets = graph.offsets();
+            int[] targets = graph.targets();
+
+            // BFS：队列数组同时记录访问顺序，逆序即为按距离递减的出栈顺序
+            int head = 0;
+            int tail = 0;
+            order[tail++] = source;
+            distance[source] = 0;
+            pathCounts[source] = 1.0;
+            while (head < tail) {
+                int v = order[head++];
+                int nextDistance = distance[v] + 1;
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int w = targets[e];
+                    if (distance[w] < 0) {
+                        distance[w] = nextDistance;
+                        order[tail++] = w;
+                    }
+                    if (distance[w] == nextDistance) {
+                        pathCounts[w] += pathCounts[v];
+                    }
+                }
+            }
+
+            // 依赖回传：沿最短路后继累加
+            for (int i = tail - 1; i >= 0; i--) {
+                int w = order[i];
+                int nextDistance = distance[w] + 1;
+                double dependency = 0.0;
+                for (int e = offsets[w]; e < offsets[w + 1]; e++) {
+                    int x = targets[e];
+                    if (distance[x] == nextDistance) {
+                        dependency += pathCounts[w] / pathCounts[x] * (1.0 + dependencies[x]);
+                    }
+                }
+                dependencies[w] = dependency;
+                if (w != source) {
+                    betweenness[w] += dependency;
+                }
+            }
+
+            for (int i = 0; i < tail; i++) {
+                int v = order[i];
+                distance[v] = -1;
+                pathCounts[v] = 0.0;
+                dependencies[v] = 0.0;
+            }
+        }
+    }
+
+    /**
+     * 介数中心性计算结果
+     */
+    public static final class Result {
+
+        private final double[] scores;
+        private final int samples;
+        private final boolean exact;
+        private final double errorBound;
+
+        Result(double[] scores, int samples, boolean exact, double errorBound) {
+            this.scores = scores;
+            this.samples = samples;
+            this.exact = exact;
+            this.errorBound = errorBound;
+        }
+
+        public double[] scores() {
+            return scores;
+        }
+
+        public int samples() {
+            return samples;
+        }
+
+        public boolean exact() {
+            return exact;
+        }
+
+        /**
+         * 实际达到的归一化误差上界（置信度 1-δ）
+         */
+        public double errorBound() {
+            return errorBound;
+        }
+    }
+}
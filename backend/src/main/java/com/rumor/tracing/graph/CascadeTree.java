@@ -0,0 +1,209 @@
+package com.rumor.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * 传播级联树重建与结构指标
+ * 按传播时间顺序扫描边：源节点未被激活时成为新的级联根，目标节点首次被已激活节点触达时，
+ * 该边即为它在级联树中的父边。激活顺序本身就是父先于子的遍历顺序，
+ * 正向一遍求深度、每层宽度与到达各深度的时间，逆向一遍累加子树规模求 Wiener 指数。
+ */
+public final class CascadeTree {
+
+    private static final int INACTIVE = -2;
+
+    private CascadeTree() {
+    }
+
+    /**
+     * 重建级联森林并计算结构指标
+     * @param graph 传播图
+     * @return 级联指标
+     */
+    public static Result compute(PropagationGraph graph) {
+        int n = graph.nodeCount();
+        if (graph.isEmpty()) {
+            return new Result(n, 0, 0, 0, new int[0], 0.0, 0.0, new long[0], 0);
+        }
+
+        TimeOrderedEdges byTime = graph.byTime();
+        int[] edges = byTime.edges();
+        int[] sources = byTime.sources();
+        long[] times = byTime.times();
+        int[] targets = graph.targets();
+
+        int[] parents = new int[n];
+        Arrays.fill(parents, INACTIVE);
+        int[] activationOrder = new int[n];
+        long[] activationTimes = new long[n];
+        int activated = 0;
+        int cascadeCount = 0;
+        for (int i = 0; i < edges.length; i++) {
+            int u = sources[i];
+            int v = targets[edges[i]];
+            if (parents[u] == INACTIVE) {
+                parents[u] = -1;
+                activationTimes[u] = times[i];
+                activationOrder[activated++] = u;
+                cascadeCount++;
+            }
+            if (parents[v] == INACTIVE) {
+                parents[v] = u;
+                activationTimes[v] = times[i];
+                activationOrder[activated++] = v;
+            }
+        }
+
+        // 正向：深度、每层宽度、首次到达各深度的时间、所属级联规模
+        long startTime = times[0];
+        int[] depths = new int[n];
+        int[] roots = new int[n];
+        int[] treeSizes = new int[n];
+        int[] levelBreadths = new int[8];
+        long[] timeToDepth = new long[8];
+        int maxDepth = 0;
+        long depthSum = 0;
+        for (int i = 0; i < activated; i++) {
+            int v = activationOrder[i];
+            int parent = parents[v];
+            int depth = parent < 0 ? 0 : depths[parent] + 1;
+            depths[v] = depth;
+            roots[v] = parent < 0 ? v : roots[parent];
+            treeSizes[roots[v]]++;
+            depthSum += depth;
+            if (depth >= levelBreadths.length) {
+                levelBreadths = Arrays.copyOf(levelBreadths, levelBreadths.length << 1);
+                timeToDepth = Arrays.copyOf(timeToDepth, timeToDepth.length << 1);
+            }
+            if (levelBreadths[depth]++ == 0) {
+                timeToDepth[depth] = activationTimes[v] - startTime;
+            }
+            if (depth > maxDepth) {
+                maxDepth = depth;
+            }
+        }
+
+        // 逆向：子树规模，Wiener 指数 = Σ 每条树边两侧节点数之积
+        int[] subtreeSizes = new int[n];
+        double wienerSum = 0.0;
+        for (int i = activated - 1; i >= 0; i--) {
+            int v = activationOrder[i];
+            subtreeSizes[v]++;
+            int parent = parents[v];
+            if (parent >= 0) {
+                subtreeSizes[parent] += subtreeSizes[v];
+                wienerSum += (double) subtreeSizes[v] * (treeSizes[roots[v]] - subtreeSizes[v]);
+            }
+        }
+
+        double pairCount = 0.0;
+        int largestCascade = 0;
+        for (int i = 0; i < activated; i++) {
+            int v = activationOrder[i];
+            if (parents[v] < 0) {
+                long size = treeSizes[v];
+                pairCount += size * (size - 1) / 2.0;
+                largestCascade = Math.max(largestCascade, treeSizes[v]);
+            }
+        }
+
+        int nonRootNodes = activated - cascadeCount;
+        return new Result(n, graph.edgeCount(), cascadeCount, maxDepth,
+                Arrays.copyOf(levelBreadths, maxDepth + 1),
+                nonRootNodes == 0 ? 0.0 : (double) depthSum / nonRootNodes,
+                pairCount == 0.0 ? 0.0 : wienerSum / pairCount,
+                Arrays.copyOf(timeToDepth, maxDepth + 1),
+                largestCascade);
+    }
+
+    /**
+     * 级联结构指标
+     */
+    public static final class Result {
+
+        private final int nodeCount;
+        private final int edgeCount;
+        private final int cascadeCount;
+        private final int depth;
+        private final int[] levelBreadths;
+        private final double averageDepth;
+        private final double structuralVirality;
+        private final long[] timeToDepth;
+        private final int largestCascadeSize;
+
+        Result(int nodeCount, int edgeCount, int cascadeCount, int depth, int[] levelBreadths,
+               double averageDepth, double structuralVirality, long[] timeToDepth, int largestCascadeSize) {
+            this.nodeCount = nodeCount;
+            this.edgeCount = edgeCount;
+            this.cascadeCount = cascadeCount;
+            this.depth = depth;
+            this.levelBreadths = levelBreadths;
+            this.averageDepth = averageDepth;
+            this.structuralVirality = structuralVirality;
+            this.timeToDepth = timeToDepth;
+            this.largestCascadeSize = largestCascadeSize;
+        }
+
+        public int nodeCount() {
+            return nodeCount;
+        }
+
+        public int edgeCount() {
+            return edgeCount;
+        }
+
+        /**
+         * 级联（根节点）数量
+         */
+        public int cascadeCount() {
+            return cascadeCount;
+        }
+
+        /**
+         * 级联树最大深度（根节点深度为 0）
+         */
+        public int depth() {
+            return depth;
+        }
+
+        /**
+         * 各深度的节点数
+         */
+        public int[] levelBreadths() {
+            return levelBreadths;
+        }
+
+        public int maxBreadth() {
+            int max = 0;
+            for (int breadth : levelBreadths) {
+                max = Math.max(max, breadth);
+            }
+            return max;
+        }
+
+        /**
+         * 非根节点的平均深度
+         */
+        public double averageDepth() {
+            return averageDepth;
+        }
+
+        /**
+         * 结构病毒性：同一级联内节点对的平均树上距离（Wiener 指数 / 节点对数）
+         */
+        public double structuralVirality() {
+            return structuralVirality;
+        }
+
+        /**
+         * 从首次传播起首次到达各深度所用的毫秒数
+         */
+        public long[] timeToDepth() {
+            return timeToDepth;
+        }
+
+        public int largestCascadeSize() {
+            return largestCascadeSize;
+        }
+    }
+}
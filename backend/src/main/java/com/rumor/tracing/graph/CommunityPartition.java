@@ -0,0 +1,75 @@
+package com.rumor.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * 社区划分结果
+ */
+public final class CommunityPartition {
+
+    private final int[] communities;
+    private final int communityCount;
+    private final int iterations;
+    private final double modularity;
+
+    CommunityPartition(int[] communities, int iterations, double modularity) {
+        this.communities = communities;
+        this.communityCount = countOf(communities);
+        this.iterations = iterations;
+        this.modularity = modularity;
+    }
+
+    /**
+     * 将任意标签重新编号为 [0, 社区数)，按首次出现的节点顺序
+     */
+    static int[] compact(int[] labels, int labelBound) {
+        int[] mapping = new int[labelBound];
+        Arrays.fill(mapping, -1);
+        int next = 0;
+        int[] result = new int[labels.length];
+        for (int v = 0; v < labels.length; v++) {
+            int label = labels[v];
+            if (mapping[label] < 0) {
+                mapping[label] = next++;
+            }
+            result[v] = mapping[label];
+        }
+        return result;
+    }
+
+    /**
+     * 压缩编号后的社区数
+     */
+    static int countOf(int[] communities) {
+        int max = -1;
+        for (int community : communities) {
+            max = Math.max(max, community);
+        }
+        return max + 1;
+    }
+
+    /**
+     * 各节点所属社区编号，取值 [0, communityCount)
+     */
+    public int[] communities() {
+        return communities;
+    }
+
+    public int communityCount() {
+        return communityCount;
+    }
+
+    /**
+     * 迭代轮数（标签传播）或聚合层数（Louvain）
+     */
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * 在无向加权传播图上的模块度
+     */
+    public double modularity() {
+        return modularity;
+    }
+}
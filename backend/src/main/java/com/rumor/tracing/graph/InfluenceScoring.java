@@ -0,0 +1,82 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+
+/**
+ * 经典影响力评分模型
+ * 每条边对源节点和目标节点分别贡献 时间因子 × 类型因子 × 源节点权重
+ */
+public final class InfluenceScoring {
+
+    /** 源节点的影响力权重 */
+    public static final double SOURCE_WEIGHT = 1.5;
+
+    /** 时间因子下限 */
+    public static final double MIN_TIME_FACTOR = 0.1;
+
+    /** 时间衰减周期：24小时 */
+    public static final double DECAY_MILLIS = 24.0 * 60 * 60 * 1000;
+
+    private InfluenceScoring() {
+    }
+
+    /**
+     * 单条边对节点的影响力贡献
+     */
+    public static double edgeScore(long propagationTime, byte typeCode, boolean isSource, long currentTime) {
+        double sourceWeight = isSource ? SOURCE_WEIGHT : 1.0;
+        return timeFactor(propagationTime, currentTime) * typeFactor(typeCode) * sourceWeight;
+    }
+
+    /**
+     * 在传播图上直接按边求和各节点的经典影响力分数（用于时间切片等无累加器的场景）
+     * @param graph 传播图
+     * @param currentTime 计算时间衰减所用的当前时间
+     * @return 按节点编号排列的分数
+     */
+    public static double[] scores(PropagationGraph graph, long currentTime) {
+        double[] scores = new double[graph.nodeCount()];
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        long[] times = graph.times();
+        byte[] types = graph.types();
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                scores[u] += edgeScore(times[e], types[e], true, currentTime);
+                scores[targets[e]] += edgeScore(times[e], types[e], false, currentTime);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * 时间因子：越早的传播时间权重越高，24小时线性衰减
+     */
+    public static double timeFactor(long propagationTime, long currentTime) {
+        long timeDiff = currentTime - propagationTime;
+        return Math.max(MIN_TIME_FACTOR, 1.0 - (timeDiff / DECAY_MILLIS));
+    }
+
+    public static double typeFactor(byte typeCode) {
+        return typeFactor(PropagationGraph.typeOf(typeCode));
+    }
+
+    /**
+     * 类型因子：不同类型的传播行为权重不同
+     */
+    public static double typeFactor(PropagationType type) {
+        if (type == null) {
+            return 1.0;
+        }
+        switch (type) {
+            case FORWARD:
+                return 1.5; // 转发权重最高
+            case COMMENT:
+                return 1.2; // 评论次之
+            case LIKE:
+                return 1.0; // 点赞权重最低
+            default:
+                return 1.0;
+        }
+    }
+}
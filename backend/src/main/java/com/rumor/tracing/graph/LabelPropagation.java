@@ -0,0 +1,100 @@
+package com.rumor.tracing.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行标签传播社区发现
+ * 将传播边视为无向边（多重边按条数加权），同步更新：每轮所有节点根据上一轮的标签，
+ * 采用邻居（含自身一票）中权重最大的标签，并列时取编号较小的标签。
+ * 各节点的更新互不依赖，按节点区间分块在 ForkJoinPool 中并行，结果与线程数无关。
+ */
+public final class LabelPropagation {
+
+    private LabelPropagation() {
+    }
+
+    /**
+     * 计算社区划分
+     * @param graph 传播图
+     * @param maxIterations 最大迭代轮数
+     * @param pool 计算线程池
+     * @return 社区划分
+     */
+    public static CommunityPartition compute(PropagationGraph graph, int maxIterations, ForkJoinPool pool) {
+        UndirectedGraph undirected = UndirectedGraph.of(graph);
+        int n = undirected.nodeCount();
+        int[] offsets = undirected.offsets;
+        int[] neighbors = undirected.neighbors;
+        double[] weights = undirected.weights;
+
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++) {
+            maxDegree = Math.max(maxDegree, offsets[v + 1] - offsets[v]);
+        }
+
+        int[] labels = new int[n];
+        for (int v = 0; v < n; v++) {
+            labels[v] = v;
+        }
+        int[] next = new int[n];
+
+        int chunks = ParallelRange.chunkCount(pool, n);
+        // 每块复用一个按 (标签, 邻接位置) 打包排序的缓冲区
+        long[][] scratch = new long[chunks][maxDegree + 1];
+        int iterations = 0;
+        while (iterations < maxIterations) {
+            ParallelRange.checkInterrupted();
+            iterations++;
+            int[] current = labels;
+            int[] updated = next;
+            AtomicInteger changes = new AtomicInteger();
+            ParallelRange.forEachChunk(pool, n, chunks, (chunk, from, to) -> {
+                long[] buffer = scratch[chunk];
+                int changed = 0;
+                for (int v = from; v < to; v++) {
+                    int degree = offsets[v + 1] - offsets[v];
+                    int count = 0;
+                    for (int i = 0; i < degree; i++) {
+                        buffer[count++] = ((long) current[neighbors[offsets[v] + i]] << 32) | i;
+                    }
+                    // 自身一票，位置记为 degree
+                    buffer[count++] = ((long) current[v] << 32) | degree;
+                    Arrays.sort(buffer, 0, count);
+
+                    int best = current[v];
+                    double bestWeight = -1.0;
+                    int i = 0;
+                    while (i < count) {
+                        int label = (int) (buffer[i] >>> 32);
+                        double weight = 0.0;
+                        while (i < count && (int) (buffer[i] >>> 32) == label) {
+                            int position = (int) buffer[i];
+                            weight += position == degree ? 1.0 : weights[offsets[v] + position];
+                            i++;
+                        }
+                        if (weight > bestWeight) {
+                            best = label;
+                            bestWeight = weight;
+                        }
+                    }
+                    updated[v] = best;
+                    if (best != current[v]) {
+                        changed++;
+                    }
+                }
+                changes.addAndGet(changed);
+            });
+            next = labels;
+            labels = updated;
+            if (changes.get() == 0) {
+                break;
+            }
+        }
+
+        int[] communities = CommunityPartition.compact(labels, n);
+        int communityCount = CommunityPartition.countOf(communities);
+        return new CommunityPartition(communities, iterations, undirected.modularity(communities, communityCount));
+    }
+}
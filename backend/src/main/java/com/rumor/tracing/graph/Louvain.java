@@ -0,0 +1,124 @@
+package com.rumor.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * Louvain 社区发现
+ * 在无向加权传播图上交替执行局部移动（节点移入模块度增益最大的邻居社区）与社区聚合，
+ * 直到某一层不再有节点移动。局部移动按节点编号顺序执行，结果可复现。
+ */
+public final class Louvain {
+
+    /** 增益比较的容差，避免浮点误差导致节点来回移动 */
+    private static final double GAIN_EPSILON = 1e-12;
+
+    private Louvain() {
+    }
+
+    /**
+     * 计算社区划分
+     * @param graph 传播图
+     * @param maxLevels 最大聚合层数
+     * @param maxPasses 每层局部移动的最大轮数
+     * @return 社区划分
+     */
+    public static CommunityPartition compute(PropagationGraph graph, int maxLevels, int maxPasses) {
+        UndirectedGraph base = UndirectedGraph.of(graph);
+        int n = base.nodeCount();
+        int[] membership = new int[n];
+        for (int v = 0; v < n; v++) {
+            membership[v] = v;
+        }
+
+        UndirectedGraph current = base;
+        int levels = 0;
+        while (levels < maxLevels) {
+            ParallelRange.checkInterrupted();
+            int[] communities = new int[current.nodeCount()];
+            if (!moveNodes(current, communities, maxPasses)) {
+                break;
+            }
+            int[] compacted = CommunityPartition.compact(communities, current.nodeCount());
+            int communityCount = CommunityPartition.countOf(compacted);
+            for (int v = 0; v < n; v++) {
+                membership[v] = compacted[membership[v]];
+            }
+            current = current.aggregate(compacted, communityCount);
+            levels++;
+        }
+
+        int[] communities = CommunityPartition.compact(membership, n);
+        int communityCount = CommunityPartition.countOf(communities);
+        return new CommunityPartition(communities, levels, base.modularity(communities, communityCount));
+    }
+
+    /**
+     * 局部移动阶段
+     * @param communities 输出参数，各节点所属社区（未压缩编号）
+     * @return 是否有节点移动
+     */
+    private static boolean moveNodes(UndirectedGraph graph, int[] communities, int maxPasses) {
+        int n = graph.nodeCount();
+        int[] offsets = graph.offsets;
+        int[] neighbors = graph.neighbors;
+        double[] weights = graph.weights;
+        double[] degrees = graph.degrees();
+        double total = 0.0;
+        for (int v = 0; v < n; v++) {
+            communities[v] = v;
+            total += degrees[v];
+        }
+        if (total == 0.0) {
+            return false;
+        }
+
+        double[] totals = degrees.clone();
+        double[] linkWeights = new double[n];
+        int[] marks = new int[n];
+        Arrays.fill(marks, -1);
+        int[] touched = new int[n];
+        int visit = 0;
+        boolean moved = false;
+        for (int pass = 0; pass < maxPasses; pass++) {
+            ParallelRange.checkInterrupted();
+            int moves = 0;
+            for (int v = 0; v < n; v++) {
+                visit++;
+                int count = 0;
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int community = communities[neighbors[e]];
+                    if (marks[community] != visit) {
+                        marks[community] = visit;
+                        linkWeights[community] = 0.0;
+                        touched[count++] = community;
+                    }
+                    linkWeights[community] += weights[e];
+                }
+
+                int own = communities[v];
+                totals[own] -= degrees[v];
+                int best = own;
+                double ownLinks = marks[own] == visit ? linkWeights[own] : 0.0;
+                double bestGain = ownLinks - totals[own] * degrees[v] / total;
+                for (int i = 0; i < count; i++) {
+                    int community = touched[i];
+                    double gain = linkWeights[community] - totals[community] * degrees[v] / total;
+                    if (gain > bestGain + GAIN_EPSILON) {
+                        best = community;
+                        bestGain = gain;
+                    }
+                }
+                totals[best] += degrees[v];
+                if (best != own) {
+                    communities[v] = best;
+                    moves++;
+                }
+            }
+            if (moves == 0) {
+                break;
+            }
+            moved = true;
+        }
+        return moved;
+    }
+}
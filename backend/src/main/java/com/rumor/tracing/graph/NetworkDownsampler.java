@@ -0,0 +1,450 @@
+package com.rumor.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * 传播网络降采样（可视化细节层级）
+ * 在 CSR 传播图上按模式选出不超过上限的节点，再把选中节点之间的原始边按 (源, 目标) 合并为带权边，
+ * 返回的视图规模只取决于节点上限，与原始网络规模无关。
+ */
+public final class NetworkDownsampler {
+
+    private NetworkDownsampler() {
+    }
+
+    /**
+     * 按分数取前 limit 个节点及其之间的边
+     * @param graph 传播图
+     * @param scores 按节点编号对齐的分数（如影响力）
+     * @param limit 节点上限
+     */
+    public static NetworkView topK(PropagationGraph graph, double[] scores, int limit) {
+        int n = graph.nodeCount();
+        int[] candidates = new int[n];
+        for (int v = 0; v < n; v++) {
+            candidates[v] = v;
+        }
+        int[] selected = top(candidates, scores, limit);
+        return induced(graph, selected, valuesOf(selected, scores), Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * k-核抽取：边视为无向边（多重边按条数计度，忽略自环），保留核数不小于 k 的节点。
+     * 未指定 k 时取使节点数不超过上限的最小 k；最高核仍超过上限时按核数与度截断。
+     * @param graph 传播图
+     * @param k 核数下限，可为空
+     * @param limit 节点上限
+     */
+    public static NetworkView kCore(PropagationGraph graph, Integer k, int limit) {
+        int n = graph.nodeCount();
+        int[] degrees = new int[n];
+        int[] cores = coreNumbers(graph, degrees);
+
+        int maxCore = 0;
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++) {
+            maxCore = Math.max(maxCore, cores[v]);
+            maxDegree = Math.max(maxDegree, degrees[v]);
+        }
+
+        int threshold;
+        if (k != null) {
+            threshold = k;
+        } else {
+            // atLeast[c] 为核数不小于 c 的节点数
+            int[] atLeast = new int[maxCore + 2];
+            for (int core : cores) {
+                atLeast[core]++;
+            }
+            for (int c = maxCore - 1; c >= 0; c--) {
+                atLeast[c] += atLeast[c + 1];
+            }
+            threshold = 0;
+            while (threshold < maxCore && atLeast[threshold] > limit) {
+                threshold++;
+            }
+        }
+
+        int count = 0;
+        for (int core : cores) {
+            if (core >= threshold) {
+                count++;
+            }
+        }
+        int[] candidates = new int[count];
+        double[] rank = new double[n];
+        count = 0;
+        for (int v = 0; v < n; v++) {
+            if (cores[v] >= threshold) {
+                candidates[count++] = v;
+                rank[v] = cores[v] + degrees[v] / (maxDegree + 1.0);
+            }
+        }
+        int[] selected = top(candidates, rank, limit);
+        double[] values = new double[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            values[i] = cores[selected[i]];
+        }
+        return induced(graph, selected, values, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * 社区折叠：每个社区合并为一个超节点（以社区内度最大的成员为代表），保留规模最大的 limit 个社区，
+     * 社区之间的边合并为带权边，社区内部的边不输出。
+     * @param graph 传播图
+     * @param communities 社区划分
+     * @param limit 超节点上限
+     */
+    public static NetworkView communities(PropagationGraph graph, CommunityPartition communities, int limit) {
+        int n = graph.nodeCount();
+        int communityCount = communities.communityCount();
+        int[] membership = communities.communities();
+        ReverseAdjacency reverse = graph.reverse();
+
+        int[] sizes = new int[communityCount];
+        int[] representatives = new int[communityCount];
+        int[] representativeDegrees = new int[communityCount];
+        Arrays.fill(representatives, -1);
+        for (int v = 0; v < n; v++) {
+            int community = membership[v];
+            sizes[community]++;
+            int degree = graph.outDegree(v) + reverse.inDegree(v);
+            if (representatives[community] < 0 || degree > representativeDegrees[community]) {
+                representatives[community] = v;
+                representativeDegrees[community] = degree;
+            }
+        }
+
+        int[] candidates = new int[communityCount];
+        double[] sizeValues = new double[communityCount];
+        for (int c = 0; c < communityCount; c++) {
+            candidates[c] = c;
+            sizeValues[c] = sizes[c];
+        }
+        int[] selected = top(candidates, sizeValues, limit);
+
+        int[] communityView = new int[communityCount];
+        Arrays.fill(communityView, -1);
+        String[] ids = new String[selected.length];
+        int[] viewSizes = new int[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            communityView[selected[i]] = i;
+            ids[i] = graph.nodeId(representatives[selected[i]]);
+            viewSizes[i] = sizes[selected[i]];
+        }
+
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        long[] times = graph.times();
+        EdgeBuffer buffer = new EdgeBuffer();
+        for (int u = 0; u < n; u++) {
+            int source = communityView[membership[u]];
+            if (source < 0) {
+                continue;
+            }
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int target = communityView[membership[targets[e]]];
+                if (target >= 0 && target != source) {
+                    buffer.add(source, target, times[e]);
+                }
+            }
+        }
+        return aggregate(ids, valuesOf(selected, sizeValues), viewSizes, buffer, n, graph.edgeCount());
+    }
+
+    /**
+     * 时间窗切片：只保留传播时间在 [startTime, endTime] 内的边，节点超过上限时按窗口内的度取前 limit 个
+     * @param graph 传播图
+     * @param startTime 开始时间（含），为空时不限
+     * @param endTime 结束时间（含），为空时不限
+     * @param limit 节点上限
+     */
+    public static NetworkView timeWindow(PropagationGraph graph, Long startTime, Long endTime, int limit) {
+        int n = graph.nodeCount();
+        long from = startTime != null ? startTime : Long.MIN_VALUE;
+        long to = endTime != null ? endTime : Long.MAX_VALUE;
+        TimeOrderedEdges byTime = graph.byTime();
+        int lo = byTime.lowerBound(from);
+        int hi = byTime.upperBound(to);
+        int[] edges = byTime.edges();
+        int[] sources = byTime.sources();
+        int[] targets = graph.targets();
+
+        double[] degrees = new double[n];
+        int active = 0;
+        for (int i = lo; i < hi; i++) {
+            if (degrees[sources[i]]++ == 0) {
+                active++;
+            }
+            if (degrees[targets[edges[i]]]++ == 0) {
+                active++;
+            }
+        }
+        int[] candidates = new int[active];
+        active = 0;
+        for (int v = 0; v < n; v++) {
+            if (degrees[v] > 0) {
+                candidates[active++] = v;
+            }
+        }
+        int[] selected = top(candidates, degrees, limit);
+        return induced(graph, selected, valuesOf(selected, degrees), from, to);
+    }
+
+    /**
+     * 选中节点的诱导子图，只保留时间在 [from, to] 内的边
+     */
+    private static NetworkView induced(PropagationGraph graph, int[] selected, double[] values, long from, long to) {
+        int n = graph.nodeCount();
+        int[] view = new int[n];
+        Arrays.fill(view, -1);
+        String[] ids = new String[selected.length];
+        int[] sizes = new int[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            view[selected[i]] = i;
+            ids[i] = graph.nodeId(selected[i]);
+            sizes[i] = 1;
+        }
+
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        long[] times = graph.times();
+        EdgeBuffer buffer = new EdgeBuffer();
+        for (int u : selected) {
+            int source = view[u];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int target = view[targets[e]];
+                if (target >= 0 && times[e] >= from && times[e] <= to) {
+                    buffer.add(source, target, times[e]);
+                }
+            }
+        }
+        return aggregate(ids, values, sizes, buffer, n, graph.edgeCount());
+    }
+
+    /**
+     * 按 (源, 目标) 合并视图边：先按源计数排序，再用目标上的时间戳标记去重，O(边数 + 节点数)
+     */
+    private static NetworkView aggregate(String[] ids, double[] values, int[] sizes, EdgeBuffer buffer,
+                                         int totalNodes, int totalEdges) {
+        int m = ids.length;
+        int size = buffer.size;
+        int[] start = new int[m + 1];
+        for (int i = 0; i < size; i++) {
+            start[buffer.sources[i] + 1]++;
+        }
+        for (int s = 0; s < m; s++) {
+            start[s + 1] += start[s];
+        }
+        int[] cursor = Arrays.copyOf(start, m);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[cursor[buffer.sources[i]]++] = i;
+        }
+
+        int[] stamp = new int[m];
+        Arrays.fill(stamp, -1);
+        int[] slot = new int[m];
+        int[] edgeSources = new int[size];
+        int[] edgeTargets = new int[size];
+        int[] edgeWeights = new int[size];
+        long[] edgeTimes = new long[size];
+        int count = 0;
+        for (int s = 0; s < m; s++) {
+            for (int k = start[s]; k < start[s + 1]; k++) {
+                int i = order[k];
+                int t = buffer.targets[i];
+                if (stamp[t] != s) {
+                    stamp[t] = s;
+                    slot[t] = count;
+                    edgeSources[count] = s;
+                    edgeTargets[count] = t;
+                    edgeTimes[count] = Long.MAX_VALUE;
+                    count++;
+                }
+                int edge = slot[t];
+                edgeWeights[edge]++;
+                edgeTimes[edge] = Math.min(edgeTimes[edge], buffer.times[i]);
+            }
+        }
+        return new NetworkView(ids, values, sizes,
+                Arrays.copyOf(edgeSources, count), Arrays.copyOf(edgeTargets, count),
+                Arrays.copyOf(edgeWeights, count), Arrays.copyOf(edgeTimes, count),
+                totalNodes, totalEdges);
+    }
+
+    /**
+     * 核数分解（Batagelj-Zaversnik 桶排序剥离），O(节点数 + 边数)
+     * @param degrees 输出参数，写入各节点的无向度
+     */
+    static int[] coreNumbers(PropagationGraph graph, int[] degrees) {
+        int n = graph.nodeCount();
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        ReverseAdjacency reverse = graph.reverse();
+        int[] inOffsets = reverse.offsets();
+        int[] inSources = reverse.sources();
+
+        int[] deg = new int[n];
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++) {
+            int selfLoops = 0;
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (targets[e] == v) {
+                    selfLoops++;
+                }
+            }
+            deg[v] = graph.outDegree(v) + reverse.inDegree(v) - 2 * selfLoops;
+            degrees[v] = deg[v];
+            maxDegree = Math.max(maxDegree, deg[v]);
+        }
+
+        int[] bin = new int[maxDegree + 1];
+        for (int v = 0; v < n; v++) {
+            bin[deg[v]]++;
+        }
+        int start = 0;
+        for (int d = 0; d <= maxDegree; d++) {
+            int num = bin[d];
+            bin[d] = start;
+            start += num;
+        }
+        int[] pos = new int[n];
+        int[] vert = new int[n];
+        for (int v = 0; v < n; v++) {
+            pos[v] = bin[deg[v]];
+            vert[pos[v]] = v;
+            bin[deg[v]]++;
+        }
+        for (int d = maxDegree; d > 0; d--) {
+            bin[d] = bin[d - 1];
+        }
+        bin[0] = 0;
+
+        for (int i = 0; i < n; i++) {
+            int v = vert[i];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                peel(targets[e], v, deg, bin, pos, vert);
+            }
+            for (int e = inOffsets[v]; e < inOffsets[v + 1]; e++) {
+                peel(inSources[e], v, deg, bin, pos, vert);
+            }
+        }
+        return deg;
+    }
+
+    private static void peel(int u, int v, int[] deg, int[] bin, int[] pos, int[] vert) {
+        if (u == v || deg[u] <= deg[v]) {
+            return;
+        }
+        int du = deg[u];
+        int pu = pos[u];
+        int pw = bin[du];
+        int w = vert[pw];
+        if (u != w) {
+            pos[u] = pw;
+            vert[pu] = w;
+            pos[w] = pu;
+            vert[pw] = u;
+        }
+        bin[du]++;
+        deg[u]--;
+    }
+
+    /**
+     * 按分数降序取前 k 个候选（分数相同时编号小者优先），使用大小为 k 的最小堆
+     */
+    static int[] top(int[] candidates, double[] scores, int k) {
+        int capacity = Math.max(0, Math.min(k, candidates.length));
+        int[] heap = new int[capacity];
+        int size = 0;
+        for (int candidate : candidates) {
+            if (size < capacity) {
+                heap[size] = candidate;
+                siftUp(heap, size++, scores);
+            } else if (capacity > 0 && worse(heap[0], candidate, scores)) {
+                heap[0] = candidate;
+                siftDown(heap, size, scores);
+            }
+        }
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i, scores);
+        }
+        return result;
+    }
+
+    private static boolean worse(int a, int b, double[] scores) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && a > b);
+    }
+
+    private static void siftUp(int[] heap, int index, double[] scores) {
+        int node = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(node, heap[parent], scores)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = node;
+    }
+
+    private static void siftDown(int[] heap, int size, double[] scores) {
+        if (size == 0) {
+            return;
+        }
+        int index = 0;
+        int node = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && worse(heap[child + 1], heap[child], scores)) {
+                child++;
+            }
+            if (!worse(heap[child], node, scores)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = node;
+    }
+
+    private static double[] valuesOf(int[] selected, double[] scores) {
+        double[] values = new double[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            values[i] = scores[selected[i]];
+        }
+        return values;
+    }
+
+    /**
+     * 可增长的视图边缓冲
+     */
+    private static final class EdgeBuffer {
+
+        private int[] sources = new int[64];
+        private int[] targets = new int[64];
+        private long[] times = new long[64];
+        private int size;
+
+        void add(int source, int target, long time) {
+            if (size == sources.length) {
+                int capacity = size << 1;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                times = Arrays.copyOf(times, capacity);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            times[size] = time;
+            size++;
+        }
+    }
+}
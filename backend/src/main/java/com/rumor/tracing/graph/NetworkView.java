@@ -0,0 +1,87 @@
+package com.rumor.tracing.graph;
+
+/**
+ * 降采样后的传播网络视图
+ * 节点按视图编号排列，边为视图节点之间合并后的有向边（权重为原始边条数，时间为最早传播时间）。
+ */
+public final class NetworkView {
+
+    private final String[] nodeIds;
+    private final double[] nodeValues;
+    private final int[] nodeSizes;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final int[] edgeWeights;
+    private final long[] edgeTimes;
+    private final int totalNodes;
+    private final int totalEdges;
+
+    NetworkView(String[] nodeIds, double[] nodeValues, int[] nodeSizes, int[] edgeSources, int[] edgeTargets,
+                int[] edgeWeights, long[] edgeTimes, int totalNodes, int totalEdges) {
+        this.nodeIds = nodeIds;
+        this.nodeValues = nodeValues;
+        this.nodeSizes = nodeSizes;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.edgeWeights = edgeWeights;
+        this.edgeTimes = edgeTimes;
+        this.totalNodes = totalNodes;
+        this.totalEdges = totalEdges;
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public int edgeCount() {
+        return edgeSources.length;
+    }
+
+    public String nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    /**
+     * 节点取值，含义随模式而定：影响力分数、核数、社区规模或时间窗内的度
+     */
+    public double nodeValue(int node) {
+        return nodeValues[node];
+    }
+
+    /**
+     * 节点代表的原始节点数（社区超节点为成员数，其余为 1）
+     */
+    public int nodeSize(int node) {
+        return nodeSizes[node];
+    }
+
+    public int edgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public int edgeWeight(int edge) {
+        return edgeWeights[edge];
+    }
+
+    public long edgeTime(int edge) {
+        return edgeTimes[edge];
+    }
+
+    /**
+     * 原始网络节点数
+     */
+    public int totalNodes() {
+        return totalNodes;
+    }
+
+    /**
+     * 原始网络边数
+     */
+    public int totalEdges() {
+        return totalEdges;
+    }
+}
@@ -0,0 +1,120 @@
+package com.rumor.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * 节点字典
+ * 将字符串节点ID驻留为连续的 int 编号，内部使用开放寻址哈希表，避免 HashMap 的装箱与 Entry 对象
+ */
+public class NodeDictionary {
+
+    private static final int EMPTY = -1;
+
+    private String[] names;
+    private int[] table;
+    private int mask;
+    private int size;
+
+    public NodeDictionary() {
+        this(16);
+    }
+
+    public NodeDictionary(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(16, expectedSize) * 2);
+        this.table = new int[capacity];
+        Arrays.fill(this.table, EMPTY);
+        this.mask = capacity - 1;
+        this.names = new String[Math.max(16, expectedSize)];
+    }
+
+    /**
+     * 获取节点编号，不存在时分配新编号
+     * @param name 节点ID
+     * @return 节点编号
+     */
+    public int intern(String name) {
+        int slot = mix(name.hashCode()) & mask;
+        while (true) {
+            int id = table[slot];
+            if (id == EMPTY) {
+                break;
+            }
+            if (names[id].equals(name)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size << 1);
+        }
+        int id = size++;
+        names[id] = name;
+        table[slot] = id;
+
+        // 负载因子保持在 0.5 以下
+        if (size << 1 > table.length) {
+            rehash(table.length << 1);
+        }
+        return id;
+    }
+
+    /**
+     * 查询节点编号
+     * @param name 节点ID
+     * @return 节点编号，不存在时返回 -1
+     */
+    public int indexOf(String name) {
+        if (name == null) {
+            return EMPTY;
+        }
+        int slot = mix(name.hashCode()) & mask;
+        while (true) {
+            int id = table[slot];
+            if (id == EMPTY || names[id].equals(name)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 导出当前全部节点ID（按编号顺序）
+     */
+    public String[] names() {
+        return Arrays.copyOf(names, size);
+    }
+
+    private void rehash(int capacity) {
+        int[] newTable = new int[capacity];
+        Arrays.fill(newTable, EMPTY);
+        int newMask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(names[id].hashCode()) & newMask;
+            while (newTable[slot] != EMPTY) {
+                slot = (slot + 1) & newMask;
+            }
+            newTable[slot] = id;
+        }
+        this.table = newTable;
+        this.mask = newMask;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        return n < 0 ? 1 << 30 : n;
+    }
+}
@@ -0,0 +1,72 @@
+package com.rumor.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * 节点影响力计算结果，数组按节点编号对齐
+ */
+public final class NodeInfluence {
+
+    private final String[] nodeIds;
+    private final double[] scores;
+    private final int[] pathCounts;
+    private final int[] outDegrees;
+    private final int edgeCount;
+
+    public NodeInfluence(String[] nodeIds, double[] scores, int[] pathCounts, int[] outDegrees, int edgeCount) {
+        this.nodeIds = nodeIds;
+        this.scores = scores;
+        this.pathCounts = pathCounts;
+        this.outDegrees = outDegrees;
+        this.edgeCount = edgeCount;
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public String nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    public double score(int node) {
+        return scores[node];
+    }
+
+    public int pathCount(int node) {
+        return pathCounts[node];
+    }
+
+    public int outDegree(int node) {
+        return outDegrees[node];
+    }
+
+    public int inDegree(int node) {
+        return pathCounts[node] - outDegrees[node];
+    }
+
+    /**
+     * 按影响力分数降序的一页节点，分数相同时编号小的在前
+     * 只用容量为 offset + limit 的堆选出前若干名，不对全部节点排序
+     * @param offset 跳过的节点数
+     * @param limit 返回的节点数上限
+     * @return 节点编号
+     */
+    public int[] rank(int offset, int limit) {
+        int n = nodeIds.length;
+        int end = (int) Math.min(n, (long) Math.max(0, offset) + Math.max(0, limit));
+        if (offset >= end) {
+            return new int[0];
+        }
+        int[] candidates = new int[n];
+        for (int node = 0; node < n; node++) {
+            candidates[node] = node;
+        }
+        int[] top = NetworkDownsampler.top(candidates, scores, end);
+        return Arrays.copyOfRange(top, offset, top.length);
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+}
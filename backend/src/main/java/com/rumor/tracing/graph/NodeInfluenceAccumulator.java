@@ -0,0 +1,229 @@
+package com.rumor.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * 节点影响力累加器
+ * 时间因子 max(0.1, 1 - (t当前 - t边) / 24h) 分为两个区间：线性区间内的边可由 Σw 与 Σw·t 直接求和，
+ * 下限区间内的边贡献 0.1·Σw。每个节点分别维护两个区间的累加量，新边只更新两个端点（O(log E)）。
+ * 区间分界随查询时间移动，两个按时间排序的堆记录各边所在区间，查询时只迁移越过分界的边，
+ * 查询代价与上次查询以来越过分界的边数成正比，不回扫边日志；查询时间回退时反向迁移。
+ */
+public class NodeInfluenceAccumulator {
+
+    private final PropagationEdgeLog edgeLog;
+    /** 线性区间内的边，堆顶为最早的边 */
+    private final EdgeHeap linearEdges;
+    /** 下限区间内的边，堆顶为最晚的边 */
+    private final EdgeHeap floorEdges;
+    private double[] linearSums;
+    private double[] linearTimeSums;
+    private double[] floorSums;
+    private int[] pathCounts;
+    private int[] outDegrees;
+    private int nodeCount;
+    private long epoch;
+    private boolean hasEpoch;
+    /** 当前区间分界：传播时间不晚于该值的边位于下限区间 */
+    private double boundary = Double.NEGATIVE_INFINITY;
+
+    public NodeInfluenceAccumulator(PropagationEdgeLog edgeLog) {
+        this(edgeLog, 16);
+    }
+
+    public NodeInfluenceAccumulator(PropagationEdgeLog edgeLog, int expectedNodes) {
+        int capacity = Math.max(16, expectedNodes);
+        this.edgeLog = edgeLog;
+        this.linearEdges = new EdgeHeap(edgeLog, true);
+        this.floorEdges = new EdgeHeap(edgeLog, false);
+        this.linearSums = new double[capacity];
+        this.linearTimeSums = new double[capacity];
+        this.floorSums = new double[capacity];
+        this.pathCounts = new int[capacity];
+        this.outDegrees = new int[capacity];
+    }
+
+    /**
+     * 累加边日志中一条边对源节点与目标节点的贡献
+     * @param edge 边在边日志中的编号
+     */
+    public void addEdge(int edge) {
+        long propagationTime = edgeLog.timeAt(edge);
+        if (!hasEpoch) {
+            // 以第一条边的时间为基准，减小 Σw·t 的量级以保留精度
+            epoch = propagationTime;
+            hasEpoch = true;
+        }
+        ensureCapacity(Math.max(edgeLog.sourceAt(edge), edgeLog.targetAt(edge)) + 1);
+        pathCounts[edgeLog.sourceAt(edge)]++;
+        pathCounts[edgeLog.targetAt(edge)]++;
+        outDegrees[edgeLog.sourceAt(edge)]++;
+        boolean linear = propagationTime > boundary;
+        (linear ? linearEdges : floorEdges).push(edge);
+        contribute(edge, linear, 1);
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int pathCount(int node) {
+        return pathCounts[node];
+    }
+
+    public int[] pathCounts() {
+        return Arrays.copyOf(pathCounts, nodeCount);
+    }
+
+    /**
+     * 各节点的出边数；入边数为路径数减出边数
+     */
+    public int[] outDegrees() {
+        return Arrays.copyOf(outDegrees, nodeCount);
+    }
+
+    /**
+     * 计算当前时间下各节点的影响力分数
+     * @param currentTime 当前时间
+     * @return 按节点编号排列的分数
+     */
+    public double[] scores(long currentTime) {
+        advance(currentTime - (1.0 - InfluenceScoring.MIN_TIME_FACTOR) * InfluenceScoring.DECAY_MILLIS);
+        double epochFactor = 1.0 - (currentTime - epoch) / InfluenceScoring.DECAY_MILLIS;
+        double[] scores = new double[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            scores[node] = InfluenceScoring.MIN_TIME_FACTOR * floorSums[node]
+                    + linearSums[node] * epochFactor
+                    + linearTimeSums[node] / InfluenceScoring.DECAY_MILLIS;
+        }
+        return scores;
+    }
+
+    /**
+     * 移动区间分界，迁移越过分界的边
+     */
+    private void advance(double newBoundary) {
+        if (newBoundary > boundary) {
+            while (!linearEdges.isEmpty() && edgeLog.timeAt(linearEdges.peek()) <= newBoundary) {
+                int edge = linearEdges.pop();
+                moveEdge(edge, false);
+                floorEdges.push(edge);
+            }
+        } else if (newBoundary < boundary) {
+            while (!floorEdges.isEmpty() && edgeLog.timeAt(floorEdges.peek()) > newBoundary) {
+                int edge = floorEdges.pop();
+                moveEdge(edge, true);
+                linearEdges.push(edge);
+            }
+        }
+        boundary = newBoundary;
+    }
+
+    private void moveEdge(int edge, boolean toLinear) {
+        contribute(edge, !toLinear, -1);
+        contribute(edge, toLinear, 1);
+    }
+
+    /**
+     * 在指定区间的累加量中计入（sign = 1）或扣除（sign = -1）一条边对两个端点的贡献
+     */
+    private void contribute(int edge, boolean linear, int sign) {
+        double typeFactor = sign * InfluenceScoring.typeFactor(edgeLog.typeAt(edge));
+        int source = edgeLog.sourceAt(edge);
+        int target = edgeLog.targetAt(edge);
+        if (linear) {
+            long offset = edgeLog.timeAt(edge) - epoch;
+            linearSums[source] += typeFactor * InfluenceScoring.SOURCE_WEIGHT;
+            linearTimeSums[source] += typeFactor * InfluenceScoring.SOURCE_WEIGHT * offset;
+            linearSums[target] += typeFactor;
+            linearTimeSums[target] += typeFactor * offset;
+        } else {
+            floorSums[source] += typeFactor * InfluenceScoring.SOURCE_WEIGHT;
+            floorSums[target] += typeFactor;
+        }
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > nodeCount) {
+            nodeCount = minCapacity;
+        }
+        if (minCapacity <= linearSums.length) {
+            return;
+        }
+        int capacity = Math.max(minCapacity, linearSums.length + (linearSums.length >> 1));
+        linearSums = Arrays.copyOf(linearSums, capacity);
+        linearTimeSums = Arrays.copyOf(linearTimeSums, capacity);
+        floorSums = Arrays.copyOf(floorSums, capacity);
+        pathCounts = Arrays.copyOf(pathCounts, capacity);
+        outDegrees = Arrays.copyOf(outDegrees, capacity);
+    }
+
+    /**
+     * 按传播时间排序的边编号堆
+     */
+    private static final class EdgeHeap {
+
+        private final PropagationEdgeLog edgeLog;
+        /** true 为最早的边在堆顶，false 为最晚的边在堆顶 */
+        private final boolean earliestFirst;
+        private int[] heap = new int[16];
+        private int size;
+
+        EdgeHeap(PropagationEdgeLog edgeLog, boolean earliestFirst) {
+            this.edgeLog = edgeLog;
+            this.earliestFirst = earliestFirst;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peek() {
+            return heap[0];
+        }
+
+        void push(int edge) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size + (size >> 1));
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(edge, heap[parent])) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = edge;
+        }
+
+        int pop() {
+            int top = heap[0];
+            int last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], last)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+
+        private boolean before(int a, int b) {
+            long timeA = edgeLog.timeAt(a);
+            long timeB = edgeLog.timeAt(b);
+            return earliestFirst ? timeA < timeB : timeA > timeB;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.rumor.tracing.graph;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 区间并行工具
+ * 将 [0, n) 均分为若干块，在指定 ForkJoinPool 中并行执行；块编号固定，便于按块做确定性归约。
+ * 调用线程被中断（分析任务取消）时，尚未开始的块不再执行，以 CancellationException 结束计算。
+ */
+final class ParallelRange {
+
+    /** 每块最少元素数，避免小图的调度开销 */
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    @FunctionalInterface
+    interface ChunkTask {
+        void run(int chunk, int from, int to);
+    }
+
+    private ParallelRange() {
+    }
+
+    /**
+     * 计算块数：并行度的 4 倍，且每块不少于 MIN_CHUNK_SIZE 个元素
+     */
+    static int chunkCount(ForkJoinPool pool, int n) {
+        int byParallelism = pool.getParallelism() * 4;
+        int bySize = (n + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE;
+        return Math.max(1, Math.min(byParallelism, bySize));
+    }
+
+    static void forEachChunk(ForkJoinPool pool, int n, int chunks, ChunkTask task) {
+        Thread caller = Thread.currentThread();
+        checkInterrupted(caller);
+        if (chunks <= 1) {
+            task.run(0, 0, n);
+            return;
+        }
+        pool.invoke(new ChunkAction(caller, task, n, chunks, 0, chunks));
+    }
+
+    /**
+     * 当前线程被中断时终止计算，迭代算法在每轮开始时检查
+     */
+    static void checkInterrupted() {
+        checkInterrupted(Thread.currentThread());
+    }
+
+    /**
+     * 发起计算的线程被中断时终止计算；计算池线程不会收到中断，需检查发起线程
+     * @param caller 发起计算的线程
+     */
+    static void checkInterrupted(Thread caller) {
+        if (caller.isInterrupted()) {
+            throw new CancellationException("图计算已中断");
+        }
+    }
+
+    private static final class ChunkAction extends RecursiveAction {
+
+        private final Thread caller;
+        private final ChunkTask task;
+        private final int n;
+        private final int chunks;
+        private final int firstChunk;
+        private final int lastChunk;
+
+        ChunkAction(Thread caller, ChunkTask task, int n, int chunks, int firstChunk, int lastChunk) {
+            this.caller = caller;
+            this.task = task;
+            this.n = n;
+            this.chunks = chunks;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastChunk - firstChunk == 1) {
+                checkInterrupted(caller);
+                long from = (long) n * firstChunk / chunks;
+                long to = (long) n * (firstChunk + 1) / chunks;
+                task.run(firstChunk, (int) from, (int) to);
+                return;
+            }
+            int middle = (firstChunk + lastChunk) >>> 1;
+            invokeAll(new ChunkAction(caller, task, n, chunks, firstChunk, middle),
+                    new ChunkAction(caller, task, n, chunks, middle, lastChunk));
+        }
+    }
+}
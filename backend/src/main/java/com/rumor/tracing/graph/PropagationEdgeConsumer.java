@@ -0,0 +1,12 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+
+/**
+ * 传播边回调，流式加载时逐行接收，不创建实体对象
+ */
+@FunctionalInterface
+public interface PropagationEdgeConsumer {
+
+    void accept(long id, String sourceNode, String targetNode, long propagationTime, PropagationType type);
+}
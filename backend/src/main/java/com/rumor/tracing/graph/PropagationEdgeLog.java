@@ -0,0 +1,111 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.entity.PropagationPath;
+import com.rumor.tracing.model.PropagationType;
+
+import java.util.Arrays;
+
+/**
+ * 单个谣言的传播边日志
+ * 按到达顺序追加边，使用可增长的原始类型数组保存，按需压缩为 CSR 快照
+ */
+public class PropagationEdgeLog {
+
+    private final NodeDictionary nodes;
+    private int[] sources;
+    private int[] targets;
+    private long[] times;
+    private byte[] types;
+    private int size;
+
+    public PropagationEdgeLog() {
+        this(16);
+    }
+
+    public PropagationEdgeLog(int expectedEdges) {
+        int capacity = Math.max(16, expectedEdges);
+        this.nodes = new NodeDictionary(capacity);
+        this.sources = new int[capacity];
+        this.targets = new int[capacity];
+        this.times = new long[capacity];
+        this.types = new byte[capacity];
+    }
+
+    /**
+     * 追加一条传播边
+     * @return 边编号
+     */
+    public int append(String sourceNode, String targetNode, long propagationTime, PropagationType type) {
+        if (size == sources.length) {
+            grow();
+        }
+        int edge = size++;
+        sources[edge] = nodes.intern(sourceNode);
+        targets[edge] = nodes.intern(targetNode);
+        times[edge] = propagationTime;
+        types[edge] = PropagationGraph.typeCode(type);
+        return edge;
+    }
+
+    public int append(PropagationPath path) {
+        return append(path.getSourceNode(), path.getTargetNode(), path.getPropagationTime(), path.getType());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int sourceAt(int edge) {
+        return sources[edge];
+    }
+
+    public int targetAt(int edge) {
+        return targets[edge];
+    }
+
+    public long timeAt(int edge) {
+        return times[edge];
+    }
+
+    public byte typeAt(int edge) {
+        return types[edge];
+    }
+
+    public NodeDictionary nodes() {
+        return nodes;
+    }
+
+    /**
+     * 构建 CSR 快照，同一源节点的出边保持到达顺序
+     */
+    public PropagationGraph toGraph() {
+        int nodeCount = nodes.size();
+        int[] offsets = new int[nodeCount + 1];
+        for (int e = 0; e < size; e++) {
+            offsets[sources[e] + 1]++;
+        }
+        for (int u = 0; u < nodeCount; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+
+        int[] cursor = Arrays.copyOf(offsets, nodeCount);
+        int[] csrTargets = new int[size];
+        long[] csrTimes = new long[size];
+        byte[] csrTypes = new byte[size];
+        for (int e = 0; e < size; e++) {
+            int pos = cursor[sources[e]]++;
+            csrTargets[pos] = targets[e];
+            csrTimes[pos] = times[e];
+            csrTypes[pos] = types[e];
+        }
+        return new PropagationGraph(nodes.names(), offsets, csrTargets, csrTimes, csrTypes);
+    }
+
+    private void grow() {
+        int capacity = sources.length + (sources.length >> 1);
+        sources = Arrays.copyOf(sources, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        times = Arrays.copyOf(times, capacity);
+        types = Arrays.copyOf(types, capacity);
+    }
+}
@@ -0,0 +1,245 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+
+import java.util.Arrays;
+
+/**
+ * 传播图快照（CSR 压缩邻接表）
+ * 节点以 int 编号表示，出边按源节点连续存放：
+ * 节点 u 的出边下标区间为 [offsets[u], offsets[u + 1])，对应 targets/times/types 中的同一位置。
+ * 快照构建后不可变，数组直接暴露给分析算法，调用方不得修改。
+ */
+public final class PropagationGraph {
+
+    /** 未知传播类型的编码 */
+    public static final byte UNKNOWN_TYPE = -1;
+
+    private static final PropagationType[] TYPES = PropagationType.values();
+
+    private final String[] nodeIds;
+    private final int[] offsets;
+    private final int[] targets;
+    private final long[] times;
+    private final byte[] types;
+    private final long minTime;
+    private final long maxTime;
+    private volatile ReverseAdjacency reverse;
+    private volatile TimeOrderedEdges byTime;
+    private volatile NodeDictionary index;
+
+    PropagationGraph(String[] nodeIds, int[] offsets, int[] targets, long[] times, byte[] types) {
+        this.nodeIds = nodeIds;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.times = times;
+        this.types = types;
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long time : times) {
+            if (time < min) {
+                min = time;
+            }
+            if (time > max) {
+                max = time;
+            }
+        }
+        this.minTime = min;
+        this.maxTime = max;
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public String nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    /**
+     * 按节点ID查找节点编号，不存在时返回 -1
+     * 节点ID到编号的字典首次查找时构建并缓存
+     */
+    public int indexOf(String nodeId) {
+        NodeDictionary result = index;
+        if (result == null) {
+            result = new NodeDictionary(nodeIds.length);
+            for (String id : nodeIds) {
+                result.intern(id);
+            }
+            index = result;
+        }
+        return result.indexOf(nodeId);
+    }
+
+    public String[] nodeIds() {
+        return nodeIds;
+    }
+
+    public int[] offsets() {
+        return offsets;
+    }
+
+    public int[] targets() {
+        return targets;
+    }
+
+    public long[] times() {
+        return times;
+    }
+
+    public byte[] types() {
+        return types;
+    }
+
+    public int outDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * 反向邻接表，首次访问时构建并缓存
+     */
+    public ReverseAdjacency reverse() {
+        ReverseAdjacency result = reverse;
+        if (result == null) {
+            result = ReverseAdjacency.of(this);
+            reverse = result;
+        }
+        return result;
+    }
+
+    /**
+     * 按传播时间排序的边索引，首次访问时构建并缓存
+     */
+    public TimeOrderedEdges byTime() {
+        TimeOrderedEdges result = byTime;
+        if (result == null) {
+            result = TimeOrderedEdges.of(this);
+            byTime = result;
+        }
+        return result;
+    }
+
+    /**
+     * 时间切片：只保留传播时间在 [from, to] 内的边及其端点
+     * 由按时间排序的边索引二分定位区间，代价与区间内边数及节点数成正比，不回查数据库。
+     * 切片内节点保持原有的相对顺序；区间覆盖全部边时返回自身。
+     * @param from 开始时间（含）
+     * @param to 结束时间（含）
+     * @return 切片传播图
+     */
+    public PropagationGraph slice(long from, long to) {
+        if (from <= minTime && to >= maxTime) {
+            return this;
+        }
+        TimeOrderedEdges ordered = byTime();
+        int first = ordered.lowerBound(from);
+        int last = from <= to ? ordered.upperBound(to) : first;
+        int[] orderedEdges = ordered.edges();
+        int[] orderedSources = ordered.sources();
+
+        // 区间内出现的节点按原编号顺序重新编号
+        int n = nodeIds.length;
+        int[] mapping = new int[n];
+        for (int i = first; i < last; i++) {
+            mapping[orderedSources[i]] = 1;
+            mapping[targets[orderedEdges[i]]] = 1;
+        }
+        int nodeCount = 0;
+        for (int u = 0; u < n; u++) {
+            mapping[u] = mapping[u] != 0 ? nodeCount++ : -1;
+        }
+        String[] sliceIds = new String[nodeCount];
+        for (int u = 0; u < n; u++) {
+            if (mapping[u] >= 0) {
+                sliceIds[mapping[u]] = nodeIds[u];
+            }
+        }
+
+        // 按新源节点计数排序，同一源节点的出边保持时间顺序
+        int edgeCount = last - first;
+        int[] sliceOffsets = new int[nodeCount + 1];
+        for (int i = first; i < last; i++) {
+            sliceOffsets[mapping[orderedSources[i]] + 1]++;
+        }
+        for (int u = 0; u < nodeCount; u++) {
+            sliceOffsets[u + 1] += sliceOffsets[u];
+        }
+        int[] cursor = Arrays.copyOf(sliceOffsets, nodeCount);
+        int[] sliceTargets = new int[edgeCount];
+        long[] sliceTimes = new long[edgeCount];
+        byte[] sliceTypes = new byte[edgeCount];
+        for (int i = first; i < last; i++) {
+            int edge = orderedEdges[i];
+            int pos = cursor[mapping[orderedSources[i]]]++;
+            sliceTargets[pos] = mapping[targets[edge]];
+            sliceTimes[pos] = times[edge];
+            sliceTypes[pos] = types[edge];
+        }
+        return new PropagationGraph(sliceIds, sliceOffsets, sliceTargets, sliceTimes, sliceTypes);
+    }
+
+    /**
+     * 时间旅行：截取 asOf 时刻（可选滑动窗口）可见的传播边
+     * 窗口为 (asOf - window, asOf]，即 [asOf - window + 1, asOf]；二者都为空时返回自身。
+     * @param asOf 截止时间（含），为空时取最晚传播时间
+     * @param window 窗口长度（毫秒），为空或不大于 0 时不限开始时间
+     * @return 切片传播图
+     */
+    public PropagationGraph sliceAsOf(Long asOf, Long window) {
+        if ((asOf == null && window == null) || isEmpty()) {
+            return this;
+        }
+        long to = asOf != null ? asOf : maxTime;
+        long from = window != null && window > 0 ? to - window + 1 : Long.MIN_VALUE;
+        return slice(from, to);
+    }
+
+    /**
+     * 谣言源节点：最早一条传播边的源节点，空图时为 -1
+     */
+    public int rootNode() {
+        int root = -1;
+        long earliest = Long.MAX_VALUE;
+        for (int u = 0; u < nodeIds.length; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (times[e] < earliest) {
+                    earliest = times[e];
+                    root = u;
+                }
+            }
+        }
+        return root;
+    }
+
+    /**
+     * 最早传播时间，空图时为 Long.MAX_VALUE
+     */
+    public long minTime() {
+        return minTime;
+    }
+
+    /**
+     * 最晚传播时间，空图时为 Long.MIN_VALUE
+     */
+    public long maxTime() {
+        return maxTime;
+    }
+
+    public boolean isEmpty() {
+        return targets.length == 0;
+    }
+
+    public static byte typeCode(PropagationType type) {
+        return type == null ? UNKNOWN_TYPE : (byte) type.ordinal();
+    }
+
+    public static PropagationType typeOf(byte code) {
+        return code < 0 ? null : TYPES[code];
+    }
+}
@@ -0,0 +1,146 @@
+package com.rumor.tracing.graph;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 传播图分析器
+ * 持有图计算专用的 ForkJoinPool 与算法参数，在 CSR 快照上运行结构类算法
+ */
+@Slf4j
+@Component
+public class PropagationGraphAnalyzer {
+
+    private final ForkJoinPool computePool;
+    private final double damping;
+    private final double tolerance;
+    private final int maxIterations;
+    private final double betweennessEpsilon;
+    private final double betweennessDelta;
+    private final int betweennessMaxSamples;
+    private final long betweennessSeed;
+    private final int communityMaxIterations;
+    private final int louvainMaxLevels;
+    private final int louvainMaxPasses;
+
+    public PropagationGraphAnalyzer(
+            @Value("${propagation.compute.parallelism:0}") int parallelism,
+            @Value("${propagation.pagerank.damping:0.85}") double damping,
+            @Value("${propagation.pagerank.tolerance:1e-6}") double tolerance,
+            @Value("${propagation.pagerank.max-iterations:100}") int maxIterations,
+            @Value("${propagation.betweenness.epsilon:0.05}") double betweennessEpsilon,
+            @Value("${propagation.betweenness.delta:0.1}") double betweennessDelta,
+            @Value("${propagation.betweenness.max-samples:512}") int betweennessMaxSamples,
+            @Value("${propagation.betweenness.seed:42}") long betweennessSeed,
+            @Value("${propagation.community.max-iterations:20}") int communityMaxIterations,
+            @Value("${propagation.community.louvain-max-levels:10}") int louvainMaxLevels,
+            @Value("${propagation.community.louvain-max-passes:20}") int louvainMaxPasses) {
+        this.computePool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.damping = damping;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.betweennessEpsilon = betweennessEpsilon;
+        this.betweennessDelta = betweennessDelta;
+        this.betweennessMaxSamples = betweennessMaxSamples;
+        this.betweennessSeed = betweennessSeed;
+        this.communityMaxIterations = communityMaxIterations;
+        this.louvainMaxLevels = louvainMaxLevels;
+        this.louvainMaxPasses = louvainMaxPasses;
+    }
+
+    /**
+     * 全局 PageRank
+     * @param graph 传播图
+     * @return 计算结果
+     */
+    public PageRank.Result pageRank(PropagationGraph graph) {
+        return runPageRank(graph, null);
+    }
+
+    /**
+     * 个性化 PageRank
+     * @param graph 传播图
+     * @param seedNode 种子节点编号
+     * @return 计算结果
+     */
+    public PageRank.Result personalizedPageRank(PropagationGraph graph, int seedNode) {
+        return runPageRank(graph, new int[]{seedNode});
+    }
+
+    /**
+     * 采样近似介数中心性
+     * @param graph 传播图
+     * @param epsilon 归一化误差上界，为空时使用配置值
+     * @return 计算结果
+     */
+    public Betweenness.Result betweenness(PropagationGraph graph, Double epsilon) {
+        double bound = epsilon != null && epsilon > 0 ? epsilon : betweennessEpsilon;
+        long start = System.currentTimeMillis();
+        Betweenness.Result result = Betweenness.compute(graph, bound, betweennessDelta, betweennessMaxSamples,
+                betweennessSeed, computePool);
+        log.debug("介数中心性完成：{} 个节点，{} 条边，采样 {} 个源节点，精确 {}，误差上界 {}，耗时 {} ms",
+                graph.nodeCount(), graph.edgeCount(), result.samples(), result.exact(),
+                result.errorBound(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 级联树重建与结构指标
+     * @param graph 传播图
+     * @return 级联指标
+     */
+    public CascadeTree.Result cascade(PropagationGraph graph) {
+        long start = System.currentTimeMillis();
+        CascadeTree.Result result = CascadeTree.compute(graph);
+        log.debug("级联分析完成：{} 个节点，{} 条边，深度 {}，级联数 {}，耗时 {} ms",
+                graph.nodeCount(), graph.edgeCount(), result.depth(), result.cascadeCount(),
+                System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 并行标签传播社区发现
+     * @param graph 传播图
+     * @return 社区划分
+     */
+    public CommunityPartition labelPropagation(PropagationGraph graph) {
+        long start = System.currentTimeMillis();
+        CommunityPartition result = LabelPropagation.compute(graph, communityMaxIterations, computePool);
+        log.debug("标签传播完成：{} 个节点，{} 个社区，迭代 {} 次，模块度 {}，耗时 {} ms",
+                graph.nodeCount(), result.communityCount(), result.iterations(), result.modularity(),
+                System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * Louvain 社区发现
+     * @param graph 传播图
+     * @return 社区划分
+     */
+    public CommunityPartition louvain(PropagationGraph graph) {
+        long start = System.currentTimeMillis();
+        CommunityPartition result = Louvain.compute(graph, louvainMaxLevels, louvainMaxPasses);
+        log.debug("Louvain 完成：{} 个节点，{} 个社区，聚合 {} 层，模块度 {}，耗时 {} ms",
+                graph.nodeCount(), result.communityCount(), result.iterations(), result.modularity(),
+                System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private PageRank.Result runPageRank(PropagationGraph graph, int[] seeds) {
+        long start = System.currentTimeMillis();
+        PageRank.Result result = PageRank.compute(graph, seeds, damping, tolerance, maxIterations, computePool);
+        log.debug("PageRank 完成：{} 个节点，{} 条边，迭代 {} 次，残差 {}，收敛 {}，耗时 {} ms",
+                graph.nodeCount(), graph.edgeCount(), result.iterations(), result.residual(),
+                result.converged(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        computePool.shutdown();
+    }
+}
@@ -0,0 +1,220 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.entity.PropagationPath;
+import com.rumor.tracing.repository.PropagationPathStreamLoader;
+import com.rumor.tracing.repository.PropagationPathVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 传播图缓存
+ * 按谣言缓存传播图状态（LRU 淘汰），每个状态记录加载或并入时的传播路径版本（见 {@link PropagationPathVersionRepository}）。
+ * 本实例提交的新边通过 {@link #append} 增量并入；持久化版本比内存新时（例如其他实例写入）重新加载。
+ * 版本按主键读取一行，判断是否需要重新加载的代价与边数无关。每次加载或并入新边后向 {@link ViralityMonitor} 发布病毒式传播窗口计数，
+ * 淘汰谣言时一并移除其窗口。
+ * 单个谣言的加载与并入由显式锁串行化（不使用 synchronized），虚拟线程在等待数据库期间不会固定载体线程。
+ */
+@Slf4j
+@Component
+public class PropagationGraphStore {
+
+    /** 重新加载时没有旧状态可参考的初始边容量 */
+    private static final int DEFAULT_EXPECTED_EDGES = 1024;
+
+    private final PropagationPathVersionRepository propagationPathVersionRepository;
+    private final PropagationPathStreamLoader propagationPathStreamLoader;
+    private final ViralityMonitor viralityMonitor;
+    private final Map<Long, GraphEntry> entries;
+    private final int minuteBuckets;
+    private final int hourBuckets;
+
+    public PropagationGraphStore(
+            PropagationPathVersionRepository propagationPathVersionRepository,
+            PropagationPathStreamLoader propagationPathStreamLoader,
+            ViralityMonitor viralityMonitor,
+            @Value("${propagation.graph.cache-size:64}") int cacheSize,
+            @Value("${propagation.trends.minute-buckets:360}") int minuteBuckets,
+            @Value("${propagation.trends.hour-buckets:168}") int hourBuckets) {
+        this.propagationPathVersionRepository = propagationPathVersionRepository;
+        this.propagationPathStreamLoader = propagationPathStreamLoader;
+        this.viralityMonitor = viralityMonitor;
+        this.minuteBuckets = minuteBuckets;
+        this.hourBuckets = hourBuckets;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, GraphEntry> eldest) {
+                if (size() <= cacheSize) {
+                    return false;
+                }
+                eldest.getValue().evicted = true;
+                viralityMonitor.remove(eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 查询谣言已提交的传播路径版本
+     * @param rumorId 谣言ID
+     * @return 版本，传给 {@link #getState(Long, long)} 与分析结果缓存键，同一请求只读取一次
+     */
+    public long version(Long rumorId) {
+        return propagationPathVersionRepository.find(rumorId);
+    }
+
+    /**
+     * 获取谣言的传播图快照
+     * @param rumorId 谣言ID
+     * @return CSR 传播图
+     */
+    public PropagationGraph getGraph(Long rumorId) {
+        return getState(rumorId).graph();
+    }
+
+    /**
+     * 获取谣言各节点的经典影响力分数
+     * @param rumorId 谣言ID
+     * @param currentTime 当前时间
+     * @return 节点影响力
+     */
+    public NodeInfluence getInfluence(Long rumorId, long currentTime) {
+        return getState(rumorId).influence(currentTime);
+    }
+
+    /**
+     * 获取谣言的传播趋势桶
+     * @param rumorId 谣言ID
+     * @return 趋势桶副本
+     */
+    public TrendBuckets getTrends(Long rumorId) {
+        return getState(rumorId).trends();
+    }
+
+    /**
+     * 获取谣言的传播图状态，必要时从数据库加载
+     * @param rumorId 谣言ID
+     * @return 传播图状态
+     */
+    public RumorGraphState getState(Long rumorId) {
+        return getState(rumorId, version(rumorId));
+    }
+
+    /**
+     * 获取不早于指定版本的传播图状态，内存状态较旧时重新加载
+     * @param rumorId 谣言ID
+     * @param version 调用方读取的传播路径版本
+     * @return 传播图状态
+     */
+    public RumorGraphState getState(Long rumorId, long version) {
+        GraphEntry entry = entryFor(rumorId);
+        entry.lock.lock();
+        try {
+            if (entry.state == null || entry.version < version) {
+                reload(entry, rumorId, version);
+            }
+            return entry.state;
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * 将本实例提交的传播路径并入已加载的传播图；未加载的谣言立即完整加载（已包含这些路径），
+     * 使正在传播的谣言常驻缓存并持续更新病毒式传播得分。需在路径提交后调用。
+     * 同一谣言的写事务按版本顺序提交，每次提交版本加一：版本不大于内存版本的路径已随重新加载并入，跳过；
+     * 恰为内存版本加一时直接并入；更大时说明有更早的提交尚未并入（其他实例写入或并入顺序与提交顺序不同），
+     * 落在上次加载期间提交的版本内时无法确定是否已读到，两种情况都重新加载。
+     * @param rumorId 谣言ID
+     * @param version 写入这些路径的事务分配的版本
+     * @param paths 新增传播路径
+     */
+    public void append(Long rumorId, long version, Collection<PropagationPath> paths) {
+        GraphEntry entry = entryFor(rumorId);
+        entry.lock.lock();
+        try {
+            if (entry.state != null && version <= entry.version) {
+                return;
+            }
+            if (entry.state != null && version == entry.version + 1 && version > entry.loadedThrough) {
+                entry.state.appendAll(paths);
+                entry.version = version;
+                entry.loadedThrough = version;
+                publish(rumorId, entry);
+            } else {
+                // 读取时已包含本次提交
+                reload(entry, rumorId, version(rumorId));
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * 移除谣言的缓存图及其病毒式传播窗口，谣言删除后调用
+     * @param rumorId 谣言ID
+     */
+    public void evict(Long rumorId) {
+        synchronized (entries) {
+            GraphEntry entry = entries.remove(rumorId);
+            if (entry != null) {
+                entry.evicted = true;
+            }
+        }
+        viralityMonitor.remove(rumorId);
+    }
+
+    private GraphEntry entryFor(Long rumorId) {
+        synchronized (entries) {
+            return entries.computeIfAbsent(rumorId, id -> new GraphEntry());
+        }
+    }
+
+    /**
+     * 重新加载。version 在读取边之前读出，状态一定包含该版本及之前的提交；
+     * 读取边期间提交的版本（至读取结束后的版本）可能已读到也可能没有，记为 loadedThrough，这些版本的路径不再增量并入
+     */
+    private void reload(GraphEntry entry, Long rumorId, long version) {
+        long start = System.currentTimeMillis();
+        int expectedEdges = entry.state != null ? entry.state.edgeCount() : DEFAULT_EXPECTED_EDGES;
+        RumorGraphState state = new RumorGraphState(expectedEdges,
+                new TrendBuckets(TimeZone.getDefault(), minuteBuckets, hourBuckets), viralityMonitor.newFeatures());
+        // 边逐行并入图状态，不物化实体列表
+        propagationPathStreamLoader.forEachEdge(rumorId,
+                (id, sourceNode, targetNode, propagationTime, type) ->
+                        state.append(sourceNode, targetNode, propagationTime, type));
+        entry.state = state;
+        entry.version = version;
+        entry.loadedThrough = version(rumorId);
+        publish(rumorId, entry);
+        log.debug("加载谣言 {} 的传播图（版本 {}）：{} 条边，耗时 {} ms",
+                rumorId, version, state.edgeCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 发布窗口计数；发布期间条目已被淘汰时撤回，避免为已淘汰的谣言留下窗口
+     */
+    private void publish(Long rumorId, GraphEntry entry) {
+        viralityMonitor.publish(rumorId, entry.state.viralitySnapshot());
+        if (entry.evicted) {
+            viralityMonitor.remove(rumorId);
+        }
+    }
+
+    private static class GraphEntry {
+        private final ReentrantLock lock = new ReentrantLock();
+        private RumorGraphState state;
+        /** 状态一定包含该版本及之前提交的传播路径 */
+        private long version;
+        /** 上次加载结束时的版本，(version, loadedThrough] 内提交的路径是否已包含不确定 */
+        private long loadedThrough;
+        /** 已从缓存淘汰，持有该条目的线程不再发布窗口计数 */
+        private volatile boolean evicted;
+    }
+}
@@ -0,0 +1,62 @@
+package com.rumor.tracing.graph;
+
+/**
+ * 反向邻接表（入边 CSR）
+ * 节点 v 的入边下标区间为 [offsets[v], offsets[v + 1])，
+ * sources 为入边源节点，edges 为该入边在正向 CSR 中的下标（用于查询时间与类型）。
+ */
+public final class ReverseAdjacency {
+
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] edges;
+
+    private ReverseAdjacency(int[] offsets, int[] sources, int[] edges) {
+        this.offsets = offsets;
+        this.sources = sources;
+        this.edges = edges;
+    }
+
+    static ReverseAdjacency of(PropagationGraph graph) {
+        int nodeCount = graph.nodeCount();
+        int[] forwardOffsets = graph.offsets();
+        int[] forwardTargets = graph.targets();
+
+        int[] offsets = new int[nodeCount + 1];
+        for (int target : forwardTargets) {
+            offsets[target + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] cursor = new int[nodeCount];
+        System.arraycopy(offsets, 0, cursor, 0, nodeCount);
+        int[] sources = new int[forwardTargets.length];
+        int[] edges = new int[forwardTargets.length];
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = forwardOffsets[u]; e < forwardOffsets[u + 1]; e++) {
+                int pos = cursor[forwardTargets[e]]++;
+                sources[pos] = u;
+                edges[pos] = e;
+            }
+        }
+        return new ReverseAdjacency(offsets, sources, edges);
+    }
+
+    public int[] offsets() {
+        return offsets;
+    }
+
+    public int[] sources() {
+        return sources;
+    }
+
+    public int[] edges() {
+        return edges;
+    }
+
+    public int inDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+}
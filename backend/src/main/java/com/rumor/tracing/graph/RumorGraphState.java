@@ -0,0 +1,137 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.entity.PropagationPath;
+import com.rumor.tracing.model.PropagationType;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * 单个谣言的传播图状态
+ * 维护边日志、节点影响力累加量、路径计数、趋势桶与病毒式传播滚动特征，新边到达时按增量原地更新；
+ * CSR 快照在边变化后首次访问时重建，基于快照的派生结果（如社区划分）随快照一起失效。
+ */
+public class RumorGraphState {
+
+    private final PropagationEdgeLog edgeLog;
+    private final NodeInfluenceAccumulator influence;
+    private final TrendBuckets trends;
+    private final ViralityFeatures virality;
+    private final Map<Object, Object> derived = new HashMap<>();
+    private PropagationGraph graph;
+
+    public RumorGraphState(int expectedEdges, TimeZone timeZone) {
+        this(expectedEdges, new TrendBuckets(timeZone));
+    }
+
+    public RumorGraphState(int expectedEdges, TrendBuckets trends) {
+        this(expectedEdges, trends, new ViralityFeatures(ViralityModel.defaults(), 60 * 1000L, 10));
+    }
+
+    public RumorGraphState(int expectedEdges, TrendBuckets trends, ViralityFeatures virality) {
+        this.edgeLog = new PropagationEdgeLog(expectedEdges);
+        this.influence = new NodeInfluenceAccumulator(edgeLog, expectedEdges);
+        this.trends = trends;
+        this.virality = virality;
+    }
+
+    /**
+     * 追加一条传播边
+     */
+    public synchronized void append(String sourceNode, String targetNode, long propagationTime, PropagationType type) {
+        int edge = edgeLog.append(sourceNode, targetNode, propagationTime, type);
+        influence.addEdge(edge);
+        trends.add(propagationTime, edgeLog.typeAt(edge));
+        virality.add(edgeLog.sourceAt(edge), edgeLog.targetAt(edge), propagationTime, edgeLog.typeAt(edge));
+        graph = null;
+        derived.clear();
+    }
+
+    /**
+     * 批量追加传播路径
+     */
+    public synchronized void appendAll(Collection<PropagationPath> paths) {
+        for (PropagationPath path : paths) {
+            append(path.getSourceNode(), path.getTargetNode(), path.getPropagationTime(), path.getType());
+        }
+    }
+
+    public synchronized int edgeCount() {
+        return edgeLog.size();
+    }
+
+    /**
+     * CSR 快照
+     */
+    public synchronized PropagationGraph graph() {
+        if (graph == null) {
+            graph = edgeLog.toGraph();
+        }
+        return graph;
+    }
+
+    /**
+     * 读取基于指定快照计算的派生结果
+     * @param key 结果键
+     * @param source 计算所用的 CSR 快照
+     * @return 派生结果，快照已过期或未缓存时为 null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T derived(Object key, PropagationGraph source) {
+        return source == graph ? (T) derived.get(key) : null;
+    }
+
+    /**
+     * 缓存基于指定快照计算的派生结果，计算期间有新边到达时丢弃
+     * @param key 结果键
+     * @param source 计算所用的 CSR 快照
+     * @param value 派生结果
+     */
+    public synchronized void putDerived(Object key, PropagationGraph source, Object value) {
+        if (source == graph) {
+            derived.put(key, value);
+        }
+    }
+
+    /**
+     * 按当前时间合成各节点的经典影响力分数
+     */
+    public synchronized NodeInfluence influence(long currentTime) {
+        return new NodeInfluence(
+                edgeLog.nodes().names(),
+                influence.scores(currentTime),
+                influence.pathCounts(),
+                influence.outDegrees(),
+                edgeLog.size());
+    }
+
+    /**
+     * 按当前时间计算的病毒式传播预测得分
+     */
+    public synchronized double viralityScore(long currentTime) {
+        return virality.score(currentTime);
+    }
+
+    /**
+     * 按当前时间计算的病毒式传播特征
+     */
+    public synchronized double[] viralityFeatures(long currentTime) {
+        return virality.features(currentTime);
+    }
+
+    /**
+     * 病毒式传播窗口计数的只读副本
+     */
+    public synchronized ViralityFeatures viralitySnapshot() {
+        return virality.snapshot();
+    }
+
+    /**
+     * 趋势桶副本
+     */
+    public synchronized TrendBuckets trends() {
+        return trends.copy();
+    }
+}
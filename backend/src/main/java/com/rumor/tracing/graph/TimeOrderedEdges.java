@@ -0,0 +1,130 @@
+package com.rumor.tracing.graph;
+
+/**
+ * 按传播时间排序的边索引
+ * edges 为正向 CSR 中的边下标（时间相同则按下标，排序稳定），sources 与 times 为对应边的源节点与时间。
+ */
+public final class TimeOrderedEdges {
+
+    private final int[] edges;
+    private final int[] sources;
+    private final long[] times;
+
+    private TimeOrderedEdges(int[] edges, int[] sources, long[] times) {
+        this.edges = edges;
+        this.sources = sources;
+        this.times = times;
+    }
+
+    static TimeOrderedEdges of(PropagationGraph graph) {
+        int nodeCount = graph.nodeCount();
+        int edgeCount = graph.edgeCount();
+        int[] offsets = graph.offsets();
+        long[] csrTimes = graph.times();
+
+        int[] order = new int[edgeCount];
+        int[] edgeSources = new int[edgeCount];
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                order[e] = e;
+                edgeSources[e] = u;
+            }
+        }
+        mergeSort(order, new int[edgeCount], csrTimes);
+
+        int[] sources = new int[edgeCount];
+        long[] times = new long[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            sources[i] = edgeSources[order[i]];
+            times[i] = csrTimes[order[i]];
+        }
+        return new TimeOrderedEdges(order, sources, times);
+    }
+
+    /**
+     * 自底向上的稳定归并排序，已按时间有序的输入只需线性比较
+     */
+    private static void mergeSort(int[] order, int[] buffer, long[] keys) {
+        int n = order.length;
+        int[] from = order;
+        int[] to = buffer;
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + (width << 1), n);
+                if (mid == hi || keys[from[mid - 1]] <= keys[from[mid]]) {
+                    System.arraycopy(from, lo, to, lo, hi - lo);
+                    continue;
+                }
+                int i = lo;
+                int j = mid;
+                for (int k = lo; k < hi; k++) {
+                    if (j >= hi || (i < mid && keys[from[i]] <= keys[from[j]])) {
+                        to[k] = from[i++];
+                    } else {
+                        to[k] = from[j++];
+                    }
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != order) {
+            System.arraycopy(from, 0, order, 0, n);
+        }
+    }
+
+    public int size() {
+        return edges.length;
+    }
+
+    /**
+     * 第一条时间不早于 time 的边的位置
+     */
+    public int lowerBound(long time) {
+        int lo = 0;
+        int hi = times.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 第一条时间晚于 time 的边的位置
+     */
+    public int upperBound(long time) {
+        int lo = 0;
+        int hi = times.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] <= time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 按时间排序后的正向 CSR 边下标
+     */
+    public int[] edges() {
+        return edges;
+    }
+
+    public int[] sources() {
+        return sources;
+    }
+
+    public long[] times() {
+        return times;
+    }
+}
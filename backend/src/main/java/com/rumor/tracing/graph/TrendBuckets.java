@@ -0,0 +1,292 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * 传播趋势桶
+ * 按本地时区与传播类型维护三级时间桶，新边到达时 O(1) 更新：
+ * 分钟桶与小时桶为定长环形数组，只保留最近的窗口，超出窗口的数据由更粗一级的桶承载；
+ * 按天计数连续保存全部历史。另维护 24 个按小时（0-23 点）累计的桶。
+ * 查询代价只与桶数有关，与边数无关。
+ */
+public class TrendBuckets {
+
+    public static final long MILLIS_PER_MINUTE = 60 * 1000L;
+    public static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    public static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    /** 默认保留最近 6 小时的分钟桶 */
+    public static final int DEFAULT_MINUTE_BUCKETS = 360;
+    /** 默认保留最近 7 天的小时桶 */
+    public static final int DEFAULT_HOUR_BUCKETS = 168;
+
+    /** 类型槽位：0 为未知类型，其余为 PropagationType 序号 + 1 */
+    private static final int TYPE_SLOTS = PropagationType.values().length + 1;
+
+    /**
+     * 时间粒度
+     */
+    public enum Granularity {
+        MINUTE,
+        HOUR,
+        DAY
+    }
+
+    private final TimeZone timeZone;
+    private final long[][] hourOfDayCounts;
+    private final Ring minutes;
+    private final Ring hours;
+    private long[][] dayCounts;
+    private long firstDay;
+    private int dayLength;
+
+    public TrendBuckets(TimeZone timeZone) {
+        this(timeZone, DEFAULT_MINUTE_BUCKETS, DEFAULT_HOUR_BUCKETS);
+    }
+
+    public TrendBuckets(TimeZone timeZone, int minuteBuckets, int hourBuckets) {
+        this.timeZone = timeZone;
+        this.hourOfDayCounts = new long[TYPE_SLOTS][24];
+        this.minutes = new Ring(MILLIS_PER_MINUTE, minuteBuckets);
+        this.hours = new Ring(MILLIS_PER_HOUR, hourBuckets);
+        this.dayCounts = new long[TYPE_SLOTS][8];
+    }
+
+    private TrendBuckets(TrendBuckets source) {
+        this.timeZone = source.timeZone;
+        this.hourOfDayCounts = deepCopy(source.hourOfDayCounts);
+        this.minutes = new Ring(source.minutes);
+        this.hours = new Ring(source.hours);
+        this.dayCounts = deepCopy(source.dayCounts);
+        this.firstDay = source.firstDay;
+        this.dayLength = source.dayLength;
+    }
+
+    /**
+     * 记录一次传播
+     * @param propagationTime 传播时间戳
+     * @param typeCode 传播类型编码
+     */
+    public void add(long propagationTime, byte typeCode) {
+        long localTime = toLocal(propagationTime);
+        int slot = typeCode + 1;
+        hourOfDayCounts[slot][(int) (Math.floorMod(localTime, MILLIS_PER_DAY) / MILLIS_PER_HOUR)]++;
+        minutes.add(localTime, slot);
+        hours.add(localTime, slot);
+        addDay(Math.floorDiv(localTime, MILLIS_PER_DAY), slot);
+    }
+
+    /**
+     * 各小时（0-23 点）的传播次数
+     * @param type 传播类型，为空时统计全部类型
+     */
+    public long[] hourOfDayCounts(PropagationType type) {
+        return sum(hourOfDayCounts, type, 24);
+    }
+
+    /**
+     * 按粒度取连续的时间序列
+     * @param granularity 时间粒度
+     * @param type 传播类型，为空时统计全部类型
+     * @param startTime 开始时间（含），为空时不限
+     * @param endTime 结束时间（含），为空时不限
+     * @return 时间序列，无数据时为空序列
+     */
+    public Series series(Granularity granularity, PropagationType type, Long startTime, Long endTime) {
+        long width;
+        long first;
+        long[] counts;
+        if (granularity == Granularity.DAY) {
+            width = MILLIS_PER_DAY;
+            first = firstDay;
+            counts = sum(dayCounts, type, dayLength);
+        } else {
+            Ring ring = granularity == Granularity.MINUTE ? minutes : hours;
+            width = ring.width;
+            first = ring.firstRetained();
+            counts = ring.series(type);
+        }
+
+        // 按本地时间裁剪到与 [startTime, endTime] 相交的桶
+        int from = 0;
+        int to = counts.length;
+        if (startTime != null) {
+            long startBucket = Math.floorDiv(toLocal(startTime), width);
+            from = (int) Math.max(from, Math.min(to, startBucket - first));
+        }
+        if (endTime != null) {
+            long endBucket = Math.floorDiv(toLocal(endTime), width);
+            to = (int) Math.min(to, Math.max(from, endBucket - first + 1));
+        }
+        return new Series(first + from, width, Arrays.copyOfRange(counts, from, Math.max(from, to)));
+    }
+
+    public boolean isEmpty() {
+        return dayLength == 0;
+    }
+
+    /**
+     * 复制当前计数，供无锁读取
+     */
+    public TrendBuckets copy() {
+        return new TrendBuckets(this);
+    }
+
+    private long toLocal(long time) {
+        return time + timeZone.getOffset(time);
+    }
+
+    private void addDay(long day, int slot) {
+        if (dayLength == 0) {
+            firstDay = day;
+            dayLength = 1;
+        } else if (day < firstDay) {
+            int shift = (int) (firstDay - day);
+            int capacity = Math.max(dayCounts[0].length, dayLength + shift);
+            for (int s = 0; s < TYPE_SLOTS; s++) {
+                long[] expanded = new long[capacity];
+                System.arraycopy(dayCounts[s], 0, expanded, shift, dayLength);
+                dayCounts[s] = expanded;
+            }
+            firstDay = day;
+            dayLength += shift;
+        } else if (day - firstDay >= dayLength) {
+            dayLength = (int) (day - firstDay + 1);
+            if (dayLength > dayCounts[0].length) {
+                int capacity = Math.max(dayLength, dayCounts[0].length << 1);
+                for (int s = 0; s < TYPE_SLOTS; s++) {
+                    dayCounts[s] = Arrays.copyOf(dayCounts[s], capacity);
+                }
+            }
+        }
+        dayCounts[slot][(int) (day - firstDay)]++;
+    }
+
+    private static long[] sum(long[][] counts, PropagationType type, int length) {
+        if (type != null) {
+            return Arrays.copyOf(counts[type.ordinal() + 1], length);
+        }
+        long[] total = new long[length];
+        for (long[] slot : counts) {
+            for (int i = 0; i < length; i++) {
+                total[i] += slot[i];
+            }
+        }
+        return total;
+    }
+
+    private static long[][] deepCopy(long[][] source) {
+        long[][] copy = new long[source.length][];
+        for (int i = 0; i < source.length; i++) {
+            copy[i] = source[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * 定长环形时间桶，桶号为本地时间除以宽度；推进到新桶时清空被覆盖的旧桶
+     */
+    private static final class Ring {
+
+        private final long width;
+        private final long[][] counts;
+        private long latest;
+        private long earliest;
+        private boolean hasData;
+
+        Ring(long width, int capacity) {
+            this.width = width;
+            this.counts = new long[TYPE_SLOTS][Math.max(1, capacity)];
+        }
+
+        Ring(Ring source) {
+            this.width = source.width;
+            this.counts = deepCopy(source.counts);
+            this.latest = source.latest;
+            this.earliest = source.earliest;
+            this.hasData = source.hasData;
+        }
+
+        void add(long localTime, int slot) {
+            int capacity = counts[0].length;
+            long bucket = Math.floorDiv(localTime, width);
+            if (!hasData) {
+                latest = bucket;
+                earliest = bucket;
+                hasData = true;
+            } else if (bucket > latest) {
+                long cleared = Math.min(bucket - latest, capacity);
+                for (long b = bucket - cleared + 1; b <= bucket; b++) {
+                    int index = (int) Math.floorMod(b, (long) capacity);
+                    for (long[] slotCounts : counts) {
+                        slotCounts[index] = 0;
+                    }
+                }
+                latest = bucket;
+            } else if (bucket <= latest - capacity) {
+                // 已滚出窗口，只计入更粗粒度的桶
+                return;
+            }
+            earliest = Math.min(earliest, bucket);
+            counts[slot][(int) Math.floorMod(bucket, (long) capacity)]++;
+        }
+
+        long firstRetained() {
+            return Math.max(earliest, latest - counts[0].length + 1);
+        }
+
+        long[] series(PropagationType type) {
+            if (!hasData) {
+                return new long[0];
+            }
+            int capacity = counts[0].length;
+            long first = firstRetained();
+            long[] result = new long[(int) (latest - first + 1)];
+            for (int i = 0; i < result.length; i++) {
+                int index = (int) Math.floorMod(first + i, (long) capacity);
+                if (type != null) {
+                    result[i] = counts[type.ordinal() + 1][index];
+                } else {
+                    for (long[] slotCounts : counts) {
+                        result[i] += slotCounts[index];
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 连续时间序列，第 i 个桶覆盖本地时间 [(firstBucket + i) * width, (firstBucket + i + 1) * width)
+     */
+    public static final class Series {
+
+        private final long firstBucket;
+        private final long width;
+        private final long[] counts;
+
+        Series(long firstBucket, long width, long[] counts) {
+            this.firstBucket = firstBucket;
+            this.width = width;
+            this.counts = counts;
+        }
+
+        public int size() {
+            return counts.length;
+        }
+
+        /**
+         * 第 i 个桶起点的本地时间（毫秒，已含时区偏移）
+         */
+        public long localStart(int i) {
+            return (firstBucket + i) * width;
+        }
+
+        public long count(int i) {
+            return counts[i];
+        }
+    }
+}
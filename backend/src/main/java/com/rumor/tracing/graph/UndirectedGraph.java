@@ -0,0 +1,163 @@
+package com.rumor.tracing.graph;
+
+import java.util.Arrays;
+
+/**
+ * 无向加权图（对称 CSR）
+ * 每条无向边在两个端点的邻接表中各存一次；自环单独记为 selfLoops，按模块度约定取内部权重的 2 倍。
+ */
+final class UndirectedGraph {
+
+    final int[] offsets;
+    final int[] neighbors;
+    final double[] weights;
+    final double[] selfLoops;
+
+    private UndirectedGraph(int[] offsets, int[] neighbors, double[] weights, double[] selfLoops) {
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.weights = weights;
+        this.selfLoops = selfLoops;
+    }
+
+    /**
+     * 由有向传播图构建：u-v 的权重为 u→v 与 v→u 的边条数之和，传播自环忽略
+     */
+    static UndirectedGraph of(PropagationGraph graph) {
+        int n = graph.nodeCount();
+        int[] outOffsets = graph.offsets();
+        int[] targets = graph.targets();
+        ReverseAdjacency reverse = graph.reverse();
+        int[] inOffsets = reverse.offsets();
+        int[] inSources = reverse.sources();
+
+        int[] offsets = new int[n + 1];
+        int[] neighbors = new int[Math.max(16, graph.edgeCount() * 2)];
+        double[] weights = new double[neighbors.length];
+        int[] slot = new int[n];
+        int[] stamp = new int[n];
+        Arrays.fill(stamp, -1);
+        int size = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+                size = accumulate(u, targets[e], 1.0, size, neighbors, weights, slot, stamp);
+            }
+            for (int e = inOffsets[u]; e < inOffsets[u + 1]; e++) {
+                size = accumulate(u, inSources[e], 1.0, size, neighbors, weights, slot, stamp);
+            }
+            offsets[u + 1] = size;
+        }
+        return new UndirectedGraph(offsets, Arrays.copyOf(neighbors, size), Arrays.copyOf(weights, size), new double[n]);
+    }
+
+    private static int accumulate(int u, int v, double weight, int size,
+                                  int[] neighbors, double[] weights, int[] slot, int[] stamp) {
+        if (v == u) {
+            return size;
+        }
+        if (stamp[v] != u) {
+            stamp[v] = u;
+            slot[v] = size;
+            neighbors[size] = v;
+            weights[size] = 0.0;
+            size++;
+        }
+        weights[slot[v]] += weight;
+        return size;
+    }
+
+    int nodeCount() {
+        return selfLoops.length;
+    }
+
+    /**
+     * 节点的加权度（含自环）
+     */
+    double[] degrees() {
+        int n = nodeCount();
+        double[] degrees = new double[n];
+        for (int v = 0; v < n; v++) {
+            double degree = selfLoops[v];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                degree += weights[e];
+            }
+            degrees[v] = degree;
+        }
+        return degrees;
+    }
+
+    /**
+     * 将社区合并为超节点，社区内部的边计入超节点自环
+     * @param communities 各节点所属社区，取值 [0, communityCount)
+     */
+    UndirectedGraph aggregate(int[] communities, int communityCount) {
+        int n = nodeCount();
+        int[] memberOffsets = new int[communityCount + 1];
+        for (int v = 0; v < n; v++) {
+            memberOffsets[communities[v] + 1]++;
+        }
+        for (int c = 0; c < communityCount; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] cursor = Arrays.copyOf(memberOffsets, communityCount);
+        int[] members = new int[n];
+        for (int v = 0; v < n; v++) {
+            members[cursor[communities[v]]++] = v;
+        }
+
+        int[] newOffsets = new int[communityCount + 1];
+        int[] newNeighbors = new int[neighbors.length];
+        double[] newWeights = new double[neighbors.length];
+        double[] newSelfLoops = new double[communityCount];
+        int[] slot = new int[communityCount];
+        int[] stamp = new int[communityCount];
+        Arrays.fill(stamp, -1);
+        int size = 0;
+        for (int c = 0; c < communityCount; c++) {
+            for (int k = memberOffsets[c]; k < memberOffsets[c + 1]; k++) {
+                int v = members[k];
+                newSelfLoops[c] += selfLoops[v];
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int d = communities[neighbors[e]];
+                    if (d == c) {
+                        newSelfLoops[c] += weights[e];
+                    } else {
+                        size = accumulate(c, d, weights[e], size, newNeighbors, newWeights, slot, stamp);
+                    }
+                }
+            }
+            newOffsets[c + 1] = size;
+        }
+        return new UndirectedGraph(newOffsets, Arrays.copyOf(newNeighbors, size),
+                Arrays.copyOf(newWeights, size), newSelfLoops);
+    }
+
+    /**
+     * 划分的模块度 Q = Σc [in(c) / 2m - (tot(c) / 2m)²]
+     */
+    double modularity(int[] communities, int communityCount) {
+        double[] degrees = degrees();
+        double[] inside = new double[communityCount];
+        double[] totals = new double[communityCount];
+        double total = 0.0;
+        for (int v = 0; v < nodeCount(); v++) {
+            int c = communities[v];
+            totals[c] += degrees[v];
+            total += degrees[v];
+            inside[c] += selfLoops[v];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (communities[neighbors[e]] == c) {
+                    inside[c] += weights[e];
+                }
+            }
+        }
+        if (total == 0.0) {
+            return 0.0;
+        }
+        double q = 0.0;
+        for (int c = 0; c < communityCount; c++) {
+            q += inside[c] / total - (totals[c] / total) * (totals[c] / total);
+        }
+        return q;
+    }
+}
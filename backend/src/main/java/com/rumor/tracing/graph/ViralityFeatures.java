@@ -0,0 +1,201 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+
+import java.util.Arrays;
+
+/**
+ * 谣言的滚动传播特征
+ * 以传播时间为准按定长时间桶维护环形计数（边数、转发数、评论点赞数、新节点数、桶末最大深度），
+ * 每条新边 O(1) 更新环形数组。打分在读取时按当前时间进行：窗口终点取当前时间与最新传播时间中较晚的桶，
+ * 最新传播时间之后的桶按空桶计，停止传播的谣言得分随时间回落。
+ * 节点深度按到达顺序近似：目标节点首次出现时的深度为源节点深度加一。非线程安全，由调用方加锁；
+ * {@link #snapshot()} 返回的窗口副本只读，可在线程间共享。
+ */
+public final class ViralityFeatures {
+
+    /** 特征名，顺序与模型系数一致 */
+    public static final String[] FEATURE_NAMES = {
+            "edgeRate",            // 最近窗口每桶边数，log1p
+            "acceleration",        // 最近窗口与前一窗口每桶边数之差，带符号 log1p
+            "depthGrowth",         // 最近窗口内级联最大深度的增长
+            "forwardFraction",     // 最近窗口内转发边占比
+            "engagementFraction",  // 最近窗口内评论与点赞边占比
+            "nodeGrowth"           // 最近窗口每桶新增节点数，log1p
+    };
+
+    private static final byte FORWARD = PropagationGraph.typeCode(PropagationType.FORWARD);
+    private static final byte COMMENT = PropagationGraph.typeCode(PropagationType.COMMENT);
+    private static final byte LIKE = PropagationGraph.typeCode(PropagationType.LIKE);
+
+    private final ViralityModel model;
+    private final long bucketMillis;
+    private final int window;
+    private final int capacity;
+    private final int[] edges;
+    private final int[] forwards;
+    private final int[] engagements;
+    private final int[] newNodes;
+    private final int[] depths;
+    /** 节点深度加一，0 表示尚未出现 */
+    private int[] nodeDepths = new int[64];
+    private int maxDepth;
+    private long latestBucket;
+    private boolean hasData;
+
+    /**
+     * @param model 打分模型
+     * @param bucketMillis 时间桶宽度
+     * @param window 窗口包含的桶数，环形数组保留两个窗口
+     */
+    public ViralityFeatures(ViralityModel model, long bucketMillis, int window) {
+        this.model = model;
+        this.bucketMillis = bucketMillis;
+        this.window = Math.max(1, window);
+        this.capacity = this.window * 2;
+        this.edges = new int[capacity];
+        this.forwards = new int[capacity];
+        this.engagements = new int[capacity];
+        this.newNodes = new int[capacity];
+        this.depths = new int[capacity];
+    }
+
+    private ViralityFeatures(ViralityFeatures source) {
+        this.model = source.model;
+        this.bucketMillis = source.bucketMillis;
+        this.window = source.window;
+        this.capacity = source.capacity;
+        this.edges = source.edges.clone();
+        this.forwards = source.forwards.clone();
+        this.engagements = source.engagements.clone();
+        this.newNodes = source.newNodes.clone();
+        this.depths = source.depths.clone();
+        this.nodeDepths = new int[0];
+        this.maxDepth = source.maxDepth;
+        this.latestBucket = source.latestBucket;
+        this.hasData = source.hasData;
+    }
+
+    /**
+     * 记录一条传播边
+     * @param source 源节点编号
+     * @param target 目标节点编号
+     * @param propagationTime 传播时间
+     * @param typeCode 传播类型编码
+     */
+    public void add(int source, int target, long propagationTime, byte typeCode) {
+        int added = 0;
+        if (Math.max(source, target) >= nodeDepths.length) {
+            nodeDepths = Arrays.copyOf(nodeDepths, Math.max(Math.max(source, target) + 1, nodeDepths.length << 1));
+        }
+        if (nodeDepths[source] == 0) {
+            nodeDepths[source] = 1;
+            added++;
+        }
+        if (nodeDepths[target] == 0) {
+            nodeDepths[target] = nodeDepths[source] + 1;
+            maxDepth = Math.max(maxDepth, nodeDepths[target] - 1);
+            added++;
+        }
+
+        long bucket = Math.floorDiv(propagationTime, bucketMillis);
+        if (!hasData) {
+            latestBucket = bucket;
+            hasData = true;
+        } else if (bucket > latestBucket) {
+            // 推进窗口，被覆盖的桶清零，桶末深度沿用推进前的最大深度
+            int previousDepth = depths[slot(latestBucket)];
+            long cleared = Math.min(bucket - latestBucket, capacity);
+            for (long b = bucket - cleared + 1; b <= bucket; b++) {
+                int index = slot(b);
+                edges[index] = 0;
+                forwards[index] = 0;
+                engagements[index] = 0;
+                newNodes[index] = 0;
+                depths[index] = previousDepth;
+            }
+            latestBucket = bucket;
+        }
+        if (bucket > latestBucket - capacity) {
+            int index = slot(bucket);
+            edges[index]++;
+            if (typeCode == FORWARD) {
+                forwards[index]++;
+            } else if (typeCode == COMMENT || typeCode == LIKE) {
+                engagements[index]++;
+            }
+            newNodes[index] += added;
+        }
+        depths[slot(latestBucket)] = maxDepth;
+    }
+
+    /**
+     * 按当前时间计算得分，尚无数据时为 0
+     * @param currentTime 当前时间
+     */
+    public double score(long currentTime) {
+        return hasData ? model.score(computeFeatures(currentTime)) : 0.0;
+    }
+
+    /**
+     * 按当前时间计算的特征值，顺序同 {@link #FEATURE_NAMES}
+     * @param currentTime 当前时间
+     */
+    public double[] features(long currentTime) {
+        return hasData ? computeFeatures(currentTime) : new double[FEATURE_NAMES.length];
+    }
+
+    /**
+     * 窗口计数的只读副本，不含节点深度表
+     */
+    public ViralityFeatures snapshot() {
+        return new ViralityFeatures(this);
+    }
+
+    private double[] computeFeatures(long currentTime) {
+        long endBucket = Math.max(latestBucket, Math.floorDiv(currentTime, bucketMillis));
+        int recentEdges = 0;
+        int previousEdges = 0;
+        int recentForwards = 0;
+        int recentEngagements = 0;
+        int recentNodes = 0;
+        for (int i = 0; i < window; i++) {
+            long recent = endBucket - i;
+            long previous = endBucket - window - i;
+            if (retained(recent)) {
+                int index = slot(recent);
+                recentEdges += edges[index];
+                recentForwards += forwards[index];
+                recentEngagements += engagements[index];
+                recentNodes += newNodes[index];
+            }
+            if (retained(previous)) {
+                previousEdges += edges[slot(previous)];
+            }
+        }
+        // 窗口起点晚于最新传播时间时深度没有增长；起点早于最新桶时落在环形数组保留的两个窗口内
+        long baseBucket = endBucket - window;
+        int baseDepth = baseBucket >= latestBucket ? maxDepth : depths[slot(baseBucket)];
+        double perBucket = 1.0 / window;
+        double acceleration = (recentEdges - previousEdges) * perBucket;
+        double[] features = new double[FEATURE_NAMES.length];
+        features[0] = Math.log1p(recentEdges * perBucket);
+        features[1] = Math.signum(acceleration) * Math.log1p(Math.abs(acceleration));
+        features[2] = maxDepth - baseDepth;
+        features[3] = recentEdges > 0 ? (double) recentForwards / recentEdges : 0.0;
+        features[4] = recentEdges > 0 ? (double) recentEngagements / recentEdges : 0.0;
+        features[5] = Math.log1p(recentNodes * perBucket);
+        return features;
+    }
+
+    /**
+     * 桶是否仍在环形数组中：晚于最新桶的尚无数据，早于两个窗口的已被覆盖
+     */
+    private boolean retained(long bucket) {
+        return bucket <= latestBucket && bucket > latestBucket - capacity;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) capacity);
+    }
+}
@@ -0,0 +1,63 @@
+package com.rumor.tracing.graph;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 病毒式传播预测模型（逻辑回归）
+ * 得分 = sigmoid(intercept + Σ weight_i · feature_i)，特征顺序见 {@link ViralityFeatures#FEATURE_NAMES}。
+ * 未配置模型文件时使用内置的经验系数。
+ */
+public final class ViralityModel {
+
+    private final double intercept;
+    private final double[] weights;
+    private final double threshold;
+
+    private ViralityModel(double intercept, double[] weights, double threshold) {
+        this.intercept = intercept;
+        this.weights = weights;
+        this.threshold = threshold;
+    }
+
+    /**
+     * 内置经验系数：转发占比、传播速率与加速度、深度与新节点增长推高得分，点赞评论占比拉低得分
+     */
+    public static ViralityModel defaults() {
+        return new ViralityModel(-6.0, new double[]{0.9, 0.8, 0.6, 2.0, -0.5, 0.7}, 0.8);
+    }
+
+    /**
+     * 按特征名构建模型，未给出的特征系数为 0
+     * @param intercept 截距
+     * @param weights 特征名到系数的映射
+     * @param threshold 预警阈值
+     */
+    public static ViralityModel of(double intercept, Map<String, Double> weights, double threshold) {
+        String[] names = ViralityFeatures.FEATURE_NAMES;
+        double[] values = new double[names.length];
+        for (Map.Entry<String, Double> entry : weights.entrySet()) {
+            int index = Arrays.asList(names).indexOf(entry.getKey());
+            if (index < 0) {
+                throw new IllegalArgumentException("未知的病毒式传播特征: " + entry.getKey());
+            }
+            values[index] = entry.getValue();
+        }
+        return new ViralityModel(intercept, values, threshold);
+    }
+
+    public double score(double[] features) {
+        double z = intercept;
+        for (int i = 0; i < weights.length; i++) {
+            z += weights[i] * features[i];
+        }
+        return 1.0 / (1.0 + Math.exp(-z));
+    }
+
+    /**
+     * 得分达到该值时触发预警
+     */
+    public double threshold() {
+        return threshold;
+    }
+}
@@ -0,0 +1,128 @@
+package com.rumor.tracing.graph;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 病毒式传播预警
+ * 持有预测模型与特征窗口参数，为各谣言的图状态创建滚动特征；图状态每次并入新边后发布窗口计数副本，
+ * 得分首次达到阈值时记录预警日志，回落到阈值的 80% 以下后解除，避免在阈值附近反复预警。
+ * 窗口副本按谣言ID保存（不含节点深度表），读取得分时按当前时间重新计算，停止传播的谣言得分随之回落、预警随之解除；
+ * 谣言列表直接读取，不触发传播图加载。传播图缓存淘汰谣言时一并移除其窗口与预警状态，保存的谣言数不超过缓存容量。
+ */
+@Slf4j
+@Component
+public class ViralityMonitor {
+
+    /** 解除预警的得分比例 */
+    private static final double RESET_RATIO = 0.8;
+
+    private final ViralityModel model;
+    private final long bucketMillis;
+    private final int windowBuckets;
+    private final Map<Long, ViralityFeatures> windows = new ConcurrentHashMap<>();
+    private final Set<Long> alerted = ConcurrentHashMap.newKeySet();
+
+    public ViralityMonitor(
+            ObjectMapper objectMapper,
+            @Value("${propagation.virality.model-path:}") String modelPath,
+            @Value("${propagation.virality.bucket-seconds:60}") int bucketSeconds,
+            @Value("${propagation.virality.window-buckets:10}") int windowBuckets) {
+        this.model = modelPath.isBlank() ? ViralityModel.defaults() : loadModel(objectMapper, modelPath);
+        this.bucketMillis = bucketSeconds * 1000L;
+        this.windowBuckets = windowBuckets;
+    }
+
+    /**
+     * 从 JSON 文件加载逻辑回归模型：{"intercept": -6.0, "weights": {"edgeRate": 0.9, ...}, "threshold": 0.8}
+     */
+    private static ViralityModel loadModel(ObjectMapper objectMapper, String modelPath) {
+        try {
+            JsonNode root = objectMapper.readTree(new File(modelPath));
+            Map<String, Double> weights = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = root.path("weights").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                weights.put(field.getKey(), field.getValue().asDouble());
+            }
+            ViralityModel loaded = ViralityModel.of(root.path("intercept").asDouble(),
+                    weights, root.path("threshold").asDouble(ViralityModel.defaults().threshold()));
+            log.info("已加载病毒式传播预测模型：{}", modelPath);
+            return loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载病毒式传播预测模型失败: " + modelPath, e);
+        }
+    }
+
+    /**
+     * 为新加载的图状态创建滚动特征
+     */
+    public ViralityFeatures newFeatures() {
+        return new ViralityFeatures(model, bucketMillis, windowBuckets);
+    }
+
+    /**
+     * 发布谣言的最新窗口计数，按当前时间打分，跨过阈值时预警
+     * @param rumorId 谣言ID
+     * @param window 窗口计数副本
+     */
+    public void publish(Long rumorId, ViralityFeatures window) {
+        windows.put(rumorId, window);
+        double score = window.score(System.currentTimeMillis());
+        if (score >= model.threshold()) {
+            if (alerted.add(rumorId)) {
+                log.warn("谣言 {} 病毒式传播预警：预测得分 {}，阈值 {}", rumorId, score, model.threshold());
+            }
+        } else if (score < model.threshold() * RESET_RATIO) {
+            alerted.remove(rumorId);
+        }
+    }
+
+    /**
+     * 移除谣言的窗口与预警状态，由传播图缓存在淘汰谣言时调用
+     * @param rumorId 谣言ID
+     */
+    public void remove(Long rumorId) {
+        windows.remove(rumorId);
+        alerted.remove(rumorId);
+    }
+
+    /**
+     * 按当前时间计算谣言的得分，传播图未加载或已被淘汰时为 null
+     */
+    public Double score(Long rumorId) {
+        ViralityFeatures window = windows.get(rumorId);
+        return window == null ? null : window.score(System.currentTimeMillis());
+    }
+
+    /**
+     * 谣言当前是否处于预警状态，得分已回落到解除比例以下时解除
+     */
+    public boolean isAlerted(Long rumorId) {
+        if (!alerted.contains(rumorId)) {
+            return false;
+        }
+        Double score = score(rumorId);
+        if (score != null && score < model.threshold() * RESET_RATIO) {
+            alerted.remove(rumorId);
+            return false;
+        }
+        return true;
+    }
+
+    public double threshold() {
+        return model.threshold();
+    }
+}
@@ -0,0 +1,13 @@
+package com.rumor.tracing.model;
+
+public enum AnalysisJobStatus {
+    PENDING,    // 排队中
+    RUNNING,    // 执行中
+    SUCCEEDED,  // 已完成
+    FAILED,     // 执行失败
+    CANCELLED;  // 已取消
+
+    public boolean isTerminal() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
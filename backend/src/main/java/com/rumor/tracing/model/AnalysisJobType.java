@@ -0,0 +1,11 @@
+package com.rumor.tracing.model;
+
+public enum AnalysisJobType {
+    INFLUENCE,   // 影响力（经典 / PageRank / 个性化 PageRank，可时间旅行）
+    KEY_NODES,   // 关键节点（采样介数）
+    COMMUNITIES, // 社区发现
+    STATISTICS,  // 级联统计
+    NETWORK,     // 降采样传播网络
+    REPLAY,      // 传播回放
+    SNAPSHOT     // 重新生成影响力快照
+}
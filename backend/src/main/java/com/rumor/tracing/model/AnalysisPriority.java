@@ -0,0 +1,6 @@
+package com.rumor.tracing.model;
+
+public enum AnalysisPriority {
+    INTERACTIVE,  // 交互请求，优先调度
+    BACKFILL      // 批量回填，空闲时调度
+}
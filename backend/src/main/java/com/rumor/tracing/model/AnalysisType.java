@@ -1,8 +1,31 @@
 package com.rumor.tracing.model;
 
+import java.util.Locale;
+
 public enum AnalysisType {
     TEXT,    // 文本分析
     IMAGE,   // 图片分析
     VIDEO,   // 视频分析
-    MULTI    // 多模态分析
+    MULTI;   // 多模态分析
+
+    /**
+     * 按名称解析分析类型，忽略大小写，multimodal 视为 MULTI
+     * @param name 类型名称
+     * @return 分析类型，无法识别时为 null
+     */
+    public static AnalysisType fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().toUpperCase(Locale.ROOT);
+        if ("MULTIMODAL".equals(normalized)) {
+            return MULTI;
+        }
+        for (AnalysisType type : values()) {
+            if (type.name().equals(normalized)) {
+                return type;
+            }
+        }
+        return null;
+    }
 } 
\ No newline at end of file
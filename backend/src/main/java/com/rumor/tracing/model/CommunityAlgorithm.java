@@ -0,0 +1,6 @@
+package com.rumor.tracing.model;
+
+public enum CommunityAlgorithm {
+    LABEL_PROPAGATION,  // 并行标签传播
+    LOUVAIN             // Louvain 模块度优化
+}
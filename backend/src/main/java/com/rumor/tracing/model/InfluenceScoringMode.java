@@ -0,0 +1,7 @@
+package com.rumor.tracing.model;
+
+public enum InfluenceScoringMode {
+    CLASSIC,                // 按边的时间、类型因子累加
+    PAGERANK,               // 全局 PageRank
+    PERSONALIZED_PAGERANK   // 以谣言源节点为种子的个性化 PageRank
+}
@@ -0,0 +1,6 @@
+package com.rumor.tracing.model;
+
+public enum IngestFormat {
+    NDJSON,  // 每行一个 JSON 对象
+    CSV      // 逗号分隔，首行可为表头
+}
@@ -0,0 +1,8 @@
+package com.rumor.tracing.model;
+
+public enum NetworkDetailMode {
+    TOP_K,        // 按影响力取前 k 个节点
+    K_CORE,       // k-核抽取
+    COMMUNITY,    // 社区折叠为超节点
+    TIME_WINDOW   // 时间窗切片
+}
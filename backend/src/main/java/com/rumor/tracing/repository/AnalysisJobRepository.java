@@ -0,0 +1,100 @@
+package com.rumor.tracing.repository;
+
+import com.rumor.tracing.dto.AnalysisJobDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分析任务仓库（Redis）
+ * 任务状态、结果与取消标记分别保存在三个键中，均以 Smile 编码并设置相同的 TTL，
+ * 任何实例都可以查询或取消由其他实例执行的任务。
+ */
+@Repository
+public class AnalysisJobRepository {
+
+    private static final String KEY_PREFIX = "analysis:job:";
+    private static final byte[] CANCEL_FLAG = {1};
+
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final SmileCodec codec;
+    private final long ttlSeconds;
+
+    public AnalysisJobRepository(
+            RedisTemplate<String, byte[]> binaryRedisTemplate,
+            SmileCodec codec,
+            @Value("${propagation.jobs.ttl-seconds:3600}") long ttlSeconds) {
+        this.binaryRedisTemplate = binaryRedisTemplate;
+        this.codec = codec;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * 保存任务状态（不含结果）
+     * @param job 任务
+     */
+    public void save(AnalysisJobDTO job) {
+        Object result = job.getResult();
+        job.setResult(null);
+        try {
+            set(KEY_PREFIX + job.getId(), encode(job));
+        } finally {
+            job.setResult(result);
+        }
+    }
+
+    /**
+     * 读取任务状态
+     * @param jobId 任务ID
+     * @return 任务，不存在或已过期时为 null
+     */
+    public AnalysisJobDTO find(String jobId) {
+        byte[] bytes = binaryRedisTemplate.opsForValue().get(KEY_PREFIX + jobId);
+        return bytes != null ? decode(bytes, AnalysisJobDTO.class) : null;
+    }
+
+    public void saveResult(String jobId, Object result) {
+        set(KEY_PREFIX + jobId + ":result", encode(result));
+    }
+
+    public Object findResult(String jobId) {
+        byte[] bytes = binaryRedisTemplate.opsForValue().get(KEY_PREFIX + jobId + ":result");
+        return bytes != null ? decode(bytes, Object.class) : null;
+    }
+
+    /**
+     * 标记任务取消，由执行该任务的实例在阶段之间检查
+     * @param jobId 任务ID
+     */
+    public void requestCancel(String jobId) {
+        set(KEY_PREFIX + jobId + ":cancel", CANCEL_FLAG);
+    }
+
+    public boolean isCancelRequested(String jobId) {
+        return Boolean.TRUE.equals(binaryRedisTemplate.hasKey(KEY_PREFIX + jobId + ":cancel"));
+    }
+
+    private void set(String key, byte[] value) {
+        binaryRedisTemplate.opsForValue().set(key, value, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return codec.encode(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T decode(byte[] bytes, Class<T> type) {
+        try {
+            return codec.decode(bytes, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
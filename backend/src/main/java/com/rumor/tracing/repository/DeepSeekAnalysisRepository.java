@@ -3,6 +3,7 @@ package com.rumor.tracing.repository;
 import com.rumor.tracing.entity.DeepSeekAnalysis;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +11,5 @@ import java.util.Optional;
 public interface DeepSeekAnalysisRepository extends JpaRepository<DeepSeekAnalysis, Long> {
     List<DeepSeekAnalysis> findByRumorId(Long rumorId);
     Optional<DeepSeekAnalysis> findTopByRumorIdOrderByCreatedAtDesc(Long rumorId);
+    Optional<DeepSeekAnalysis> findTopByContentHashAndCreatedAtAfterOrderByIdDesc(String contentHash, LocalDateTime createdAfter);
 } 
\ No newline at end of file
@@ -0,0 +1,299 @@
+package com.rumor.tracing.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rumor.tracing.dto.response.DeepSeekAnalysisResponse;
+import com.rumor.tracing.entity.DeepSeekAnalysis;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * DeepSeek 分析结果缓存
+ * 以 模型 + 提示词版本 + 规范化内容 的 SHA-256 作为键，分三级查找：
+ * 进程内 LRU（条数与 TTL 限制）→ Redis（Smile 编码，TTL 过期）→ 数据库 deepseek_analysis（按 content_hash 查找有效期内的最新记录）。
+ * 下级命中后回填上级；未命中时调用 DeepSeek，成功的结果写入全部三级，失败不缓存。
+ * 同一键的并发未命中在实例内合并为一次调用。Redis 与数据库访问在 boundedElastic 线程上执行，不阻塞事件循环。
+ */
+@Slf4j
+@Repository
+public class DeepSeekResultCache {
+
+    private static final String KEY_PREFIX = "deepseek:result:";
+
+    /** 零宽字符与 BOM */
+    private static final Pattern INVISIBLE = Pattern.compile("[\\u200B-\\u200D\\u2060\\uFEFF]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final DeepSeekAnalysisRepository deepSeekAnalysisRepository;
+    private final SmileCodec codec;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long localTtlMillis;
+    private final long redisTtlSeconds;
+    private final long persistTtlHours;
+    private final long retryAfterMillis;
+    private final Map<String, LocalEntry> local;
+    private final ConcurrentMap<String, Mono<DeepSeekAnalysisResponse>> inFlight = new ConcurrentHashMap<>();
+    private volatile long redisUnavailableUntil;
+
+    public DeepSeekResultCache(
+            RedisTemplate<String, byte[]> binaryRedisTemplate,
+            DeepSeekAnalysisRepository deepSeekAnalysisRepository,
+            SmileCodec codec,
+            ObjectMapper objectMapper,
+            @Value("${ai.cache.enabled:true}") boolean enabled,
+            @Value("${ai.cache.local-size:2000}") int localSize,
+            @Value("${ai.cache.local-ttl-seconds:600}") long localTtlSeconds,
+            @Value("${ai.cache.redis-ttl-seconds:86400}") long redisTtlSeconds,
+            @Value("${ai.cache.persist-ttl-hours:168}") long persistTtlHours,
+            @Value("${ai.cache.retry-after-ms:30000}") long retryAfterMillis) {
+        this.binaryRedisTemplate = binaryRedisTemplate;
+        this.deepSeekAnalysisRepository = deepSeekAnalysisRepository;
+        this.codec = codec;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.localTtlMillis = TimeUnit.SECONDS.toMillis(localTtlSeconds);
+        this.redisTtlSeconds = redisTtlSeconds;
+        this.persistTtlHours = persistTtlHours;
+        this.retryAfterMillis = retryAfterMillis;
+        this.local = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                return size() > localSize;
+            }
+        };
+    }
+
+    /**
+     * 规范化内容的缓存键：Unicode NFKC 归一（全角/半角统一）、去除零宽字符、合并空白、英文转小写
+     * @param model 模型名称
+     * @param promptVersion 提示词版本，提示词变化后旧结果不再命中
+     * @param content 分析内容
+     * @return 十六进制 SHA-256
+     */
+    public static String contentHash(String model, String promptVersion, String content) {
+        String normalized = Normalizer.normalize(content, Normalizer.Form.NFKC);
+        normalized = INVISIBLE.matcher(normalized).replaceAll("");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((model + '\n' + promptVersion + '\n' + normalized)
+                    .getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    /**
+     * 读取缓存的分析结果，未命中时调用 DeepSeek 并写入各级缓存
+     * @param hash 内容哈希，见 {@link #contentHash}
+     * @param analysisType 分析类型，持久化时记录
+     * @param loader 调用 DeepSeek，失败时以错误结束
+     * @return 分析结果
+     */
+    public Mono<DeepSeekAnalysisResponse> get(String hash, String analysisType,
+                                              Supplier<Mono<DeepSeekAnalysisResponse>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        DeepSeekAnalysisResponse cached = getLocal(hash);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.defer(() -> inFlight.computeIfAbsent(hash, h -> lookup(h)
+                .switchIfEmpty(Mono.defer(loader).flatMap(result -> put(h, analysisType, result)))
+                .doFinally(signal -> inFlight.remove(h))
+                .cache()));
+    }
+
+    /**
+     * 只查找缓存，不调用 DeepSeek
+     * @param hash 内容哈希
+     * @return 缓存的分析结果，未命中时为空
+     */
+    public Mono<DeepSeekAnalysisResponse> lookup(String hash) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        DeepSeekAnalysisResponse cached = getLocal(hash);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.fromCallable(() -> readRemote(hash))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(result -> putLocal(hash, result));
+    }
+
+    /**
+     * 将成功的分析结果写入各级缓存
+     * @param hash 内容哈希
+     * @param analysisType 分析类型，持久化时记录
+     * @param result 分析结果
+     * @return 写入完成后发出分析结果
+     */
+    public Mono<DeepSeekAnalysisResponse> put(String hash, String analysisType, DeepSeekAnalysisResponse result) {
+        if (!enabled) {
+            return Mono.just(result);
+        }
+        putLocal(hash, result);
+        return Mono.fromCallable(() -> store(hash, analysisType, result))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 数据库中有效期内该内容哈希的最新分析记录，供需要记录ID的调用方复用，避免再写一条相同结果
+     * @param hash 内容哈希
+     * @param analysisType 分析类型，类型不同的记录不复用
+     * @return 分析记录，缓存关闭或不存在时为空
+     */
+    public Optional<DeepSeekAnalysis> findPersisted(String hash, String analysisType) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        try {
+            return deepSeekAnalysisRepository
+                    .findTopByContentHashAndCreatedAtAfterOrderByIdDesc(hash, LocalDateTime.now().minusHours(persistTtlHours))
+                    .filter(analysis -> analysisType.equals(analysis.getAnalysisType()));
+        } catch (DataAccessException e) {
+            log.warn("查找 DeepSeek 分析记录失败: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 依次查找 Redis 与数据库，数据库命中时回填 Redis；均未命中返回 null
+     */
+    private DeepSeekAnalysisResponse readRemote(String hash) {
+        DeepSeekAnalysisResponse result = readRedis(hash);
+        if (result != null) {
+            return result;
+        }
+        LocalDateTime notBefore = LocalDateTime.now().minusHours(persistTtlHours);
+        Optional<DeepSeekAnalysis> persisted = deepSeekAnalysisRepository
+                .findTopByContentHashAndCreatedAtAfterOrderByIdDesc(hash, notBefore);
+        if (persisted.isEmpty() || persisted.get().getResponse() == null) {
+            return null;
+        }
+        try {
+            result = objectMapper.readValue(persisted.get().getResponse(), DeepSeekAnalysisResponse.class);
+        } catch (IOException e) {
+            log.warn("DeepSeek 分析记录 {} 解析失败，重新分析: {}", persisted.get().getId(), e.getMessage());
+            return null;
+        }
+        writeRedis(hash, result);
+        return result;
+    }
+
+    private DeepSeekAnalysisResponse store(String hash, String analysisType, DeepSeekAnalysisResponse result) {
+        writeRedis(hash, result);
+        try {
+            DeepSeekAnalysis analysis = new DeepSeekAnalysis();
+            analysis.setAnalysisType(analysisType);
+            analysis.setContentHash(hash);
+            analysis.setResult(result.getVerificationRecommendation());
+            analysis.setConfidence(result.getCredibilityScore());
+            analysis.setResponse(objectMapper.writeValueAsString(result));
+            deepSeekAnalysisRepository.save(analysis);
+        } catch (JsonProcessingException | DataAccessException e) {
+            // 结果已返回给调用方，持久化失败只影响后续命中
+            log.warn("保存 DeepSeek 分析结果失败: {}", e.getMessage());
+        }
+        return result;
+    }
+
+    private DeepSeekAnalysisResponse readRedis(String hash) {
+        if (!redisAvailable()) {
+            return null;
+        }
+        try {
+            byte[] bytes = binaryRedisTemplate.opsForValue().get(KEY_PREFIX + hash);
+            return bytes == null ? null : codec.decode(bytes, DeepSeekAnalysisResponse.class);
+        } catch (IOException e) {
+            log.warn("DeepSeek 缓存 {} 解码失败: {}", hash, e.getMessage());
+            return null;
+        } catch (DataAccessException e) {
+            markRedisUnavailable(e);
+            return null;
+        }
+    }
+
+    private void writeRedis(String hash, DeepSeekAnalysisResponse result) {
+        if (!redisAvailable()) {
+            return;
+        }
+        try {
+            binaryRedisTemplate.opsForValue().set(KEY_PREFIX + hash, codec.encode(result),
+                    redisTtlSeconds, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            log.warn("DeepSeek 缓存 {} 编码失败: {}", hash, e.getMessage());
+        } catch (DataAccessException e) {
+            markRedisUnavailable(e);
+        }
+    }
+
+    private DeepSeekAnalysisResponse getLocal(String hash) {
+        synchronized (local) {
+            LocalEntry entry = local.get(hash);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                local.remove(hash);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private void putLocal(String hash, DeepSeekAnalysisResponse value) {
+        synchronized (local) {
+            local.put(hash, new LocalEntry(value, System.currentTimeMillis() + localTtlMillis));
+        }
+    }
+
+    private boolean redisAvailable() {
+        return System.currentTimeMillis() >= redisUnavailableUntil;
+    }
+
+    private void markRedisUnavailable(DataAccessException e) {
+        redisUnavailableUntil = System.currentTimeMillis() + retryAfterMillis;
+        log.warn("Redis 不可用，{} ms 内跳过 DeepSeek 结果的 Redis 缓存: {}", retryAfterMillis, e.getMessage());
+    }
+
+    private static final class LocalEntry {
+        private final DeepSeekAnalysisResponse value;
+        private final long expiresAt;
+
+        LocalEntry(DeepSeekAnalysisResponse value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.rumor.tracing.repository;
+
+import com.rumor.tracing.entity.InfluenceAnalysis;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 影响力快照仓库
+ * 以 JDBC 批量语句写入 influence_analysis 及其两张元素集合表，每次写入从 influence_snapshot_epoch 分配递增的
+ * snapshot_epoch 并持有该谣言序列行的行锁至提交，写入成功后在同一事务内删除该谣言更早的快照。读取时按最新 epoch 一次取回主表行与集合行，避免逐行懒加载；
+ * 分页查询只按节点ID读取当页的行，走 (rumor_id, snapshot_epoch, node_id) 索引。
+ */
+@Repository
+public class InfluenceSnapshotRepository {
+
+    private static final String INSERT_ANALYSIS_SQL =
+            "INSERT INTO influence_analysis (rumor_id, node_id, influence_score, path_count, is_key_node, " +
+            "analysis_time, user_count, content_count, betweenness_score, betweenness_error_bound, snapshot_epoch, " +
+            "analysis_time_original, analysis_status, analysis_result) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_USER_INFLUENCE_SQL =
+            "INSERT INTO influence_analysis_user_influence (analysis_id, user_influence) VALUES (?, ?)";
+
+    private static final String INSERT_CONTENT_INFLUENCE_SQL =
+            "INSERT INTO influence_analysis_content_influence (analysis_id, content_influence) VALUES (?, ?)";
+
+    private static final String SELECT_ANALYSIS_SQL =
+            "SELECT id, node_id, influence_score, path_count, is_key_node, analysis_time, user_count, " +
+            "content_count, betweenness_score, betweenness_error_bound, analysis_time_original, analysis_status, analysis_result " +
+            "FROM influence_analysis WHERE rumor_id = ? AND snapshot_epoch = ?";
+
+    private static final String SNAPSHOT_IDS_SQL =
+            "SELECT id FROM influence_analysis WHERE rumor_id = ? AND snapshot_epoch = ?";
+
+    private static final String NEXT_EPOCH_SQL =
+            "INSERT INTO influence_snapshot_epoch (rumor_id, epoch) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE epoch = epoch + 1";
+
+    private static final String STALE_IDS_SQL =
+            "SELECT id FROM influence_analysis WHERE rumor_id = ? AND (snapshot_epoch IS NULL OR snapshot_epoch < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public InfluenceSnapshotRepository(
+            JdbcTemplate jdbcTemplate,
+            @Value("${propagation.snapshot.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 查询谣言最新的快照版本
+     * @param rumorId 谣言ID
+     * @return 最新 epoch，没有快照时为 null
+     */
+    public Long findLatestEpoch(Long rumorId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT MAX(snapshot_epoch) FROM influence_analysis WHERE rumor_id = ?", Long.class, rumorId);
+    }
+
+    /**
+     * 写入新快照并删除旧快照
+     * @param rumorId 谣言ID
+     * @param analyses 快照行，集合字段为空的行不写元素集合表
+     * @return 新快照的 epoch
+     */
+    @Transactional
+    public long writeSnapshot(Long rumorId, List<InfluenceAnalysis> analyses) {
+        long epoch = nextEpoch(rumorId);
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp analysisTimeOriginal = Timestamp.valueOf(now);
+        long analysisTime = now.toEpochSecond(ZoneOffset.UTC);
+
+        jdbcTemplate.batchUpdate(INSERT_ANALYSIS_SQL, analyses, batchSize, (ps, analysis) -> {
+            ps.setLong(1, rumorId);
+            ps.setString(2, analysis.getNodeId());
+            ps.setDouble(3, analysis.getInfluenceScore());
+            ps.setInt(4, analysis.getPathCount());
+            ps.setBoolean(5, analysis.getIsKeyNode());
+            ps.setLong(6, analysisTime);
+            ps.setInt(7, analysis.getUserCount());
+            ps.setInt(8, analysis.getContentCount());
+            if (analysis.getBetweennessScore() != null) {
+                ps.setDouble(9, analysis.getBetweennessScore());
+            } else {
+                ps.setNull(9, Types.DOUBLE);
+            }
+            if (analysis.getBetweennessErrorBound() != null) {
+                ps.setDouble(10, analysis.getBetweennessErrorBound());
+            } else {
+                ps.setNull(10, Types.DOUBLE);
+            }
+            ps.setLong(11, epoch);
+            ps.setTimestamp(12, analysisTimeOriginal);
+            ps.setString(13, analysis.getAnalysisStatus());
+            ps.setString(14, analysis.getAnalysisResult());
+        });
+
+        writeCollections(rumorId, epoch, analyses);
+        deleteSnapshotsBefore(rumorId, epoch);
+        return epoch;
+    }
+
+    /**
+     * 读取指定版本的快照，按影响力分数降序
+     * @param rumorId 谣言ID
+     * @param epoch 快照版本
+     * @param keyNodesOnly 是否只读取关键节点
+     * @return 快照行
+     */
+    public List<InfluenceAnalysis> findSnapshot(Long rumorId, long epoch, boolean keyNodesOnly) {
+        String sql = SELECT_ANALYSIS_SQL + (keyNodesOnly ? " AND is_key_node = TRUE" : "")
+                + " ORDER BY influence_score DESC";
+        List<InfluenceAnalysis> analyses = jdbcTemplate.query(sql, analysisMapper(rumorId, epoch), rumorId, epoch);
+
+        Map<Long, InfluenceAnalysis> byId = byId(analyses);
+        readCollection("influence_analysis_user_influence", "user_influence", SNAPSHOT_IDS_SQL, byId, true,
+                rumorId, epoch);
+        readCollection("influence_analysis_content_influence", "content_influence", SNAPSHOT_IDS_SQL, byId, false,
+                rumorId, epoch);
+        return analyses;
+    }
+
+    /**
+     * 读取指定版本快照中若干节点的行，代价与节点数成正比
+     * @param rumorId 谣言ID
+     * @param epoch 快照版本
+     * @param nodeIds 节点ID
+     * @return 快照行，快照中不存在的节点没有对应行，顺序不定
+     */
+    public List<InfluenceAnalysis> findSnapshotNodes(Long rumorId, long epoch, Collection<String> nodeIds) {
+        if (nodeIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> args = new ArrayList<>(nodeIds.size() + 2);
+        args.add(rumorId);
+        args.add(epoch);
+        args.addAll(nodeIds);
+        List<InfluenceAnalysis> analyses = jdbcTemplate.query(
+                SELECT_ANALYSIS_SQL + " AND node_id IN (" + placeholders(nodeIds.size()) + ")",
+                analysisMapper(rumorId, epoch), args.toArray());
+
+        Map<Long, InfluenceAnalysis> byId = byId(analyses);
+        if (byId.isEmpty()) {
+            return analyses;
+        }
+        String ids = placeholders(byId.size());
+        Object[] idArgs = byId.keySet().toArray();
+        readCollection("influence_analysis_user_influence", "user_influence", ids, byId, true, idArgs);
+        readCollection("influence_analysis_content_influence", "content_influence", ids, byId, false, idArgs);
+        return analyses;
+    }
+
+    private static RowMapper<InfluenceAnalysis> analysisMapper(Long rumorId, long epoch) {
+        return (rs, rowNum) -> {
+            InfluenceAnalysis analysis = new InfluenceAnalysis();
+            analysis.setId(rs.getLong("id"));
+            analysis.setRumorId(rumorId);
+            analysis.setNodeId(rs.getString("node_id"));
+            analysis.setInfluenceScore(rs.getDouble("influence_score"));
+            analysis.setPathCount(rs.getInt("path_count"));
+            analysis.setIsKeyNode(rs.getBoolean("is_key_node"));
+            analysis.setAnalysisTime(rs.getLong("analysis_time"));
+            analysis.setUserCount(rs.getInt("user_count"));
+            analysis.setContentCount(rs.getInt("content_count"));
+            double betweenness = rs.getDouble("betweenness_score");
+            analysis.setBetweennessScore(rs.wasNull() ? null : betweenness);
+            double errorBound = rs.getDouble("betweenness_error_bound");
+            analysis.setBetweennessErrorBound(rs.wasNull() ? null : errorBound);
+            analysis.setSnapshotEpoch(epoch);
+            Timestamp original = rs.getTimestamp("analysis_time_original");
+            analysis.setAnalysisTimeOriginal(original != null ? original.toLocalDateTime() : null);
+            analysis.setAnalysisStatus(rs.getString("analysis_status"));
+            analysis.setAnalysisResult(rs.getString("analysis_result"));
+            return analysis;
+        };
+    }
+
+    private static Map<Long, InfluenceAnalysis> byId(List<InfluenceAnalysis> analyses) {
+        Map<Long, InfluenceAnalysis> byId = new HashMap<>(analyses.size() * 2);
+        for (InfluenceAnalysis analysis : analyses) {
+            byId.put(analysis.getId(), analysis);
+        }
+        return byId;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * 分配下一个快照版本
+     * 序列行不存在时以现有快照的最大版本为起点插入，存在时递增；两种情况都对序列行加排他锁直到事务结束，
+     * 并发写入同一谣言快照的事务（包括其他实例）在此排队，不会分配到相同的版本。
+     */
+    private long nextEpoch(Long rumorId) {
+        Long latest = findLatestEpoch(rumorId);
+        jdbcTemplate.update(NEXT_EPOCH_SQL, rumorId, latest == null ? 1L : latest + 1);
+        return jdbcTemplate.queryForObject(
+                "SELECT epoch FROM influence_snapshot_epoch WHERE rumor_id = ? FOR UPDATE", Long.class, rumorId);
+    }
+
+    private void writeCollections(Long rumorId, long epoch, List<InfluenceAnalysis> analyses) {
+        Map<String, InfluenceAnalysis> byNode = new HashMap<>();
+        for (InfluenceAnalysis analysis : analyses) {
+            if (hasItems(analysis.getUserInfluence()) || hasItems(analysis.getContentInfluence())) {
+                byNode.put(analysis.getNodeId(), analysis);
+            }
+        }
+        if (byNode.isEmpty()) {
+            return;
+        }
+
+        // 批量插入不回传自增主键，按 (rumor_id, snapshot_epoch) 取回新行的ID
+        List<Object[]> userRows = new ArrayList<>();
+        List<Object[]> contentRows = new ArrayList<>();
+        jdbcTemplate.query(
+                "SELECT id, node_id FROM influence_analysis WHERE rumor_id = ? AND snapshot_epoch = ?",
+                rs -> {
+                    InfluenceAnalysis analysis = byNode.get(rs.getString("node_id"));
+                    if (analysis == null) {
+                        return;
+                    }
+                    long id = rs.getLong("id");
+                    if (analysis.getUserInfluence() != null) {
+                        for (String value : analysis.getUserInfluence()) {
+                            userRows.add(new Object[]{id, value});
+                        }
+                    }
+                    if (analysis.getContentInfluence() != null) {
+                        for (String value : analysis.getContentInfluence()) {
+                            contentRows.add(new Object[]{id, value});
+                        }
+                    }
+                },
+                rumorId, epoch);
+
+        batchInsert(INSERT_USER_INFLUENCE_SQL, userRows);
+        batchInsert(INSERT_CONTENT_INFLUENCE_SQL, contentRows);
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + batchSize)));
+        }
+    }
+
+    private void deleteSnapshotsBefore(Long rumorId, long epoch) {
+        jdbcTemplate.update("DELETE FROM influence_analysis_user_influence WHERE analysis_id IN (" + STALE_IDS_SQL + ")",
+                rumorId, epoch);
+        jdbcTemplate.update("DELETE FROM influence_analysis_content_influence WHERE analysis_id IN (" + STALE_IDS_SQL + ")",
+                rumorId, epoch);
+        jdbcTemplate.update("DELETE FROM influence_analysis WHERE rumor_id = ? AND (snapshot_epoch IS NULL OR snapshot_epoch < ?)",
+                rumorId, epoch);
+    }
+
+    /**
+     * 读取集合表中属于指定行的元素
+     * @param ids 选出行ID的子查询或占位符列表
+     * @param args ids 的参数
+     */
+    private void readCollection(String table, String column, String ids, Map<Long, InfluenceAnalysis> byId,
+                                boolean userInfluence, Object... args) {
+        if (byId.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(
+                "SELECT analysis_id, " + column + " FROM " + table + " WHERE analysis_id IN (" + ids + ")",
+                rs -> {
+                    InfluenceAnalysis analysis = byId.get(rs.getLong("analysis_id"));
+                    if (analysis == null) {
+                        return;
+                    }
+                    List<String> values = userInfluence ? analysis.getUserInfluence() : analysis.getContentInfluence();
+                    if (values == null) {
+                        values = new ArrayList<>();
+                        if (userInfluence) {
+                            analysis.setUserInfluence(values);
+                        } else {
+                            analysis.setContentInfluence(values);
+                        }
+                    }
+                    values.add(rs.getString(column));
+                },
+                args);
+    }
+
+    private static boolean hasItems(List<String> values) {
+        return values != null && !values.isEmpty();
+    }
+}
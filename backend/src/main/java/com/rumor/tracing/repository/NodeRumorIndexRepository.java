@@ -0,0 +1,163 @@
+package com.rumor.tracing.repository;
+
+import com.rumor.tracing.entity.NodeRumorIndex;
+import com.rumor.tracing.entity.PropagationPath;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 节点-谣言倒排索引仓库
+ * 追加传播路径时先在内存中按 (节点, 谣言) 合并计数，再以 JDBC 批量 upsert 写入 node_rumor_index；
+ * 合并后的行按主键排序写入，并发事务以相同顺序加锁。查询按主键前缀读取单个节点的倒排列表，代价与列表长度成正比。
+ */
+@Repository
+public class NodeRumorIndexRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO node_rumor_index (node_id, rumor_id, out_count, in_count, first_time, last_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE out_count = out_count + VALUES(out_count), " +
+            "in_count = in_count + VALUES(in_count), " +
+            "first_time = LEAST(first_time, VALUES(first_time)), " +
+            "last_time = GREATEST(last_time, VALUES(last_time))";
+
+    private static final String POSTINGS_SQL =
+            "SELECT rumor_id, out_count, in_count, first_time, last_time FROM node_rumor_index " +
+            "WHERE node_id = ? AND rumor_id > ? ORDER BY rumor_id LIMIT ?";
+
+    private static final String SUMMARY_SQL =
+            "SELECT COUNT(*) AS rumor_count, SUM(out_count) AS out_count, SUM(in_count) AS in_count, " +
+            "MIN(first_time) AS first_time, MAX(last_time) AS last_time FROM node_rumor_index WHERE node_id = ?";
+
+    private static final String REBUILD_SQL =
+            "INSERT INTO node_rumor_index (node_id, rumor_id, out_count, in_count, first_time, last_time) " +
+            "SELECT node, rumor_id, SUM(out_count), SUM(in_count), MIN(propagation_time), MAX(propagation_time) FROM (" +
+            "SELECT source_node AS node, rumor_id, 1 AS out_count, 0 AS in_count, propagation_time " +
+            "FROM propagation_paths WHERE rumor_id = ? " +
+            "UNION ALL " +
+            "SELECT target_node AS node, rumor_id, 0 AS out_count, 1 AS in_count, propagation_time " +
+            "FROM propagation_paths WHERE rumor_id = ?" +
+            ") edges GROUP BY node, rumor_id";
+
+    private static final Comparator<NodeRumorIndex> KEY_ORDER =
+            Comparator.comparing(NodeRumorIndex::getNodeId).thenComparing(NodeRumorIndex::getRumorId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public NodeRumorIndexRepository(
+            JdbcTemplate jdbcTemplate,
+            @Value("${propagation.node-index.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 将新增传播路径并入倒排索引，需在写入路径的同一事务内调用
+     * @param paths 已持久化的传播路径
+     */
+    public void addPaths(Collection<PropagationPath> paths) {
+        Map<NodeRumorIndex.Key, NodeRumorIndex> merged = new HashMap<>();
+        for (PropagationPath path : paths) {
+            merge(merged, path.getSourceNode(), path.getRumorId(), 1, 0, path.getPropagationTime());
+            merge(merged, path.getTargetNode(), path.getRumorId(), 0, 1, path.getPropagationTime());
+        }
+        if (merged.isEmpty()) {
+            return;
+        }
+        List<NodeRumorIndex> rows = new ArrayList<>(merged.values());
+        rows.sort(KEY_ORDER);
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, batchSize, (ps, row) -> {
+            ps.setString(1, row.getNodeId());
+            ps.setLong(2, row.getRumorId());
+            ps.setInt(3, row.getOutCount());
+            ps.setInt(4, row.getInCount());
+            ps.setLong(5, row.getFirstTime());
+            ps.setLong(6, row.getLastTime());
+        });
+    }
+
+    /**
+     * 按谣言ID升序读取节点的倒排列表（键集分页）
+     * @param nodeId 节点ID
+     * @param afterRumorId 上一页最后一个谣言ID，首页传 0
+     * @param limit 本页条数
+     * @return 倒排列表项
+     */
+    public List<NodeRumorIndex> findPostings(String nodeId, long afterRumorId, int limit) {
+        return jdbcTemplate.query(POSTINGS_SQL, (rs, rowNum) -> {
+            NodeRumorIndex row = new NodeRumorIndex();
+            row.setNodeId(nodeId);
+            row.setRumorId(rs.getLong("rumor_id"));
+            row.setOutCount(rs.getInt("out_count"));
+            row.setInCount(rs.getInt("in_count"));
+            row.setFirstTime(rs.getLong("first_time"));
+            row.setLastTime(rs.getLong("last_time"));
+            return row;
+        }, nodeId, afterRumorId, limit);
+    }
+
+    /**
+     * 汇总节点参与的谣言数、传播边数与活跃时间范围
+     * @param nodeId 节点ID
+     * @return 汇总数据，节点不在索引中时谣言数为 0、时间为 null
+     */
+    public Map<String, Object> findSummary(String nodeId) {
+        return jdbcTemplate.queryForObject(SUMMARY_SQL, (rs, rowNum) -> {
+            Map<String, Object> summary = new HashMap<>(8);
+            summary.put("rumorCount", rs.getLong("rumor_count"));
+            summary.put("outCount", rs.getLong("out_count"));
+            summary.put("inCount", rs.getLong("in_count"));
+            long firstTime = rs.getLong("first_time");
+            summary.put("firstTime", rs.wasNull() ? null : firstTime);
+            long lastTime = rs.getLong("last_time");
+            summary.put("lastTime", rs.wasNull() ? null : lastTime);
+            return summary;
+        }, nodeId);
+    }
+
+    /**
+     * 由 propagation_paths 重建单个谣言的倒排索引行
+     * @param rumorId 谣言ID
+     * @return 写入的行数
+     */
+    @Transactional
+    public int rebuild(Long rumorId) {
+        jdbcTemplate.update("DELETE FROM node_rumor_index WHERE rumor_id = ?", rumorId);
+        return jdbcTemplate.update(REBUILD_SQL, rumorId, rumorId);
+    }
+
+    /**
+     * 存在传播路径的全部谣言ID
+     */
+    public List<Long> findPathRumorIds() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT rumor_id FROM propagation_paths ORDER BY rumor_id", Long.class);
+    }
+
+    private static void merge(Map<NodeRumorIndex.Key, NodeRumorIndex> merged, String nodeId, Long rumorId,
+                              int outCount, int inCount, long time) {
+        NodeRumorIndex row = merged.computeIfAbsent(new NodeRumorIndex.Key(nodeId, rumorId), key -> {
+            NodeRumorIndex created = new NodeRumorIndex();
+            created.setNodeId(nodeId);
+            created.setRumorId(rumorId);
+            created.setOutCount(0);
+            created.setInCount(0);
+            created.setFirstTime(time);
+            created.setLastTime(time);
+            return created;
+        });
+        row.setOutCount(row.getOutCount() + outCount);
+        row.setInCount(row.getInCount() + inCount);
+        row.setFirstTime(Math.min(row.getFirstTime(), time));
+        row.setLastTime(Math.max(row.getLastTime(), time));
+    }
+}
@@ -0,0 +1,46 @@
+package com.rumor.tracing.repository;
+
+import com.rumor.tracing.entity.PropagationPath;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 传播路径批量写入仓库
+ * IDENTITY 主键使 Hibernate 无法批量插入，这里直接以 JDBC 批量语句写入 propagation_paths，
+ * 配合连接参数 rewriteBatchedStatements=true 由驱动改写为多行 INSERT。审计字段在此处填充。
+ */
+@Repository
+public class PropagationPathBulkRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO propagation_paths (rumor_id, source_node, target_node, propagation_time, path_length, type, " +
+            "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PropagationPathBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 批量插入传播路径（不回填主键）
+     * @param paths 传播路径
+     */
+    public void insertAll(List<PropagationPath> paths) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, paths, paths.size(), (ps, path) -> {
+            ps.setLong(1, path.getRumorId());
+            ps.setString(2, path.getSourceNode());
+            ps.setString(3, path.getTargetNode());
+            ps.setLong(4, path.getPropagationTime());
+            ps.setInt(5, path.getPathLength());
+            ps.setString(6, path.getType().name());
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+        });
+    }
+}
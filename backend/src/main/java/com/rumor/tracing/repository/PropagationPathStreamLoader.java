@@ -0,0 +1,113 @@
+package com.rumor.tracing.repository;
+
+import com.rumor.tracing.graph.NodeDictionary;
+import com.rumor.tracing.graph.PropagationEdgeConsumer;
+import com.rumor.tracing.model.PropagationType;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 传播路径流式加载器
+ * 按 (rumor_id, id) 键集分页遍历 propagation_paths，每页使用只读的无状态会话读取原始列，
+ * 不进入持久化上下文。遍历边的内存占用只与单页大小有关；遍历去重节点时需构建节点字典，
+ * 内存占用与去重节点数成正比。
+ */
+@Repository
+public class PropagationPathStreamLoader {
+
+    private static final String PAGE_SQL =
+            "SELECT id, source_node, target_node, propagation_time, type FROM propagation_paths " +
+            "WHERE rumor_id = :rumorId AND id > :lastId AND id <= :maxId ORDER BY id";
+
+    private final SessionFactory sessionFactory;
+    private final int fetchSize;
+
+    public PropagationPathStreamLoader(
+            EntityManagerFactory entityManagerFactory,
+            @Value("${propagation.loader.fetch-size:5000}") int fetchSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * 流式遍历谣言的全部传播边
+     * @param rumorId 谣言ID
+     * @param consumer 边回调
+     * @return 遍历的边数
+     */
+    public long forEachEdge(Long rumorId, PropagationEdgeConsumer consumer) {
+        return forEachEdge(rumorId, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * 流式遍历谣言中ID不超过 maxId 的传播边
+     * @param rumorId 谣言ID
+     * @param maxId 边ID上限（含）
+     * @param consumer 边回调
+     * @return 遍历的边数
+     */
+    public long forEachEdge(Long rumorId, long maxId, PropagationEdgeConsumer consumer) {
+        long lastId = 0L;
+        long total = 0L;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            while (true) {
+                List<Object[]> rows = fetchPage(session, rumorId, lastId, maxId);
+                for (Object[] row : rows) {
+                    lastId = ((Number) row[0]).longValue();
+                    consumer.accept(
+                            lastId,
+                            (String) row[1],
+                            (String) row[2],
+                            ((Number) row[3]).longValue(),
+                            row[4] != null ? PropagationType.valueOf((String) row[4]) : null);
+                }
+                total += rows.size();
+                if (rows.size() < fetchSize) {
+                    return total;
+                }
+            }
+        }
+    }
+
+    /**
+     * 遍历谣言传播图中的去重节点
+     * 一遍边流构建节点字典，按首次出现的顺序（与内存传播图的节点编号一致）回调；
+     * 去重使用节点ID的二进制比较，不受数据库排序规则影响，大小写不同的节点ID视为不同节点。
+     * 内存占用与去重节点数成正比。
+     * @param rumorId 谣言ID
+     * @param consumer 节点回调
+     * @return 构建字典时读到的最大边ID，随后按该上限遍历边可保证边的端点都已输出
+     */
+    public long forEachNode(Long rumorId, Consumer<String> consumer) {
+        NodeDictionary nodes = new NodeDictionary();
+        long[] maxId = {0L};
+        forEachEdge(rumorId, (id, sourceNode, targetNode, propagationTime, type) -> {
+            nodes.intern(sourceNode);
+            nodes.intern(targetNode);
+            maxId[0] = id;
+        });
+        for (int node = 0; node < nodes.size(); node++) {
+            consumer.accept(nodes.nameOf(node));
+        }
+        return maxId[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> fetchPage(StatelessSession session, Long rumorId, long lastId, long maxId) {
+        NativeQuery<Object[]> query = session.createNativeQuery(PAGE_SQL);
+        query.setParameter("rumorId", rumorId);
+        query.setParameter("lastId", lastId);
+        query.setParameter("maxId", maxId);
+        query.setMaxResults(fetchSize);
+        query.setFetchSize(fetchSize);
+        query.setReadOnly(true);
+        return query.list();
+    }
+}
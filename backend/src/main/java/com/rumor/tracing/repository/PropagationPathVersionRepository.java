@@ -0,0 +1,46 @@
+package com.rumor.tracing.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 传播路径版本仓库
+ * 所有写入 propagation_paths 的事务都需在提交前调用 {@link #increment}：版本行的排他锁持有到事务结束，
+ * 同一谣言（包括其他实例）的写事务在此排队，提交顺序与版本顺序一致，每次提交版本恰好加一。
+ * 读取只按主键查询一行，代价与传播路径数无关。
+ */
+@Repository
+public class PropagationPathVersionRepository {
+
+    private static final String INCREMENT_SQL =
+            "INSERT INTO propagation_path_version (rumor_id, version) VALUES (?, 1) " +
+            "ON DUPLICATE KEY UPDATE version = version + 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PropagationPathVersionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 在当前事务内递增谣言的传播路径版本，应作为写事务的最后一条语句以缩短行锁持有时间
+     * @param rumorId 谣言ID
+     * @return 本事务分配的版本
+     */
+    public long increment(Long rumorId) {
+        jdbcTemplate.update(INCREMENT_SQL, rumorId);
+        return jdbcTemplate.queryForObject(
+                "SELECT version FROM propagation_path_version WHERE rumor_id = ?", Long.class, rumorId);
+    }
+
+    /**
+     * 查询谣言已提交的传播路径版本
+     * @param rumorId 谣言ID
+     * @return 版本，没有写入记录时为 0
+     */
+    public long find(Long rumorId) {
+        Long version = jdbcTemplate.queryForObject(
+                "SELECT MAX(version) FROM propagation_path_version WHERE rumor_id = ?", Long.class, rumorId);
+        return version != null ? version : 0L;
+    }
+}
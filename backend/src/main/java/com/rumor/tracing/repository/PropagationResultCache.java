@@ -0,0 +1,258 @@
+package com.rumor.tracing.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 传播分析结果缓存（Redis）
+ * 结果以 Smile 二进制格式编码后按 谣言ID + 传播路径版本 + 分析类型 + 参数 作为键写入 Redis，
+ * 新边提交后版本递增，旧键不再命中并随 TTL 过期，多个实例共享同一份结果。
+ * 版本由调用方读取后传入（见 {@link PropagationPathVersionRepository}），同一请求的缓存键与图状态使用同一版本。
+ * 同一键的并发未命中在实例内合并为一次计算，实例之间以 SET NX 锁保证只有一个实例计算，其余实例轮询等待结果。
+ * Redis 不可用时直接计算，并在一段时间内跳过 Redis。
+ */
+@Slf4j
+@Repository
+public class PropagationResultCache {
+
+    private static final String KEY_PREFIX = "propagation:result:";
+    private static final String LOCK_PREFIX = "propagation:lock:";
+
+    /** 只删除自己持有的锁 */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SmileCodec codec;
+    private final boolean enabled;
+    private final long ttlSeconds;
+    private final long lockTtlMillis;
+    private final long lockWaitMillis;
+    private final long pollIntervalMillis;
+    private final int maxValueBytes;
+    private final long retryAfterMillis;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private volatile long unavailableUntil;
+
+    public PropagationResultCache(
+            RedisTemplate<String, byte[]> binaryRedisTemplate,
+            StringRedisTemplate stringRedisTemplate,
+            SmileCodec codec,
+            @Value("${propagation.cache.enabled:true}") boolean enabled,
+            @Value("${propagation.cache.ttl-seconds:600}") long ttlSeconds,
+            @Value("${propagation.cache.lock-ttl-ms:30000}") long lockTtlMillis,
+            @Value("${propagation.cache.lock-wait-ms:5000}") long lockWaitMillis,
+            @Value("${propagation.cache.poll-interval-ms:50}") long pollIntervalMillis,
+            @Value("${propagation.cache.max-value-bytes:8388608}") int maxValueBytes,
+            @Value("${propagation.cache.retry-after-ms:30000}") long retryAfterMillis) {
+        this.binaryRedisTemplate = binaryRedisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.codec = codec;
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.lockTtlMillis = lockTtlMillis;
+        this.lockWaitMillis = lockWaitMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.maxValueBytes = maxValueBytes;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * 读取缓存的分析结果，未命中时计算并写入
+     * @param rumorId 谣言ID
+     * @param version 传播路径版本
+     * @param type 分析类型
+     * @param resultType 结果类型，用于解码
+     * @param loader 计算结果
+     * @param params 影响结果的参数，按顺序拼入缓存键
+     * @return 分析结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long rumorId, long version, String type, TypeReference<T> resultType, Supplier<T> loader,
+                     Object... params) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String key = key(rumorId, version, type, params);
+
+        // 实例内同一键只有一个线程访问 Redis 与计算，其余线程等待其结果
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CancellationException e) {
+                // 计算线程所属的分析任务被取消，本线程未被中断时重新读取或计算
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                return get(rumorId, version, type, resultType, loader, params);
+            } catch (CompletionException e) {
+                throw rethrow(e.getCause());
+            }
+        }
+        try {
+            T result = load(key, codec.constructType(resultType.getType()), loader);
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private <T> T load(String key, JavaType javaType, Supplier<T> loader) {
+        if (!redisAvailable()) {
+            return loader.get();
+        }
+        String lockKey = LOCK_PREFIX + key.substring(KEY_PREFIX.length());
+        String token = UUID.randomUUID().toString();
+        boolean locked;
+        try {
+            T cached = read(key, javaType);
+            if (cached != null) {
+                return cached;
+            }
+            locked = Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, token, lockTtlMillis, TimeUnit.MILLISECONDS));
+            if (locked) {
+                // 获得锁前其他实例可能刚写入结果
+                cached = read(key, javaType);
+                if (cached != null) {
+                    unlock(lockKey, token);
+                    return cached;
+                }
+            } else {
+                // 其他实例正在计算，等待其写入；超时后自行计算
+                long deadline = System.currentTimeMillis() + lockWaitMillis;
+                while (System.currentTimeMillis() < deadline) {
+                    sleep(pollIntervalMillis);
+                    cached = read(key, javaType);
+                    if (cached != null) {
+                        return cached;
+                    }
+                }
+                log.debug("等待缓存 {} 超时，本实例计算", key);
+            }
+        } catch (DataAccessException e) {
+            unavailableUntil = System.currentTimeMillis() + retryAfterMillis;
+            log.warn("Redis 不可用，{} ms 内直接计算传播分析结果: {}", retryAfterMillis, e.getMessage());
+            return loader.get();
+        }
+
+        // 计算本身的异常直接抛出，不视为 Redis 故障
+        try {
+            T result = loader.get();
+            writeQuietly(key, result);
+            return result;
+        } finally {
+            if (locked) {
+                unlock(lockKey, token);
+            }
+        }
+    }
+
+    private void unlock(String lockKey, String token) {
+        try {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), token);
+        } catch (DataAccessException e) {
+            // 锁随 TTL 过期
+            log.warn("释放缓存锁 {} 失败: {}", lockKey, e.getMessage());
+        }
+    }
+
+    private <T> T read(String key, JavaType javaType) {
+        byte[] bytes = binaryRedisTemplate.opsForValue().get(key);
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return codec.decode(bytes, javaType);
+        } catch (IOException e) {
+            // 结果类型变化后旧格式无法解码，按未命中处理
+            log.warn("缓存 {} 解码失败，重新计算: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(String key, Object result) {
+        byte[] bytes;
+        try {
+            bytes = codec.encode(result);
+        } catch (IOException e) {
+            log.warn("缓存 {} 编码失败: {}", key, e.getMessage());
+            return;
+        }
+        if (bytes.length > maxValueBytes) {
+            log.debug("缓存 {} 编码后 {} 字节，超过上限不写入", key, bytes.length);
+            return;
+        }
+        binaryRedisTemplate.opsForValue().set(key, bytes, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    private void writeQuietly(String key, Object result) {
+        try {
+            write(key, result);
+        } catch (DataAccessException e) {
+            log.warn("写入缓存 {} 失败: {}", key, e.getMessage());
+        }
+    }
+
+    private boolean redisAvailable() {
+        return System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    /**
+     * 缓存键：包含传播路径版本，新边提交后自动换键
+     */
+    private static String key(Long rumorId, long version, String type, Object[] params) {
+        StringBuilder key = new StringBuilder(64).append(KEY_PREFIX)
+                .append(rumorId).append(':').append(version).append(':').append(type);
+        for (Object param : params) {
+            key.append(':').append(param);
+        }
+        return key.toString();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待缓存结果时被中断", e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+}
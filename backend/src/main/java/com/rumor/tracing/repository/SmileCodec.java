@@ -0,0 +1,44 @@
+package com.rumor.tracing.repository;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Redis 值的二进制编码（Smile）
+ * 与 HTTP 响应使用相同的 Jackson 配置，解码后的对象序列化为 JSON 时与直接计算的结果一致；
+ * 节点ID等重复出现的短字符串以回引编码。
+ */
+@Component
+public class SmileCodec {
+
+    private final ObjectMapper mapper;
+
+    public SmileCodec(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        SmileFactory smileFactory = new SmileFactory();
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        this.mapper = objectMapperBuilder.factory(smileFactory).build();
+    }
+
+    public byte[] encode(Object value) throws IOException {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    public <T> T decode(byte[] bytes, JavaType type) throws IOException {
+        return mapper.readValue(bytes, type);
+    }
+
+    public <T> T decode(byte[] bytes, Class<T> type) throws IOException {
+        return mapper.readValue(bytes, type);
+    }
+
+    public JavaType constructType(Type type) {
+        return mapper.getTypeFactory().constructType(type);
+    }
+}
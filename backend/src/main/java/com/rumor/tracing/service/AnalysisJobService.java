@@ -0,0 +1,47 @@
+package com.rumor.tracing.service;
+
+import com.rumor.tracing.dto.AnalysisJobDTO;
+import com.rumor.tracing.dto.request.AnalysisJobRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface AnalysisJobService {
+    
+    /**
+     * 提交异步分析任务
+     * 参数在提交时校验，任务在有界线程池中排队执行，队列已满时拒绝提交。
+     * @param request 任务类型、谣言ID与参数
+     * @return 新任务（PENDING）
+     */
+    AnalysisJobDTO submit(AnalysisJobRequest request);
+    
+    /**
+     * 查询任务状态，任务完成后包含分析结果
+     * @param jobId 任务ID
+     * @return 任务
+     */
+    AnalysisJobDTO getJob(String jobId);
+    
+    /**
+     * 取消任务：排队中的任务直接取消，执行中的任务在当前阶段结束后停止
+     * @param jobId 任务ID
+     * @return 任务
+     */
+    AnalysisJobDTO cancel(String jobId);
+    
+    /**
+     * 订阅任务进度（SSE），状态或进度变化时推送 progress 事件，结束时推送 done 事件并关闭连接
+     * @param jobId 任务ID
+     * @return SSE 连接
+     */
+    SseEmitter subscribe(String jobId);
+    
+    /**
+     * 向订阅者推送任务进度变化
+     */
+    void pushEvents();
+    
+    /**
+     * 清理已过保留期的本地任务
+     */
+    void purgeFinishedJobs();
+}
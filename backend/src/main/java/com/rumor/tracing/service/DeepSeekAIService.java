@@ -3,6 +3,9 @@ package com.rumor.tracing.service;
 import com.rumor.tracing.entity.RumorAnalysis;
 import com.rumor.tracing.dto.request.DeepSeekAnalysisRequest;
 import com.rumor.tracing.dto.response.DeepSeekAnalysisResponse;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public interface DeepSeekAIService {
     
@@ -36,5 +39,25 @@ public interface DeepSeekAIService {
      */
     RumorAnalysis analyzeMultiModal(String content, String imageUrl, String videoUrl);
 
+    /**
+     * 谣言分析（阻塞调用）
+     * @param request 分析请求
+     * @return 分析结果
+     */
     DeepSeekAnalysisResponse analyzeRumor(DeepSeekAnalysisRequest request);
+    
+    /**
+     * 谣言分析（非阻塞调用），等待 DeepSeek 响应期间不占用线程
+     * @param request 分析请求
+     * @return 分析结果
+     */
+    Mono<DeepSeekAnalysisResponse> analyzeRumorAsync(DeepSeekAnalysisRequest request);
+    
+    /**
+     * 谣言分析（流式），依次推送 start、delta（模型增量文本）、field/item（解析完整的字段与数组元素）、
+     * result（完整分析结果）事件；失败时推送 error 事件后以默认分析结果作为 result
+     * @param request 分析请求
+     * @return SSE 事件流
+     */
+    Flux<ServerSentEvent<Object>> analyzeRumorStream(DeepSeekAnalysisRequest request);
 } 
\ No newline at end of file
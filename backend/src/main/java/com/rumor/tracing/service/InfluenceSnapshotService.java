@@ -0,0 +1,50 @@
+package com.rumor.tracing.service;
+
+import com.rumor.tracing.entity.InfluenceAnalysis;
+
+import java.util.List;
+
+public interface InfluenceSnapshotService {
+    
+    /**
+     * 标记谣言的传播图已变化，由快照任务异步刷新
+     * @param rumorId 谣言ID
+     */
+    void markDirty(Long rumorId);
+    
+    /**
+     * 立即计算并写入谣言的影响力快照
+     * @param rumorId 谣言ID
+     * @return 新快照的版本
+     */
+    long refreshSnapshot(Long rumorId);
+    
+    /**
+     * 刷新所有已标记变化的谣言快照
+     */
+    void refreshDirtySnapshots();
+    
+    /**
+     * 分页读取节点影响力：分数与路径数按当前时间取自实时累加器，介数与关键节点标记来自最新快照，没有快照时先同步生成
+     * @param rumorId 谣言ID
+     * @param page 页码，从 0 开始
+     * @param size 每页节点数
+     * @return 按影响力降序的一页分析结果
+     */
+    List<InfluenceAnalysis> getInfluence(Long rumorId, int page, int size);
+    
+    /**
+     * 读取最新快照中的关键节点，没有快照时先同步生成
+     * @param rumorId 谣言ID
+     * @return 按介数降序的关键节点
+     */
+    List<InfluenceAnalysis> getKeyNodes(Long rumorId);
+    
+    /**
+     * 按指定误差上界即时计算关键节点，结果不写入快照
+     * @param rumorId 谣言ID
+     * @param epsilon 归一化误差上界
+     * @return 按介数降序的关键节点
+     */
+    List<InfluenceAnalysis> computeKeyNodes(Long rumorId, Double epsilon);
+}
@@ -2,21 +2,20 @@ package com.rumor.tracing.service;
 
 import com.rumor.tracing.entity.InfluenceAnalysis;
 import com.rumor.tracing.entity.PropagationPath;
+import com.rumor.tracing.model.CommunityAlgorithm;
+import com.rumor.tracing.model.InfluenceScoringMode;
+import com.rumor.tracing.model.NetworkDetailMode;
+import com.rumor.tracing.model.PropagationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
 public interface PropagationAnalysisService {
     
-    /**
-     * 分析传播路径
-     * @param rumorId 谣言ID
-     * @return 传播路径列表
-     */
-    List<PropagationPath> analyzePropagationPaths(Long rumorId);
-    
     /**
      * 获取传播路径
      * @param rumorId 谣言ID
@@ -28,12 +27,35 @@ public interface PropagationAnalysisService {
     Page<PropagationPath> getPropagationPaths(Long rumorId, Long startTime, Long endTime, Pageable pageable);
     
     /**
-     * 计算节点影响力
+     * 追加传播路径
+     * 持久化新增路径，并增量更新该谣言的内存传播图、节点影响力、路径计数与趋势桶
      * @param rumorId 谣言ID
-     * @return 影响力分析结果
+     * @param paths 新增传播路径
+     * @return 保存后的传播路径
+     */
+    List<PropagationPath> appendPropagationPaths(Long rumorId, List<PropagationPath> paths);
+    
+    /**
+     * 计算节点影响力（读取最新影响力快照，没有快照时同步生成）
+     * @param rumorId 谣言ID
+     * @return 按影响力降序的第一页分析结果
      */
     List<InfluenceAnalysis> calculateInfluence(Long rumorId);
     
+    /**
+     * 按指定评分模式计算节点影响力
+     * @param rumorId 谣言ID
+     * @param mode 评分模式
+     * @param seedNode 个性化 PageRank 的种子节点，为空时使用谣言源节点
+     * @param asOf 时间旅行：只使用传播时间不晚于该时刻的边，为空时不限
+     * @param window 滑动窗口长度（毫秒）：只使用 (asOf - window, asOf] 内的边，asOf 为空时以最晚传播时间为准
+     * @param page 页码，从 0 开始，为空时取第一页
+     * @param size 每页节点数，为空时取默认值，超过上限时截断
+     * @return 按影响力降序的一页分析结果（指定时间范围时按切片即时计算，经典模式以 asOf 为衰减基准）
+     */
+    List<InfluenceAnalysis> calculateInfluence(Long rumorId, InfluenceScoringMode mode, String seedNode,
+                                               Long asOf, Long window, Integer page, Integer size);
+    
     /**
      * 识别关键节点
      * @param rumorId 谣言ID
@@ -41,12 +63,113 @@ public interface PropagationAnalysisService {
      */
     List<String> identifyKeyNodes(Long rumorId);
     
+    /**
+     * 基于采样介数中心性检测关键节点
+     * 未指定误差上界时读取最新影响力快照，指定时按该精度即时计算（不写入快照）
+     * @param rumorId 谣言ID
+     * @param epsilon 归一化误差上界，可为空
+     * @return 关键节点分析结果（按介数降序）
+     */
+    List<InfluenceAnalysis> detectKeyNodes(Long rumorId, Double epsilon);
+    
     /**
      * 获取传播网络图
      * @param rumorId 谣言ID
+     * @param asOf 时间旅行：只使用传播时间不晚于该时刻的边，为空时不限
+     * @param window 滑动窗口长度（毫秒）：只使用 (asOf - window, asOf] 内的边，asOf 为空时以最晚传播时间为准
      * @return 网络图数据
      */
-    Map<String, Object> getPropagationNetwork(Long rumorId);
+    Map<String, Object> getPropagationNetwork(Long rumorId, Long asOf, Long window);
+    
+    /**
+     * 获取降采样后的传播网络（可视化细节层级），节点数不超过上限
+     * @param rumorId 谣言ID
+     * @param mode 降采样模式
+     * @param limit 节点上限，为空时使用默认配置
+     * @param k K_CORE 模式的核数下限，为空时自动选择
+     * @param startTime TIME_WINDOW 模式的开始时间
+     * @param endTime TIME_WINDOW 模式的结束时间
+     * @param asOf 时间旅行：只使用传播时间不晚于该时刻的边，为空时不限
+     * @param window 滑动窗口长度（毫秒）：只使用 (asOf - window, asOf] 内的边，asOf 为空时以最晚传播时间为准
+     * @return 网络图数据
+     */
+    Map<String, Object> getPropagationNetwork(Long rumorId, NetworkDetailMode mode, Integer limit, Integer k,
+                                              Long startTime, Long endTime, Long asOf, Long window);
+    
+    /**
+     * 在传播网络上发现社区，并汇总各社区的经典影响力
+     * 划分结果按谣言与算法缓存，新传播边到达后失效
+     * @param rumorId 谣言ID
+     * @param algorithm 社区发现算法
+     * @param limit 返回的社区数上限（按影响力总和降序），为空时使用默认值
+     * @return 社区划分与各社区影响力
+     */
+    Map<String, Object> detectCommunities(Long rumorId, CommunityAlgorithm algorithm, Integer limit);
+    
+    /**
+     * 查询节点（账号）参与传播的谣言，读取节点-谣言倒排索引
+     * @param nodeId 节点ID
+     * @param afterRumorId 上一页最后一个谣言ID，为空时从头读取
+     * @param size 每页条数，为空时使用默认值
+     * @return 节点汇总与按谣言ID升序的倒排列表
+     */
+    Map<String, Object> getNodeRumors(String nodeId, Long afterRumorId, Integer size);
+    
+    /**
+     * 由传播路径重建节点-谣言倒排索引
+     * @param rumorId 谣言ID，为空时重建全部谣言
+     * @return 写入的索引行数
+     */
+    long rebuildNodeIndex(Long rumorId);
+    
+    /**
+     * 流式输出传播网络，直接从数据库游标写出节点与边，内存占用与网络规模无关
+     * @param rumorId 谣言ID
+     * @param compact 是否使用元组数组编码边（[source, target, time, type]）
+     * @param outputStream 输出流
+     * @throws IOException 写出失败
+     */
+    void writePropagationNetwork(Long rumorId, boolean compact, OutputStream outputStream) throws IOException;
+    
+    /**
+     * 重建传播级联树并统计深度、宽度、结构病毒性与到达各深度的时间
+     * @param rumorId 谣言ID
+     * @param asOf 时间旅行：只使用传播时间不晚于该时刻的边，为空时不限
+     * @param window 滑动窗口长度（毫秒）：只使用 (asOf - window, asOf] 内的边，asOf 为空时以最晚传播时间为准
+     * @return 传播统计数据
+     */
+    Map<String, Object> getPropagationStatistics(Long rumorId, Long asOf, Long window);
+    
+    /**
+     * 病毒式传播预测：最新得分、是否预警及各滚动特征
+     * @param rumorId 谣言ID
+     * @return 预测结果
+     */
+    Map<String, Object> getVirality(Long rumorId);
+    
+    /**
+     * 传播回放：将 [startTime, endTime] 等分为若干帧，逐帧给出新增的边与节点及累计规模，
+     * 边按时间排序后二分定位每帧的区间，代价与区间内边数成正比
+     * @param rumorId 谣言ID
+     * @param startTime 开始时间，为空时取最早传播时间
+     * @param endTime 结束时间，为空时取最晚传播时间
+     * @param frames 帧数，为空时使用默认值；指定 step 时忽略
+     * @param step 每帧时长（毫秒），可为空
+     * @return 回放帧
+     */
+    Map<String, Object> getPropagationReplay(Long rumorId, Long startTime, Long endTime, Integer frames, Long step);
     
     List<Map<String, Object>> analyzePropagationTrends(Long rumorId, String type);
+    
+    /**
+     * 分析传播趋势（读取预聚合的时间桶，代价与边数无关）
+     * @param rumorId 谣言ID
+     * @param type 统计粒度：minute 最近分钟桶、hourly 最近小时桶、hour 按 0-23 点累计、day、week、month
+     * @param propagationType 传播类型，为空时统计全部类型
+     * @param startTime 开始时间，为空时不限（hour 粒度忽略时间范围）
+     * @param endTime 结束时间，为空时不限
+     * @return 趋势数据
+     */
+    List<Map<String, Object>> analyzePropagationTrends(Long rumorId, String type, PropagationType propagationType,
+                                                       Long startTime, Long endTime);
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.rumor.tracing.service;
+
+import com.rumor.tracing.model.IngestFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+public interface PropagationIngestService {
+    
+    /**
+     * 批量导入传播边
+     * 边流按记录增量解析，按批以 JDBC 批量语句写入，每批独立提交并同步节点-谣言倒排索引，全部批次结束后刷新一次内存传播图；
+     * 在途批次达到上限时暂停读取输入，由 TCP 流控向上游施加背压。
+     * 无效记录跳过并计入 rejected，写入失败时已提交的批次保留。
+     * @param rumorId 谣言ID
+     * @param input 边流
+     * @param format 边流格式
+     * @return 导入统计（accepted、rejected、batches、elapsedMs、errors）
+     * @throws IOException 读取输入失败
+     */
+    Map<String, Object> ingest(Long rumorId, InputStream input, IngestFormat format) throws IOException;
+}
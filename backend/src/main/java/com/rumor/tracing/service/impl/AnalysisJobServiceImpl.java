@@ -0,0 +1,484 @@
+package com.rumor.tracing.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rumor.tracing.dto.AnalysisJobDTO;
+import com.rumor.tracing.dto.request.AnalysisJobRequest;
+import com.rumor.tracing.exception.BusinessException;
+import com.rumor.tracing.graph.PropagationGraphStore;
+import com.rumor.tracing.model.AnalysisJobStatus;
+import com.rumor.tracing.model.CommunityAlgorithm;
+import com.rumor.tracing.model.InfluenceScoringMode;
+import com.rumor.tracing.model.NetworkDetailMode;
+import com.rumor.tracing.repository.AnalysisJobRepository;
+import com.rumor.tracing.repository.RumorRepository;
+import com.rumor.tracing.service.AnalysisJobService;
+import com.rumor.tracing.service.InfluenceSnapshotService;
+import com.rumor.tracing.service.PropagationAnalysisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 异步分析任务服务
+ * 耗时的传播分析在固定数量的工作线程上执行，等待执行的任务数有上限，超出时拒绝提交；
+ * 请求线程只做参数校验与入队，不再在计算期间占用请求线程与数据库连接。
+ * 任务状态保存在本实例内存中，并同步写入 Redis 供其他实例查询与取消；Redis 不可用时仍可在本实例内查询。
+ * 进度按阶段（加载传播图、计算、保存结果）粗粒度上报。取消时排队中的任务移出队列；
+ * 运行中的任务中断工作线程，图算法在迭代之间检查中断并终止计算，其余步骤在阶段之间检查取消标记。
+ */
+@Slf4j
+@Service
+public class AnalysisJobServiceImpl implements AnalysisJobService {
+
+    private static final String STAGE_QUEUED = "QUEUED";
+    private static final String STAGE_LOADING = "LOADING_GRAPH";
+    private static final String STAGE_COMPUTING = "COMPUTING";
+    private static final String STAGE_STORING = "STORING_RESULT";
+
+    private final PropagationAnalysisService propagationAnalysisService;
+    private final InfluenceSnapshotService influenceSnapshotService;
+    private final PropagationGraphStore propagationGraphStore;
+    private final AnalysisJobRepository analysisJobRepository;
+    private final RumorRepository rumorRepository;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor workers;
+    private final long retentionMillis;
+    private final long sseTimeoutMillis;
+    private final Map<String, JobRun> jobs = new ConcurrentHashMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public AnalysisJobServiceImpl(
+            PropagationAnalysisService propagationAnalysisService,
+            InfluenceSnapshotService influenceSnapshotService,
+            PropagationGraphStore propagationGraphStore,
+            AnalysisJobRepository analysisJobRepository,
+            RumorRepository rumorRepository,
+            ObjectMapper objectMapper,
+            @Value("${propagation.jobs.workers:2}") int workerCount,
+            @Value("${propagation.jobs.queue-capacity:32}") int queueCapacity,
+            @Value("${propagation.jobs.ttl-seconds:3600}") long ttlSeconds,
+            @Value("${propagation.jobs.sse-timeout-ms:600000}") long sseTimeoutMillis) {
+        this.propagationAnalysisService = propagationAnalysisService;
+        this.influenceSnapshotService = influenceSnapshotService;
+        this.propagationGraphStore = propagationGraphStore;
+        this.analysisJobRepository = analysisJobRepository;
+        this.rumorRepository = rumorRepository;
+        this.objectMapper = objectMapper;
+        this.retentionMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.sseTimeoutMillis = sseTimeoutMillis;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-job-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public AnalysisJobDTO submit(AnalysisJobRequest request) {
+        if (request.getRumorId() == null || request.getType() == null) {
+            throw new BusinessException("任务类型与谣言ID不能为空");
+        }
+        if (!rumorRepository.existsById(request.getRumorId())) {
+            throw new BusinessException("谣言不存在：" + request.getRumorId());
+        }
+        Map<String, Object> params = request.getParams() != null ? request.getParams() : Collections.emptyMap();
+        Supplier<Object> task = bind(request, params);
+
+        AnalysisJobDTO job = new AnalysisJobDTO();
+        job.setId(UUID.randomUUID().toString());
+        job.setRumorId(request.getRumorId());
+        job.setType(request.getType());
+        job.setParams(params);
+        job.setStatus(AnalysisJobStatus.PENDING);
+        job.setProgress(0.0);
+        job.setStage(STAGE_QUEUED);
+        job.setSubmittedAt(System.currentTimeMillis());
+        JobRun run = new JobRun(job, task);
+        jobs.put(job.getId(), run);
+        mirror(run);
+
+        try {
+            run.future = workers.submit(() -> execute(run));
+        } catch (RejectedExecutionException e) {
+            finish(run, AnalysisJobStatus.FAILED, "分析任务队列已满");
+            jobs.remove(job.getId());
+            throw new BusinessException("分析任务队列已满，请稍后重试");
+        }
+        return run.snapshot(false);
+    }
+
+    @Override
+    public AnalysisJobDTO getJob(String jobId) {
+        JobRun run = jobs.get(jobId);
+        if (run != null) {
+            return run.snapshot(true);
+        }
+        AnalysisJobDTO job = findRemote(jobId);
+        if (job.getStatus() == AnalysisJobStatus.SUCCEEDED) {
+            job.setResult(analysisJobRepository.findResult(jobId));
+        }
+        return job;
+    }
+
+    @Override
+    public AnalysisJobDTO cancel(String jobId) {
+        JobRun run = jobs.get(jobId);
+        if (run == null) {
+            // 任务由其他实例执行，留下取消标记
+            AnalysisJobDTO job = findRemote(jobId);
+            if (!job.getStatus().isTerminal()) {
+                analysisJobRepository.requestCancel(jobId);
+            }
+            return job;
+        }
+        run.cancelRequested = true;
+        Future<?> future = run.future;
+        if (future != null) {
+            future.cancel(true);
+            // 已取消的排队任务不会自动出队，及时释放队列容量
+            workers.purge();
+        }
+        boolean dequeued;
+        synchronized (run) {
+            dequeued = run.job.getStatus() == AnalysisJobStatus.PENDING;
+            if (dequeued) {
+                run.job.setStatus(AnalysisJobStatus.CANCELLED);
+                run.job.setStage(null);
+                run.job.setFinishedAt(System.currentTimeMillis());
+            }
+        }
+        if (dequeued) {
+            mirror(run);
+        }
+        return run.snapshot(false);
+    }
+
+    @Override
+    public SseEmitter subscribe(String jobId) {
+        AnalysisJobDTO job = currentState(jobId);
+        if (job == null) {
+            throw new EntityNotFoundException("分析任务不存在：" + jobId);
+        }
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        Subscription subscription = new Subscription(jobId, emitter);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(error -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        push(subscription, job);
+        return emitter;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${propagation.jobs.event-interval-ms:500}")
+    public void pushEvents() {
+        for (Subscription subscription : subscriptions) {
+            AnalysisJobDTO job;
+            try {
+                job = currentState(subscription.jobId);
+            } catch (DataAccessException e) {
+                continue;
+            }
+            if (job == null) {
+                subscription.emitter.complete();
+                subscriptions.remove(subscription);
+                continue;
+            }
+            push(subscription, job);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${propagation.jobs.cleanup-interval-ms:60000}")
+    public void purgeFinishedJobs() {
+        long expiry = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(run -> {
+            AnalysisJobDTO job = run.snapshot(false);
+            return job.getStatus().isTerminal() && job.getFinishedAt() != null && job.getFinishedAt() < expiry;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void execute(JobRun run) {
+        AnalysisJobDTO job = run.job;
+        synchronized (run) {
+            // 排队期间已被取消
+            if (job.getStatus() != AnalysisJobStatus.PENDING) {
+                return;
+            }
+            job.setStatus(AnalysisJobStatus.RUNNING);
+            job.setStartedAt(System.currentTimeMillis());
+        }
+        try {
+            checkCancelled(run);
+            progress(run, 0.1, STAGE_LOADING);
+            // 预先加载传播图，数据库连接只在流式读取期间占用
+            propagationGraphStore.getState(job.getRumorId());
+
+            checkCancelled(run);
+            progress(run, 0.3, STAGE_COMPUTING);
+            Object result = run.task.get();
+
+            checkCancelled(run);
+            progress(run, 0.9, STAGE_STORING);
+            synchronized (run) {
+                run.result = result;
+            }
+            try {
+                analysisJobRepository.saveResult(job.getId(), result);
+            } catch (DataAccessException e) {
+                log.warn("分析任务 {} 的结果写入 Redis 失败，仅本实例可查询: {}", job.getId(), e.getMessage());
+            }
+            finish(run, AnalysisJobStatus.SUCCEEDED, null);
+        } catch (JobCancelledException e) {
+            cancelled(run);
+        } catch (Exception e) {
+            if (run.cancelRequested) {
+                cancelled(run);
+            } else {
+                log.error("分析任务 {}（{}，谣言 {}）执行失败", job.getId(), job.getType(), job.getRumorId(), e);
+                finish(run, AnalysisJobStatus.FAILED, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 按任务类型绑定参数，参数格式错误时在提交阶段拒绝
+     */
+    private Supplier<Object> bind(AnalysisJobRequest request, Map<String, Object> params) {
+        Long rumorId = request.getRumorId();
+        Long asOf = param(params, "asOf", Long.class);
+        Long window = param(params, "window", Long.class);
+        Long startTime = param(params, "startTime", Long.class);
+        Long endTime = param(params, "endTime", Long.class);
+        Integer limit = param(params, "limit", Integer.class);
+        switch (request.getType()) {
+            case INFLUENCE: {
+                InfluenceScoringMode mode = param(params, "mode", InfluenceScoringMode.class);
+                String seed = param(params, "seed", String.class);
+                Integer page = param(params, "page", Integer.class);
+                Integer size = param(params, "size", Integer.class);
+                return () -> propagationAnalysisService.calculateInfluence(rumorId,
+                        mode != null ? mode : InfluenceScoringMode.CLASSIC, seed, asOf, window, page, size);
+            }
+            case KEY_NODES: {
+                Double epsilon = param(params, "epsilon", Double.class);
+                return () -> propagationAnalysisService.detectKeyNodes(rumorId, epsilon);
+            }
+            case COMMUNITIES: {
+                CommunityAlgorithm algorithm = param(params, "algorithm", CommunityAlgorithm.class);
+                return () -> propagationAnalysisService.detectCommunities(rumorId,
+                        algorithm != null ? algorithm : CommunityAlgorithm.LOUVAIN, limit);
+            }
+            case STATISTICS:
+                return () -> propagationAnalysisService.getPropagationStatistics(rumorId, asOf, window);
+            case NETWORK: {
+                NetworkDetailMode mode = param(params, "mode", NetworkDetailMode.class);
+                Integer k = param(params, "k", Integer.class);
+                return () -> propagationAnalysisService.getPropagationNetwork(rumorId,
+                        mode != null ? mode : NetworkDetailMode.TOP_K, limit, k, startTime, endTime, asOf, window);
+            }
+            case REPLAY: {
+                Integer frames = param(params, "frames", Integer.class);
+                Long step = param(params, "step", Long.class);
+                return () -> propagationAnalysisService.getPropagationReplay(rumorId, startTime, endTime, frames, step);
+            }
+            case SNAPSHOT:
+                return () -> Map.of("epoch", influenceSnapshotService.refreshSnapshot(rumorId));
+            default:
+                throw new BusinessException("不支持的任务类型：" + request.getType());
+        }
+    }
+
+    private <T> T param(Map<String, Object> params, String name, Class<T> type) {
+        Object value = params.get(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.convertValue(value, type);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("参数 " + name + " 格式错误：" + value);
+        }
+    }
+
+    private void checkCancelled(JobRun run) {
+        if (run.cancelRequested) {
+            throw new JobCancelledException();
+        }
+        try {
+            if (analysisJobRepository.isCancelRequested(run.job.getId())) {
+                run.cancelRequested = true;
+                throw new JobCancelledException();
+            }
+        } catch (DataAccessException e) {
+            // Redis 不可用时只检查本实例的取消请求
+        }
+    }
+
+    /**
+     * 结束已取消的任务；先清除取消时的中断状态，避免写入 Redis 时被中断
+     */
+    private void cancelled(JobRun run) {
+        Thread.interrupted();
+        finish(run, AnalysisJobStatus.CANCELLED, null);
+    }
+
+    private void progress(JobRun run, double progress, String stage) {
+        synchronized (run) {
+            if (run.job.getStatus().isTerminal()) {
+                return;
+            }
+            run.job.setProgress(progress);
+            run.job.setStage(stage);
+        }
+        mirror(run);
+    }
+
+    private void finish(JobRun run, AnalysisJobStatus status, String error) {
+        synchronized (run) {
+            if (run.job.getStatus().isTerminal()) {
+                return;
+            }
+            run.job.setStatus(status);
+            run.job.setError(error);
+            run.job.setStage(null);
+            if (status == AnalysisJobStatus.SUCCEEDED) {
+                run.job.setProgress(1.0);
+            }
+            run.job.setFinishedAt(System.currentTimeMillis());
+        }
+        mirror(run);
+    }
+
+    private void mirror(JobRun run) {
+        try {
+            analysisJobRepository.save(run.snapshot(false));
+        } catch (DataAccessException e) {
+            log.warn("分析任务 {} 的状态写入 Redis 失败: {}", run.job.getId(), e.getMessage());
+        }
+    }
+
+    private AnalysisJobDTO findRemote(String jobId) {
+        AnalysisJobDTO job = analysisJobRepository.find(jobId);
+        if (job == null) {
+            throw new EntityNotFoundException("分析任务不存在：" + jobId);
+        }
+        return job;
+    }
+
+    private AnalysisJobDTO currentState(String jobId) {
+        JobRun run = jobs.get(jobId);
+        return run != null ? run.snapshot(false) : analysisJobRepository.find(jobId);
+    }
+
+    private void push(Subscription subscription, AnalysisJobDTO job) {
+        String state = job.getStatus() + ":" + job.getProgress() + ":" + job.getStage();
+        try {
+            if (job.getStatus().isTerminal()) {
+                subscriptions.remove(subscription);
+                subscription.emitter.send(SseEmitter.event().name("done").data(terminalState(job)));
+                subscription.emitter.complete();
+            } else if (!state.equals(subscription.lastState)) {
+                subscription.emitter.send(SseEmitter.event().name("progress").data(job));
+                subscription.lastState = state;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            subscriptions.remove(subscription);
+        }
+    }
+
+    /**
+     * 结束事件的任务状态（含结果）；结果已过期或 Redis 不可用时退回不含结果的状态，订阅仍正常结束
+     */
+    private AnalysisJobDTO terminalState(AnalysisJobDTO job) {
+        try {
+            return getJob(job.getId());
+        } catch (EntityNotFoundException | DataAccessException e) {
+            log.warn("读取分析任务 {} 的结果失败: {}", job.getId(), e.getMessage());
+            return job;
+        }
+    }
+
+    /**
+     * 本实例执行的任务，状态字段由任务对象自身加锁保护
+     */
+    private static final class JobRun {
+
+        private final AnalysisJobDTO job;
+        private final Supplier<Object> task;
+        private volatile boolean cancelRequested;
+        private volatile Future<?> future;
+        private Object result;
+
+        JobRun(AnalysisJobDTO job, Supplier<Object> task) {
+            this.job = job;
+            this.task = task;
+        }
+
+        synchronized AnalysisJobDTO snapshot(boolean withResult) {
+            AnalysisJobDTO copy = new AnalysisJobDTO();
+            copy.setId(job.getId());
+            copy.setRumorId(job.getRumorId());
+            copy.setType(job.getType());
+            copy.setParams(job.getParams());
+            copy.setStatus(job.getStatus());
+            copy.setProgress(job.getProgress());
+            copy.setStage(job.getStage());
+            copy.setError(job.getError());
+            copy.setSubmittedAt(job.getSubmittedAt());
+            copy.setStartedAt(job.getStartedAt());
+            copy.setFinishedAt(job.getFinishedAt());
+            if (withResult) {
+                copy.setResult(result);
+            }
+            return copy;
+        }
+    }
+
+    private static final class Subscription {
+
+        private final String jobId;
+        private final SseEmitter emitter;
+        private volatile String lastState;
+
+        Subscription(String jobId, SseEmitter emitter) {
+            this.jobId = jobId;
+            this.emitter = emitter;
+        }
+    }
+
+    /**
+     * 任务已被取消，在阶段之间抛出以终止执行
+     */
+    private static final class JobCancelledException extends RuntimeException {
+
+        JobCancelledException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -3,106 +3,47 @@ package com.rumor.tracing.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.rumor.tracing.ai.DeepSeekChatClient;
+import com.rumor.tracing.ai.DeepSeekDispatcher;
+import com.rumor.tracing.ai.DeepSeekResilience;
+import com.rumor.tracing.ai.IncrementalJsonFieldParser;
+import com.rumor.tracing.ai.IncrementalJsonFieldParser.JsonField;
 import com.rumor.tracing.dto.request.DeepSeekAnalysisRequest;
 import com.rumor.tracing.dto.response.DeepSeekAnalysisResponse;
 import com.rumor.tracing.dto.DeepSeekSourceAnalysis;
 import com.rumor.tracing.entity.DeepSeekAnalysis;
 import com.rumor.tracing.entity.RumorAnalysis;
+import com.rumor.tracing.model.AnalysisPriority;
 import com.rumor.tracing.model.AnalysisType;
 import com.rumor.tracing.repository.DeepSeekAnalysisRepository;
+import com.rumor.tracing.repository.DeepSeekResultCache;
 import com.rumor.tracing.service.DeepSeekAIService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
-import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.StringHttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
-import javax.annotation.PostConstruct;
-
-import java.util.Arrays;
-import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DeepSeekAIServiceImpl implements DeepSeekAIService {
     
-    @Value("${ai.service.url}")
-    private String aiServiceUrl;
-    
-    @Value("${ai.service.api-key}")
-    private String apiKey;
-    
-    @Value("${ai.service.model}")
-    private String model;
-
-    @Value("${ai.service.temperature}")
-    private double temperature;
-
-    @Value("${ai.service.max-tokens}")
-    private int maxTokens;
-
-    @Value("${ai.service.timeout}")
-    private int timeout;
-
-    @Value("${ai.service.max-retries}")
-    private int maxRetries;
-
-    @Value("${ai.service.retry-delay}")
-    private int retryDelay;
-
-    @Value("${ai.service.frequency-penalty}")
-    private double frequencyPenalty;
-
-    @Value("${ai.service.presence-penalty}")
-    private double presencePenalty;
-
-    @Value("${ai.service.top-p}")
-    private double topP;
-    
-    private final RestTemplate restTemplate;
+    private final DeepSeekChatClient deepSeekChatClient;
+    private final DeepSeekDispatcher deepSeekDispatcher;
+    private final DeepSeekResilience deepSeekResilience;
     private final DeepSeekAnalysisRepository deepSeekAnalysisRepository;
-    
-    @PostConstruct
-    public void init() {
-        // 配置 RestTemplate 超时
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(300000); // 增加到 5 分钟 
-        factory.setReadTimeout(300000);    // 增加到 5 分钟
-        restTemplate.setRequestFactory(factory);
-        
-        // 配置消息转换器
-        List<HttpMessageConverter<?>> converters = new ArrayList<>();
-        
-        // 配置字符串转换器，确保使用UTF-8编码
-        StringHttpMessageConverter stringConverter = new StringHttpMessageConverter(StandardCharsets.UTF_8);
-        stringConverter.setWriteAcceptCharset(false);
-        converters.add(stringConverter);
-        
-        // 配置JSON转换器，确保使用UTF-8编码
-        MappingJackson2HttpMessageConverter jsonConverter = new MappingJackson2HttpMessageConverter();
-        jsonConverter.setSupportedMediaTypes(Arrays.asList(
-                new MediaType("application", "json", StandardCharsets.UTF_8),
-                new MediaType("text", "plain", StandardCharsets.UTF_8),
-                new MediaType("application", "*+json", StandardCharsets.UTF_8)
-        ));
-        converters.add(jsonConverter);
-        
-        restTemplate.setMessageConverters(converters);
-    }
+    private final DeepSeekResultCache deepSeekResultCache;
+    private final ObjectMapper objectMapper;
     
     @Override
     public RumorAnalysis analyzeText(String content) {
@@ -138,108 +79,128 @@ public class DeepSeekAIServiceImpl implements DeepSeekAIService {
         return analyzeContent(request);
     }
     
+    /**
+     * 阻塞调用，供同步调用方使用；不得在 Reactor 事件循环线程上调用
+     */
     @Override
     public DeepSeekAnalysisResponse analyzeRumor(DeepSeekAnalysisRequest request) {
-        try {
-            // 构建系统提示词
-            String systemPrompt = "你是一个专业的谣言分析助手。请分析用户提供的信息，判断其真实性并给出分析依据。\n\n" +
-                "你必须以 JSON 格式输出分析结果，格式如下：\n" +
-                "{\n" +
-                "  \"credibilityScore\": 0.8,  // 可信度评分(0-1)\n" +
-                "  \"factCheckingPoints\": [  // 事实核查要点\n" +
-                "    \"根据官方数据...\",\n" +
-                "    \"经查证...\"\n" +
-                "  ],\n" +
-                "  \"misinformationIndicators\": [  // 虚假信息指标\n" +
-                "    \"缺乏可靠来源\",\n" +
-                "    \"数据不一致\"\n" +
-                "  ],\n" +
-                "  \"verificationRecommendation\": \"建议通过官方渠道核实\",  // 验证建议\n" +
-                "  \"sourceAnalysis\": {\n" +
-                "    \"reliability\": 0.9,  // 来源可靠性(0-1)\n" +
-                "    \"reputation\": \"官方来源\",  // 来源类型\n" +
-                "    \"concerns\": [  // 可疑点\n" +
-                "      \"数据来源不明\",\n" +
-                "      \"缺乏官方认证\"\n" +
-                "    ]\n" +
-                "  }\n" +
-                "}";
-
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", model);
-            requestBody.put("messages", Arrays.asList(
-                Map.of("role", "system", "content", systemPrompt),
-                Map.of("role", "user", "content", request.getContent())
-            ));
-            requestBody.put("stream", false);
-            requestBody.put("response_format", Map.of("type", "json_object"));
-            requestBody.put("temperature", temperature);
-            requestBody.put("max_tokens", maxTokens);
-            requestBody.put("frequency_penalty", frequencyPenalty);
-            requestBody.put("presence_penalty", presencePenalty);
-            requestBody.put("top_p", topP);
-
-            // 构建请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiKey);
-            
-            // 创建请求实体
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
-            
-            // 发送请求
-            ResponseEntity<String> response = restTemplate.exchange(
-                aiServiceUrl + "/chat/completions",
-                HttpMethod.POST,
-                requestEntity,
-                String.class
-            );
-            
-            // 解析响应
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                ObjectMapper mapper = new ObjectMapper();
-                JsonNode root = mapper.readTree(response.getBody());
-                
-                if (root.has("choices") && root.get("choices").isArray() && root.get("choices").size() > 0) {
-                    JsonNode choices = root.get("choices");
-                    if (choices.get(0).has("message") && choices.get(0).get("message").has("content")) {
-                        String content = choices.get(0).get("message").get("content").asText();
-                        
-                        // 解析 AI 返回的 JSON 内容
-                        JsonNode analysisResult = mapper.readTree(content);
-                        
-                        // 构建响应对象
-                        return DeepSeekAnalysisResponse.builder()
-                            .credibilityScore(analysisResult.has("credibilityScore") ? 
-                                analysisResult.get("credibilityScore").asDouble() : 0.0)
-                            .factCheckingPoints(analysisResult.has("factCheckingPoints") ? 
-                                mapper.convertValue(analysisResult.get("factCheckingPoints"), new TypeReference<List<String>>() {}) : 
-                                Collections.emptyList())
-                            .misinformationIndicators(analysisResult.has("misinformationIndicators") ? 
-                                mapper.convertValue(analysisResult.get("misinformationIndicators"), new TypeReference<List<String>>() {}) : 
-                                Collections.emptyList())
-                            .verificationRecommendation(analysisResult.has("verificationRecommendation") ? 
-                                analysisResult.get("verificationRecommendation").asText() : 
-                                "暂无验证建议")
-                            .sourceAnalysis(analysisResult.has("sourceAnalysis") ? 
-                                mapper.convertValue(analysisResult.get("sourceAnalysis"), DeepSeekSourceAnalysis.class) : 
-                                DeepSeekSourceAnalysis.builder()
-                                    .reliability(0.0)
-                                    .reputation("未知")
-                                    .concerns(Collections.emptyList())
-                                    .build())
-                            .build();
-                    }
-                }
-            }
-            
-            // 如果解析失败，返回默认响应
-            return createDefaultResponse();
-        } catch (Exception e) {
+        return analyzeRumorAsync(request).block();
+    }
+    
+    /**
+     * 非阻塞调用：请求经调度队列限流后发出，等待响应期间不占用线程。
+     * 相同内容（规范化后）的成功结果按内容哈希缓存，重复提交直接返回缓存结果，不进入队列。
+     * 未命中的请求按分析类型隔离，某一类型积压过多时该类型直接降级，不影响其他类型。
+     * 队列已满、调用失败、超时或响应无法解析时返回默认响应（不缓存），与阻塞调用一致。
+     */
+    @Override
+    public Mono<DeepSeekAnalysisResponse> analyzeRumorAsync(DeepSeekAnalysisRequest request) {
+        String content = request.getContent() != null ? request.getContent() : "";
+        String analysisType = request.getType() != null ? request.getType() : "TEXT";
+        Supplier<Mono<DeepSeekAnalysisResponse>> loader = () -> deepSeekResilience.isolate(analysisType,
+            () -> deepSeekDispatcher.submit(content, request.getPriority()));
+        Mono<DeepSeekAnalysisResponse> result;
+        if (content.isBlank()) {
+            result = loader.get();
+        } else {
+            String hash = DeepSeekResultCache.contentHash(
+                deepSeekChatClient.model(), DeepSeekChatClient.PROMPT_VERSION, content);
+            result = deepSeekResultCache.get(hash, analysisType, loader);
+        }
+        return result.onErrorResume(e -> {
             log.error("分析谣言时发生错误", e);
-            return createDefaultResponse();
+            return Mono.just(createDefaultResponse());
+        });
+    }
+    
+    /**
+     * 流式分析：先立即推送 start 事件，缓存命中时直接推送缓存结果的各字段；
+     * 未命中时经调度队列以 stream: true 调用 DeepSeek，边转发增量边解析 JSON，字段完整即推送，结束后写入缓存。
+     */
+    @Override
+    public Flux<ServerSentEvent<Object>> analyzeRumorStream(DeepSeekAnalysisRequest request) {
+        String content = request.getContent() != null ? request.getContent() : "";
+        String hash = DeepSeekResultCache.contentHash(
+            deepSeekChatClient.model(), DeepSeekChatClient.PROMPT_VERSION, content);
+        String analysisType = request.getType() != null ? request.getType() : "TEXT";
+        Mono<DeepSeekAnalysisResponse> cached = content.isBlank() ? Mono.empty() : deepSeekResultCache.lookup(hash);
+        Flux<ServerSentEvent<Object>> events = cached
+            .map(this::cachedEvents)
+            .switchIfEmpty(Mono.fromSupplier(() -> streamEvents(request, content, hash, analysisType)))
+            .flatMapMany(flux -> flux)
+            .onErrorResume(e -> {
+                log.error("流式分析谣言时发生错误", e);
+                return Flux.just(
+                    event("error", Map.of("message", "分析失败，返回默认结果")),
+                    event("result", createDefaultResponse()));
+            });
+        return Flux.concat(Mono.just(event("start", Map.of())), events);
+    }
+    
+    private Flux<ServerSentEvent<Object>> streamEvents(DeepSeekAnalysisRequest request, String content,
+                                                       String hash, String analysisType) {
+        return Flux.defer(() -> {
+            IncrementalJsonFieldParser parser;
+            try {
+                parser = new IncrementalJsonFieldParser();
+            } catch (IOException e) {
+                return Flux.error(e);
+            }
+            StringBuilder output = new StringBuilder();
+            Flux<ServerSentEvent<Object>> deltas = deepSeekResilience
+                .isolateStream(analysisType, () -> deepSeekDispatcher
+                    .submitStream(() -> deepSeekChatClient.analyzeStream(content), request.getPriority()))
+                .concatMapIterable(delta -> {
+                    output.append(delta);
+                    List<ServerSentEvent<Object>> chunkEvents = new ArrayList<>();
+                    chunkEvents.add(event("delta", Map.of("content", delta)));
+                    try {
+                        for (JsonField field : parser.feed(delta)) {
+                            chunkEvents.add(fieldEvent(field.getName(), field.getIndex(), field.getValue()));
+                        }
+                    } catch (IOException e) {
+                        // 输出不是合法 JSON 时只转发增量，结束后整体解析失败再报错
+                        log.debug("增量解析 DeepSeek 输出失败: {}", e.getMessage());
+                    }
+                    return chunkEvents;
+                });
+            Mono<ServerSentEvent<Object>> result = Mono
+                .fromCallable(() -> deepSeekChatClient.parseAnalysis(output.toString()))
+                .flatMap(response -> content.isBlank()
+                    ? Mono.just(response)
+                    : deepSeekResultCache.put(hash, analysisType, response))
+                .map(response -> event("result", response));
+            return deltas.concatWith(result);
+        });
+    }
+    
+    /**
+     * 缓存结果按字段顺序推送，与流式解析的事件格式一致
+     */
+    private Flux<ServerSentEvent<Object>> cachedEvents(DeepSeekAnalysisResponse response) {
+        List<ServerSentEvent<Object>> events = new ArrayList<>();
+        JsonNode tree = objectMapper.valueToTree(response);
+        Iterator<Map.Entry<String, JsonNode>> fields = tree.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            events.add(fieldEvent(field.getKey(), null, field.getValue()));
         }
+        events.add(event("result", response));
+        return Flux.fromIterable(events);
+    }
+    
+    private static ServerSentEvent<Object> fieldEvent(String name, Integer index, JsonNode value) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", name);
+        if (index != null) {
+            data.put("index", index);
+        }
+        data.put("value", value);
+        return event(index != null ? "item" : "field", data);
+    }
+    
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
     }
     
     private DeepSeekAnalysisResponse createDefaultResponse() {
@@ -257,14 +218,24 @@ public class DeepSeekAIServiceImpl implements DeepSeekAIService {
     }
     
     private RumorAnalysis analyzeContent(DeepSeekAnalysisRequest request) {
+        // 内部分析调用不与交互请求争抢调用配额
+        request.setPriority(AnalysisPriority.BACKFILL);
         DeepSeekAnalysisResponse response = analyzeRumor(request);
         
-        // 保存分析结果
-        DeepSeekAnalysis analysis = new DeepSeekAnalysis();
-        analysis.setAnalysisType(request.getType());
-        analysis.setResult(response.getVerificationRecommendation());
-        analysis.setConfidence(response.getCredibilityScore());
-        analysis = deepSeekAnalysisRepository.save(analysis);
+        // 成功的结果已由结果缓存写入数据库，复用该记录；缓存关闭、降级响应或持久化失败时另存一条
+        DeepSeekAnalysis analysis = null;
+        if (request.getContent() != null && !request.getContent().isBlank()) {
+            String hash = DeepSeekResultCache.contentHash(
+                deepSeekChatClient.model(), DeepSeekChatClient.PROMPT_VERSION, request.getContent());
+            analysis = deepSeekResultCache.findPersisted(hash, request.getType()).orElse(null);
+        }
+        if (analysis == null) {
+            analysis = new DeepSeekAnalysis();
+            analysis.setAnalysisType(request.getType());
+            analysis.setResult(response.getVerificationRecommendation());
+            analysis.setConfidence(response.getCredibilityScore());
+            analysis = deepSeekAnalysisRepository.save(analysis);
+        }
         
         // 转换为RumorAnalysis
         RumorAnalysis result = new RumorAnalysis();
@@ -275,7 +246,7 @@ public class DeepSeekAIServiceImpl implements DeepSeekAIService {
         result.setAnalyzedAt(analysis.getCreatedAt());
         
         // 设置其他字段
-        result.setAnalysisModel(model);
+        result.setAnalysisModel(deepSeekChatClient.model());
         result.setAnalysisVersion("1.0");
         result.setAnalysisParameters("{}");
         result.setAnalysisDuration(0L);
@@ -0,0 +1,271 @@
+package com.rumor.tracing.service.impl;
+
+import com.rumor.tracing.entity.InfluenceAnalysis;
+import com.rumor.tracing.graph.Betweenness;
+import com.rumor.tracing.graph.NodeInfluence;
+import com.rumor.tracing.graph.PropagationGraph;
+import com.rumor.tracing.graph.PropagationGraphAnalyzer;
+import com.rumor.tracing.graph.PropagationGraphStore;
+import com.rumor.tracing.graph.ReverseAdjacency;
+import com.rumor.tracing.graph.RumorGraphState;
+import com.rumor.tracing.model.PropagationType;
+import com.rumor.tracing.repository.InfluenceSnapshotRepository;
+import com.rumor.tracing.service.InfluenceSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 影响力快照服务
+ * 追加传播路径后标记谣言为脏，由定时任务重新计算经典影响力与采样介数并整批写入 influence_analysis；
+ * 关键节点查询直接读取最新快照，不在每次请求时重算介数。经典影响力随时间衰减，快照最多落后一个刷新周期，
+ * 影响力查询的分数与路径数改取传播图缓存中的实时累加器（代价与上次查询以来的新边数成正比），
+ * 按分数选出一页节点后只读取这些节点的快照行，介数与关键节点标记仍为最近一次快照的结果。
+ */
+@Slf4j
+@Service
+public class InfluenceSnapshotServiceImpl implements InfluenceSnapshotService {
+
+    /** 关键节点记录的直接下游用户数上限 */
+    private static final int MAX_USER_INFLUENCE = 10;
+
+    private final InfluenceSnapshotRepository influenceSnapshotRepository;
+    private final PropagationGraphStore propagationGraphStore;
+    private final PropagationGraphAnalyzer propagationGraphAnalyzer;
+    private final int keyNodeLimit;
+    private final Set<Long> dirtyRumors = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock[] refreshLocks = new ReentrantLock[64];
+
+    public InfluenceSnapshotServiceImpl(
+            InfluenceSnapshotRepository influenceSnapshotRepository,
+            PropagationGraphStore propagationGraphStore,
+            PropagationGraphAnalyzer propagationGraphAnalyzer,
+            @Value("${propagation.betweenness.key-node-limit:50}") int keyNodeLimit) {
+        this.influenceSnapshotRepository = influenceSnapshotRepository;
+        this.propagationGraphStore = propagationGraphStore;
+        this.propagationGraphAnalyzer = propagationGraphAnalyzer;
+        this.keyNodeLimit = keyNodeLimit;
+        for (int i = 0; i < refreshLocks.length; i++) {
+            refreshLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void markDirty(Long rumorId) {
+        dirtyRumors.add(rumorId);
+    }
+
+    @Override
+    public long refreshSnapshot(Long rumorId) {
+        // 显式锁：写快照期间阻塞在数据库上的虚拟线程不固定载体线程
+        ReentrantLock lock = lockFor(rumorId);
+        lock.lock();
+        try {
+            // 先移除标记，计算期间到达的新边会重新标记
+            dirtyRumors.remove(rumorId);
+            long start = System.currentTimeMillis();
+            List<InfluenceAnalysis> analyses = buildSnapshot(rumorId, null, false);
+            long epoch = influenceSnapshotRepository.writeSnapshot(rumorId, analyses);
+            log.debug("谣言 {} 影响力快照 {} 已写入：{} 个节点，耗时 {} ms",
+                    rumorId, epoch, analyses.size(), System.currentTimeMillis() - start);
+            return epoch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${propagation.snapshot.interval-ms:60000}")
+    public void refreshDirtySnapshots() {
+        for (Long rumorId : new ArrayList<>(dirtyRumors)) {
+            try {
+                refreshSnapshot(rumorId);
+            } catch (Exception e) {
+                log.error("刷新谣言 {} 的影响力快照失败", rumorId, e);
+                dirtyRumors.add(rumorId);
+            }
+        }
+    }
+
+    @Override
+    public List<InfluenceAnalysis> getInfluence(Long rumorId, int page, int size) {
+        RumorGraphState state = propagationGraphStore.getState(rumorId);
+        NodeInfluence influence = state.influence(System.currentTimeMillis());
+        int[] nodes = influence.rank((int) Math.min(Integer.MAX_VALUE, (long) page * size), size);
+        if (nodes.length == 0) {
+            return new ArrayList<>();
+        }
+        List<String> nodeIds = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            nodeIds.add(influence.nodeId(node));
+        }
+
+        long epoch = latestEpoch(rumorId);
+        List<InfluenceAnalysis> rows = influenceSnapshotRepository.findSnapshotNodes(rumorId, epoch, nodeIds);
+        if (rows.isEmpty()) {
+            // 读取期间快照被替换时改读新版本
+            Long latest = influenceSnapshotRepository.findLatestEpoch(rumorId);
+            if (latest != null && latest != epoch) {
+                rows = influenceSnapshotRepository.findSnapshotNodes(rumorId, latest, nodeIds);
+            }
+        }
+        Map<String, InfluenceAnalysis> snapshot = new HashMap<>(rows.size() * 2);
+        for (InfluenceAnalysis row : rows) {
+            snapshot.put(row.getNodeId(), row);
+        }
+
+        List<InfluenceAnalysis> analyses = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            InfluenceAnalysis analysis = snapshot.get(influence.nodeId(node));
+            if (analysis == null) {
+                // 快照之后出现的节点尚未计算介数，按非关键节点补齐
+                analysis = new InfluenceAnalysis();
+                analysis.setRumorId(rumorId);
+                analysis.setNodeId(influence.nodeId(node));
+                analysis.setIsKeyNode(false);
+                analysis.setUserCount(influence.outDegree(node));
+                analysis.setContentCount(influence.inDegree(node));
+                analysis.setAnalysisStatus("COMPLETED");
+            }
+            analysis.setInfluenceScore(influence.score(node));
+            analysis.setPathCount(influence.pathCount(node));
+            analyses.add(analysis);
+        }
+        return analyses;
+    }
+
+    @Override
+    public List<InfluenceAnalysis> getKeyNodes(Long rumorId) {
+        List<InfluenceAnalysis> keyNodes = readLatest(rumorId, true);
+        keyNodes.sort(Comparator.comparing(InfluenceAnalysis::getBetweennessScore,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return keyNodes;
+    }
+
+    @Override
+    public List<InfluenceAnalysis> computeKeyNodes(Long rumorId, Double epsilon) {
+        return buildSnapshot(rumorId, epsilon, true);
+    }
+
+    private List<InfluenceAnalysis> readLatest(Long rumorId, boolean keyNodesOnly) {
+        long epoch = latestEpoch(rumorId);
+        List<InfluenceAnalysis> analyses = influenceSnapshotRepository.findSnapshot(rumorId, epoch, keyNodesOnly);
+        if (analyses.isEmpty()) {
+            // 读取期间快照被替换时改读新版本
+            Long latest = influenceSnapshotRepository.findLatestEpoch(rumorId);
+            if (latest != null && latest != epoch) {
+                analyses = influenceSnapshotRepository.findSnapshot(rumorId, latest, keyNodesOnly);
+            }
+        }
+        return analyses;
+    }
+
+    /**
+     * 最新快照版本，没有快照时同步生成
+     */
+    private long latestEpoch(Long rumorId) {
+        Long epoch = influenceSnapshotRepository.findLatestEpoch(rumorId);
+        return epoch != null ? epoch : createSnapshot(rumorId);
+    }
+
+    /**
+     * 谣言没有快照时同步生成；并发的首次查询在锁内重新读取版本，只有第一个线程计算
+     */
+    private long createSnapshot(Long rumorId) {
+        ReentrantLock lock = lockFor(rumorId);
+        lock.lock();
+        try {
+            Long epoch = influenceSnapshotRepository.findLatestEpoch(rumorId);
+            return epoch != null ? epoch : refreshSnapshot(rumorId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(Long rumorId) {
+        return refreshLocks[Math.floorMod(rumorId.hashCode(), refreshLocks.length)];
+    }
+
+    private List<InfluenceAnalysis> buildSnapshot(Long rumorId, Double epsilon, boolean keyNodesOnly) {
+        PropagationGraph graph = propagationGraphStore.getGraph(rumorId);
+        NodeInfluence influence = propagationGraphStore.getInfluence(rumorId, System.currentTimeMillis());
+        Betweenness.Result betweenness = propagationGraphAnalyzer.betweenness(graph, epsilon);
+        double[] scores = betweenness.scores();
+        int[] keyNodes = Betweenness.keyNodes(scores, keyNodeLimit);
+        String summary = String.format("介数采样源节点 %d 个，归一化误差上界 %.4f",
+                betweenness.samples(), betweenness.errorBound());
+        ReverseAdjacency reverse = graph.reverse();
+
+        boolean[] isKeyNode = new boolean[graph.nodeCount()];
+        for (int node : keyNodes) {
+            isKeyNode[node] = true;
+        }
+
+        List<InfluenceAnalysis> analyses = new ArrayList<>(keyNodesOnly ? keyNodes.length : graph.nodeCount());
+        if (keyNodesOnly) {
+            for (int node : keyNodes) {
+                analyses.add(toAnalysis(rumorId, graph, reverse, influence, betweenness, node, true, summary));
+            }
+        } else {
+            for (int node = 0; node < graph.nodeCount(); node++) {
+                analyses.add(toAnalysis(rumorId, graph, reverse, influence, betweenness, node, isKeyNode[node], summary));
+            }
+        }
+        return analyses;
+    }
+
+    private InfluenceAnalysis toAnalysis(Long rumorId, PropagationGraph graph, ReverseAdjacency reverse,
+                                         NodeInfluence influence, Betweenness.Result betweenness, int node,
+                                         boolean keyNode, String summary) {
+        // 累加器与快照来自同一节点字典，编号一致；读取间隙新增的节点不在快照内
+        boolean tracked = node < influence.nodeCount();
+        InfluenceAnalysis analysis = new InfluenceAnalysis();
+        analysis.setRumorId(rumorId);
+        analysis.setNodeId(graph.nodeId(node));
+        analysis.setInfluenceScore(tracked ? influence.score(node) : 0.0);
+        analysis.setPathCount(tracked ? influence.pathCount(node) : graph.outDegree(node) + reverse.inDegree(node));
+        if (betweenness != null) {
+            analysis.setBetweennessScore(betweenness.scores()[node]);
+            analysis.setBetweennessErrorBound(betweenness.errorBound());
+        }
+        analysis.setIsKeyNode(keyNode);
+        // 直接传播到的用户数与收到的传播次数
+        analysis.setUserCount(graph.outDegree(node));
+        analysis.setContentCount(reverse.inDegree(node));
+        analysis.setAnalysisStatus("COMPLETED");
+        if (keyNode) {
+            analysis.setAnalysisResult(summary);
+            analysis.setUserInfluence(downstreamUsers(graph, node));
+            analysis.setContentInfluence(typeCounts(graph, node));
+        }
+        return analysis;
+    }
+
+    private List<String> downstreamUsers(PropagationGraph graph, int node) {
+        Set<String> users = new LinkedHashSet<>();
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        for (int e = offsets[node]; e < offsets[node + 1] && users.size() < MAX_USER_INFLUENCE; e++) {
+            users.add(graph.nodeId(targets[e]));
+        }
+        return new ArrayList<>(users);
+    }
+
+    private List<String> typeCounts(PropagationGraph graph, int node) {
+        Map<String, Integer> counts = new TreeMap<>();
+        int[] offsets = graph.offsets();
+        byte[] types = graph.types();
+        for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+            PropagationType type = PropagationGraph.typeOf(types[e]);
+            counts.merge(type != null ? type.name() : "UNKNOWN", 1, Integer::sum);
+        }
+        List<String> result = new ArrayList<>(counts.size());
+        counts.forEach((type, count) -> result.add(type + ":" + count));
+        return result;
+    }
+}
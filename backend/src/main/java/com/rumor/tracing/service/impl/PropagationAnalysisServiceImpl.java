@@ -1,230 +1,802 @@
 package com.rumor.tracing.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rumor.tracing.entity.InfluenceAnalysis;
+import com.rumor.tracing.entity.NodeRumorIndex;
 import com.rumor.tracing.entity.PropagationPath;
+import com.rumor.tracing.exception.BusinessException;
+import com.rumor.tracing.graph.CascadeTree;
+import com.rumor.tracing.graph.CommunityPartition;
+import com.rumor.tracing.graph.InfluenceScoring;
+import com.rumor.tracing.graph.NetworkDownsampler;
+import com.rumor.tracing.graph.NetworkView;
+import com.rumor.tracing.graph.NodeInfluence;
+import com.rumor.tracing.graph.PageRank;
+import com.rumor.tracing.graph.PropagationGraph;
+import com.rumor.tracing.graph.PropagationGraphAnalyzer;
+import com.rumor.tracing.graph.PropagationGraphStore;
+import com.rumor.tracing.graph.ReverseAdjacency;
+import com.rumor.tracing.graph.TimeOrderedEdges;
+import com.rumor.tracing.graph.RumorGraphState;
+import com.rumor.tracing.graph.TrendBuckets;
+import com.rumor.tracing.graph.ViralityFeatures;
+import com.rumor.tracing.graph.ViralityMonitor;
+import com.rumor.tracing.model.CommunityAlgorithm;
+import com.rumor.tracing.model.InfluenceScoringMode;
+import com.rumor.tracing.model.NetworkDetailMode;
 import com.rumor.tracing.model.PropagationType;
-import com.rumor.tracing.repository.InfluenceAnalysisRepository;
+import com.rumor.tracing.repository.NodeRumorIndexRepository;
 import com.rumor.tracing.repository.PropagationPathRepository;
-import com.rumor.tracing.repository.RumorRepository;
+import com.rumor.tracing.repository.PropagationPathStreamLoader;
+import com.rumor.tracing.repository.PropagationPathVersionRepository;
+import com.rumor.tracing.repository.PropagationResultCache;
+import com.rumor.tracing.service.InfluenceSnapshotService;
 import com.rumor.tracing.service.PropagationAnalysisService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.text.SimpleDateFormat;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * 传播分析服务
+ * 分析计算不在事务内执行：传播图由流式加载器读取，数据库连接只在读取期间占用，计算期间不持有连接。
+ * 只有追加传播路径等写操作开启事务。
+ */
 @Service
-@Transactional
 public class PropagationAnalysisServiceImpl implements PropagationAnalysisService {
     
+    /** 默认返回的社区数 */
+    private static final int DEFAULT_COMMUNITY_LIMIT = 50;
+    /** 每个社区返回的代表成员数 */
+    private static final int COMMUNITY_MEMBER_LIMIT = 5;
+    /** 节点倒排列表的默认与最大页大小 */
+    private static final int DEFAULT_POSTING_PAGE_SIZE = 100;
+    private static final int MAX_POSTING_PAGE_SIZE = 1000;
+    /** 节点影响力的默认与最大页大小 */
+    private static final int DEFAULT_INFLUENCE_PAGE_SIZE = 100;
+    private static final int MAX_INFLUENCE_PAGE_SIZE = 1000;
+    /** 传播回放的默认与最大帧数 */
+    private static final int DEFAULT_REPLAY_FRAMES = 60;
+    private static final int MAX_REPLAY_FRAMES = 1000;
+    
+    private static final TypeReference<Map<String, Object>> MAP_RESULT = new TypeReference<>() {};
+    private static final TypeReference<List<Map<String, Object>>> LIST_RESULT = new TypeReference<>() {};
+    private static final TypeReference<List<InfluenceAnalysis>> ANALYSIS_RESULT = new TypeReference<>() {};
+    
+    private static final DateTimeFormatter MINUTE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00");
+    
     private final PropagationPathRepository propagationPathRepository;
-    private final InfluenceAnalysisRepository influenceAnalysisRepository;
-    private final RumorRepository rumorRepository;
+    private final PropagationGraphStore propagationGraphStore;
+    private final PropagationGraphAnalyzer propagationGraphAnalyzer;
+    private final InfluenceSnapshotService influenceSnapshotService;
+    private final PropagationPathStreamLoader propagationPathStreamLoader;
+    private final PropagationPathVersionRepository propagationPathVersionRepository;
+    private final NodeRumorIndexRepository nodeRumorIndexRepository;
+    private final ViralityMonitor viralityMonitor;
+    private final PropagationResultCache propagationResultCache;
+    private final ObjectMapper objectMapper;
+    private final int defaultNetworkLimit;
+    private final int maxNetworkLimit;
+    private final long scoreBucketMillis;
     
     public PropagationAnalysisServiceImpl(
             PropagationPathRepository propagationPathRepository,
-            InfluenceAnalysisRepository influenceAnalysisRepository,
-            RumorRepository rumorRepository) {
+            PropagationGraphStore propagationGraphStore,
+            PropagationGraphAnalyzer propagationGraphAnalyzer,
+            InfluenceSnapshotService influenceSnapshotService,
+            PropagationPathStreamLoader propagationPathStreamLoader,
+            PropagationPathVersionRepository propagationPathVersionRepository,
+            NodeRumorIndexRepository nodeRumorIndexRepository,
+            ViralityMonitor viralityMonitor,
+            PropagationResultCache propagationResultCache,
+            ObjectMapper objectMapper,
+            @Value("${propagation.lod.default-limit:2000}") int defaultNetworkLimit,
+            @Value("${propagation.lod.max-limit:10000}") int maxNetworkLimit,
+            @Value("${propagation.cache.score-bucket-ms:60000}") long scoreBucketMillis) {
         this.propagationPathRepository = propagationPathRepository;
-        this.influenceAnalysisRepository = influenceAnalysisRepository;
-        this.rumorRepository = rumorRepository;
+        this.propagationGraphStore = propagationGraphStore;
+        this.propagationGraphAnalyzer = propagationGraphAnalyzer;
+        this.influenceSnapshotService = influenceSnapshotService;
+        this.propagationPathStreamLoader = propagationPathStreamLoader;
+        this.propagationPathVersionRepository = propagationPathVersionRepository;
+        this.nodeRumorIndexRepository = nodeRumorIndexRepository;
+        this.viralityMonitor = viralityMonitor;
+        this.propagationResultCache = propagationResultCache;
+        this.objectMapper = objectMapper;
+        this.defaultNetworkLimit = defaultNetworkLimit;
+        this.maxNetworkLimit = maxNetworkLimit;
+        this.scoreBucketMillis = Math.max(1, scoreBucketMillis);
     }
     
     @Override
-    public List<PropagationPath> analyzePropagationPaths(Long rumorId) {
-        // 获取所有传播路径
-        return propagationPathRepository.findByRumorId(rumorId, null).getContent();
+    @Transactional
+    public List<PropagationPath> appendPropagationPaths(Long rumorId, List<PropagationPath> paths) {
+        for (PropagationPath path : paths) {
+            path.setRumorId(rumorId);
+            if (path.getPathLength() == null) {
+                path.setPathLength(1);
+            }
+        }
+        List<PropagationPath> saved = propagationPathRepository.saveAll(paths);
+        nodeRumorIndexRepository.addPaths(saved);
+        long version = propagationPathVersionRepository.increment(rumorId);
+        
+        // 事务提交后再并入内存传播图，避免其他线程读到未提交的边
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    propagationGraphStore.append(rumorId, version, saved);
+                    influenceSnapshotService.markDirty(rumorId);
+                }
+            });
+        } else {
+            propagationGraphStore.append(rumorId, version, saved);
+            influenceSnapshotService.markDirty(rumorId);
+        }
+        return saved;
     }
     
     @Override
     public List<InfluenceAnalysis> calculateInfluence(Long rumorId) {
-        List<PropagationPath> paths = analyzePropagationPaths(rumorId);
-        
-        // 计算每个节点的影响力分数
-        Map<String, Double> influenceScores = new HashMap<>();
-        Map<String, Integer> pathCounts = new HashMap<>();
+        // 影响力分数取实时累加器，介数与关键节点标记来自最新快照
+        return influenceSnapshotService.getInfluence(rumorId, 0, DEFAULT_INFLUENCE_PAGE_SIZE);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<InfluenceAnalysis> calculateInfluence(Long rumorId, InfluenceScoringMode mode, String seedNode,
+                                                      Long asOf, Long window, Integer page, Integer size) {
+        int pageIndex = page != null && page > 0 ? page : 0;
+        int pageSize = Math.min(MAX_INFLUENCE_PAGE_SIZE, size != null && size > 0 ? size : DEFAULT_INFLUENCE_PAGE_SIZE);
+        boolean timeTravel = asOf != null || window != null;
+        if ((mode == null || mode == InfluenceScoringMode.CLASSIC) && !timeTravel) {
+            return influenceSnapshotService.getInfluence(rumorId, pageIndex, pageSize);
+        }
+        // 即时计算的结果整体缓存，按页截取
+        List<InfluenceAnalysis> analyses = cached(rumorId, "influence", ANALYSIS_RESULT,
+                state -> computeInfluence(rumorId, state, mode, seedNode, asOf, window), mode, seedNode, asOf, window);
+        int from = (int) Math.min(analyses.size(), (long) pageIndex * pageSize);
+        return new ArrayList<>(analyses.subList(from, Math.min(analyses.size(), from + pageSize)));
+    }
+    
+    /**
+     * 读取缓存的分析结果：传播路径版本只读取一次，同时用于缓存键与未命中时获取图状态
+     */
+    private <T> T cached(Long rumorId, String type, TypeReference<T> resultType,
+                         Function<RumorGraphState, T> compute, Object... params) {
+        long version = propagationGraphStore.version(rumorId);
+        return propagationResultCache.get(rumorId, version, type, resultType,
+                () -> compute.apply(propagationGraphStore.getState(rumorId, version)), params);
+    }
+    
+    /**
+     * 按当前时间衰减的影响力分数的计算时刻：当前时间向下取整到分桶边界
+     * 同一分桶内的请求以相同时刻计算，该时刻作为缓存键参数，跨入下一分桶后旧结果不再命中
+     */
+    private long scoreTime() {
+        long now = System.currentTimeMillis();
+        return now - Math.floorMod(now, scoreBucketMillis);
+    }
+    
+    private List<InfluenceAnalysis> computeInfluence(Long rumorId, RumorGraphState state, InfluenceScoringMode mode,
+                                                     String seedNode, Long asOf, Long window) {
+        PropagationGraph graph = state.graph().sliceAsOf(asOf, window);
+        if (mode == null || mode == InfluenceScoringMode.CLASSIC) {
+            // 切片上没有增量累加器，按边直接求和，时间衰减以切片结束时刻为基准
+            double[] scores = InfluenceScoring.scores(graph, asOf != null ? asOf : graph.maxTime());
+            double mean = Arrays.stream(scores).sum() / Math.max(1, scores.length);
+            return toAnalyses(rumorId, graph, scores, 3.0 * mean);
+        }
         
-        for (PropagationPath path : paths) {
-            // 计算源节点影响力
-            String sourceNode = path.getSourceNode();
-            double sourceScore = calculateNodeScore(path, true);
-            influenceScores.merge(sourceNode, sourceScore, Double::sum);
-            pathCounts.merge(sourceNode, 1, Integer::sum);
-            
-            // 计算目标节点影响力
-            String targetNode = path.getTargetNode();
-            double targetScore = calculateNodeScore(path, false);
-            influenceScores.merge(targetNode, targetScore, Double::sum);
-            pathCounts.merge(targetNode, 1, Integer::sum);
+        PageRank.Result result;
+        if (mode == InfluenceScoringMode.PERSONALIZED_PAGERANK) {
+            int seed = seedNode != null ? graph.indexOf(seedNode) : graph.rootNode();
+            if (seed < 0) {
+                if (seedNode != null) {
+                    throw new BusinessException("种子节点不存在: " + seedNode);
+                }
+                return new ArrayList<>();
+            }
+            result = propagationGraphAnalyzer.personalizedPageRank(graph, seed);
+        } else {
+            result = propagationGraphAnalyzer.pageRank(graph);
         }
         
-        // 创建影响力分析结果
-        List<InfluenceAnalysis> analyses = new ArrayList<>();
-        for (Map.Entry<String, Double> entry : influenceScores.entrySet()) {
-            String nodeId = entry.getKey();
+        // 排名分数之和为 1，超过平均值 3 倍的节点视为关键节点
+        return toAnalyses(rumorId, graph, result.ranks(), 3.0 / Math.max(1, graph.nodeCount()));
+    }
+    
+    private List<InfluenceAnalysis> toAnalyses(Long rumorId, PropagationGraph graph, double[] scores,
+                                               double keyNodeThreshold) {
+        ReverseAdjacency reverse = graph.reverse();
+        List<InfluenceAnalysis> analyses = new ArrayList<>(graph.nodeCount());
+        for (int node = 0; node < graph.nodeCount(); node++) {
             InfluenceAnalysis analysis = new InfluenceAnalysis();
-            analysis.setNodeId(nodeId);
-            analysis.setInfluenceScore(entry.getValue());
-            analysis.setPathCount(pathCounts.get(nodeId));
-            analysis.setIsKeyNode(isKeyNode(entry.getValue(), paths.size()));
+            analysis.setRumorId(rumorId);
+            analysis.setNodeId(graph.nodeId(node));
+            analysis.setInfluenceScore(scores[node]);
+            analysis.setPathCount(graph.outDegree(node) + reverse.inDegree(node));
+            analysis.setIsKeyNode(scores[node] > keyNodeThreshold);
             analyses.add(analysis);
         }
         
-        // 按影响力分数排序
         analyses.sort(Comparator.comparing(InfluenceAnalysis::getInfluenceScore).reversed());
         
         return analyses;
     }
     
-    private double calculateNodeScore(PropagationPath path, boolean isSource) {
-        double baseScore = 1.0;
-        double timeFactor = calculateTimeFactor(path.getPropagationTime());
-        double typeFactor = calculateTypeFactor(path.getType());
+    @Override
+    public List<String> identifyKeyNodes(Long rumorId) {
+        return detectKeyNodes(rumorId, null).stream()
+                .map(InfluenceAnalysis::getNodeId)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<InfluenceAnalysis> detectKeyNodes(Long rumorId, Double epsilon) {
+        // 默认精度读取最新快照，指定误差上界时即时计算
+        if (epsilon == null) {
+            return influenceSnapshotService.getKeyNodes(rumorId);
+        }
+        return influenceSnapshotService.computeKeyNodes(rumorId, epsilon);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getPropagationNetwork(Long rumorId, Long asOf, Long window) {
+        return cached(rumorId, "network", MAP_RESULT,
+                state -> computePropagationNetwork(state, asOf, window), asOf, window);
+    }
+    
+    private Map<String, Object> computePropagationNetwork(RumorGraphState state, Long asOf, Long window) {
+        PropagationGraph graph = state.graph().sliceAsOf(asOf, window);
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        long[] times = graph.times();
+        
+        // 构建网络图数据
+        Map<String, Object> network = new HashMap<>();
+        
+        // 边列表
+        List<Map<String, Object>> edges = new ArrayList<>(graph.edgeCount());
+        for (int sourceNode = 0; sourceNode < graph.nodeCount(); sourceNode++) {
+            for (int e = offsets[sourceNode]; e < offsets[sourceNode + 1]; e++) {
+                Map<String, Object> edge = new HashMap<>(4);
+                edge.put("source", graph.nodeId(sourceNode));
+                edge.put("target", graph.nodeId(targets[e]));
+                edge.put("time", times[e]);
+                edges.add(edge);
+            }
+        }
         
-        // 源节点的影响力权重更高
-        double sourceWeight = isSource ? 1.5 : 1.0;
+        // 节点列表（图中节点已去重）
+        network.put("nodes", Arrays.asList(graph.nodeIds()));
+        network.put("edges", edges);
         
-        return baseScore * timeFactor * typeFactor * sourceWeight;
+        return network;
     }
     
-    private double calculateTimeFactor(Long propagationTime) {
-        // 越早的传播时间权重越高
-        long currentTime = System.currentTimeMillis();
-        long timeDiff = currentTime - propagationTime;
-        return Math.max(0.1, 1.0 - (timeDiff / (24.0 * 60 * 60 * 1000))); // 24小时衰减
-    }
-    
-    private double calculateTypeFactor(PropagationType type) {
-        // 不同类型的传播行为权重不同
-        switch (type) {
-            case FORWARD:
-                return 1.5; // 转发权重最高
-            case COMMENT:
-                return 1.2; // 评论次之
-            case LIKE:
-                return 1.0; // 点赞权重最低
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getPropagationNetwork(Long rumorId, NetworkDetailMode mode, Integer limit, Integer k,
+                                                     Long startTime, Long endTime, Long asOf, Long window) {
+        // 完整图的 Top-K 按当前时间衰减的影响力排序，计算时刻计入缓存键
+        Long scoredAt = mode == NetworkDetailMode.TOP_K && asOf == null && window == null ? scoreTime() : null;
+        return cached(rumorId, "network-lod", MAP_RESULT,
+                state -> computePropagationNetwork(state, mode, limit, k, startTime, endTime, asOf, window, scoredAt),
+                mode, limit, k, startTime, endTime, asOf, window, scoredAt);
+    }
+    
+    private Map<String, Object> computePropagationNetwork(RumorGraphState state, NetworkDetailMode mode, Integer limit,
+                                                          Integer k, Long startTime, Long endTime, Long asOf,
+                                                          Long window, Long scoredAt) {
+        PropagationGraph graph = state.graph().sliceAsOf(asOf, window);
+        int nodeLimit = Math.min(maxNetworkLimit, limit != null && limit > 0 ? limit : defaultNetworkLimit);
+        
+        NetworkView view;
+        switch (mode) {
+            case K_CORE:
+                view = NetworkDownsampler.kCore(graph, k, nodeLimit);
+                break;
+            case COMMUNITY:
+                view = NetworkDownsampler.communities(graph,
+                        communityPartition(state, graph, CommunityAlgorithm.LABEL_PROPAGATION), nodeLimit);
+                break;
+            case TIME_WINDOW:
+                view = NetworkDownsampler.timeWindow(graph, startTime, endTime, nodeLimit);
+                break;
+            case TOP_K:
             default:
-                return 1.0;
+                double[] scores;
+                if (scoredAt == null) {
+                    scores = InfluenceScoring.scores(graph, asOf != null ? asOf : graph.maxTime());
+                } else {
+                    // 经典影响力与图共用节点字典，按图的节点编号对齐
+                    NodeInfluence influence = state.influence(scoredAt);
+                    scores = new double[graph.nodeCount()];
+                    for (int node = 0; node < scores.length && node < influence.nodeCount(); node++) {
+                        scores[node] = influence.score(node);
+                    }
+                }
+                view = NetworkDownsampler.topK(graph, scores, nodeLimit);
+                break;
+        }
+        
+        List<Map<String, Object>> nodes = new ArrayList<>(view.nodeCount());
+        for (int node = 0; node < view.nodeCount(); node++) {
+            Map<String, Object> item = new HashMap<>(4);
+            item.put("id", view.nodeId(node));
+            item.put("value", view.nodeValue(node));
+            item.put("size", view.nodeSize(node));
+            nodes.add(item);
+        }
+        List<Map<String, Object>> edges = new ArrayList<>(view.edgeCount());
+        for (int edge = 0; edge < view.edgeCount(); edge++) {
+            Map<String, Object> item = new HashMap<>(8);
+            item.put("source", view.nodeId(view.edgeSource(edge)));
+            item.put("target", view.nodeId(view.edgeTarget(edge)));
+            item.put("weight", view.edgeWeight(edge));
+            item.put("time", view.edgeTime(edge));
+            edges.add(item);
+        }
+        
+        Map<String, Object> network = new HashMap<>();
+        network.put("mode", mode);
+        network.put("totalNodes", view.totalNodes());
+        network.put("totalEdges", view.totalEdges());
+        network.put("nodes", nodes);
+        network.put("edges", edges);
+        return network;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> detectCommunities(Long rumorId, CommunityAlgorithm algorithm, Integer limit) {
+        // 社区影响力按当前时间衰减，计算时刻计入缓存键
+        long scoredAt = scoreTime();
+        return cached(rumorId, "communities", MAP_RESULT,
+                state -> computeCommunities(state, algorithm, limit, scoredAt), algorithm, limit, scoredAt);
+    }
+    
+    private Map<String, Object> computeCommunities(RumorGraphState state, CommunityAlgorithm algorithm, Integer limit,
+                                                   long scoredAt) {
+        PropagationGraph graph = state.graph();
+        CommunityPartition partition = communityPartition(state, graph, algorithm);
+        NodeInfluence influence = state.influence(scoredAt);
+        int[] membership = partition.communities();
+        int communityCount = partition.communityCount();
+        
+        // 各社区规模与影响力总和（经典影响力与图共用节点字典，编号一致）
+        double[] scores = new double[membership.length];
+        int[] sizes = new int[communityCount];
+        double[] totals = new double[communityCount];
+        for (int node = 0; node < membership.length; node++) {
+            scores[node] = node < influence.nodeCount() ? influence.score(node) : 0.0;
+            sizes[membership[node]]++;
+            totals[membership[node]] += scores[node];
+        }
+        
+        int communityLimit = Math.min(communityCount, limit != null && limit > 0 ? limit : DEFAULT_COMMUNITY_LIMIT);
+        Integer[] order = new Integer[communityCount];
+        for (int community = 0; community < communityCount; community++) {
+            order[community] = community;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(totals[b], totals[a]));
+        
+        // 只为返回的社区收集影响力最高的成员
+        int[] rank = new int[communityCount];
+        Arrays.fill(rank, -1);
+        List<List<Integer>> members = new ArrayList<>(communityLimit);
+        for (int i = 0; i < communityLimit; i++) {
+            rank[order[i]] = i;
+            members.add(new ArrayList<>(COMMUNITY_MEMBER_LIMIT + 1));
+        }
+        for (int node = 0; node < membership.length; node++) {
+            int index = rank[membership[node]];
+            if (index < 0) {
+                continue;
+            }
+            List<Integer> top = members.get(index);
+            int position = top.size();
+            while (position > 0 && scores[top.get(position - 1)] < scores[node]) {
+                position--;
+            }
+            if (position < COMMUNITY_MEMBER_LIMIT) {
+                top.add(position, node);
+                if (top.size() > COMMUNITY_MEMBER_LIMIT) {
+                    top.remove(COMMUNITY_MEMBER_LIMIT);
+                }
+            }
+        }
+        
+        List<Map<String, Object>> communities = new ArrayList<>(communityLimit);
+        for (int i = 0; i < communityLimit; i++) {
+            int community = order[i];
+            List<String> topMembers = new ArrayList<>(members.get(i).size());
+            for (int node : members.get(i)) {
+                topMembers.add(graph.nodeId(node));
+            }
+            Map<String, Object> item = new HashMap<>(8);
+            item.put("id", community);
+            item.put("size", sizes[community]);
+            item.put("influence", totals[community]);
+            item.put("topMembers", topMembers);
+            communities.add(item);
         }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("algorithm", algorithm);
+        result.put("nodeCount", graph.nodeCount());
+        result.put("communityCount", communityCount);
+        result.put("modularity", partition.modularity());
+        result.put("iterations", partition.iterations());
+        result.put("communities", communities);
+        return result;
     }
     
-    private boolean isKeyNode(double influenceScore, int totalPaths) {
-        // 如果节点的影响力分数超过平均值的3倍，则认为是关键节点
-        double averageScore = 2.0 / totalPaths; // 每个节点平均有2条边
-        return influenceScore > averageScore * 3;
+    /**
+     * 读取或计算社区划分，结果缓存在谣言的图状态上，随 CSR 快照一起失效
+     */
+    private CommunityPartition communityPartition(RumorGraphState state, PropagationGraph graph,
+                                                  CommunityAlgorithm algorithm) {
+        CommunityPartition partition = state.derived(algorithm, graph);
+        if (partition == null) {
+            partition = algorithm == CommunityAlgorithm.LOUVAIN
+                    ? propagationGraphAnalyzer.louvain(graph)
+                    : propagationGraphAnalyzer.labelPropagation(graph);
+            state.putDerived(algorithm, graph, partition);
+        }
+        return partition;
     }
     
     @Override
-    public List<String> identifyKeyNodes(Long rumorId) {
-        // 获取影响力分析结果
-        List<InfluenceAnalysis> analyses = influenceAnalysisRepository
-                .findByRumorIdAndIsKeyNode(rumorId, true, null)
-                .getContent();
-        
-        // 提取关键节点ID
-        return analyses.stream()
-                .map(analysis -> analysis.getUserInfluence().get(0))
-                .collect(Collectors.toList());
+    public Map<String, Object> getNodeRumors(String nodeId, Long afterRumorId, Integer size) {
+        int pageSize = Math.min(MAX_POSTING_PAGE_SIZE, size != null && size > 0 ? size : DEFAULT_POSTING_PAGE_SIZE);
+        List<NodeRumorIndex> postings = nodeRumorIndexRepository.findPostings(
+                nodeId, afterRumorId != null ? afterRumorId : 0L, pageSize);
+        
+        List<Map<String, Object>> rumors = new ArrayList<>(postings.size());
+        for (NodeRumorIndex posting : postings) {
+            Map<String, Object> item = new HashMap<>(8);
+            item.put("rumorId", posting.getRumorId());
+            item.put("outCount", posting.getOutCount());
+            item.put("inCount", posting.getInCount());
+            item.put("firstTime", posting.getFirstTime());
+            item.put("lastTime", posting.getLastTime());
+            rumors.add(item);
+        }
+        
+        Map<String, Object> result = new HashMap<>(nodeRumorIndexRepository.findSummary(nodeId));
+        result.put("nodeId", nodeId);
+        result.put("rumors", rumors);
+        result.put("nextCursor", postings.size() == pageSize ? postings.get(postings.size() - 1).getRumorId() : null);
+        return result;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long rebuildNodeIndex(Long rumorId) {
+        // 每个谣言独立提交，全量重建时不持有长事务
+        List<Long> rumorIds = rumorId != null
+                ? Collections.singletonList(rumorId)
+                : nodeRumorIndexRepository.findPathRumorIds();
+        long rows = 0;
+        for (Long id : rumorIds) {
+            rows += nodeRumorIndexRepository.rebuild(id);
+        }
+        return rows;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void writePropagationNetwork(Long rumorId, boolean compact, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            
+            // 节点由一遍边流去重，边只输出到构建节点字典时读到的最大ID，之后追加的边留给下次请求
+            generator.writeArrayFieldStart("nodes");
+            long maxEdgeId = propagationPathStreamLoader.forEachNode(rumorId,
+                    nodeId -> writeUnchecked(() -> generator.writeString(nodeId)));
+            generator.writeEndArray();
+            
+            if (compact) {
+                generator.writeArrayFieldStart("fields");
+                generator.writeString("source");
+                generator.writeString("target");
+                generator.writeString("time");
+                generator.writeString("type");
+                generator.writeEndArray();
+            }
+            
+            generator.writeArrayFieldStart("edges");
+            propagationPathStreamLoader.forEachEdge(rumorId, maxEdgeId, (id, sourceNode, targetNode, propagationTime, type) ->
+                    writeUnchecked(() -> {
+                        if (compact) {
+                            generator.writeStartArray();
+                            generator.writeString(sourceNode);
+                            generator.writeString(targetNode);
+                            generator.writeNumber(propagationTime);
+                            generator.writeString(type != null ? type.name() : null);
+                            generator.writeEndArray();
+                        } else {
+                            generator.writeStartObject();
+                            generator.writeStringField("source", sourceNode);
+                            generator.writeStringField("target", targetNode);
+                            generator.writeNumberField("time", propagationTime);
+                            generator.writeEndObject();
+                        }
+                    }));
+            generator.writeEndArray();
+            
+            generator.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private void writeUnchecked(JsonWrite write) {
+        try {
+            write.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface JsonWrite {
+        void run() throws IOException;
     }
     
     @Override
-    public Map<String, Object> getPropagationNetwork(Long rumorId) {
-        // 获取所有传播路径
-        List<PropagationPath> paths = analyzePropagationPaths(rumorId);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getPropagationStatistics(Long rumorId, Long asOf, Long window) {
+        return cached(rumorId, "statistics", MAP_RESULT,
+                state -> computePropagationStatistics(state, asOf, window), asOf, window);
+    }
+    
+    private Map<String, Object> computePropagationStatistics(RumorGraphState state, Long asOf, Long window) {
+        PropagationGraph graph = state.graph().sliceAsOf(asOf, window);
+        CascadeTree.Result cascade = propagationGraphAnalyzer.cascade(graph);
         
-        // 构建网络图数据
-        Map<String, Object> network = new HashMap<>();
+        List<Map<String, Object>> levels = new ArrayList<>(cascade.depth() + 1);
+        for (int depth = 0; depth < cascade.levelBreadths().length; depth++) {
+            Map<String, Object> level = new HashMap<>();
+            level.put("depth", depth);
+            level.put("breadth", cascade.levelBreadths()[depth]);
+            level.put("elapsed", cascade.timeToDepth()[depth]);
+            levels.add(level);
+        }
         
-        // 节点列表
-        Set<String> nodes = new HashSet<>();
-        for (PropagationPath path : paths) {
-            nodes.add(path.getSourceNode());
-            nodes.add(path.getTargetNode());
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalPaths", cascade.edgeCount());
+        statistics.put("averagePathLength", cascade.averageDepth());
+        statistics.put("maxPathLength", cascade.depth());
+        statistics.put("nodeCount", cascade.nodeCount());
+        statistics.put("cascadeCount", cascade.cascadeCount());
+        statistics.put("largestCascadeSize", cascade.largestCascadeSize());
+        statistics.put("maxBreadth", cascade.maxBreadth());
+        statistics.put("structuralVirality", cascade.structuralVirality());
+        statistics.put("levels", levels);
+        return statistics;
+    }
+    
+    @Override
+    public Map<String, Object> getVirality(Long rumorId) {
+        RumorGraphState state = propagationGraphStore.getState(rumorId);
+        long currentTime = System.currentTimeMillis();
+        double[] values = state.viralityFeatures(currentTime);
+        Map<String, Object> features = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            features.put(ViralityFeatures.FEATURE_NAMES[i], values[i]);
         }
         
-        // 边列表
-        List<Map<String, Object>> edges = paths.stream()
-                .map(path -> {
-                    Map<String, Object> edge = new HashMap<>();
-                    edge.put("source", path.getSourceNode());
-                    edge.put("target", path.getTargetNode());
-                    edge.put("time", path.getPropagationTime());
-                    return edge;
-                })
-                .collect(Collectors.toList());
+        Map<String, Object> result = new HashMap<>();
+        result.put("score", state.viralityScore(currentTime));
+        result.put("threshold", viralityMonitor.threshold());
+        result.put("alert", viralityMonitor.isAlerted(rumorId));
+        result.put("features", features);
+        return result;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> getPropagationReplay(Long rumorId, Long startTime, Long endTime, Integer frames,
+                                                    Long step) {
+        return cached(rumorId, "replay", MAP_RESULT,
+                state -> computePropagationReplay(state, startTime, endTime, frames, step),
+                startTime, endTime, frames, step);
+    }
+    
+    private Map<String, Object> computePropagationReplay(RumorGraphState state, Long startTime, Long endTime,
+                                                         Integer frames, Long step) {
+        PropagationGraph graph = state.graph();
+        Map<String, Object> replay = new HashMap<>();
+        List<Map<String, Object>> frameList = new ArrayList<>();
+        replay.put("frames", frameList);
+        if (graph.isEmpty()) {
+            return replay;
+        }
         
-        network.put("nodes", nodes);
-        network.put("edges", edges);
+        long start = startTime != null ? startTime : graph.minTime();
+        long end = endTime != null ? endTime : graph.maxTime();
+        if (end < start) {
+            throw new BusinessException("回放结束时间早于开始时间");
+        }
+        long span = end - start + 1;
+        long frameStep;
+        if (step != null && step > 0) {
+            frameStep = Math.max(step, Math.floorDiv(span + MAX_REPLAY_FRAMES - 1, MAX_REPLAY_FRAMES));
+        } else {
+            int frameCount = Math.min(MAX_REPLAY_FRAMES, frames != null && frames > 0 ? frames : DEFAULT_REPLAY_FRAMES);
+            frameStep = Math.max(1, Math.floorDiv(span + frameCount - 1, frameCount));
+        }
         
-        return network;
+        TimeOrderedEdges ordered = graph.byTime();
+        int[] orderedEdges = ordered.edges();
+        int[] orderedSources = ordered.sources();
+        long[] orderedTimes = ordered.times();
+        int[] targets = graph.targets();
+        byte[] types = graph.types();
+        
+        // 开始时间之前已出现的节点计入初始规模，不作为新增节点
+        int first = ordered.lowerBound(start);
+        boolean[] seen = new boolean[graph.nodeCount()];
+        int nodeCount = 0;
+        for (int i = 0; i < first; i++) {
+            nodeCount += markSeen(seen, orderedSources[i]) + markSeen(seen, targets[orderedEdges[i]]);
+        }
+        replay.put("startTime", start);
+        replay.put("endTime", end);
+        replay.put("step", frameStep);
+        replay.put("initialNodes", nodeCount);
+        replay.put("initialEdges", first);
+        
+        int cursor = first;
+        for (long frameStart = start; frameStart <= end; frameStart += frameStep) {
+            long frameEnd = Math.min(end, frameStart + frameStep - 1);
+            int last = ordered.upperBound(frameEnd);
+            List<Object[]> edges = new ArrayList<>(last - cursor);
+            List<String> newNodes = new ArrayList<>();
+            for (int i = cursor; i < last; i++) {
+                int edge = orderedEdges[i];
+                int source = orderedSources[i];
+                int target = targets[edge];
+                if (markSeen(seen, source) > 0) {
+                    newNodes.add(graph.nodeId(source));
+                }
+                if (markSeen(seen, target) > 0) {
+                    newNodes.add(graph.nodeId(target));
+                }
+                PropagationType type = PropagationGraph.typeOf(types[edge]);
+                edges.add(new Object[]{graph.nodeId(source), graph.nodeId(target), orderedTimes[i],
+                        type != null ? type.name() : null});
+            }
+            nodeCount += newNodes.size();
+            
+            Map<String, Object> frame = new HashMap<>(8);
+            frame.put("startTime", frameStart);
+            frame.put("endTime", frameEnd);
+            frame.put("edges", edges);
+            frame.put("newNodes", newNodes);
+            frame.put("totalNodes", nodeCount);
+            frame.put("totalEdges", last);
+            frameList.add(frame);
+            cursor = last;
+            if (frameEnd == end) {
+                break;
+            }
+        }
+        return replay;
+    }
+    
+    private static int markSeen(boolean[] seen, int node) {
+        if (seen[node]) {
+            return 0;
+        }
+        seen[node] = true;
+        return 1;
     }
     
     @Override
     public List<Map<String, Object>> analyzePropagationTrends(Long rumorId, String type) {
-        List<PropagationPath> paths = analyzePropagationPaths(rumorId);
-        
-        Map<String, Long> trendMap = paths.stream()
-            .collect(Collectors.groupingBy(
-                path -> {
-                    Calendar cal = Calendar.getInstance();
-                    cal.setTimeInMillis(path.getPropagationTime());
-                    if ("hour".equals(type)) {
-                        return String.format("%02d:00", cal.get(Calendar.HOUR_OF_DAY));
-                    } else {
-                        return String.format("%04d-%02d-%02d", 
-                            cal.get(Calendar.YEAR),
-                            cal.get(Calendar.MONTH) + 1,
-                            cal.get(Calendar.DAY_OF_MONTH));
-                    }
-                },
-                Collectors.counting()
-            ));
+        return analyzePropagationTrends(rumorId, type, null, null, null);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Map<String, Object>> analyzePropagationTrends(Long rumorId, String type,
+                                                              PropagationType propagationType,
+                                                              Long startTime, Long endTime) {
+        return cached(rumorId, "trends", LIST_RESULT,
+                state -> computePropagationTrends(state, type, propagationType, startTime, endTime),
+                type, propagationType, startTime, endTime);
+    }
+    
+    private List<Map<String, Object>> computePropagationTrends(RumorGraphState state, String type,
+                                                               PropagationType propagationType,
+                                                               Long startTime, Long endTime) {
+        TrendBuckets buckets = state.trends();
+        List<Map<String, Object>> trends = new ArrayList<>();
         
-        // 确保时间序列完整
         if ("hour".equals(type)) {
-            for (int i = 0; i < 24; i++) {
-                String hour = String.format("%02d:00", i);
-                trendMap.putIfAbsent(hour, 0L);
+            // 按小时统计，确保 24 小时序列完整
+            long[] counts = buckets.hourOfDayCounts(propagationType);
+            for (int hour = 0; hour < 24; hour++) {
+                trends.add(trendPoint(String.format("%02d:00", hour), counts[hour]));
+            }
+        } else if ("minute".equals(type) || "hourly".equals(type)) {
+            // 最近窗口内的分钟桶 / 小时桶
+            boolean minute = "minute".equals(type);
+            TrendBuckets.Series series = buckets.series(
+                    minute ? TrendBuckets.Granularity.MINUTE : TrendBuckets.Granularity.HOUR,
+                    propagationType, startTime, endTime);
+            DateTimeFormatter formatter = minute ? MINUTE_FORMATTER : HOUR_FORMATTER;
+            for (int i = 0; i < series.size(); i++) {
+                LocalDateTime bucketStart = LocalDateTime.ofEpochSecond(
+                        Math.floorDiv(series.localStart(i), 1000L), 0, ZoneOffset.UTC);
+                trends.add(trendPoint(formatter.format(bucketStart), series.count(i)));
             }
         } else {
-            // 获取最早和最晚的日期
-            Optional<Long> minTime = paths.stream()
-                .map(PropagationPath::getPropagationTime)
-                .min(Long::compareTo);
-            Optional<Long> maxTime = paths.stream()
-                .map(PropagationPath::getPropagationTime)
-                .max(Long::compareTo);
-            
-            if (minTime.isPresent() && maxTime.isPresent()) {
-                Calendar start = Calendar.getInstance();
-                start.setTimeInMillis(minTime.get());
-                Calendar end = Calendar.getInstance();
-                end.setTimeInMillis(maxTime.get());
-                
-                while (!start.after(end)) {
-                    String date = String.format("%04d-%02d-%02d", 
-                        start.get(Calendar.YEAR),
-                        start.get(Calendar.MONTH) + 1,
-                        start.get(Calendar.DAY_OF_MONTH));
-                    trendMap.putIfAbsent(date, 0L);
-                    start.add(Calendar.DAY_OF_MONTH, 1);
+            // 按天统计，日期序列从最早到最晚连续；周、月由日桶合并
+            TrendBuckets.Series series = buckets.series(
+                    TrendBuckets.Granularity.DAY, propagationType, startTime, endTime);
+            String lastLabel = null;
+            long lastCount = 0;
+            for (int i = 0; i < series.size(); i++) {
+                LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(series.localStart(i), TrendBuckets.MILLIS_PER_DAY));
+                String label;
+                if ("week".equals(type)) {
+                    label = day.with(DayOfWeek.MONDAY).toString();
+                } else if ("month".equals(type)) {
+                    label = YearMonth.from(day).toString();
+                } else {
+                    label = day.toString();
+                }
+                if (label.equals(lastLabel)) {
+                    lastCount += series.count(i);
+                    continue;
                 }
+                if (lastLabel != null) {
+                    trends.add(trendPoint(lastLabel, lastCount));
+                }
+                lastLabel = label;
+                lastCount = series.count(i);
+            }
+            if (lastLabel != null) {
+                trends.add(trendPoint(lastLabel, lastCount));
             }
         }
         
-        // 转换为前端需要的格式并按时间排序
-        return trendMap.entrySet().stream()
-            .map(entry -> {
-                Map<String, Object> map = new HashMap<>();
-                map.put("time", entry.getKey());
-                map.put("count", entry.getValue());
-                return map;
-            })
-            .sorted(Comparator.comparing(m -> (String) m.get("time")))
-            .collect(Collectors.toList());
+        return trends;
+    }
+    
+    private Map<String, Object> trendPoint(String time, long count) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("time", time);
+        map.put("count", count);
+        return map;
     }
     
     private String formatTime(Long timestamp) {
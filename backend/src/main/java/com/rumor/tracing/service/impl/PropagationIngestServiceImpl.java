@@ -0,0 +1,449 @@
+package com.rumor.tracing.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rumor.tracing.entity.PropagationPath;
+import com.rumor.tracing.exception.BusinessException;
+import com.rumor.tracing.graph.PropagationGraphStore;
+import com.rumor.tracing.model.IngestFormat;
+import com.rumor.tracing.model.PropagationType;
+import com.rumor.tracing.repository.NodeRumorIndexRepository;
+import com.rumor.tracing.repository.PropagationPathBulkRepository;
+import com.rumor.tracing.repository.PropagationPathVersionRepository;
+import com.rumor.tracing.repository.RumorRepository;
+import com.rumor.tracing.service.InfluenceSnapshotService;
+import com.rumor.tracing.service.PropagationIngestService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 传播边批量导入服务
+ * 请求线程增量解析边流并按批切分，批次交给固定数量的写入线程，每批一个事务：
+ * JDBC 批量插入传播路径并 upsert 节点-谣言倒排索引。多个写入线程的批次提交顺序不定，逐批并入内存传播图会反复整图重新加载，
+ * 因此导入期间不逐批并入，全部批次结束后按最新传播路径版本加载一次。
+ * 全局信号量限制在途批次数，达到上限时解析线程阻塞，不再读取请求体。
+ */
+@Slf4j
+@Service
+public class PropagationIngestServiceImpl implements PropagationIngestService {
+
+    /** 返回的无效记录明细条数上限 */
+    private static final int MAX_ERRORS = 20;
+    /** 行锁冲突（死锁、锁等待超时）时单批的最多尝试次数 */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String[] CSV_COLUMNS = {"sourceNode", "targetNode", "propagationTime", "type", "pathLength"};
+
+    private final RumorRepository rumorRepository;
+    private final PropagationPathBulkRepository propagationPathBulkRepository;
+    private final PropagationPathVersionRepository propagationPathVersionRepository;
+    private final NodeRumorIndexRepository nodeRumorIndexRepository;
+    private final PropagationGraphStore propagationGraphStore;
+    private final InfluenceSnapshotService influenceSnapshotService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Semaphore inFlight;
+    private final ExecutorService writers;
+
+    public PropagationIngestServiceImpl(
+            RumorRepository rumorRepository,
+            PropagationPathBulkRepository propagationPathBulkRepository,
+            PropagationPathVersionRepository propagationPathVersionRepository,
+            NodeRumorIndexRepository nodeRumorIndexRepository,
+            PropagationGraphStore propagationGraphStore,
+            InfluenceSnapshotService influenceSnapshotService,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${propagation.ingest.batch-size:5000}") int batchSize,
+            @Value("${propagation.ingest.writers:4}") int writerCount,
+            @Value("${propagation.ingest.max-in-flight:8}") int maxInFlight) {
+        this.rumorRepository = rumorRepository;
+        this.propagationPathBulkRepository = propagationPathBulkRepository;
+        this.propagationPathVersionRepository = propagationPathVersionRepository;
+        this.nodeRumorIndexRepository = nodeRumorIndexRepository;
+        this.propagationGraphStore = propagationGraphStore;
+        this.influenceSnapshotService = influenceSnapshotService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.inFlight = new Semaphore(Math.max(writerCount, maxInFlight));
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerCount, runnable -> {
+            Thread thread = new Thread(runnable, "propagation-ingest-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Map<String, Object> ingest(Long rumorId, InputStream input, IngestFormat format) throws IOException {
+        if (!rumorRepository.existsById(rumorId)) {
+            throw new BusinessException("谣言不存在：" + rumorId);
+        }
+        long start = System.currentTimeMillis();
+        IngestRun run = new IngestRun(rumorId);
+        JsonProcessingException malformed = null;
+        try {
+            if (format == IngestFormat.CSV) {
+                parseCsv(input, run);
+            } else {
+                parseNdjson(input, run);
+            }
+            run.flush();
+        } catch (JsonProcessingException e) {
+            malformed = e;
+        } catch (WriteFailedException e) {
+            // 写入线程已失败，停止解析，下面统一报告
+        } finally {
+            run.awaitWriters();
+            if (run.committed.get() > 0) {
+                influenceSnapshotService.markDirty(rumorId);
+            }
+        }
+        if (run.committed.get() > 0) {
+            // 部分批次已提交时同样刷新，使正在传播的谣言常驻缓存并更新病毒式传播得分
+            propagationGraphStore.getState(rumorId);
+        }
+
+        if (run.failure.get() != null) {
+            throw new BusinessException(String.format("批量写入传播路径失败，已导入 %d 条", run.committed.get()),
+                    run.failure.get());
+        }
+        if (malformed != null) {
+            throw new BusinessException(String.format("第 %d 行 JSON 格式错误：%s，已导入 %d 条",
+                    malformed.getLocation() != null ? malformed.getLocation().getLineNr() : -1,
+                    malformed.getOriginalMessage(), run.committed.get()), malformed);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("谣言 {} 批量导入完成：{} 条边，{} 条无效，{} 批，耗时 {} ms",
+                rumorId, run.committed.get(), run.rejected, run.batches, elapsed);
+        Map<String, Object> result = new HashMap<>();
+        result.put("accepted", run.committed.get());
+        result.put("rejected", run.rejected);
+        result.put("batches", run.batches);
+        result.put("elapsedMs", elapsed);
+        result.put("errors", run.errors);
+        return result;
+    }
+
+    private void parseNdjson(InputStream input, IngestRun run) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                long line = parser.getTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    run.reject(line, "记录不是 JSON 对象");
+                    continue;
+                }
+                String sourceNode = null;
+                String targetNode = null;
+                Long propagationTime = null;
+                String type = null;
+                Integer pathLength = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "sourceNode":
+                            sourceNode = value.isScalarValue() ? parser.getValueAsString() : null;
+                            break;
+                        case "targetNode":
+                            targetNode = value.isScalarValue() ? parser.getValueAsString() : null;
+                            break;
+                        case "propagationTime":
+                            // 显式装箱：条件表达式两侧为 long/Long 时会拆箱，字符串无效时 parseLong 返回 null
+                            propagationTime = value.isNumeric() ? Long.valueOf(parser.getLongValue())
+                                    : parseLong(parser.getValueAsString());
+                            break;
+                        case "type":
+                            type = value.isScalarValue() ? parser.getValueAsString() : null;
+                            break;
+                        case "pathLength":
+                            pathLength = value.isNumeric() ? parser.getIntValue() : null;
+                            break;
+                        default:
+                            break;
+                    }
+                    parser.skipChildren();
+                }
+                run.add(line, sourceNode, targetNode, propagationTime, type, pathLength);
+            }
+        }
+    }
+
+    private void parseCsv(InputStream input, IngestRun run) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        // 列位置依次为 sourceNode、targetNode、propagationTime、type、pathLength，无表头时按该顺序
+        int[] columns = {0, 1, 2, 3, 4};
+        List<String> fields = new ArrayList<>(8);
+        boolean first = true;
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            splitCsv(text, fields);
+            if (first) {
+                first = false;
+                if (isHeader(fields)) {
+                    columns = headerColumns(fields);
+                    continue;
+                }
+            }
+            Long pathLength = parseLong(field(fields, columns[4]));
+            run.add(line,
+                    field(fields, columns[0]),
+                    field(fields, columns[1]),
+                    parseLong(field(fields, columns[2])),
+                    field(fields, columns[3]),
+                    pathLength != null ? pathLength.intValue() : null);
+        }
+    }
+
+    /**
+     * 按 RFC 4180 拆分单行（支持双引号包裹与 "" 转义，不支持跨行字段）
+     */
+    private static void splitCsv(String line, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+    }
+
+    private static boolean isHeader(List<String> fields) {
+        for (String field : fields) {
+            if (CSV_COLUMNS[0].equalsIgnoreCase(field.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] headerColumns(List<String> header) {
+        int[] columns = new int[CSV_COLUMNS.length];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < header.size(); i++) {
+            for (int c = 0; c < CSV_COLUMNS.length; c++) {
+                if (CSV_COLUMNS[c].equalsIgnoreCase(header.get(i).trim())) {
+                    columns[c] = i;
+                }
+            }
+        }
+        for (int c = 0; c < 4; c++) {
+            if (columns[c] < 0) {
+                throw new BusinessException("CSV 表头缺少列：" + CSV_COLUMNS[c]);
+            }
+        }
+        return columns;
+    }
+
+    private static String field(List<String> fields, int column) {
+        if (column < 0 || column >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 在一个事务内写入一批传播路径及其倒排索引并递增传播路径版本，行锁冲突时整批重试
+     */
+    private void writeBatch(Long rumorId, List<PropagationPath> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    propagationPathBulkRepository.insertAll(batch);
+                    nodeRumorIndexRepository.addPaths(batch);
+                    propagationPathVersionRepository.increment(rumorId);
+                });
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("谣言 {} 批量写入遇到锁冲突，第 {} 次重试", rumorId, attempt);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdown();
+    }
+
+    /**
+     * 写入线程已失败，终止解析
+     */
+    private static final class WriteFailedException extends RuntimeException {
+        WriteFailedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * 单次导入的状态：当前批次、计数与在途批次
+     */
+    private final class IngestRun {
+
+        private final Long rumorId;
+        private final Phaser pending = new Phaser(1);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicLong committed = new AtomicLong();
+        private final List<String> errors = new ArrayList<>();
+        private long rejected;
+        private int batches;
+        private List<PropagationPath> batch;
+
+        IngestRun(Long rumorId) {
+            this.rumorId = rumorId;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        void add(long line, String sourceNode, String targetNode, Long propagationTime, String typeName,
+                 Integer pathLength) {
+            if (sourceNode == null || sourceNode.isBlank() || targetNode == null || targetNode.isBlank()) {
+                reject(line, "缺少 sourceNode 或 targetNode");
+                return;
+            }
+            if (propagationTime == null) {
+                reject(line, "缺少或无效的 propagationTime");
+                return;
+            }
+            if (typeName == null) {
+                reject(line, "缺少 type");
+                return;
+            }
+            PropagationType type;
+            try {
+                type = PropagationType.valueOf(typeName.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                reject(line, "未知的 type：" + typeName);
+                return;
+            }
+
+            PropagationPath path = new PropagationPath();
+            path.setRumorId(rumorId);
+            path.setSourceNode(sourceNode);
+            path.setTargetNode(targetNode);
+            path.setPropagationTime(propagationTime);
+            path.setType(type);
+            path.setPathLength(pathLength != null && pathLength > 0 ? pathLength : 1);
+            batch.add(path);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("第 " + line + " 行：" + message);
+            }
+        }
+
+        /**
+         * 提交当前批次，在途批次已满时阻塞
+         */
+        void flush() {
+            if (failure.get() != null) {
+                throw new WriteFailedException();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<PropagationPath> submitted = batch;
+            batch = new ArrayList<>(batchSize);
+            batches++;
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException("批量导入被中断");
+            }
+            pending.register();
+            try {
+                writers.execute(() -> {
+                    try {
+                        if (failure.get() == null) {
+                            writeBatch(rumorId, submitted);
+                            committed.addAndGet(submitted.size());
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        inFlight.release();
+                        pending.arriveAndDeregister();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                pending.arriveAndDeregister();
+                throw new BusinessException("批量导入服务已关闭", e);
+            }
+        }
+
+        void awaitWriters() {
+            pending.arriveAndAwaitAdvance();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.rumor.tracing.service.impl;
 
 import com.rumor.tracing.dto.RumorDTO;
 import com.rumor.tracing.entity.Rumor;
+import com.rumor.tracing.graph.PropagationGraphStore;
+import com.rumor.tracing.graph.ViralityMonitor;
 import com.rumor.tracing.repository.RumorRepository;
 import com.rumor.tracing.service.RumorService;
 import com.rumor.tracing.exception.BusinessException;
@@ -19,6 +21,8 @@ import java.util.stream.Collectors;
 public class RumorServiceImpl implements RumorService {
 
     private final RumorRepository rumorRepository;
+    private final ViralityMonitor viralityMonitor;
+    private final PropagationGraphStore propagationGraphStore;
     
 
     @Override
@@ -128,6 +132,8 @@ public class RumorServiceImpl implements RumorService {
                     throw new BusinessException("删除谣言失败: " + ex.getMessage());
                 }
             }
+            // 释放已删除谣言的缓存图与预警状态
+            propagationGraphStore.evict(rumorId);
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
@@ -165,6 +171,7 @@ public class RumorServiceImpl implements RumorService {
         dto.setVerifyTime(rumor.getVerifiedAt());
         dto.setVerifier(rumor.getVerifiedBy() != null ? rumor.getVerifiedBy().toString() : null);
         dto.setCreator(rumor.getCreatedBy() != null ? rumor.getCreatedBy().toString() : null);
+        dto.setViralityScore(viralityMonitor.score(rumor.getId()));
         return dto;
     }
 }
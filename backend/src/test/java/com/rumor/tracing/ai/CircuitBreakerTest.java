@@ -0,0 +1,107 @@
+package com.rumor.tracing.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    /**
+     * 依次记录调用结果：F 失败，S 成功，I 忽略
+     */
+    private static void record(CircuitBreaker breaker, String outcomes) {
+        for (char outcome : outcomes.toCharArray()) {
+            assertTrue(breaker.tryAcquire());
+            if (outcome == 'F') {
+                breaker.onFailure();
+            } else if (outcome == 'S') {
+                breaker.onSuccess();
+            } else {
+                breaker.onIgnored();
+            }
+        }
+    }
+
+    private static CircuitBreaker openBreaker(long openMillis) {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, openMillis);
+        record(breaker, "FF");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        return breaker;
+    }
+
+    @Test
+    void opensOnceMinimumCallsReachFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 1000);
+        record(breaker, "FSS");
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        record(breaker, "F");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void belowMinimumCallsStaysClosed() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 1000);
+        record(breaker, "FFF");
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void slidingWindowDropsOldOutcomes() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 1.0, 1000);
+        // 窗口为 [S, F]，失败率 0.5
+        record(breaker, "FSF");
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        record(breaker, "F");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void ignoredOutcomesAreNotCounted() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 1000);
+        record(breaker, "FIIII");
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        record(breaker, "F");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void halfOpenAllowsSingleProbeAndClosesOnSuccess() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(50);
+        assertFalse(breaker.tryAcquire());
+        TimeUnit.MILLISECONDS.sleep(60);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        // 关闭后重新统计，之前的失败不再计入
+        record(breaker, "F");
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(50);
+        TimeUnit.MILLISECONDS.sleep(60);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void ignoredProbeLetsNextProbeThrough() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(50);
+        TimeUnit.MILLISECONDS.sleep(60);
+        assertTrue(breaker.tryAcquire());
+        breaker.onIgnored();
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    }
+}
@@ -0,0 +1,186 @@
+package com.rumor.tracing.ai;
+
+import com.rumor.tracing.dto.response.DeepSeekAnalysisResponse;
+import com.rumor.tracing.exception.BusinessException;
+import com.rumor.tracing.model.AnalysisPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeepSeekDispatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DeepSeekChatClient chatClient = mock(DeepSeekChatClient.class);
+    /** 按发送顺序记录的单条请求内容 */
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final Map<String, Sinks.One<DeepSeekAnalysisResponse>> replies = new ConcurrentHashMap<>();
+    private DeepSeekDispatcher dispatcher;
+
+    @BeforeEach
+    void stubClient() {
+        when(chatClient.analyze(anyString())).thenAnswer(invocation -> {
+            String content = invocation.getArgument(0);
+            sent.add(content);
+            return reply(content).asMono();
+        });
+        // 批量请求中内容为 "missing" 的条目被模型遗漏
+        when(chatClient.analyzeBatch(anyList())).thenAnswer(invocation -> {
+            List<String> contents = invocation.getArgument(0);
+            batches.add(List.copyOf(contents));
+            Map<Integer, DeepSeekAnalysisResponse> results = new HashMap<>();
+            for (int i = 0; i < contents.size(); i++) {
+                if (!"missing".equals(contents.get(i))) {
+                    results.put(i, response(contents.get(i)));
+                }
+            }
+            return Mono.just(results);
+        });
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    private void start(int maxInFlight, int maxBatchSize, long timeoutMillis, long maxQueueWaitMillis) {
+        TokenBucket rateLimiter = new TokenBucket(1000, 100);
+        DeepSeekResilience resilience = new DeepSeekResilience(meterRegistry, new StandardEnvironment(), rateLimiter,
+            0, 10, 30000, false, 0.1, 20, 60000, 50, 10, 0.5, 30000, 64);
+        dispatcher = new DeepSeekDispatcher(chatClient, resilience, meterRegistry, rateLimiter, timeoutMillis,
+            maxInFlight, 100, maxBatchSize, 400, 3000, 30000, maxQueueWaitMillis, maxQueueWaitMillis);
+        dispatcher.start();
+    }
+
+    private CompletableFuture<DeepSeekAnalysisResponse> submit(String content, AnalysisPriority priority) {
+        return dispatcher.submit(content, priority).toFuture();
+    }
+
+    private Sinks.One<DeepSeekAnalysisResponse> reply(String content) {
+        return replies.computeIfAbsent(content, key -> Sinks.one());
+    }
+
+    private void answer(String content) {
+        reply(content).tryEmitValue(response(content));
+    }
+
+    private static DeepSeekAnalysisResponse response(String content) {
+        return DeepSeekAnalysisResponse.builder().verificationRecommendation(content).build();
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (sent.size() < count && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertEquals(count, sent.size());
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) {
+        return assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS)).getCause();
+    }
+
+    @Test
+    void singleRequestCompletes() throws Exception {
+        start(4, 1, 5000, 5000);
+        CompletableFuture<DeepSeekAnalysisResponse> result = submit("a", null);
+        awaitSent(1);
+        answer("a");
+        assertEquals("a", result.get(2, TimeUnit.SECONDS).getVerificationRecommendation());
+    }
+
+    @Test
+    void interactiveRequestsGoFirst() throws Exception {
+        start(1, 1, 5000, 5000);
+        CompletableFuture<DeepSeekAnalysisResponse> first = submit("first", AnalysisPriority.BACKFILL);
+        awaitSent(1);
+        CompletableFuture<DeepSeekAnalysisResponse> backfill = submit("backfill", AnalysisPriority.BACKFILL);
+        CompletableFuture<DeepSeekAnalysisResponse> interactive = submit("interactive", AnalysisPriority.INTERACTIVE);
+
+        answer("first");
+        awaitSent(2);
+        assertEquals("interactive", sent.get(1));
+        answer("interactive");
+        awaitSent(3);
+        assertEquals("backfill", sent.get(2));
+        answer("backfill");
+        assertEquals("first", first.get(2, TimeUnit.SECONDS).getVerificationRecommendation());
+        assertEquals("interactive", interactive.get(2, TimeUnit.SECONDS).getVerificationRecommendation());
+        assertEquals("backfill", backfill.get(2, TimeUnit.SECONDS).getVerificationRecommendation());
+    }
+
+    @Test
+    void queuedShortContentsAreBatchedAndMissingItemsResent() throws Exception {
+        start(1, 8, 5000, 5000);
+        submit("first", null);
+        awaitSent(1);
+        CompletableFuture<DeepSeekAnalysisResponse> x = submit("x", null);
+        CompletableFuture<DeepSeekAnalysisResponse> missing = submit("missing", null);
+        CompletableFuture<DeepSeekAnalysisResponse> z = submit("z", null);
+        answer("missing");
+
+        answer("first");
+        assertEquals("x", x.get(2, TimeUnit.SECONDS).getVerificationRecommendation());
+        assertEquals("z", z.get(2, TimeUnit.SECONDS).getVerificationRecommendation());
+        assertEquals(List.of(List.of("x", "missing", "z")), batches);
+        // 批量结果中缺失的条目单独重发
+        assertEquals("missing", missing.get(2, TimeUnit.SECONDS).getVerificationRecommendation());
+        assertEquals(List.of("first", "missing"), sent);
+    }
+
+    @Test
+    void requestFailsAfterMaxQueueWait() throws Exception {
+        start(1, 1, 5000, 100);
+        CompletableFuture<DeepSeekAnalysisResponse> first = submit("first", null);
+        awaitSent(1);
+        CompletableFuture<DeepSeekAnalysisResponse> late = submit("late", null);
+
+        Throwable error = failure(late);
+        assertTrue(error instanceof BusinessException, error.toString());
+        assertEquals(1.0, meterRegistry.counter("deepseek.queue.expired", "priority", "INTERACTIVE").count());
+
+        // 排队超时的请求不再发出
+        answer("first");
+        first.get(2, TimeUnit.SECONDS);
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertEquals(List.of("first"), sent);
+    }
+
+    @Test
+    void singleTimeoutCountsFromEnqueue() throws Exception {
+        start(1, 1, 300, 5000);
+        CompletableFuture<DeepSeekAnalysisResponse> first = submit("first", null);
+        awaitSent(1);
+        long submittedAt = System.nanoTime();
+        CompletableFuture<DeepSeekAnalysisResponse> second = submit("second", null);
+
+        assertTrue(failure(first) instanceof TimeoutException);
+        failure(second);
+        // 第一条超时前第二条一直在排队，排队时间计入超时，不会在发出后再等待完整的 300 ms
+        assertTrue(System.nanoTime() - submittedAt < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+}
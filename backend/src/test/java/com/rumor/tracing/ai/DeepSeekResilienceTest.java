@@ -0,0 +1,147 @@
+package com.rumor.tracing.ai;
+
+import com.rumor.tracing.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeepSeekResilienceTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment();
+
+    /**
+     * 不重试熔断，对冲比例不限，一个样本即可计算 p95
+     */
+    private DeepSeekResilience resilience(TokenBucket rateLimiter, int maxRetries) {
+        return new DeepSeekResilience(meterRegistry, environment, rateLimiter,
+            maxRetries, 1, 30000, true, 1.0, 1, 60000, 50, 50, 1.0, 30000, 4);
+    }
+
+    private static TokenBucket unlimited() {
+        return new TokenBucket(100000, 1000);
+    }
+
+    private static WebClientResponseException status(int status) {
+        return WebClientResponseException.create(status, "error", HttpHeaders.EMPTY, new byte[0], null);
+    }
+
+    /**
+     * 记录调用次数，每次调用在 delayMillis 后返回
+     */
+    private static Supplier<Mono<String>> counting(AtomicInteger calls, long delayMillis) {
+        return () -> {
+            calls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(delayMillis)).thenReturn("ok");
+        };
+    }
+
+    /**
+     * 完成一次约 20 ms 的单条调用，使对冲延迟（p95）为约 20 ms
+     */
+    private static void warmUpLatency(DeepSeekResilience resilience) {
+        resilience.call("single", counting(new AtomicInteger(), 20), true).block(WAIT);
+        assertTrue(resilience.p95Millis() > 0);
+    }
+
+    @Test
+    void unknownTypeIsRejectedWithoutCreatingBulkhead() {
+        DeepSeekResilience resilience = resilience(unlimited(), 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        Mono<String> result = resilience.isolate("unknown", counting(calls, 0));
+        assertThrows(BusinessException.class, () -> result.block(WAIT));
+        assertThrows(BusinessException.class,
+            () -> resilience.isolateStream("../x", () -> counting(calls, 0).get().flux()).blockLast(WAIT));
+        assertEquals(0, calls.get());
+        // 只有固定的分析类型注册了指标
+        assertEquals(4, meterRegistry.find("deepseek.bulkhead.available").gauges().size());
+    }
+
+    @Test
+    void bulkheadLimitsEachTypeIndependently() {
+        environment.setProperty("ai.resilience.bulkhead.limits.IMAGE", "1");
+        DeepSeekResilience resilience = resilience(unlimited(), 0);
+        Disposable pending = resilience.isolate("image", Mono::never).subscribe();
+        try {
+            assertThrows(BusinessException.class, () -> resilience.isolate("IMAGE", () -> Mono.just("ok")).block(WAIT));
+            assertEquals("ok", resilience.isolate("text", () -> Mono.just("ok")).block(WAIT));
+            assertEquals("ok", resilience.isolate("multimodal", () -> Mono.just("ok")).block(WAIT));
+        } finally {
+            pending.dispose();
+        }
+        // 取消后释放许可
+        assertEquals("ok", resilience.isolate("IMAGE", () -> Mono.just("ok")).block(WAIT));
+    }
+
+    @Test
+    void retriesWaitForRateLimiterToken() {
+        TokenBucket rateLimiter = new TokenBucket(5, 1);
+        DeepSeekResilience resilience = resilience(rateLimiter, 1);
+        // 首次调用的令牌由调度器取得
+        assertEquals(0, rateLimiter.tryAcquire());
+        AtomicInteger calls = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String result = resilience.call("batch", () -> calls.incrementAndGet() == 1
+            ? Mono.<String>error(status(503)) : Mono.just("ok"), false).block(WAIT);
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        // 重试前等待令牌补充（每 200 ms 一个）
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertTrue(rateLimiter.tryAcquire() > 0);
+    }
+
+    @Test
+    void slowCallIsHedged() {
+        DeepSeekResilience resilience = resilience(unlimited(), 0);
+        warmUpLatency(resilience);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("ok", resilience.call("single", counting(calls, 300), true).block(WAIT));
+        assertEquals(2, calls.get());
+        assertEquals(1.0, meterRegistry.counter("deepseek.hedges").count());
+    }
+
+    @Test
+    void hedgeWaitsForRateLimiterToken() {
+        TokenBucket rateLimiter = new TokenBucket(0.001, 1);
+        DeepSeekResilience resilience = resilience(rateLimiter, 0);
+        warmUpLatency(resilience);
+        assertEquals(0, rateLimiter.tryAcquire());
+        AtomicInteger calls = new AtomicInteger();
+
+        // 对冲已决定发出但取不到令牌，主请求先返回
+        assertEquals("ok", resilience.call("single", counting(calls, 300), true).block(WAIT));
+        assertEquals(1.0, meterRegistry.counter("deepseek.hedges").count());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void noHedgingAfterRateLimited() {
+        DeepSeekResilience resilience = resilience(unlimited(), 0);
+        warmUpLatency(resilience);
+        assertThrows(WebClientResponseException.class,
+            () -> resilience.call("single", () -> Mono.<String>error(status(429)), true).block(WAIT));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("ok", resilience.call("single", counting(calls, 300), true).block(WAIT));
+        assertEquals(1, calls.get());
+        assertEquals(0.0, meterRegistry.counter("deepseek.hedges").count());
+    }
+}
@@ -0,0 +1,105 @@
+package com.rumor.tracing.ai;
+
+import com.rumor.tracing.dto.response.DeepSeekAnalysisResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeepSeekResponseParserTest {
+
+    private static byte[] utf8(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void messageContentSkipsOtherFields() throws IOException {
+        String body = "{\"id\": \"x\", \"usage\": {\"total_tokens\": 10, \"details\": [1, 2]}, "
+            + "\"choices\": [{\"index\": 0, \"logprobs\": null, \"message\": {\"role\": \"assistant\", "
+            + "\"tool_calls\": [], \"content\": \"{\\\"credibilityScore\\\": 0.5}\"}}, "
+            + "{\"message\": {\"content\": \"second\"}}]}";
+        assertEquals("{\"credibilityScore\": 0.5}", DeepSeekResponseParser.messageContent(utf8(body)));
+    }
+
+    @Test
+    void missingMessageContentIsRejected() {
+        assertThrows(IOException.class, () -> DeepSeekResponseParser.messageContent(utf8("{\"choices\": []}")));
+        assertThrows(IOException.class,
+            () -> DeepSeekResponseParser.messageContent(utf8("{\"choices\": [{\"message\": {\"content\": null}}]}")));
+        assertThrows(IOException.class, () -> DeepSeekResponseParser.messageContent(utf8("[]")));
+        assertThrows(IOException.class, () -> DeepSeekResponseParser.messageContent(utf8("{\"choices\": [")));
+    }
+
+    @Test
+    void deltaContentIsEmptyWithoutContent() throws IOException {
+        assertEquals("可信", DeepSeekResponseParser.deltaContent("{\"choices\": [{\"delta\": {\"content\": \"可信\"}}]}"));
+        assertEquals("", DeepSeekResponseParser.deltaContent("{\"choices\": [{\"delta\": {\"role\": \"assistant\"}}]}"));
+        assertEquals("", DeepSeekResponseParser.deltaContent("{\"choices\": [{\"delta\": {}, \"finish_reason\": \"stop\"}]}"));
+    }
+
+    @Test
+    void analysisFillsDefaultsForMissingFields() throws IOException {
+        DeepSeekAnalysisResponse response = DeepSeekResponseParser.analysis(
+            "{\"credibilityScore\": null, \"verificationRecommendation\": null, \"sourceAnalysis\": {\"reliability\": 0.4}}");
+        assertEquals(0.0, response.getCredibilityScore());
+        assertEquals(List.of(), response.getFactCheckingPoints());
+        assertEquals(List.of(), response.getMisinformationIndicators());
+        assertEquals("暂无验证建议", response.getVerificationRecommendation());
+        assertEquals(0.4, response.getSourceAnalysis().getReliability());
+        assertEquals("未知", response.getSourceAnalysis().getReputation());
+        assertEquals(List.of(), response.getSourceAnalysis().getConcerns());
+
+        // 空字符串的对象字段视为缺失
+        DeepSeekAnalysisResponse empty = DeepSeekResponseParser.analysis("{\"sourceAnalysis\": \"\"}");
+        assertEquals(0.0, empty.getSourceAnalysis().getReliability());
+        assertEquals("未知", empty.getSourceAnalysis().getReputation());
+    }
+
+    @Test
+    void analysisToleratesUnknownFieldsAndSingleValues() throws IOException {
+        DeepSeekAnalysisResponse response = DeepSeekResponseParser.analysis(
+            "{\"credibilityScore\": 0.9, \"factCheckingPoints\": \"来源可靠\", \"extra\": {\"a\": [1]}, "
+                + "\"misinformationIndicators\": [\"旧图\", \"夸大\"]}");
+        assertEquals(0.9, response.getCredibilityScore());
+        assertEquals(List.of("来源可靠"), response.getFactCheckingPoints());
+        assertEquals(List.of("旧图", "夸大"), response.getMisinformationIndicators());
+    }
+
+    @Test
+    void malformedAnalysisIsRejected() {
+        assertThrows(IOException.class, () -> DeepSeekResponseParser.analysis("{\"credibilityScore\": 0.9"));
+        assertThrows(IOException.class, () -> DeepSeekResponseParser.analysis("不是 JSON"));
+    }
+
+    @Test
+    void batchKeepsFirstInRangeIndex() throws IOException {
+        Map<Integer, DeepSeekAnalysisResponse> results = DeepSeekResponseParser.batch("{\"results\": ["
+            + "{\"index\": 1, \"credibilityScore\": 0.2}, "
+            + "{\"index\": 1, \"credibilityScore\": 0.8}, "
+            + "{\"index\": 2, \"credibilityScore\": 0.3}, "
+            + "{\"index\": -1, \"credibilityScore\": 0.4}, "
+            + "{\"credibilityScore\": 0.5}, "
+            + "null, "
+            + "{\"index\": 0}]}", 2);
+        assertEquals(2, results.size());
+        assertEquals(0.2, results.get(1).getCredibilityScore());
+        // 缺失字段同样填入默认值
+        assertEquals(0.0, results.get(0).getCredibilityScore());
+        assertEquals("暂无验证建议", results.get(0).getVerificationRecommendation());
+        assertNull(results.get(2));
+    }
+
+    @Test
+    void batchWithoutResultsIsEmpty() throws IOException {
+        assertTrue(DeepSeekResponseParser.batch("{}", 3).isEmpty());
+        assertTrue(DeepSeekResponseParser.batch("{\"results\": null}", 3).isEmpty());
+        assertEquals(1, DeepSeekResponseParser.batch("{\"results\": {\"index\": 0}}", 3).size());
+    }
+}
@@ -0,0 +1,104 @@
+package com.rumor.tracing.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rumor.tracing.ai.IncrementalJsonFieldParser.JsonField;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalJsonFieldParserTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 字段的简要表示：name=value 或 name[index]=value
+     */
+    private static List<String> describe(List<JsonField> fields) {
+        List<String> described = new ArrayList<>();
+        for (JsonField field : fields) {
+            described.add(field.getName() + (field.isElement() ? "[" + field.getIndex() + "]" : "")
+                + "=" + field.getValue());
+        }
+        return described;
+    }
+
+    private static List<String> feedAll(IncrementalJsonFieldParser parser, String... chunks) throws IOException {
+        List<JsonField> fields = new ArrayList<>();
+        for (String chunk : chunks) {
+            fields.addAll(parser.feed(chunk));
+        }
+        return describe(fields);
+    }
+
+    @Test
+    void scalarFieldsAreReturnedOnceComplete() throws IOException {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser();
+        assertTrue(parser.feed("{\"credibilityScore\": 0.").isEmpty());
+        assertEquals(List.of("credibilityScore=0.85"), describe(parser.feed("85, \"verificationRecommendation\": \"需要")));
+        assertEquals(List.of("verificationRecommendation=\"需要核实\""), describe(parser.feed("核实\"}")));
+    }
+
+    @Test
+    void arrayElementsAreReturnedBeforeTheWholeArray() throws IOException {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser();
+        assertEquals(List.of("factCheckingPoints[0]=\"a\""), describe(parser.feed("{\"factCheckingPoints\": [\"a\", \"b")));
+
+        List<JsonField> rest = parser.feed("\"]}");
+        assertEquals(List.of("factCheckingPoints[1]=\"b\"", "factCheckingPoints=[\"a\",\"b\"]"), describe(rest));
+        assertNull(rest.get(1).getIndex());
+        assertFalse(rest.get(1).isElement());
+    }
+
+    @Test
+    void nestedObjectIsReturnedWhole() throws IOException {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser();
+        List<String> fields = feedAll(parser,
+            "{\"sourceAnalysis\": {\"reliability\": 0.5, ",
+            "\"concerns\": [\"x\"]",
+            "}, \"credibilityScore\": 1}");
+        assertEquals(List.of(
+            "sourceAnalysis={\"reliability\":0.5,\"concerns\":[\"x\"]}",
+            "credibilityScore=1"), fields);
+    }
+
+    @Test
+    void objectElementsAdvanceArrayIndex() throws IOException {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser();
+        List<String> fields = feedAll(parser, "{\"items\": [{\"a\": 1}, [2], \"s\"]}");
+        assertEquals(List.of("items[2]=\"s\"", "items=[{\"a\":1},[2],\"s\"]"), fields);
+    }
+
+    @Test
+    void scalarTypesArePreserved() throws IOException {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser();
+        List<JsonField> fields = parser.feed("{\"i\": 3, \"f\": 2.5, \"t\": true, \"n\": null, \"s\": \"x\"}");
+        assertTrue(fields.get(0).getValue().isIntegralNumber());
+        assertTrue(fields.get(1).getValue().isFloatingPointNumber());
+        assertTrue(fields.get(2).getValue().isBoolean());
+        assertTrue(fields.get(3).getValue().isNull());
+        assertTrue(fields.get(4).getValue().isTextual());
+    }
+
+    @Test
+    void characterByCharacterMatchesWholeDocument() throws IOException {
+        String json = "{\"credibilityScore\": 0.3, \"factCheckingPoints\": [\"来源不明\", \"图片为旧图\"], "
+            + "\"sourceAnalysis\": {\"reputation\": \"未知\", \"concerns\": []}, \"verificationRecommendation\": \"存疑\"}";
+        List<String> whole = feedAll(new IncrementalJsonFieldParser(), json);
+
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser();
+        List<JsonField> fields = new ArrayList<>();
+        for (int i = 0; i < json.length(); i++) {
+            fields.addAll(parser.feed(json.substring(i, i + 1)));
+        }
+        assertEquals(whole, describe(fields));
+        // 整个字段的值与直接解析完整文档一致
+        assertEquals(MAPPER.readTree(json).get("sourceAnalysis"), fields.get(fields.size() - 2).getValue());
+    }
+}
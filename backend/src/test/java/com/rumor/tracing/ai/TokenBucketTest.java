@@ -0,0 +1,62 @@
+package com.rumor.tracing.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void burstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    void waitEstimateMatchesRate() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        assertEquals(0, bucket.tryAcquire());
+        long waitNanos = bucket.tryAcquire();
+        assertTrue(waitNanos > 0 && waitNanos <= TimeUnit.MILLISECONDS.toNanos(100), "wait " + waitNanos);
+        // 未取得令牌时不扣减，再次查询的等待时间不会变长
+        assertTrue(bucket.tryAcquire() <= waitNanos);
+    }
+
+    @Test
+    void tokensRefillOverTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 1);
+        assertEquals(0, bucket.tryAcquire());
+        TimeUnit.MILLISECONDS.sleep(5);
+        assertEquals(0, bucket.tryAcquire());
+    }
+
+    @Test
+    void acquireWaitsForRefill() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        long start = System.nanoTime();
+        bucket.acquire();
+        bucket.acquire();
+        bucket.acquire();
+        // 首个令牌来自初始容量，其余两个各需 50 ms 补充
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+    }
+
+    @Test
+    void capacityIsAtLeastOne() {
+        TokenBucket bucket = new TokenBucket(1, 0);
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+    }
+
+    @Test
+    void rejectsNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+    }
+}
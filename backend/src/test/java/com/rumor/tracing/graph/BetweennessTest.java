@@ -0,0 +1,115 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BetweennessTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    private static PropagationGraph graph(String... edges) {
+        PropagationEdgeLog edgeLog = new PropagationEdgeLog();
+        for (int i = 0; i < edges.length; i++) {
+            String[] ends = edges[i].split(">");
+            edgeLog.append(ends[0], ends[1], i, PropagationType.SHARE);
+        }
+        return edgeLog.toGraph();
+    }
+
+    private static PropagationGraph chain(int n) {
+        PropagationEdgeLog edgeLog = new PropagationEdgeLog(n);
+        for (int i = 1; i < n; i++) {
+            edgeLog.append("u" + (i - 1), "u" + i, i, PropagationType.SHARE);
+        }
+        return edgeLog.toGraph();
+    }
+
+    @Test
+    void chainMiddleNodeLiesOnOnlyPath() {
+        // a=0, b=1, c=2；有向图中只有 (a, c) 经过 b
+        Betweenness.Result result = Betweenness.compute(graph("a>b", "b>c"), 0.05, 0.1, 512, 1, pool);
+
+        assertTrue(result.exact());
+        assertEquals(3, result.samples());
+        assertEquals(0.0, result.errorBound(), DELTA);
+        assertArrayEquals(new double[] {0, 1, 0}, result.scores(), DELTA);
+    }
+
+    @Test
+    void parallelShortestPathsSplitDependency() {
+        // a=0, b=1, c=2, d=3；a 到 d 的两条最短路各经过 b、c 一次
+        Betweenness.Result result = Betweenness.compute(
+                graph("a>b", "a>c", "b>d", "c>d"), 0.05, 0.1, 512, 1, pool);
+
+        assertArrayEquals(new double[] {0, 0.5, 0.5, 0}, result.scores(), DELTA);
+    }
+
+    @Test
+    void keyNodesAboveThreeTimesMean() {
+        // y=0, hub=1, x1..x4=2..5；hub 位于 (y, xi) 的 4 条最短路上，其余节点为 0
+        PropagationGraph graph = graph("y>hub", "hub>x1", "hub>x2", "hub>x3", "hub>x4");
+        Betweenness.Result result = Betweenness.compute(graph, 0.05, 0.1, 512, 1, pool);
+
+        assertEquals(4.0, result.scores()[1], DELTA);
+        assertArrayEquals(new int[] {1}, Betweenness.keyNodes(result.scores(), 10));
+        assertArrayEquals(new int[0], Betweenness.keyNodes(result.scores(), 0));
+    }
+
+    @Test
+    void requiredSamplesFollowHoeffdingBound() {
+        // ln(2 · 1000 / 0.1) / (2 · 0.1²) = 495.2
+        assertEquals(496, Betweenness.requiredSamples(1000, 0.1, 0.1));
+        assertEquals(100, Betweenness.requiredSamples(100, 0.1, 0.1));
+    }
+
+    @Test
+    void sampleCapReportsAchievedErrorBound() {
+        int n = 2000;
+        PropagationGraph graph = chain(n);
+
+        Betweenness.Result result = Betweenness.compute(graph, 0.05, 0.1, 200, 7, pool);
+
+        assertFalse(result.exact());
+        assertEquals(200, result.samples());
+        double bound = Math.sqrt(Math.log(2.0 * n / 0.1) / (2.0 * 200));
+        assertEquals(bound, result.errorBound(), DELTA);
+        assertTrue(result.errorBound() > 0.05);
+        // 链上节点 i 的精确介数为 i · (n - 1 - i)
+        double[] scores = result.scores();
+        for (int i = 0; i < n; i++) {
+            double exact = (double) i * (n - 1 - i);
+            assertTrue(Math.abs(scores[i] - exact) / ((double) n * (n - 1)) <= result.errorBound());
+        }
+    }
+
+    @Test
+    void interruptedCallerStopsSampling() {
+        PropagationGraph graph = graph("a>b", "b>c", "c>d");
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class,
+                    () -> Betweenness.compute(graph, 0.05, 0.1, 512, 1, pool));
+        } finally {
+            Thread.interrupted();
+        }
+        // 中断清除后可正常计算
+        assertEquals(4, Betweenness.compute(graph, 0.05, 0.1, 512, 1, pool).samples());
+    }
+}
@@ -0,0 +1,82 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CascadeTreeTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final PropagationEdgeLog edgeLog = new PropagationEdgeLog();
+
+    private void append(String source, String target, long time) {
+        edgeLog.append(source, target, time, PropagationType.SHARE);
+    }
+
+    @Test
+    void chainIsOneDeepCascade() {
+        append("a", "b", 0);
+        append("b", "c", 10);
+        append("c", "d", 30);
+
+        CascadeTree.Result result = CascadeTree.compute(edgeLog.toGraph());
+
+        assertEquals(1, result.cascadeCount());
+        assertEquals(3, result.depth());
+        assertArrayEquals(new int[] {1, 1, 1, 1}, result.levelBreadths());
+        assertEquals(2.0, result.averageDepth(), DELTA);
+        // 4 个节点的路径：节点对距离之和 1+2+3+1+2+1 = 10，共 6 对
+        assertEquals(10.0 / 6, result.structuralVirality(), DELTA);
+        assertArrayEquals(new long[] {0, 0, 10, 30}, result.timeToDepth());
+        assertEquals(4, result.largestCascadeSize());
+    }
+
+    @Test
+    void starIsBroadcast() {
+        append("r", "x1", 0);
+        append("r", "x2", 1);
+        append("r", "x3", 2);
+
+        CascadeTree.Result result = CascadeTree.compute(edgeLog.toGraph());
+
+        assertEquals(1, result.depth());
+        assertArrayEquals(new int[] {1, 3}, result.levelBreadths());
+        assertEquals(3, result.maxBreadth());
+        // 根到叶 3 对距离 1，叶之间 3 对距离 2
+        assertEquals(9.0 / 6, result.structuralVirality(), DELTA);
+    }
+
+    @Test
+    void earliestActivatedNodeBecomesParent() {
+        // 按到达顺序追加，传播时间乱序；b 先被 a 触达，c 到 b 的边不改变父节点，c 成为第二个级联的根
+        append("a", "b", 0);
+        append("c", "b", 5);
+        append("c", "d", 6);
+        append("b", "e", 3);
+
+        CascadeTree.Result result = CascadeTree.compute(edgeLog.toGraph());
+
+        assertEquals(2, result.cascadeCount());
+        assertEquals(2, result.depth());
+        assertArrayEquals(new int[] {2, 2, 1}, result.levelBreadths());
+        // 非根节点 b、d 深度 1，e 深度 2
+        assertEquals(4.0 / 3, result.averageDepth(), DELTA);
+        // 级联 a-b-e 距离之和 4（3 对），级联 c-d 距离 1（1 对）
+        assertEquals(5.0 / 4, result.structuralVirality(), DELTA);
+        assertArrayEquals(new long[] {0, 0, 3}, result.timeToDepth());
+        assertEquals(3, result.largestCascadeSize());
+    }
+
+    @Test
+    void emptyGraphHasNoCascade() {
+        CascadeTree.Result result = CascadeTree.compute(edgeLog.toGraph());
+
+        assertEquals(0, result.cascadeCount());
+        assertEquals(0, result.depth());
+        assertEquals(0.0, result.structuralVirality(), DELTA);
+        assertEquals(0, result.largestCascadeSize());
+    }
+}
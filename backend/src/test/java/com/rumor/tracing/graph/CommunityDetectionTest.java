@@ -0,0 +1,118 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CommunityDetectionTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    private static PropagationGraph graph(String... edges) {
+        PropagationEdgeLog edgeLog = new PropagationEdgeLog();
+        for (int i = 0; i < edges.length; i++) {
+            String[] ends = edges[i].split(">");
+            edgeLog.append(ends[0], ends[1], i, PropagationType.SHARE);
+        }
+        return edgeLog.toGraph();
+    }
+
+    /**
+     * 两个三角形由一条边相连：a=0, b=1, c=2, d=3, e=4, f=5
+     */
+    private static PropagationGraph bridgedTriangles() {
+        return graph("a>b", "b>c", "c>a", "c>d", "d>e", "e>f", "f>d");
+    }
+
+    @Test
+    void labelPropagationSplitsBridgedTriangles() {
+        CommunityPartition partition = LabelPropagation.compute(bridgedTriangles(), 20, pool);
+
+        // 第 1 轮 [0,0,0,2,3,3]，第 2 轮 [0,0,0,3,3,3]，第 3 轮不再变化
+        assertArrayEquals(new int[] {0, 0, 0, 1, 1, 1}, partition.communities());
+        assertEquals(2, partition.communityCount());
+        assertEquals(3, partition.iterations());
+        // 每个社区内部 3 条边、度之和 7，共 7 条边：2 · (3/7 - (7/14)²)
+        assertEquals(5.0 / 14, partition.modularity(), DELTA);
+    }
+
+    @Test
+    void labelPropagationStopsAtIterationCap() {
+        CommunityPartition partition = LabelPropagation.compute(bridgedTriangles(), 1, pool);
+
+        assertEquals(1, partition.iterations());
+        assertArrayEquals(new int[] {0, 0, 0, 1, 2, 2}, partition.communities());
+    }
+
+    @Test
+    void labelPropagationIndependentOfThreadCount() {
+        Random random = new Random(11);
+        PropagationEdgeLog edgeLog = new PropagationEdgeLog();
+        for (int i = 0; i < 160000; i++) {
+            edgeLog.append("u" + random.nextInt(40000), "u" + random.nextInt(40000), i, PropagationType.SHARE);
+        }
+        PropagationGraph graph = edgeLog.toGraph();
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            CommunityPartition expected = LabelPropagation.compute(graph, 10, single);
+            CommunityPartition actual = LabelPropagation.compute(graph, 10, pool);
+            assertArrayEquals(expected.communities(), actual.communities());
+            assertEquals(expected.iterations(), actual.iterations());
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void louvainSplitsBridgedTriangles() {
+        CommunityPartition partition = Louvain.compute(bridgedTriangles(), 10, 20);
+
+        assertArrayEquals(new int[] {0, 0, 0, 1, 1, 1}, partition.communities());
+        assertEquals(5.0 / 14, partition.modularity(), DELTA);
+    }
+
+    @Test
+    void louvainKeepsComponentsApartAndWeighsMultiEdges() {
+        // a-b 两条边、c-d 一条边：每个连通分量一个社区
+        CommunityPartition partition = Louvain.compute(graph("a>b", "b>a", "c>d"), 10, 20);
+
+        assertArrayEquals(new int[] {0, 0, 1, 1}, partition.communities());
+        // m = 3：(2/3 - (4/6)²) + (1/3 - (2/6)²)
+        assertEquals(2.0 / 3 - 4.0 / 9 + 1.0 / 3 - 1.0 / 9, partition.modularity(), DELTA);
+    }
+
+    @Test
+    void louvainWithoutEdgesKeepsSingletons() {
+        CommunityPartition partition = Louvain.compute(new PropagationEdgeLog().toGraph(), 10, 20);
+
+        assertEquals(0, partition.communityCount());
+        assertEquals(0, partition.iterations());
+    }
+
+    @Test
+    void interruptedCallerStopsCommunityDetection() {
+        PropagationGraph graph = bridgedTriangles();
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> Louvain.compute(graph, 10, 20));
+            assertThrows(CancellationException.class, () -> LabelPropagation.compute(graph, 20, pool));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NetworkDownsamplerTest {
+
+    private final PropagationEdgeLog edgeLog = new PropagationEdgeLog();
+
+    private void append(String source, String target, long time) {
+        edgeLog.append(source, target, time, PropagationType.SHARE);
+    }
+
+    /**
+     * 三角形 a、b、c 外接一条尾巴 c-d-e：a=0, b=1, c=2, d=3, e=4
+     */
+    private PropagationGraph triangleWithTail() {
+        append("a", "b", 1);
+        append("b", "c", 2);
+        append("c", "a", 3);
+        append("c", "d", 4);
+        append("d", "e", 5);
+        return edgeLog.toGraph();
+    }
+
+    private static String[] ids(NetworkView view) {
+        String[] ids = new String[view.nodeCount()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = view.nodeId(i);
+        }
+        return ids;
+    }
+
+    @Test
+    void coreNumbersPeelTail() {
+        PropagationGraph graph = triangleWithTail();
+        int[] degrees = new int[graph.nodeCount()];
+
+        int[] cores = NetworkDownsampler.coreNumbers(graph, degrees);
+
+        assertArrayEquals(new int[] {2, 2, 2, 1, 1}, cores);
+        assertArrayEquals(new int[] {2, 2, 3, 2, 1}, degrees);
+    }
+
+    @Test
+    void coreNumbersIgnoreSelfLoopsAndCountMultiEdges() {
+        append("a", "b", 1);
+        append("a", "b", 2);
+        append("b", "b", 3);
+
+        int[] degrees = new int[2];
+        int[] cores = NetworkDownsampler.coreNumbers(edgeLog.toGraph(), degrees);
+
+        assertArrayEquals(new int[] {2, 2}, degrees);
+        assertArrayEquals(new int[] {2, 2}, cores);
+    }
+
+    @Test
+    void kCoreWithoutKPicksSmallestCoreWithinLimit() {
+        // 核数 ≥ 1 的节点有 5 个，超过上限 3；核数 ≥ 2 的恰为三角形
+        NetworkView view = NetworkDownsampler.kCore(triangleWithTail(), null, 3);
+
+        // 按核数 + 度 / (最大度 + 1) 排序：c 度 3 在前，a、b 并列按编号
+        assertArrayEquals(new String[] {"c", "a", "b"}, ids(view));
+        assertEquals(2.0, view.nodeValue(0));
+        assertEquals(3, view.edgeCount());
+        assertEquals(5, view.totalNodes());
+        assertEquals(5, view.totalEdges());
+    }
+
+    @Test
+    void kCoreWithExplicitKTruncatesToLimit() {
+        NetworkView view = NetworkDownsampler.kCore(triangleWithTail(), 1, 2);
+
+        assertArrayEquals(new String[] {"c", "a"}, ids(view));
+        // 视图内只有 c → a
+        assertEquals(1, view.edgeCount());
+        assertEquals(0, view.edgeSource(0));
+        assertEquals(1, view.edgeTarget(0));
+    }
+
+    @Test
+    void topKMergesParallelEdges() {
+        append("a", "b", 5);
+        append("a", "b", 3);
+        append("a", "c", 4);
+        PropagationGraph graph = edgeLog.toGraph();
+
+        NetworkView view = NetworkDownsampler.topK(graph, new double[] {3, 2, 1}, 2);
+
+        assertArrayEquals(new String[] {"a", "b"}, ids(view));
+        assertEquals(1, view.edgeCount());
+        assertEquals(2, view.edgeWeight(0));
+        assertEquals(3, view.edgeTime(0));
+    }
+
+    @Test
+    void timeWindowRanksByInWindowDegree() {
+        append("a", "b", 1);
+        append("b", "c", 5);
+        append("c", "d", 9);
+
+        NetworkView view = NetworkDownsampler.timeWindow(edgeLog.toGraph(), 4L, 9L, 2);
+
+        // 窗口内 b、d 度为 1，c 度为 2；并列时取编号小的 b
+        assertArrayEquals(new String[] {"c", "b"}, ids(view));
+        assertEquals(2.0, view.nodeValue(0));
+        assertEquals(1, view.edgeCount());
+        assertEquals(1, view.edgeSource(0));
+        assertEquals(0, view.edgeTarget(0));
+        assertEquals(5, view.edgeTime(0));
+    }
+
+    @Test
+    void communitiesCollapseIntoRepresentatives() {
+        // 两个三角形由 c → d 相连，社区内度最大的 c、d 作为代表
+        append("a", "b", 1);
+        append("b", "c", 2);
+        append("c", "a", 3);
+        append("c", "d", 4);
+        append("d", "e", 5);
+        append("e", "f", 6);
+        append("f", "d", 7);
+        PropagationGraph graph = edgeLog.toGraph();
+        CommunityPartition partition = new CommunityPartition(new int[] {0, 0, 0, 1, 1, 1}, 1, 0.0);
+
+        NetworkView view = NetworkDownsampler.communities(graph, partition, 10);
+
+        assertArrayEquals(new String[] {"c", "d"}, ids(view));
+        assertEquals(3, view.nodeSize(0));
+        assertEquals(3, view.nodeSize(1));
+        assertEquals(1, view.edgeCount());
+        assertEquals(1, view.edgeWeight(0));
+        assertEquals(4, view.edgeTime(0));
+    }
+}
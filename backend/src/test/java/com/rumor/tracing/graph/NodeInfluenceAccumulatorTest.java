@@ -0,0 +1,110 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NodeInfluenceAccumulatorTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final double DELTA = 1e-9;
+
+    private final PropagationEdgeLog edgeLog = new PropagationEdgeLog();
+    private final NodeInfluenceAccumulator accumulator = new NodeInfluenceAccumulator(edgeLog);
+
+    private void append(String source, String target, long time, PropagationType type) {
+        accumulator.addEdge(edgeLog.append(source, target, time, type));
+    }
+
+    @Test
+    void nodeWithEdgesInBothTimeRegions() {
+        // a=0, b=1, c=2；b 的两条边分别落在下限区间与线性区间
+        append("a", "b", 0, PropagationType.FORWARD);
+        append("b", "c", 20 * HOUR, PropagationType.COMMENT);
+
+        double[] scores = accumulator.scores(24 * HOUR);
+
+        // e0 时间因子取下限 0.1；e1 时间因子 1 - 4/24
+        assertEquals(0.1 * 1.5 * 1.5, scores[0], DELTA);
+        assertEquals(0.1 * 1.5 + 5.0 / 6 * 1.2 * 1.5, scores[1], DELTA);
+        assertEquals(5.0 / 6 * 1.2, scores[2], DELTA);
+        assertArrayEquals(new int[] {1, 2, 1}, accumulator.pathCounts());
+    }
+
+    @Test
+    void queryTimeMovingBackwardsRestoresLinearRegion() {
+        append("a", "b", 0, PropagationType.FORWARD);
+        append("b", "c", 20 * HOUR, PropagationType.COMMENT);
+        accumulator.scores(48 * HOUR);
+
+        double[] scores = accumulator.scores(10 * HOUR);
+
+        // e0 时间因子 1 - 10/24；e1 晚于查询时间，时间因子 1 + 10/24
+        assertEquals(7.0 / 12 * 1.5 * 1.5, scores[0], DELTA);
+        assertEquals(7.0 / 12 * 1.5 + 17.0 / 12 * 1.2 * 1.5, scores[1], DELTA);
+        assertEquals(17.0 / 12 * 1.2, scores[2], DELTA);
+    }
+
+    @Test
+    void lateEdgeOlderThanBoundaryGoesToFloorRegion() {
+        append("a", "b", 30 * HOUR, PropagationType.LIKE);
+        accumulator.scores(30 * HOUR);
+        append("c", "a", 0, PropagationType.SHARE);
+
+        double[] scores = accumulator.scores(30 * HOUR);
+
+        assertEquals(1.5 + 0.1, scores[0], DELTA);
+        assertEquals(1.0, scores[1], DELTA);
+        assertEquals(0.1 * 1.5, scores[2], DELTA);
+    }
+
+    @Test
+    void matchesPerEdgeSumAcrossRandomQueries() {
+        Random random = new Random(7);
+        PropagationType[] types = PropagationType.values();
+        for (int i = 0; i < 500; i++) {
+            append("n" + random.nextInt(40), "n" + random.nextInt(40),
+                    random.nextInt(72) * HOUR + random.nextInt(1000), types[random.nextInt(types.length)]);
+            if (i % 50 == 49) {
+                long now = random.nextInt(96) * HOUR;
+                assertArrayEquals(InfluenceScoring.scores(edgeLog.toGraph(), now), accumulator.scores(now), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void degreesSplitPathCounts() {
+        // a=0, b=1, c=2；含自环
+        append("a", "b", 0, PropagationType.SHARE);
+        append("a", "c", 1, PropagationType.SHARE);
+        append("b", "c", 2, PropagationType.SHARE);
+        append("c", "c", 3, PropagationType.SHARE);
+
+        NodeInfluence influence = new NodeInfluence(edgeLog.nodes().names(), accumulator.scores(HOUR),
+                accumulator.pathCounts(), accumulator.outDegrees(), edgeLog.size());
+
+        assertArrayEquals(new int[] {2, 1, 1}, accumulator.outDegrees());
+        assertEquals(0, influence.inDegree(0));
+        assertEquals(1, influence.inDegree(1));
+        assertEquals(3, influence.inDegree(2));
+    }
+
+    @Test
+    void rankPagesByScore() {
+        String[] ids = {"a", "b", "c", "d", "e"};
+        double[] scores = {0.5, 2.0, 1.0, 2.0, 0.1};
+        NodeInfluence influence = new NodeInfluence(ids, scores, new int[5], new int[5], 0);
+
+        // 分数相同时编号小的在前
+        assertArrayEquals(new int[] {1, 3}, influence.rank(0, 2));
+        assertArrayEquals(new int[] {2, 0}, influence.rank(2, 2));
+        assertArrayEquals(new int[] {4}, influence.rank(4, 2));
+        assertArrayEquals(new int[0], influence.rank(5, 2));
+        assertArrayEquals(new int[0], influence.rank(0, 0));
+        assertArrayEquals(new int[] {4}, influence.rank(4, Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,129 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageRankTest {
+
+    private static final double DAMPING = 0.85;
+    private static final double TOLERANCE = 1e-12;
+    private static final double DELTA = 1e-9;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    private static PropagationGraph graph(String... edges) {
+        PropagationEdgeLog edgeLog = new PropagationEdgeLog();
+        for (int i = 0; i < edges.length; i++) {
+            String[] ends = edges[i].split(">");
+            edgeLog.append(ends[0], ends[1], i, PropagationType.SHARE);
+        }
+        return edgeLog.toGraph();
+    }
+
+    @Test
+    void danglingMassFollowsTeleportVector() {
+        // a=0, b=1, c=2；b、c 无出边，其质量均匀分回三个节点
+        PropagationGraph graph = graph("a>b", "a>c");
+
+        PageRank.Result result = PageRank.compute(graph, null, DAMPING, TOLERANCE, 200, pool);
+
+        // r_a = 0.05 + 0.85 · (1 - r_a) / 3，r_b = r_c = (1 - r_a) / 2
+        double root = 1 / 3.85;
+        assertTrue(result.converged());
+        assertEquals(root, result.ranks()[0], DELTA);
+        assertEquals((1 - root) / 2, result.ranks()[1], DELTA);
+        assertEquals((1 - root) / 2, result.ranks()[2], DELTA);
+    }
+
+    @Test
+    void cycleIsStationaryFromFirstIteration() {
+        PropagationGraph graph = graph("a>b", "b>c", "c>a");
+
+        PageRank.Result result = PageRank.compute(graph, null, DAMPING, TOLERANCE, 200, pool);
+
+        assertEquals(1, result.iterations());
+        assertEquals(0.0, result.residual(), DELTA);
+        assertArrayEquals(new double[] {1.0 / 3, 1.0 / 3, 1.0 / 3}, result.ranks(), DELTA);
+    }
+
+    @Test
+    void personalizedRankTeleportsOnlyToSeed() {
+        // 种子 a：r_a = 0.15 + 0.85 · r_b，r_b = 0.85 · r_a
+        PropagationGraph graph = graph("a>b");
+
+        PageRank.Result result = PageRank.compute(graph, new int[] {0}, DAMPING, TOLERANCE, 200, pool);
+
+        assertEquals(1 / 1.85, result.ranks()[0], DELTA);
+        assertEquals(0.85 / 1.85, result.ranks()[1], DELTA);
+    }
+
+    @Test
+    void iterationCapReportsNotConverged() {
+        PropagationGraph graph = graph("a>b", "a>c");
+
+        PageRank.Result result = PageRank.compute(graph, null, DAMPING, TOLERANCE, 2, pool);
+
+        assertEquals(2, result.iterations());
+        assertFalse(result.converged());
+    }
+
+    @Test
+    void parallelChunksMatchSingleThread() {
+        Random random = new Random(7);
+        PropagationEdgeLog edgeLog = new PropagationEdgeLog();
+        for (int node = 1; node < 20000; node++) {
+            edgeLog.append("u" + random.nextInt(node), "u" + node, node, PropagationType.SHARE);
+            edgeLog.append("u" + random.nextInt(20000), "u" + node, node, PropagationType.FORWARD);
+        }
+        PropagationGraph graph = edgeLog.toGraph();
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            double[] expected = PageRank.compute(graph, null, DAMPING, 1e-10, 200, single).ranks();
+            double[] actual = PageRank.compute(graph, null, DAMPING, 1e-10, 200, pool).ranks();
+            assertArrayEquals(expected, actual, 1e-12);
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void graphIndexOfUsesNodeIds() {
+        PropagationGraph graph = graph("a>b", "c>a");
+
+        assertEquals(0, graph.indexOf("a"));
+        assertEquals(1, graph.indexOf("b"));
+        assertEquals(2, graph.indexOf("c"));
+        assertEquals(-1, graph.indexOf("d"));
+        assertEquals(-1, graph.indexOf(null));
+    }
+
+    @Test
+    void interruptedCallerStopsIterating() {
+        PropagationGraph graph = graph("a>b", "b>c", "c>a");
+        // 分析任务取消时中断工作线程
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class,
+                    () -> PageRank.compute(graph, null, DAMPING, TOLERANCE, 200, pool));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
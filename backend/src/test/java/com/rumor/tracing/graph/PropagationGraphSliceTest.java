@@ -0,0 +1,107 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PropagationGraphSliceTest {
+
+    private PropagationGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        PropagationEdgeLog edgeLog = new PropagationEdgeLog();
+        // 按到达顺序追加，传播时间乱序
+        edgeLog.append("a", "b", 100, PropagationType.SHARE);
+        edgeLog.append("b", "c", 300, PropagationType.COMMENT);
+        edgeLog.append("a", "d", 200, PropagationType.FORWARD);
+        edgeLog.append("d", "e", 400, PropagationType.LIKE);
+        graph = edgeLog.toGraph();
+    }
+
+    /**
+     * 切片中的边：source>target@time，按源节点、出边顺序
+     */
+    private static List<String> edges(PropagationGraph graph) {
+        List<String> edges = new ArrayList<>();
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.offsets()[u]; e < graph.offsets()[u + 1]; e++) {
+                edges.add(graph.nodeId(u) + ">" + graph.nodeId(graph.targets()[e]) + "@" + graph.times()[e]);
+            }
+        }
+        return edges;
+    }
+
+    @Test
+    void sliceIsInclusiveAtBothEnds() {
+        PropagationGraph slice = graph.slice(200, 300);
+        assertEquals(List.of("a>d@200", "b>c@300"), edges(slice));
+        assertEquals(4, slice.nodeCount());
+        assertEquals(200, slice.minTime());
+        assertEquals(300, slice.maxTime());
+    }
+
+    @Test
+    void sliceCoveringAllEdgesReturnsItself() {
+        assertSame(graph, graph.slice(100, 400));
+        assertSame(graph, graph.slice(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void emptySliceHasNoNodes() {
+        PropagationGraph between = graph.slice(101, 199);
+        assertTrue(between.isEmpty());
+        assertEquals(0, between.nodeCount());
+        assertEquals(0, between.edgeCount());
+
+        assertTrue(graph.slice(500, 600).isEmpty());
+        // 区间颠倒
+        assertTrue(graph.slice(300, 200).isEmpty());
+    }
+
+    @Test
+    void asOfWithoutWindowKeepsHistory() {
+        assertEquals(List.of("a>b@100", "a>d@200"), edges(graph.sliceAsOf(299L, null)));
+        assertSame(graph, graph.sliceAsOf(null, null));
+        assertSame(graph, graph.sliceAsOf(400L, null));
+    }
+
+    @Test
+    void windowStartsAtAsOfMinusWindowPlusOne() {
+        // 窗口 (asOf - window, asOf]：200 恰在 300 - 101 + 1 处被包含
+        assertEquals(List.of("a>d@200", "b>c@300"), edges(graph.sliceAsOf(300L, 101L)));
+        // 窗口缩短 1 毫秒，200 落在窗口外
+        assertEquals(List.of("b>c@300"), edges(graph.sliceAsOf(300L, 100L)));
+        // 窗口为 1 时只含 asOf 时刻
+        assertEquals(List.of("b>c@300"), edges(graph.sliceAsOf(300L, 1L)));
+    }
+
+    @Test
+    void windowWithoutAsOfEndsAtLatestEdge() {
+        assertEquals(List.of("d>e@400"), edges(graph.sliceAsOf(null, 100L)));
+        assertEquals(List.of("b>c@300", "d>e@400"), edges(graph.sliceAsOf(null, 101L)));
+    }
+
+    @Test
+    void nonPositiveWindowIsUnbounded() {
+        assertEquals(edges(graph.sliceAsOf(300L, null)), edges(graph.sliceAsOf(300L, 0L)));
+        assertEquals(3, graph.sliceAsOf(300L, -5L).edgeCount());
+    }
+
+    @Test
+    void emptyWindowAndEmptyGraph() {
+        assertTrue(graph.sliceAsOf(99L, null).isEmpty());
+        assertTrue(graph.sliceAsOf(350L, 50L).isEmpty());
+
+        PropagationGraph empty = new PropagationEdgeLog().toGraph();
+        assertSame(empty, empty.sliceAsOf(100L, 10L));
+        assertTrue(empty.slice(0, 100).isEmpty());
+    }
+}
@@ -0,0 +1,197 @@
+package com.rumor.tracing.graph;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rumor.tracing.entity.PropagationPath;
+import com.rumor.tracing.model.PropagationType;
+import com.rumor.tracing.repository.PropagationPathStreamLoader;
+import com.rumor.tracing.repository.PropagationPathVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PropagationGraphStoreTest {
+
+    private static final Long RUMOR = 1L;
+
+    private final PropagationPathVersionRepository versionRepository = mock(PropagationPathVersionRepository.class);
+    private final PropagationPathStreamLoader streamLoader = mock(PropagationPathStreamLoader.class);
+    /** 已提交的传播路径与版本 */
+    private final List<PropagationPath> committed = new ArrayList<>();
+    private long version;
+    private int loads;
+    /** 加载过程中模拟提交的路径，为 null 时不提交 */
+    private List<PropagationPath> commitDuringLoad;
+    private ViralityMonitor monitor;
+    private PropagationGraphStore store;
+
+    @BeforeEach
+    void setUp() {
+        when(versionRepository.find(RUMOR)).thenAnswer(invocation -> version);
+        when(streamLoader.forEachEdge(any(), any(PropagationEdgeConsumer.class))).thenAnswer(invocation -> {
+            PropagationEdgeConsumer consumer = invocation.getArgument(1);
+            loads++;
+            List<PropagationPath> snapshot = new ArrayList<>(committed);
+            if (commitDuringLoad != null) {
+                // 读取边期间另一个事务提交，且其边已被读到
+                commit(commitDuringLoad);
+                snapshot.addAll(commitDuringLoad);
+                commitDuringLoad = null;
+            }
+            long id = 0;
+            for (PropagationPath path : snapshot) {
+                consumer.accept(++id, path.getSourceNode(), path.getTargetNode(), path.getPropagationTime(),
+                        path.getType());
+            }
+            return id;
+        });
+        monitor = new ViralityMonitor(new ObjectMapper(), "", 60, 10);
+        store = new PropagationGraphStore(versionRepository, streamLoader, monitor, 16, 60, 24);
+    }
+
+    private static List<PropagationPath> paths(String... edges) {
+        List<PropagationPath> paths = new ArrayList<>();
+        for (String edge : edges) {
+            PropagationPath path = new PropagationPath();
+            path.setRumorId(RUMOR);
+            path.setSourceNode(edge.substring(0, 1));
+            path.setTargetNode(edge.substring(1));
+            path.setPropagationTime(1_700_000_000_000L);
+            path.setType(PropagationType.FORWARD);
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    /**
+     * 模拟一个写事务提交：写入路径并递增版本
+     */
+    private long commit(List<PropagationPath> paths) {
+        committed.addAll(paths);
+        return ++version;
+    }
+
+    @Test
+    void reloadsOnlyWhenVersionAdvances() {
+        commit(paths("ab", "bc"));
+        RumorGraphState state = store.getState(RUMOR);
+        assertEquals(2, state.edgeCount());
+        assertSame(state, store.getState(RUMOR));
+        assertEquals(1, loads);
+
+        // 其他实例写入，版本前进后重新加载
+        commit(paths("cd"));
+        assertEquals(3, store.getState(RUMOR).edgeCount());
+        assertEquals(2, loads);
+    }
+
+    @Test
+    void olderVersionServesCurrentState() {
+        commit(paths("ab"));
+        long read = store.version(RUMOR);
+        commit(paths("bc"));
+        assertEquals(2, store.getState(RUMOR).edgeCount());
+        assertEquals(2, store.getState(RUMOR, read).edgeCount());
+        assertEquals(1, loads);
+    }
+
+    @Test
+    void nextVersionIsAppendedWithoutReload() {
+        commit(paths("ab"));
+        store.getState(RUMOR);
+        List<PropagationPath> batch = paths("bc", "cd");
+        long batchVersion = commit(batch);
+
+        store.append(RUMOR, batchVersion, batch);
+        assertEquals(3, store.getState(RUMOR).edgeCount());
+        assertEquals(1, loads);
+    }
+
+    @Test
+    void versionAlreadyLoadedIsSkipped() {
+        commit(paths("ab"));
+        List<PropagationPath> batch = paths("bc");
+        long batchVersion = commit(batch);
+        // 提交后、并入前已有请求按新版本加载
+        store.getState(RUMOR);
+
+        store.append(RUMOR, batchVersion, batch);
+        assertEquals(2, store.getState(RUMOR).edgeCount());
+        assertEquals(1, loads);
+    }
+
+    @Test
+    void outOfOrderAppendsReloadOnce() {
+        commit(paths("ab"));
+        store.getState(RUMOR);
+        List<PropagationPath> first = paths("bc");
+        long firstVersion = commit(first);
+        List<PropagationPath> second = paths("cd");
+        long secondVersion = commit(second);
+
+        // 后提交的批次先并入：中间的版本缺失，重新加载（已包含两批）
+        store.append(RUMOR, secondVersion, second);
+        assertEquals(2, loads);
+        store.append(RUMOR, firstVersion, first);
+        assertEquals(2, loads);
+        assertEquals(3, store.getState(RUMOR).edgeCount());
+    }
+
+    @Test
+    void commitDuringLoadIsNotAppendedTwice() {
+        commit(paths("ab"));
+        List<PropagationPath> concurrent = paths("bc");
+        commitDuringLoad = concurrent;
+        assertEquals(2, store.getState(RUMOR).edgeCount());
+        assertEquals(1, loads);
+
+        // 该版本在加载期间提交，不确定是否已读到，重新加载而不是重复并入
+        store.append(RUMOR, version, concurrent);
+        assertEquals(2, loads);
+        assertEquals(2, store.getState(RUMOR).edgeCount());
+    }
+
+    @Test
+    void unloadedRumorIsLoadedOnAppend() {
+        List<PropagationPath> batch = paths("ab");
+        long batchVersion = commit(batch);
+        store.append(RUMOR, batchVersion, batch);
+        assertEquals(1, loads);
+        assertEquals(1, store.getState(RUMOR).edgeCount());
+        assertEquals(1, loads);
+    }
+
+    @Test
+    void evictedRumorLeavesNoViralityWindow() {
+        PropagationGraphStore small = new PropagationGraphStore(versionRepository, streamLoader, monitor, 1, 60, 24);
+        commit(paths("ab"));
+        small.getState(RUMOR);
+        assertNotNull(monitor.score(RUMOR));
+
+        // 容量为 1，加载第二个谣言时淘汰第一个
+        small.getState(2L);
+        assertNull(monitor.score(RUMOR));
+        assertNotNull(monitor.score(2L));
+    }
+
+    @Test
+    void evictDropsGraphAndViralityWindow() {
+        commit(paths("ab"));
+        store.getState(RUMOR);
+        store.evict(RUMOR);
+        assertNull(monitor.score(RUMOR));
+
+        store.getState(RUMOR);
+        assertEquals(2, loads);
+        assertNotNull(monitor.score(RUMOR));
+    }
+}
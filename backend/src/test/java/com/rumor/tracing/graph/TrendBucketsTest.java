@@ -0,0 +1,119 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import static com.rumor.tracing.graph.TrendBuckets.MILLIS_PER_DAY;
+import static com.rumor.tracing.graph.TrendBuckets.MILLIS_PER_HOUR;
+import static com.rumor.tracing.graph.TrendBuckets.MILLIS_PER_MINUTE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrendBucketsTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static void add(TrendBuckets buckets, long time, PropagationType type) {
+        buckets.add(time, PropagationGraph.typeCode(type));
+    }
+
+    private static long[] counts(TrendBuckets.Series series) {
+        long[] counts = new long[series.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = series.count(i);
+        }
+        return counts;
+    }
+
+    @Test
+    void hourOfDayUsesLocalTimeZone() {
+        TrendBuckets buckets = new TrendBuckets(TimeZone.getTimeZone("GMT+08:00"));
+        // UTC 00:30 与 23:10 分别为本地 08 点与次日 07 点
+        add(buckets, 30 * MILLIS_PER_MINUTE, PropagationType.SHARE);
+        add(buckets, 23 * MILLIS_PER_HOUR + 10 * MILLIS_PER_MINUTE, PropagationType.COMMENT);
+
+        long[] all = buckets.hourOfDayCounts(null);
+        assertEquals(1, all[8]);
+        assertEquals(1, all[7]);
+        assertEquals(2, Arrays.stream(all).sum());
+        assertEquals(0, buckets.hourOfDayCounts(PropagationType.SHARE)[7]);
+        assertEquals(1, buckets.hourOfDayCounts(PropagationType.COMMENT)[7]);
+
+        // 本地日期不同，按天为连续两天
+        TrendBuckets.Series days = buckets.series(TrendBuckets.Granularity.DAY, null, null, null);
+        assertArrayEquals(new long[] {1, 1}, counts(days));
+        assertEquals(0, days.localStart(0));
+    }
+
+    @Test
+    void minuteRingKeepsOnlyRecentWindow() {
+        TrendBuckets buckets = new TrendBuckets(UTC, 3, 2);
+        add(buckets, 0, PropagationType.SHARE);
+        add(buckets, MILLIS_PER_MINUTE, PropagationType.SHARE);
+        add(buckets, 5 * MILLIS_PER_MINUTE + 1, PropagationType.FORWARD);
+        // 已滚出 3 个分钟桶的窗口，只计入小时桶与天桶
+        add(buckets, 2 * MILLIS_PER_MINUTE, PropagationType.SHARE);
+
+        TrendBuckets.Series minutes = buckets.series(TrendBuckets.Granularity.MINUTE, null, null, null);
+        assertEquals(3 * MILLIS_PER_MINUTE, minutes.localStart(0));
+        assertArrayEquals(new long[] {0, 0, 1}, counts(minutes));
+
+        TrendBuckets.Series hours = buckets.series(TrendBuckets.Granularity.HOUR, null, null, null);
+        assertArrayEquals(new long[] {4}, counts(hours));
+        assertArrayEquals(new long[] {3},
+                counts(buckets.series(TrendBuckets.Granularity.HOUR, PropagationType.SHARE, null, null)));
+    }
+
+    @Test
+    void hourRingClearsOverwrittenBuckets() {
+        TrendBuckets buckets = new TrendBuckets(UTC, 3, 2);
+        add(buckets, 0, PropagationType.SHARE);
+        add(buckets, MILLIS_PER_HOUR, PropagationType.SHARE);
+        // 第 2 小时覆盖第 0 小时所在的槽位
+        add(buckets, 2 * MILLIS_PER_HOUR, PropagationType.SHARE);
+
+        TrendBuckets.Series hours = buckets.series(TrendBuckets.Granularity.HOUR, null, null, null);
+        assertEquals(MILLIS_PER_HOUR, hours.localStart(0));
+        assertArrayEquals(new long[] {1, 1}, counts(hours));
+    }
+
+    @Test
+    void daySeriesGrowsBackwardsAndClipsToRange() {
+        TrendBuckets buckets = new TrendBuckets(UTC);
+        add(buckets, 2 * MILLIS_PER_DAY, PropagationType.LIKE);
+        add(buckets, 0, PropagationType.LIKE);
+        add(buckets, 2 * MILLIS_PER_DAY + MILLIS_PER_HOUR, PropagationType.LIKE);
+
+        TrendBuckets.Series days = buckets.series(TrendBuckets.Granularity.DAY, null, null, null);
+        assertEquals(0, days.localStart(0));
+        assertArrayEquals(new long[] {1, 0, 2}, counts(days));
+
+        // 与 [第 1 天中午, 第 2 天 00:00] 相交的桶为第 1、2 天
+        TrendBuckets.Series clipped = buckets.series(TrendBuckets.Granularity.DAY, null,
+                MILLIS_PER_DAY + 12 * MILLIS_PER_HOUR, 2 * MILLIS_PER_DAY);
+        assertEquals(MILLIS_PER_DAY, clipped.localStart(0));
+        assertArrayEquals(new long[] {0, 2}, counts(clipped));
+
+        TrendBuckets.Series empty = buckets.series(TrendBuckets.Granularity.DAY, null,
+                5 * MILLIS_PER_DAY, 6 * MILLIS_PER_DAY);
+        assertEquals(0, empty.size());
+    }
+
+    @Test
+    void copyIsIndependent() {
+        TrendBuckets buckets = new TrendBuckets(UTC);
+        assertTrue(buckets.isEmpty());
+        add(buckets, 0, PropagationType.SHARE);
+        TrendBuckets copy = buckets.copy();
+        add(buckets, 0, PropagationType.SHARE);
+
+        assertArrayEquals(new long[] {1},
+                counts(copy.series(TrendBuckets.Granularity.MINUTE, null, null, null)));
+        assertArrayEquals(new long[] {2},
+                counts(buckets.series(TrendBuckets.Granularity.MINUTE, null, null, null)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.rumor.tracing.graph;
+
+import com.rumor.tracing.model.PropagationType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ViralityFeaturesTest {
+
+    private static final long BUCKET = 60 * 1000L;
+    private static final int WINDOW = 10;
+    private static final long START = 1_700_000_000_000L;
+    private static final byte FORWARD = PropagationGraph.typeCode(PropagationType.FORWARD);
+
+    private static ViralityFeatures features() {
+        return new ViralityFeatures(ViralityModel.defaults(), BUCKET, WINDOW);
+    }
+
+    /**
+     * 在 START 所在的桶内追加一条长度为 edges 的转发链
+     */
+    private static void burst(ViralityFeatures features, int edges) {
+        for (int i = 0; i < edges; i++) {
+            features.add(i, i + 1, START + i, FORWARD);
+        }
+    }
+
+    private static double idleScore() {
+        return ViralityModel.defaults().score(new double[ViralityFeatures.FEATURE_NAMES.length]);
+    }
+
+    @Test
+    void burstScoresAboveThreshold() {
+        ViralityFeatures features = features();
+        burst(features, 100);
+
+        double[] values = features.features(START);
+        assertEquals(Math.log1p(10.0), values[0], 1e-9);
+        assertEquals(100, values[2], 1e-9);
+        assertEquals(1.0, values[3], 1e-9);
+        assertTrue(features.score(START) >= ViralityModel.defaults().threshold());
+    }
+
+    @Test
+    void scoreDecaysAfterPropagationStops() {
+        ViralityFeatures features = features();
+        burst(features, 100);
+
+        // 一个窗口后最近窗口为空，加速度为负，深度不再增长
+        double[] oneWindowLater = features.features(START + WINDOW * BUCKET);
+        assertEquals(0.0, oneWindowLater[0], 1e-9);
+        assertTrue(oneWindowLater[1] < 0);
+        assertEquals(0.0, oneWindowLater[2], 1e-9);
+        assertTrue(features.score(START + WINDOW * BUCKET) < ViralityModel.defaults().threshold());
+
+        // 两个窗口后两侧窗口都为空，得分回到无传播时的基线
+        assertEquals(idleScore(), features.score(START + 2 * WINDOW * BUCKET), 1e-12);
+        assertEquals(idleScore(), features.score(START + 1000 * BUCKET), 1e-12);
+    }
+
+    @Test
+    void currentTimeBeforeLatestEdgeUsesLatestBucket() {
+        ViralityFeatures features = features();
+        burst(features, 20);
+        features.add(21, 22, START + 3 * BUCKET, FORWARD);
+
+        assertArrayEquals(features.features(START + 3 * BUCKET), features.features(START), 1e-12);
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterEdges() {
+        ViralityFeatures features = features();
+        burst(features, 10);
+        ViralityFeatures snapshot = features.snapshot();
+        double before = snapshot.score(START);
+
+        burst(features, 100);
+        assertEquals(before, snapshot.score(START), 1e-12);
+        assertTrue(features.score(START) > before);
+    }
+
+    @Test
+    void emptyFeaturesScoreZero() {
+        ViralityFeatures features = features();
+        assertEquals(0.0, features.score(START), 0.0);
+        assertArrayEquals(new double[ViralityFeatures.FEATURE_NAMES.length], features.features(START), 0.0);
+    }
+}
@@ -0,0 +1,211 @@
+package com.rumor.tracing.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rumor.tracing.entity.PropagationPath;
+import com.rumor.tracing.exception.BusinessException;
+import com.rumor.tracing.graph.PropagationGraphStore;
+import com.rumor.tracing.model.IngestFormat;
+import com.rumor.tracing.model.PropagationType;
+import com.rumor.tracing.repository.NodeRumorIndexRepository;
+import com.rumor.tracing.repository.PropagationPathBulkRepository;
+import com.rumor.tracing.repository.PropagationPathVersionRepository;
+import com.rumor.tracing.repository.RumorRepository;
+import com.rumor.tracing.service.InfluenceSnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PropagationIngestServiceImplTest {
+
+    private static final Long RUMOR = 7L;
+
+    private final RumorRepository rumorRepository = mock(RumorRepository.class);
+    private final PropagationPathBulkRepository bulkRepository = mock(PropagationPathBulkRepository.class);
+    private final PropagationPathVersionRepository versionRepository = mock(PropagationPathVersionRepository.class);
+    private final PropagationGraphStore graphStore = mock(PropagationGraphStore.class);
+    private final InfluenceSnapshotService snapshotService = mock(InfluenceSnapshotService.class);
+    /** 按写入顺序记录的批次 */
+    private final List<List<PropagationPath>> batches = new CopyOnWriteArrayList<>();
+    private PropagationIngestServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        when(rumorRepository.existsById(RUMOR)).thenReturn(true);
+        doAnswer(invocation -> {
+            batches.add(new ArrayList<>(invocation.getArgument(0)));
+            return null;
+        }).when(bulkRepository).insertAll(anyList());
+        // 单个写入线程，批次按提交顺序写入
+        service = new PropagationIngestServiceImpl(rumorRepository, bulkRepository, versionRepository,
+                mock(NodeRumorIndexRepository.class), graphStore, snapshotService,
+                mock(PlatformTransactionManager.class), new ObjectMapper(), 2, 1, 1);
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    private Map<String, Object> ingest(IngestFormat format, String... lines) throws IOException {
+        byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return service.ingest(RUMOR, new ByteArrayInputStream(body), format);
+    }
+
+    private List<PropagationPath> written() {
+        List<PropagationPath> paths = new ArrayList<>();
+        batches.forEach(paths::addAll);
+        return paths;
+    }
+
+    /**
+     * 路径的简要表示：source>target@time:type/pathLength
+     */
+    private List<String> describeWritten() {
+        List<String> described = new ArrayList<>();
+        for (PropagationPath path : written()) {
+            described.add(path.getSourceNode() + ">" + path.getTargetNode() + "@" + path.getPropagationTime()
+                    + ":" + path.getType() + "/" + path.getPathLength());
+        }
+        return described;
+    }
+
+    @Test
+    void csvWithoutHeaderUsesDefaultColumnOrder() throws IOException {
+        Map<String, Object> result = ingest(IngestFormat.CSV,
+                "a,b,1000,forward,3",
+                "",
+                " b , c ,2000,SHARE,");
+        assertEquals(2L, result.get("accepted"));
+        assertEquals(0L, result.get("rejected"));
+        assertEquals(List.of("a>b@1000:FORWARD/3", "b>c@2000:SHARE/1"), describeWritten());
+        assertEquals(RUMOR, written().get(0).getRumorId());
+    }
+
+    @Test
+    void csvQuotedFieldsKeepCommasAndEscapedQuotes() throws IOException {
+        ingest(IngestFormat.CSV, "\"a,1\",\"b \"\"x\"\"\",1000,\"LIKE\"");
+        assertEquals(List.of("a,1>b \"x\"@1000:LIKE/1"), describeWritten());
+    }
+
+    @Test
+    void csvHeaderRemapsColumns() throws IOException {
+        Map<String, Object> result = ingest(IngestFormat.CSV,
+                "Type, TARGETNODE ,extra,sourceNode,propagationTime,pathLength",
+                "COMMENT,b,ignored,a,1000,2");
+        assertEquals(1L, result.get("accepted"));
+        assertEquals(List.of("a>b@1000:COMMENT/2"), describeWritten());
+    }
+
+    @Test
+    void csvHeaderMissingRequiredColumnIsRejected() {
+        BusinessException error = assertThrows(BusinessException.class,
+                () -> ingest(IngestFormat.CSV, "sourceNode,targetNode,type", "a,b,FORWARD"));
+        assertTrue(error.getMessage().contains("propagationTime"), error.getMessage());
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void invalidCsvLinesAreRejectedWithLineNumbers() throws IOException {
+        Map<String, Object> result = ingest(IngestFormat.CSV,
+                "sourceNode,targetNode,propagationTime,type",
+                ",b,1000,FORWARD",
+                "a,b,soon,FORWARD",
+                "a,b,1000,",
+                "a,b,1000,RETWEET",
+                "a,b",
+                "a,b,1000,FORWARD");
+        assertEquals(1L, result.get("accepted"));
+        assertEquals(5L, result.get("rejected"));
+        assertEquals(List.of(
+                "第 2 行：缺少 sourceNode 或 targetNode",
+                "第 3 行：缺少或无效的 propagationTime",
+                "第 4 行：缺少 type",
+                "第 5 行：未知的 type：RETWEET",
+                "第 6 行：缺少或无效的 propagationTime"), result.get("errors"));
+    }
+
+    @Test
+    void errorDetailsAreCappedButAllRejectionsCounted() throws IOException {
+        String[] lines = new String[25];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = "a,,1000,FORWARD";
+        }
+        Map<String, Object> result = ingest(IngestFormat.CSV, lines);
+        assertEquals(25L, result.get("rejected"));
+        assertEquals(20, ((List<?>) result.get("errors")).size());
+        assertEquals(0L, result.get("accepted"));
+        verify(graphStore, never()).getState(RUMOR);
+    }
+
+    @Test
+    void ndjsonRecordsAreParsedAndInvalidOnesRejected() throws IOException {
+        Map<String, Object> result = ingest(IngestFormat.NDJSON,
+                "{\"sourceNode\": \"a\", \"targetNode\": \"b\", \"propagationTime\": 1000, \"type\": \"share\", "
+                        + "\"pathLength\": 2, \"meta\": {\"sourceNode\": \"x\"}}",
+                "{\"sourceNode\": 1, \"targetNode\": \"c\", \"propagationTime\": \"2000\", \"type\": \"LIKE\"}",
+                "[1, 2]",
+                "{\"sourceNode\": {\"id\": \"a\"}, \"targetNode\": \"b\", \"propagationTime\": 1, \"type\": \"LIKE\"}",
+                "{\"sourceNode\": \"a\", \"targetNode\": \"b\", \"propagationTime\": \"later\", \"type\": \"LIKE\"}");
+        assertEquals(List.of("a>b@1000:SHARE/2", "1>c@2000:LIKE/1"), describeWritten());
+        assertEquals(3L, result.get("rejected"));
+        assertEquals(List.of(
+                "第 3 行：记录不是 JSON 对象",
+                "第 4 行：缺少 sourceNode 或 targetNode",
+                "第 5 行：缺少或无效的 propagationTime"), result.get("errors"));
+    }
+
+    @Test
+    void malformedNdjsonReportsLineAndKeepsCommittedBatches() {
+        BusinessException error = assertThrows(BusinessException.class, () -> ingest(IngestFormat.NDJSON,
+                "{\"sourceNode\": \"a\", \"targetNode\": \"b\", \"propagationTime\": 1, \"type\": \"LIKE\"}",
+                "{\"sourceNode\": \"b\", \"targetNode\": \"c\", \"propagationTime\": 2, \"type\": \"LIKE\"}",
+                "{\"sourceNode\": \"c\", \"targetNode\": "));
+        assertTrue(error.getMessage().startsWith("第 3 行 JSON 格式错误"), error.getMessage());
+        assertTrue(error.getMessage().endsWith("已导入 2 条"), error.getMessage());
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void batchesAreWrittenAndGraphRefreshedOnce() throws IOException {
+        Map<String, Object> result = ingest(IngestFormat.CSV,
+                "a,b,1,FORWARD", "b,c,2,FORWARD", "c,d,3,FORWARD", "d,e,4,FORWARD", "e,f,5,FORWARD");
+        assertEquals(5L, result.get("accepted"));
+        assertEquals(3, result.get("batches"));
+        assertEquals(List.of(2, 2, 1), batches.stream().map(List::size).toList());
+        verify(versionRepository, times(3)).increment(RUMOR);
+        verify(graphStore, times(1)).getState(RUMOR);
+        verify(snapshotService, times(1)).markDirty(RUMOR);
+    }
+
+    @Test
+    void unknownRumorIsRejected() {
+        assertThrows(BusinessException.class,
+                () -> service.ingest(8L, new ByteArrayInputStream(new byte[0]), IngestFormat.CSV));
+    }
+
+    @Test
+    void typeNamesAreCaseInsensitive() throws IOException {
+        ingest(IngestFormat.CSV, "a,b,1, Forward ");
+        assertEquals(PropagationType.FORWARD, written().get(0).getType());
+    }
+}
@@ -0,0 +1,96 @@
+import http from 'k6/http';
+import { check } from 'k6';
+
+// 虚拟线程对比测试：大量请求阻塞在慢速大模型调用上时，轻量接口是否仍能及时响应
+// 用法见 run-virtual-thread-test.sh；PROFILE 只用于标记结果文件
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const PROFILE = __ENV.PROFILE || 'default';
+const LLM_RATE = parseInt(__ENV.LLM_RATE || '150');
+const LIGHT_RATE = parseInt(__ENV.LIGHT_RATE || '20');
+const DURATION = __ENV.DURATION || '2m';
+const USERNAME = __ENV.USERNAME || 'loadtest';
+const PASSWORD = __ENV.PASSWORD || 'loadtest123';
+// 后端降级时返回的默认分析结果
+const FALLBACK_RECOMMENDATION = '由于技术原因，无法提供分析结果';
+
+export let options = {
+  scenarios: {
+    // 每个请求阻塞约 DELAY_MS（替身上游延迟），150 req/s × 2 s 约需 300 个并发请求，超过 Tomcat 默认的 200 个工作线程
+    llm: {
+      executor: 'constant-arrival-rate',
+      exec: 'analyze',
+      rate: LLM_RATE,
+      timeUnit: '1s',
+      duration: DURATION,
+      preAllocatedVUs: 400,
+      maxVUs: 2000,
+    },
+    // 同时访问数据库的轻量接口
+    light: {
+      executor: 'constant-arrival-rate',
+      exec: 'listRumors',
+      rate: LIGHT_RATE,
+      timeUnit: '1s',
+      duration: DURATION,
+      preAllocatedVUs: 20,
+      maxVUs: 200,
+    },
+  },
+  thresholds: {
+    'http_req_duration{scenario:light}': ['p(95)<500'],
+    'http_req_failed{scenario:llm}': ['rate<0.01'],
+    'checks{scenario:llm}': ['rate>0.99'],
+  },
+};
+
+export function setup() {
+  const credentials = JSON.stringify({ username: USERNAME, password: PASSWORD });
+  const params = { headers: { 'Content-Type': 'application/json' } };
+  let response = http.post(`${BASE_URL}/api/auth/login`, credentials, params);
+  if (response.status !== 200) {
+    http.post(`${BASE_URL}/api/auth/register`, JSON.stringify({
+      username: USERNAME, password: PASSWORD, email: `${USERNAME}@example.com`, fullName: 'Load Test',
+    }), params);
+    response = http.post(`${BASE_URL}/api/auth/login`, credentials, params);
+  }
+  check(response, { '登录成功': (r) => r.status === 200 });
+  return { token: response.json('data.token') };
+}
+
+function headers(data) {
+  return { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${data.token}` } };
+}
+
+export function analyze(data) {
+  const response = http.post(`${BASE_URL}/api/deepseek/analyze/text`, JSON.stringify({
+    content: `负载测试谣言 ${__VU}-${__ITER}`,
+    type: 'TEXT',
+  }), headers(data));
+  // 排队超时、调用失败或超时时接口仍返回 200 与默认分析结果，按失败计
+  check(response, {
+    '分析状态为200': (r) => r.status === 200,
+    '非默认分析结果': (r) => r.status === 200 && r.json('data.verificationRecommendation') !== FALLBACK_RECOMMENDATION,
+  });
+}
+
+export function listRumors(data) {
+  const response = http.get(`${BASE_URL}/api/rumors?page=0&size=10`, headers(data));
+  check(response, { '列表状态为200': (r) => r.status === 200 });
+}
+
+export function handleSummary(data) {
+  const metric = (name) => data.metrics[name] ? data.metrics[name].values : {};
+  const summary = {
+    profile: PROFILE,
+    llmRate: LLM_RATE,
+    iterations: metric('iterations').count,
+    droppedIterations: metric('dropped_iterations').count || 0,
+    llmDuration: metric('http_req_duration{scenario:llm}'),
+    lightDuration: metric('http_req_duration{scenario:light}'),
+    failedRate: metric('http_req_failed').rate,
+  };
+  return {
+    stdout: JSON.stringify(summary, null, 2) + '\n',
+    [`virtual-threads-${PROFILE}.json`]: JSON.stringify(data, null, 2),
+  };
+}
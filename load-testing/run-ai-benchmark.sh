@@ -0,0 +1,29 @@
+#!/bin/bash
+# DeepSeek 分析链路基准：启动本地 DeepSeek 替身，用 JMH 测量 analyzeRumor 的吞吐、延迟分布、
+# 每次分析的分配字节数与线程占用，不消耗 API 额度，也不需要 MySQL / Redis
+#
+# 环境变量：替身参数见 slow-upstream.py（默认 LATENCY=lognormal、DELAY_MS=50）
+#           JMH_ARGS 附加的 JMH 参数，例如 "-p maxBatchSize=1,8 -p hedge=false,true"
+# 需要 JDK 21 与 Maven
+
+set -e
+cd "$(dirname "$0")"
+
+export LATENCY=${LATENCY:-lognormal}
+export DELAY_MS=${DELAY_MS:-50}
+UPSTREAM_PORT=${UPSTREAM_PORT:-18080}
+
+echo "启动 DeepSeek 替身（${LATENCY}，${DELAY_MS} ms）..."
+PORT=$UPSTREAM_PORT python3 slow-upstream.py &
+UPSTREAM_PID=$!
+trap 'kill $UPSTREAM_PID 2> /dev/null' EXIT
+sleep 1
+
+RESULT=$(pwd)/ai-benchmark.json
+(cd ../backend && mvn -q -Pbenchmark test-compile exec:exec \
+    -Djmh.args="DeepSeekAnalysisBenchmark -p url=http://localhost:$UPSTREAM_PORT -prof gc -rf json -rff $RESULT $JMH_ARGS")
+
+echo "===================="
+echo "替身统计: $(curl -s http://localhost:$UPSTREAM_PORT/stats)"
+echo "结果已保存到 ai-benchmark.json"
+echo "对比 throughput 的 ops/s、latency 的 p0.99、gc.alloc.rate.norm（B/op）以及每轮输出的 threads 行"
@@ -0,0 +1,55 @@
+#!/bin/bash
+# 对比平台线程与虚拟线程（virtual-threads profile）下的并发能力
+# 依次以两种 profile 启动后端，请求阻塞在慢速 DeepSeek 替身上，用 k6 施加相同的负载
+#
+# 环境变量：DELAY_MS（替身延迟，默认 2000）、LLM_RATE（每秒分析请求数，默认 150）、DURATION（默认 2m）
+# 需要本地 MySQL / Redis 已启动，并已安装 k6 与 JDK 21
+
+set -e
+cd "$(dirname "$0")"
+
+if ! command -v k6 &> /dev/null; then
+    echo "K6未安装，请先安装K6"
+    exit 1
+fi
+
+DELAY_MS=${DELAY_MS:-2000}
+UPSTREAM_PORT=${UPSTREAM_PORT:-18080}
+
+# 放开调度限流与在途上限、关闭结果缓存，分析请求全部打到替身上游，对比的是线程模型而不是限流与缓存
+export AI_DISPATCH_RPS=${AI_DISPATCH_RPS:-100000}
+export AI_DISPATCH_MAX_IN_FLIGHT=${AI_DISPATCH_MAX_IN_FLIGHT:-100000}
+export AI_CACHE_ENABLED=false
+
+echo "启动慢速 DeepSeek 替身（延迟 ${DELAY_MS} ms）..."
+DELAY_MS=$DELAY_MS PORT=$UPSTREAM_PORT python3 slow-upstream.py &
+UPSTREAM_PID=$!
+trap 'kill $UPSTREAM_PID $BACKEND_PID 2> /dev/null' EXIT
+
+(cd ../backend && mvn -q -DskipTests package)
+
+for PROFILE in default virtual-threads; do
+    echo "===================="
+    echo "以 profile: ${PROFILE} 启动后端..."
+    AI_SERVICE_URL=http://localhost:$UPSTREAM_PORT SPRING_PROFILES_ACTIVE=$PROFILE \
+        java -jar ../backend/target/tracing-1.0.0.jar > backend-$PROFILE.log 2>&1 &
+    BACKEND_PID=$!
+
+    # 等待后端开始接受请求（未认证时返回 401 也视为已启动）
+    for i in $(seq 1 120); do
+        STATUS=$(curl -s -o /dev/null -w "%{http_code}" http://localhost:8080/actuator/health || true)
+        if [ "$STATUS" != "000" ]; then
+            break
+        fi
+        sleep 1
+    done
+
+    k6 run -e PROFILE=$PROFILE ./k6-virtual-threads.js || true
+
+    kill $BACKEND_PID
+    wait $BACKEND_PID 2> /dev/null || true
+done
+
+echo "===================="
+echo "测试完成，结果已保存到 virtual-threads-default.json 与 virtual-threads-virtual-threads.json"
+echo "对比 llmDuration 的 p(95)、droppedIterations 以及 light 场景的响应时间"
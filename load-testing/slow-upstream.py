@@ -0,0 +1,211 @@
+#!/usr/bin/env python3
+"""
+DeepSeek 替身：模拟 POST /chat/completions，用于在不消耗 API 额度的情况下压测分析链路。
+支持延迟分布、错误注入（500 / 429 + Retry-After / 超时挂起 / 非法 JSON）、流式输出（stream: true）
+与批量请求（按 [编号] 拆分，返回 {"results": [...]}）。GET /stats 返回请求计数与最大并发。
+
+环境变量：
+  PORT               监听端口，默认 18080
+  LATENCY            延迟分布：fixed | uniform | lognormal | bimodal，默认 fixed
+  DELAY_MS           fixed 的延迟；uniform 的下限；lognormal 的中位数；bimodal 的快速延迟。默认 2000
+  DELAY_MAX_MS       uniform 的上限，默认 DELAY_MS 的 2 倍
+  LATENCY_SIGMA      lognormal 的对数标准差，默认 0.5
+  SLOW_RATE          bimodal 中慢请求的比例，默认 0.05
+  SLOW_DELAY_MS      bimodal 中慢请求的延迟，默认 DELAY_MS 的 5 倍
+  ERROR_RATE         返回 500 的比例，默认 0
+  RATE_LIMIT_RATE    返回 429 的比例，默认 0
+  RETRY_AFTER        429 响应的 Retry-After（秒），默认 1
+  HANG_RATE          挂起 HANG_MS 后才响应的比例（触发客户端超时），默认 0
+  HANG_MS            挂起时长，默认 120000
+  MALFORMED_RATE     返回非 JSON 内容的比例，默认 0
+  CHUNK_SIZE         流式输出每段的字符数，默认 8
+  CHUNK_DELAY_MS     流式输出相邻两段的间隔，默认 20；首段前等待按延迟分布抽样
+  PAYLOAD_FILE       分析结果 JSON 文件（对象或对象数组，数组时随机选取），默认使用内置结果
+  SEED               随机种子，便于复现
+
+用法: LATENCY=lognormal DELAY_MS=800 ERROR_RATE=0.02 python3 slow-upstream.py
+"""
+import json
+import os
+import random
+import re
+import threading
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+PORT = int(os.environ.get("PORT", "18080"))
+LATENCY = os.environ.get("LATENCY", "fixed")
+DELAY_MS = float(os.environ.get("DELAY_MS", "2000"))
+DELAY_MAX_MS = float(os.environ.get("DELAY_MAX_MS", str(DELAY_MS * 2)))
+LATENCY_SIGMA = float(os.environ.get("LATENCY_SIGMA", "0.5"))
+SLOW_RATE = float(os.environ.get("SLOW_RATE", "0.05"))
+SLOW_DELAY_MS = float(os.environ.get("SLOW_DELAY_MS", str(DELAY_MS * 5)))
+ERROR_RATE = float(os.environ.get("ERROR_RATE", "0"))
+RATE_LIMIT_RATE = float(os.environ.get("RATE_LIMIT_RATE", "0"))
+RETRY_AFTER = os.environ.get("RETRY_AFTER", "1")
+HANG_RATE = float(os.environ.get("HANG_RATE", "0"))
+HANG_MS = float(os.environ.get("HANG_MS", "120000"))
+MALFORMED_RATE = float(os.environ.get("MALFORMED_RATE", "0"))
+CHUNK_SIZE = int(os.environ.get("CHUNK_SIZE", "8"))
+CHUNK_DELAY_MS = float(os.environ.get("CHUNK_DELAY_MS", "20"))
+PAYLOAD_FILE = os.environ.get("PAYLOAD_FILE")
+
+if "SEED" in os.environ:
+    random.seed(int(os.environ["SEED"]))
+
+DEFAULT_PAYLOAD = {
+    "credibilityScore": 0.35,
+    "factCheckingPoints": ["未找到官方来源"],
+    "misinformationIndicators": ["缺乏可靠来源"],
+    "verificationRecommendation": "建议通过官方渠道核实",
+    "sourceAnalysis": {"reliability": 0.2, "reputation": "自媒体", "concerns": ["数据来源不明"]},
+}
+
+
+def load_payloads():
+    if not PAYLOAD_FILE:
+        return [DEFAULT_PAYLOAD]
+    with open(PAYLOAD_FILE, encoding="utf-8") as f:
+        data = json.load(f)
+    return data if isinstance(data, list) else [data]
+
+
+PAYLOADS = load_payloads()
+
+# 批量请求中每条信息以 [编号] 开头
+BATCH_ITEM = re.compile(r"^\[(\d+)\]$", re.MULTILINE)
+
+
+class Stats:
+    def __init__(self):
+        self.lock = threading.Lock()
+        self.counts = {}
+        self.active = 0
+        self.max_active = 0
+
+    def start(self):
+        with self.lock:
+            self.active += 1
+            self.max_active = max(self.max_active, self.active)
+
+    def finish(self, outcome):
+        with self.lock:
+            self.active -= 1
+            self.counts[outcome] = self.counts.get(outcome, 0) + 1
+
+    def snapshot(self):
+        with self.lock:
+            return {"counts": dict(self.counts), "active": self.active, "maxActive": self.max_active}
+
+
+STATS = Stats()
+
+
+def sample_delay_ms():
+    if LATENCY == "uniform":
+        return random.uniform(DELAY_MS, DELAY_MAX_MS)
+    if LATENCY == "lognormal":
+        return random.lognormvariate(0, LATENCY_SIGMA) * DELAY_MS
+    if LATENCY == "bimodal":
+        return SLOW_DELAY_MS if random.random() < SLOW_RATE else DELAY_MS
+    return DELAY_MS
+
+
+def analysis_content(request):
+    """模型输出的内容：单条为分析结果 JSON，批量为 {"results": [...]}"""
+    if random.random() < MALFORMED_RATE:
+        return "抱歉，我无法以 JSON 格式回答"
+    messages = request.get("messages", [])
+    system = messages[0].get("content", "") if messages else ""
+    user = messages[-1].get("content", "") if messages else ""
+    if '"results"' in system:
+        results = [dict(random.choice(PAYLOADS), index=int(i)) for i in BATCH_ITEM.findall(user)]
+        return json.dumps({"results": results}, ensure_ascii=False)
+    return json.dumps(random.choice(PAYLOADS), ensure_ascii=False)
+
+
+class Handler(BaseHTTPRequestHandler):
+    protocol_version = "HTTP/1.1"
+
+    def do_GET(self):
+        if self.path.rstrip("/") == "/stats":
+            self.send_json(200, STATS.snapshot())
+        else:
+            self.send_json(404, {"error": {"message": "not found"}})
+
+    def do_POST(self):
+        body = self.rfile.read(int(self.headers.get("Content-Length", 0)))
+        STATS.start()
+        outcome = "ok"
+        try:
+            request = json.loads(body or b"{}")
+            roll = random.random()
+            if roll < HANG_RATE:
+                outcome = "hang"
+                time.sleep(HANG_MS / 1000.0)
+            time.sleep(sample_delay_ms() / 1000.0)
+            roll = random.random()
+            if roll < ERROR_RATE:
+                outcome = "error"
+                self.send_json(500, {"error": {"message": "internal error", "type": "server_error"}})
+            elif roll < ERROR_RATE + RATE_LIMIT_RATE:
+                outcome = "rate_limited"
+                self.send_json(429, {"error": {"message": "rate limit reached", "type": "rate_limit"}},
+                               {"Retry-After": RETRY_AFTER})
+            elif request.get("stream"):
+                outcome = "stream"
+                self.send_stream(analysis_content(request))
+            else:
+                self.send_json(200, {
+                    "id": "mock-%d" % random.getrandbits(32),
+                    "object": "chat.completion",
+                    "model": request.get("model", "deepseek-chat"),
+                    "choices": [{"index": 0,
+                                 "message": {"role": "assistant", "content": analysis_content(request)},
+                                 "finish_reason": "stop"}],
+                })
+        except (BrokenPipeError, ConnectionResetError):
+            outcome = "disconnected"
+        finally:
+            STATS.finish(outcome)
+
+    def send_json(self, status, payload, headers=None):
+        data = json.dumps(payload, ensure_ascii=False).encode("utf-8")
+        self.send_response(status)
+        self.send_header("Content-Type", "application/json; charset=utf-8")
+        self.send_header("Content-Length", str(len(data)))
+        for name, value in (headers or {}).items():
+            self.send_header(name, value)
+        self.end_headers()
+        self.wfile.write(data)
+
+    def send_stream(self, content):
+        """以 SSE 分段输出，chunked 编码保持长连接可复用"""
+        self.send_response(200)
+        self.send_header("Content-Type", "text/event-stream; charset=utf-8")
+        self.send_header("Transfer-Encoding", "chunked")
+        self.end_headers()
+        for i in range(0, len(content), CHUNK_SIZE):
+            if i > 0:
+                time.sleep(CHUNK_DELAY_MS / 1000.0)
+            chunk = {"choices": [{"index": 0, "delta": {"content": content[i:i + CHUNK_SIZE]}}]}
+            self.write_chunk("data: %s\n\n" % json.dumps(chunk, ensure_ascii=False))
+        self.write_chunk("data: [DONE]\n\n")
+        self.wfile.write(b"0\r\n\r\n")
+        self.wfile.flush()
+
+    def write_chunk(self, text):
+        data = text.encode("utf-8")
+        self.wfile.write(b"%x\r\n%s\r\n" % (len(data), data))
+        self.wfile.flush()
+
+    def log_message(self, format, *args):
+        pass
+
+
+if __name__ == "__main__":
+    ThreadingHTTPServer.daemon_threads = True
+    ThreadingHTTPServer.request_queue_size = 1024
+    print(f"DeepSeek stand-in listening on :{PORT}, latency {LATENCY} {DELAY_MS:.0f} ms, "
+          f"errors {ERROR_RATE}, 429 {RATE_LIMIT_RATE}, hang {HANG_RATE}")
+    ThreadingHTTPServer(("0.0.0.0", PORT), Handler).serve_forever()